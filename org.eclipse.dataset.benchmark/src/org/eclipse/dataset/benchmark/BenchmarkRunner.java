@@ -0,0 +1,45 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs benchmarks and writes results as JSON so they can be compared between releases.
+ * <p>
+ * Takes the usual JMH command line options; unless given, results are written to
+ * <code>jmh-result.json</code> in the working directory. For example:
+ * <pre>
+ * java -jar target/benchmarks.jar ElementwiseBenchmark -p dtype=FLOAT64 -rff maths.json
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * Default name of file that results are written to
+	 */
+	public static final String RESULT_FILE = "jmh-result.json";
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmd);
+		if (!cmd.getResultFormat().hasValue()) {
+			builder.resultFormat(ResultFormatType.JSON);
+		}
+		if (!cmd.getResult().hasValue()) {
+			builder.result(RESULT_FILE);
+		}
+		new Runner(builder.build()).run();
+	}
+}
@@ -0,0 +1,83 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.benchmark;
+
+import org.eclipse.dataset.Slice;
+import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.DatasetUtils;
+import org.eclipse.dataset.dense.Random;
+
+/**
+ * Helpers for creating benchmark inputs
+ */
+public class BenchmarkUtils {
+
+	/**
+	 * Layout of contiguous dataset
+	 */
+	public static final String CONTIGUOUS = "contiguous";
+
+	/**
+	 * Layout of dataset that is broadcast against another
+	 */
+	public static final String BROADCAST = "broadcast";
+
+	/**
+	 * Layout of strided view of a larger dataset
+	 */
+	public static final String STRIDED = "strided";
+
+	/**
+	 * @param name of dataset type as used in {@link Dataset}, e.g. FLOAT64
+	 * @return dataset type
+	 */
+	public static int getDType(String name) {
+		try {
+			return Dataset.class.getField(name).getInt(null);
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Unknown dataset type: " + name, e);
+		}
+	}
+
+	/**
+	 * Create dataset of random values
+	 * @param dtype
+	 * @param shape
+	 * @return dataset
+	 */
+	public static Dataset create(int dtype, int... shape) {
+		Random.seed(12345L);
+		Dataset a = Random.rand(-100, 100, shape);
+		if (dtype == Dataset.COMPLEX64 || dtype == Dataset.COMPLEX128) {
+			Dataset b = Random.rand(-100, 100, shape);
+			return DatasetUtils.cast(new Dataset[] {a, b}, dtype);
+		}
+		return a.cast(dtype);
+	}
+
+	/**
+	 * Create dataset with given layout
+	 * @param layout one of {@link #CONTIGUOUS}, {@link #BROADCAST} or {@link #STRIDED}
+	 * @param dtype
+	 * @param rows
+	 * @param cols
+	 * @return dataset with shape rows x cols, or 1 x cols if broadcast
+	 */
+	public static Dataset create(String layout, int dtype, int rows, int cols) {
+		if (CONTIGUOUS.equals(layout)) {
+			return create(dtype, rows, cols);
+		} else if (BROADCAST.equals(layout)) {
+			return create(dtype, 1, cols);
+		} else if (STRIDED.equals(layout)) {
+			return create(dtype, 2 * rows, cols + 1).getSliceView(new Slice(null, null, 2), new Slice(cols));
+		}
+		throw new IllegalArgumentException("Unknown layout: " + layout);
+	}
+}
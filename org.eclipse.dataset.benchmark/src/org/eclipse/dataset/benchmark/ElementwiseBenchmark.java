@@ -0,0 +1,100 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.Maths;
+import org.eclipse.dataset.dense.ParallelUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Element-wise functions in {@link Maths} across dataset types and input layouts. The second
+ * operand has the given layout and output is written to a preallocated dataset
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElementwiseBenchmark {
+
+	@Param({"INT16", "INT32", "INT64", "FLOAT32", "FLOAT64", "COMPLEX128"})
+	public String dtype;
+
+	@Param({BenchmarkUtils.CONTIGUOUS, BenchmarkUtils.BROADCAST, BenchmarkUtils.STRIDED})
+	public String layout;
+
+	@Param({"1000", "1000000"})
+	public int size;
+
+	@Param({"false", "true"})
+	public boolean parallel;
+
+	private Dataset a;
+	private Dataset b;
+	private Dataset o;
+
+	@Setup
+	public void setup() {
+		final int type = BenchmarkUtils.getDType(dtype);
+		final int cols = 100;
+		final int rows = Math.max(1, size / cols);
+		a = BenchmarkUtils.create(type, rows, cols);
+		b = BenchmarkUtils.create(layout, type, rows, cols);
+		o = a.clone();
+		if (parallel) {
+			ParallelUtils.enable();
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		ParallelUtils.disable();
+	}
+
+	@Benchmark
+	public Dataset add() {
+		return Maths.add(a, b, o);
+	}
+
+	@Benchmark
+	public Dataset multiply() {
+		return Maths.multiply(a, b, o);
+	}
+
+	@Benchmark
+	public Dataset divide() {
+		return Maths.dividez(a, b, o);
+	}
+
+	@Benchmark
+	public Dataset sin() {
+		return Maths.sin(b, o);
+	}
+
+	@Benchmark
+	public Dataset allocatingAdd() {
+		return Maths.add(a, b);
+	}
+}
@@ -0,0 +1,86 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.dataset.dense.BroadcastIterator;
+import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.IndexIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single and pair iterators over contiguous, broadcast and strided datasets
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IteratorBenchmark {
+
+	@Param({BenchmarkUtils.CONTIGUOUS, BenchmarkUtils.BROADCAST, BenchmarkUtils.STRIDED})
+	public String layout;
+
+	@Param({"1000", "1000000"})
+	public int size;
+
+	private Dataset a;
+	private Dataset b;
+
+	@Setup
+	public void setup() {
+		final int cols = 100;
+		final int rows = Math.max(1, size / cols);
+		a = BenchmarkUtils.create(Dataset.FLOAT64, rows, cols);
+		b = BenchmarkUtils.create(layout, Dataset.FLOAT64, rows, cols);
+	}
+
+	@Benchmark
+	public double single() {
+		final IndexIterator it = b.getIterator();
+		double sum = 0;
+		while (it.hasNext()) {
+			sum += b.getElementDoubleAbs(it.index);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double singleWithPosition() {
+		final IndexIterator it = b.getIterator(true);
+		double sum = 0;
+		while (it.hasNext()) {
+			sum += b.getElementDoubleAbs(it.index);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double pair() {
+		final BroadcastIterator it = BroadcastIterator.createIterator(a, b);
+		double sum = 0;
+		while (it.hasNext()) {
+			sum += it.aDouble * it.bDouble;
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,99 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.dataset.DatasetException;
+import org.eclipse.dataset.IDataset;
+import org.eclipse.dataset.IMonitor;
+import org.eclipse.dataset.Slice;
+import org.eclipse.dataset.SliceND;
+import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.internal.dense.LazyDataset;
+import org.eclipse.dataset.io.ChunkCache;
+import org.eclipse.dataset.io.ILazyLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Slicing a lazy stack of images whose loader has a fixed latency per read, as when reading from
+ * network storage. Each call steps through overlapping blocks of frames
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LazySliceBenchmark {
+
+	@Param({"0", "100"})
+	public int latencyMicros;
+
+	@Param({"false", "true"})
+	public boolean cache;
+
+	private static final int FRAMES = 32;
+	private static final int BLOCK = 4;
+
+	private LazyDataset lazy;
+
+	@Setup
+	public void setup() {
+		final Dataset data = BenchmarkUtils.create(Dataset.INT16, FRAMES, 256, 256);
+		final long latency = latencyMicros * 1000L;
+		lazy = new LazyDataset("stack", data.getDType(), data.getShape(), new ILazyLoader() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public boolean isFileReadable() {
+				return true;
+			}
+
+			@Override
+			public IDataset getDataset(IMonitor mon, SliceND slice) throws DatasetException {
+				if (latency > 0) {
+					final long end = System.nanoTime() + latency;
+					while (System.nanoTime() < end) {
+						// busy wait for consistent latency
+					}
+				}
+				return data.getSlice(mon, slice);
+			}
+		});
+		if (cache) {
+			lazy.setCache(new ChunkCache());
+		}
+	}
+
+	@Benchmark
+	public Dataset frame() {
+		return lazy.getSlice(new Slice(FRAMES / 2, FRAMES / 2 + 1));
+	}
+
+	@Benchmark
+	public double steppedBlocks() {
+		double total = 0;
+		for (int i = 0; i <= FRAMES - BLOCK; i++) {
+			total += lazy.getSlice(new Slice(i, i + BLOCK), new Slice(64, 192), null).getSize();
+		}
+		return total;
+	}
+}
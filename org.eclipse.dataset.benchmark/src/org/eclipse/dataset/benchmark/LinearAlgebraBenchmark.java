@@ -0,0 +1,71 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.LinearAlgebra;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Matrix and tensor products in {@link LinearAlgebra}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinearAlgebraBenchmark {
+
+	@Param({"FLOAT32", "FLOAT64"})
+	public String dtype;
+
+	@Param({"16", "128", "512"})
+	public int n;
+
+	private Dataset a;
+	private Dataset b;
+	private Dataset v;
+
+	@Setup
+	public void setup() {
+		final int type = BenchmarkUtils.getDType(dtype);
+		a = BenchmarkUtils.create(type, n, n);
+		b = BenchmarkUtils.create(type, n, n);
+		v = BenchmarkUtils.create(type, n);
+	}
+
+	@Benchmark
+	public Dataset matrixMatrix() {
+		return LinearAlgebra.dotProduct(a, b);
+	}
+
+	@Benchmark
+	public Dataset matrixVector() {
+		return LinearAlgebra.dotProduct(a, v);
+	}
+
+	@Benchmark
+	public Dataset tensorDot() {
+		return LinearAlgebra.tensorDotProduct(a, b, 0, 0);
+	}
+}
@@ -0,0 +1,118 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.ParallelUtils;
+import org.eclipse.dataset.dense.Stats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reductions over whole datasets and along an axis, and {@link Stats} median and quantiles.
+ * Stored values are cleared before each call so every call recomputes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReductionBenchmark {
+
+	@Param({"INT32", "FLOAT64"})
+	public String dtype;
+
+	@Param({BenchmarkUtils.CONTIGUOUS, BenchmarkUtils.STRIDED})
+	public String layout;
+
+	@Param({"1000", "1000000"})
+	public int size;
+
+	@Param({"false", "true"})
+	public boolean parallel;
+
+	private Dataset a;
+
+	@Setup
+	public void setup() {
+		final int cols = 100;
+		final int rows = Math.max(1, size / cols);
+		a = BenchmarkUtils.create(layout, BenchmarkUtils.getDType(dtype), rows, cols);
+		if (parallel) {
+			ParallelUtils.enable();
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		ParallelUtils.disable();
+	}
+
+	@Benchmark
+	public Object sum() {
+		a.setDirty();
+		return a.sum();
+	}
+
+	@Benchmark
+	public Object max() {
+		a.setDirty();
+		return a.max();
+	}
+
+	@Benchmark
+	public Object variance() {
+		a.setDirty();
+		return a.variance();
+	}
+
+	@Benchmark
+	public Dataset sumAxis() {
+		a.setDirty();
+		return a.sum(0);
+	}
+
+	@Benchmark
+	public Dataset varianceAxis() {
+		a.setDirty();
+		return a.variance(1);
+	}
+
+	@Benchmark
+	public Object median() {
+		a.setDirty();
+		return Stats.median(a);
+	}
+
+	@Benchmark
+	public double[] quantiles() {
+		a.setDirty();
+		return Stats.quantile(a, 0.05, 0.25, 0.75, 0.95);
+	}
+
+	@Benchmark
+	public Dataset medianAxis() {
+		a.setDirty();
+		return Stats.median(a, 1);
+	}
+}
@@ -32,6 +32,7 @@ import org.eclipse.dataset.dense.DatasetUtils;
 import org.eclipse.dataset.dense.DTypeUtils;
 import org.eclipse.dataset.dense.IndexIterator;
 import org.eclipse.dataset.dense.Maths;
+import org.eclipse.dataset.dense.ParallelUtils;
 import org.eclipse.dataset.dense.Random;
 import org.eclipse.dataset.internal.dense.AbstractDataset;
 import org.eclipse.dataset.internal.dense.BooleanDataset;
@@ -252,6 +253,135 @@ public class AbstractDatasetTest {
 		assertEquals("Hash code", a.hashCode(), b.hashCode());
 	}
 
+	@Test
+	public void testStoredValues() throws Exception {
+		final Dataset a = DatasetFactory.createRange(12, Dataset.FLOAT64);
+		a.setShape(3, 4);
+		assertEquals(11, a.max().doubleValue(), 0);
+		assertArrayEquals(new int[] {4}, a.max(0).getShape());
+		a.setStoredValue("test", 1);
+		a.setStoredValue("test-0", 2);
+
+		// views share values until one changes
+		Dataset v = a.getView();
+		assertEquals(1, v.getStoredValue("test"));
+		v.setStoredValue("test", 3);
+		assertEquals(1, a.getStoredValue("test"));
+		assertEquals(3, v.getStoredValue("test"));
+
+		// reshaping only removes values that depend on shape
+		v.setShape(4, 3);
+		assertEquals(3, v.getStoredValue("test"));
+		assertEquals(null, v.getStoredValue("test-0"));
+		assertEquals(2, a.getStoredValue("test-0"));
+		assertArrayEquals(new int[] {3}, v.max(0).getShape());
+		assertArrayEquals(new int[] {4}, a.max(0).getShape());
+		assertEquals(11, v.max().doubleValue(), 0);
+
+		Dataset t = a.getTransposedView();
+		assertEquals(1, t.getStoredValue("test"));
+		assertEquals(null, t.getStoredValue("test-0"));
+		assertArrayEquals(new int[] {4}, t.max(1).getShape());
+		assertEquals(a.max(0), t.max(1));
+
+		// changes invalidate only the changed dataset
+		Dataset c = a.clone();
+		c.set(20, 1, 1);
+		assertEquals(20, c.max().doubleValue(), 0);
+		assertEquals(null, c.getStoredValue("test"));
+		assertEquals(11, a.max().doubleValue(), 0);
+		assertEquals(1, a.getStoredValue("test"));
+
+		// hash depends on type
+		assertFalse(a.hashCode() == a.cast(Dataset.FLOAT32).hashCode());
+
+		// concurrent readers of a view that starts with shared values
+		final Dataset o = Random.rand(new int[] {200, 300});
+		final double max = o.max().doubleValue();
+		final double mean = ((Number) o.clone().mean()).doubleValue();
+		final Dataset sum = o.clone().sum(1);
+		final int[] pos = o.clone().minPos();
+		final Dataset r = o.getView();
+		Thread[] threads = new Thread[4];
+		final boolean[] okay = new boolean[threads.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int j = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					boolean ok = true;
+					for (int k = 0; k < 20; k++) {
+						ok &= r.max().doubleValue() == max;
+						ok &= ((Number) r.mean()).doubleValue() == mean;
+						ok &= r.sum(1).equals(sum);
+						ok &= Arrays.equals(pos, r.minPos());
+					}
+					okay[j] = ok;
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread th : threads) {
+			th.join();
+		}
+		for (boolean ok : okay) {
+			assertTrue(ok);
+		}
+	}
+
+	@Test
+	public void testParallelReductions() {
+		Random.seed(12735L);
+		Dataset a = Random.randn(new int[] {53, 47, 31}); // large enough to split
+		a.set(Double.NaN, 3, 4, 5);
+		Dataset b = a.getSliceView(new Slice(null, null, 2), null, new Slice(1, null));
+
+		int threshold = ParallelUtils.getThreshold();
+		for (Dataset d : new Dataset[] {a, b, a.cast(Dataset.INT32)}) {
+			// serial results
+			Dataset s = d.clone();
+			int hash = s.hashCode();
+			double max = s.max(true).doubleValue();
+			double min = s.min(true).doubleValue();
+			double sum = ((Number) s.sum(true)).doubleValue();
+			double mean = ((Number) s.mean(true)).doubleValue();
+			long count = s.count(true);
+			int argMax = s.argMax(true);
+			double variance = s.variance().doubleValue();
+			int rank = d.getRank();
+			Dataset[][] axes = new Dataset[rank][];
+			for (int i = 0; i < rank; i++) {
+				axes[i] = new Dataset[] {s.sum(i), s.mean(true, i), s.variance(i), s.max(i), s.argMin(true, i)};
+			}
+
+			try {
+				ParallelUtils.enable(3);
+				ParallelUtils.setThreshold(32);
+				Dataset p = d.clone();
+				assertEquals("Hash code", hash, p.hashCode());
+				p = d.clone();
+				assertEquals(max, p.max(true).doubleValue(), 0);
+				assertEquals(min, p.min(true).doubleValue(), 0);
+				assertEquals(sum, ((Number) p.sum(true)).doubleValue(), 0);
+				assertEquals(mean, ((Number) p.mean(true)).doubleValue(), 0);
+				assertEquals(count, p.count(true));
+				assertEquals(argMax, p.argMax(true));
+				assertEquals(variance, p.variance().doubleValue(), 0);
+				assertEquals("Hash code", hash, p.hashCode());
+				for (int i = 0; i < rank; i++) {
+					assertTrue(equalsWithNaNs(axes[i][0], p.sum(i)));
+					assertTrue(equalsWithNaNs(axes[i][1], p.mean(true, i)));
+					assertTrue(equalsWithNaNs(axes[i][2], p.variance(i)));
+					assertTrue(equalsWithNaNs(axes[i][3], p.max(i)));
+					assertEquals(axes[i][4], p.argMin(true, i));
+				}
+			} finally {
+				ParallelUtils.disable();
+				ParallelUtils.setThreshold(threshold);
+			}
+		}
+	}
+
 	private static boolean equalsWithNaNs(Dataset a, Dataset b) {
 		if (a.equals(b))
 			return true;
@@ -1567,6 +1697,50 @@ public class AbstractDatasetTest {
 		TestUtils.assertDatasetEquals(a, v.getBy1DIndex(indexes), true, 1e-6, 1e-6);
 	}
 
+	@Test
+	public void testUnique() {
+		Dataset a = new DoubleDataset(new double[] {0, 0, 3, 7, -4, 2, 1, Double.NaN, 3, -0.0, Double.NaN}, null);
+		TestUtils.assertDatasetEquals(new DoubleDataset(new double[] {-4, -0.0, 0, 1, 2, 3, 7, Double.NaN}, null), a.getUniqueItems(), true, 0, 0);
+
+		a = new IntegerDataset(new int[] {5, -2, 5, 8, 0, -2, 5}, 7);
+		Dataset[] r = DatasetUtils.unique(a, true, true);
+		TestUtils.assertDatasetEquals(new IntegerDataset(new int[] {-2, 0, 5, 8}, null), r[0], true, 0, 0);
+		TestUtils.assertDatasetEquals(new IntegerDataset(new int[] {2, 0, 2, 3, 1, 0, 2}, null), r[1], true, 0, 0);
+		TestUtils.assertDatasetEquals(new IntegerDataset(new int[] {2, 1, 3, 1}, null), r[2], true, 0, 0);
+		TestUtils.assertDatasetEquals(a, r[0].getBy1DIndex((IntegerDataset) r[1]), true, 0, 0);
+		Assert.assertNull(DatasetUtils.unique(a, false, true)[1]);
+
+		r = DatasetUtils.unique(new StringDataset(new String[] {"b", "a", "b", "c"}, null), true, false);
+		Assert.assertArrayEquals(new String[] {"a", "b", "c"}, ((StringDataset) r[0]).getData());
+		TestUtils.assertDatasetEquals(new IntegerDataset(new int[] {1, 0, 1, 2}, null), r[1], true, 0, 0);
+		Assert.assertNull(r[2]);
+
+		r = DatasetUtils.unique(new BooleanDataset(new boolean[] {true, true}, null), false, true);
+		TestUtils.assertDatasetEquals(new BooleanDataset(new boolean[] {true}, null), r[0], true, 0, 0);
+		TestUtils.assertDatasetEquals(new IntegerDataset(new int[] {2}, null), r[2], true, 0, 0);
+
+		// compare serial and parallel on views of each integer and real type
+		a = Random.randint(-300, 300, new int[] {300, 400});
+		for (int dtype : new int[] {Dataset.INT8, Dataset.INT16, Dataset.INT32, Dataset.INT64, Dataset.FLOAT32, Dataset.FLOAT64}) {
+			Dataset b = a.cast(dtype).getSliceView(new Slice(1, null, 2), new Slice(null, null, 3));
+			Dataset[] e = DatasetUtils.unique(b, true, true);
+			ParallelUtils.enable(3);
+			int threshold = ParallelUtils.getThreshold();
+			ParallelUtils.setThreshold(1024);
+			try {
+				r = DatasetUtils.unique(b, true, true);
+			} finally {
+				ParallelUtils.setThreshold(threshold);
+				ParallelUtils.disable();
+			}
+			for (int i = 0; i < 3; i++) {
+				TestUtils.assertDatasetEquals(e[i], r[i], true, 0, 0);
+			}
+			TestUtils.assertDatasetEquals(b, e[0].getBy1DIndex((IntegerDataset) e[1]), true, 0, 0);
+			Assert.assertEquals(b.getSize(), ((Number) e[2].sum()).intValue());
+		}
+	}
+
 	@Test
 	public void testAppend() {
 		double[] x = { 0., 1., 2., 3., 4., 5. };
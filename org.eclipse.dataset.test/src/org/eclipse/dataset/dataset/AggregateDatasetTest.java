@@ -14,13 +14,21 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import java.util.Arrays;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.dataset.DatasetException;
+import org.eclipse.dataset.IDataset;
 import org.eclipse.dataset.ILazyDataset;
+import org.eclipse.dataset.IMonitor;
 import org.eclipse.dataset.Slice;
+import org.eclipse.dataset.SliceND;
 import org.eclipse.dataset.dense.AggregateDataset;
 import org.eclipse.dataset.dense.Dataset;
 import org.eclipse.dataset.dense.DatasetFactory;
 import org.eclipse.dataset.dense.DatasetUtils;
+import org.eclipse.dataset.internal.dense.LazyDataset;
+import org.eclipse.dataset.io.AsyncSliceReader;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -150,4 +158,71 @@ public class AggregateDatasetTest {
 		assertArrayEquals("Incorrect shape", new int[] {2, 1}, s.getShape());
 		assertArrayEquals("Incorrect values", new double[] {1, 1}, (double[])s.getBuffer(), 1e-5);
 	}
+
+	@Test
+	public void testConcurrentSlice() throws Exception {
+		final int n = 50;
+		Dataset[] as = new Dataset[n];
+		for (int i = 0; i < n; i++) {
+			as[i] = DatasetFactory.createRange(i * 12, (i + 1) * 12, 1, Dataset.INT16).reshape(3, 4);
+		}
+		Dataset e = DatasetUtils.concatenate(as, 0);
+		AggregateDataset a = new AggregateDataset(false, as);
+		assertEquals("Incorrect type", Dataset.INT16, a.getDType());
+
+		final int[] worked = new int[1];
+		IMonitor monitor = new IMonitor.Stub() {
+			@Override
+			public void worked(int amount) {
+				worked[0] += amount;
+			}
+		};
+		Dataset s = DatasetUtils.convertToDataset(a.getSlice(monitor, (Slice) null, null));
+		assertEquals("Incorrect values", e, s);
+		assertEquals("Incorrect progress", n, worked[0]);
+
+		Slice[][] slices = new Slice[][] {
+				{new Slice(1, 140, 2), new Slice(1, null, 2)},
+				{new Slice(null, null, -3), null},
+				{new Slice(100, 7, -5), new Slice(3, 0, -1)},
+				{new Slice(4, 5), null},
+		};
+		for (Slice[] sl : slices) {
+			s = DatasetUtils.convertToDataset(a.getSlice(sl));
+			assertEquals("Incorrect values for " + Arrays.toString(sl), e.getSlice(sl), s);
+		}
+
+		IMonitor cancelled = new IMonitor.Stub() {
+			@Override
+			public boolean isCancelled() {
+				return true;
+			}
+		};
+		try {
+			a.getSlice(cancelled, (Slice) null, null);
+			fail("Slice should have been cancelled");
+		} catch (DatasetException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testSliceOnReaderThread() throws Exception {
+		final int n = 20;
+		ILazyDataset[] as = new ILazyDataset[n];
+		Dataset[] fs = new Dataset[n];
+		for (int i = 0; i < n; i++) {
+			fs[i] = DatasetFactory.createRange(i * 12, (i + 1) * 12, 1, Dataset.FLOAT64).reshape(3, 4);
+			as[i] = LazyDataset.createLazyDataset(fs[i]);
+		}
+		Dataset e = DatasetUtils.convertToDataset(new AggregateDataset(true, fs).getSlice());
+		AggregateDataset a = new AggregateDataset(true, as);
+		assertArrayEquals(new int[] {n, 3, 4}, a.getShape());
+		assertEquals("Incorrect values", e, a.getSlice());
+
+		// reading on the shared pool must not wait on other threads of the pool
+		Slice[] sl = new Slice[] {new Slice(1, 17, 3), null, new Slice(3, 0, -2)};
+		Future<IDataset> f = AsyncSliceReader.getSlice(a, new SliceND(a.getShape(), sl));
+		assertEquals("Incorrect values", e.getSlice(sl), f.get(10, TimeUnit.SECONDS));
+	}
 }
@@ -0,0 +1,184 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.dataset;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.dataset.Slice;
+import org.eclipse.dataset.dense.BitMask;
+import org.eclipse.dataset.dense.BooleanIterator;
+import org.eclipse.dataset.dense.Comparisons;
+import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.DatasetFactory;
+import org.eclipse.dataset.dense.IndexIterator;
+import org.eclipse.dataset.dense.Maths;
+import org.eclipse.dataset.dense.Random;
+import org.eclipse.dataset.internal.dense.BooleanDataset;
+import org.eclipse.dataset.internal.dense.ComplexDoubleDataset;
+import org.eclipse.dataset.internal.dense.CompoundDoubleDataset;
+import org.eclipse.dataset.internal.dense.DoubleDataset;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BitMaskTest {
+
+	@Test
+	public void testLogic() {
+		// sizes either side of word boundaries
+		for (int n : new int[] {1, 63, 64, 65, 130, 1000}) {
+			Random.seed(n);
+			Dataset x = Random.rand(n);
+			Dataset y = Random.rand(n);
+			BooleanDataset a = Comparisons.greaterThan(x, 0.5);
+			BooleanDataset b = Comparisons.lessThan(y, 0.3);
+			BitMask ma = BitMask.fromDataset(a);
+			BitMask mb = BitMask.fromDataset(b);
+
+			Assert.assertEquals(a, ma.toDataset());
+			Assert.assertEquals(Comparisons.logicalAnd(a, b), ma.and(mb).toDataset());
+			Assert.assertEquals(Comparisons.logicalOr(a, b), ma.or(mb).toDataset());
+			Assert.assertEquals(Comparisons.logicalXor(a, b), ma.xor(mb).toDataset());
+			Assert.assertEquals(Comparisons.logicalNot(a), ma.not().toDataset());
+			Assert.assertEquals(Comparisons.logicalAnd(a, Comparisons.logicalNot(b)), ma.andNot(mb).toDataset());
+			Assert.assertEquals((int) ((Number) a.sum()).longValue(), ma.count());
+			Assert.assertEquals(Comparisons.allTrue(a), ma.allTrue());
+			Assert.assertEquals(Comparisons.anyTrue(a), ma.anyTrue());
+			Assert.assertTrue(ma.not().or(ma).allTrue());
+			Assert.assertEquals(ma, ma.clone().inot().inot());
+
+			BitMask f = new BitMask(n).fill(true);
+			Assert.assertTrue(f.allTrue());
+			Assert.assertEquals(n, f.count());
+			Assert.assertTrue(Comparisons.anyTrue(f));
+			Assert.assertFalse(f.not().anyTrue());
+		}
+
+		BitMask e = new BitMask(0);
+		Assert.assertTrue(e.allTrue());
+		Assert.assertFalse(e.anyTrue());
+		Assert.assertEquals(-1, e.next(0, true));
+	}
+
+	@Test
+	public void testViews() {
+		Random.seed(71);
+		BooleanDataset s = Comparisons.greaterThan(Random.rand(7, 10), 0.5);
+		Dataset[] views = new Dataset[] {
+				s.getTransposedView(),
+				s.getSliceView(new Slice(null, null, -1), new Slice(8, 1, -3)),
+				s.getSliceView(new Slice(2, 5)),
+		};
+		for (Dataset v : views) {
+			BitMask m = BitMask.fromDataset(v);
+			Assert.assertArrayEquals(v.getShapeRef(), m.getShape());
+			Assert.assertEquals(v.clone(), m.toDataset());
+		}
+	}
+
+	@Test
+	public void testComparisonMasks() {
+		Random.seed(37);
+		Dataset i = Random.randint(-5, 5, new int[] {9, 15});
+		Dataset x = Random.rand(9, 15);
+		Dataset row = Random.rand(15);
+		Dataset c = new CompoundDoubleDataset(2, ((DoubleDataset) Random.rand(18)).getData(), 3, 3);
+		Dataset d = new CompoundDoubleDataset(2, ((DoubleDataset) Random.rand(18)).getData(), 3, 3);
+		Dataset[][] pairs = new Dataset[][] {
+				{i, Random.randint(-5, 5, new int[] {9, 15})},
+				{i, DatasetFactory.createFromObject(1)},
+				{x, row},
+				{x.getSliceView(new Slice(null, null, 2)), x.getSliceView(new Slice(1, null, 2))},
+				{c, d},
+				{c, Random.rand(3, 3)},
+				{Random.rand(3), c},
+				{c, c.clone()},
+		};
+		for (Dataset[] p : pairs) {
+			Dataset a = p[0];
+			Dataset b = p[1];
+			Assert.assertEquals(BitMask.fromDataset(Comparisons.equalTo(a, b)), Comparisons.equalToMask(a, b));
+			Assert.assertEquals(BitMask.fromDataset(Comparisons.greaterThan(a, b)), Comparisons.greaterThanMask(a, b));
+			Assert.assertEquals(BitMask.fromDataset(Comparisons.greaterThanOrEqualTo(a, b)), Comparisons.greaterThanOrEqualToMask(a, b));
+			Assert.assertEquals(BitMask.fromDataset(Comparisons.lessThan(a, b)), Comparisons.lessThanMask(a, b));
+			Assert.assertEquals(BitMask.fromDataset(Comparisons.lessThanOrEqualTo(a, b)), Comparisons.lessThanOrEqualToMask(a, b));
+		}
+
+		Dataset z = new ComplexDoubleDataset(new double[] {1, 0, 1, 1, 2, 0});
+		Assert.assertEquals(BitMask.fromDataset(Comparisons.equalTo(z, 1)), Comparisons.equalToMask(z, 1));
+		Assert.assertEquals(1, Comparisons.equalToMask(z, 1).count());
+
+		// logical operations on masks give masks
+		BitMask ma = Comparisons.greaterThanMask(x, 0.5);
+		BitMask mb = Comparisons.lessThanMask(i, 0);
+		BooleanDataset a = Comparisons.greaterThan(x, 0.5);
+		BooleanDataset b = Comparisons.lessThan(i, 0);
+		Assert.assertEquals(BitMask.fromDataset(Comparisons.logicalAnd(a, b)), Comparisons.logicalAnd(ma, mb));
+		Assert.assertEquals(BitMask.fromDataset(Comparisons.logicalOr(a, b)), Comparisons.logicalOr(ma, mb));
+		Assert.assertEquals(BitMask.fromDataset(Comparisons.logicalXor(a, b)), Comparisons.logicalXor(ma, mb));
+		Assert.assertEquals(BitMask.fromDataset(Comparisons.logicalNot(a)), Comparisons.logicalNot(ma));
+
+		// masks can be mixed with datasets
+		Assert.assertEquals(Comparisons.logicalAnd(a, b), Comparisons.logicalAnd(ma, b));
+	}
+
+	@Test
+	public void testIterators() {
+		Dataset d = DatasetFactory.createRange(200, Dataset.INT32).reshape(10, 20);
+		BooleanDataset s = Comparisons.equalTo(Maths.remainder(d, 7), 0);
+		BitMask m = BitMask.fromDataset(s);
+		Assert.assertEquals(1, m.next(1, false));
+		Assert.assertEquals(7, m.next(1, true));
+		Assert.assertEquals(-1, m.next(197, true));
+		Assert.assertTrue(m.get(1, 1));
+
+		List<Integer> expected = new ArrayList<Integer>();
+		IndexIterator it = d.getBooleanIterator(s);
+		while (it.hasNext()) {
+			expected.add((int) d.getElementLongAbs(it.index));
+		}
+
+		List<Integer> found = new ArrayList<Integer>();
+		it = new BooleanIterator(d.getIterator(), m, true);
+		while (it.hasNext()) {
+			found.add((int) d.getElementLongAbs(it.index));
+		}
+		Assert.assertEquals(expected, found);
+
+		found.clear();
+		it = m.getIterator();
+		while (it.hasNext()) {
+			int[] pos = it.getPos();
+			Assert.assertEquals(it.index, pos[0] * 20 + pos[1]);
+			found.add(d.getInt(pos));
+		}
+		Assert.assertEquals(expected, found);
+
+		it = new BooleanIterator(d.getIterator(), m, false);
+		int c = 0;
+		while (it.hasNext()) {
+			Assert.assertTrue(d.getElementLongAbs(it.index) % 7 != 0);
+			c++;
+		}
+		Assert.assertEquals(200 - m.count(), c);
+		// strided dataset iterator is stepped through
+		Dataset v = d.getSliceView(null, new Slice(null, null, -1));
+		m = Comparisons.equalToMask(Maths.remainder(v, 7), 0);
+		found.clear();
+		it = new BooleanIterator(v.getIterator(), m, true);
+		while (it.hasNext()) {
+			found.add((int) v.getElementLongAbs(it.index));
+		}
+		Assert.assertEquals(m.count(), found.size());
+		for (int f : found) {
+			Assert.assertEquals(0, f % 7);
+		}
+	}
+}
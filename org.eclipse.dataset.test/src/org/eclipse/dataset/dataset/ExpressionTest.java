@@ -0,0 +1,116 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.dataset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.dataset.TestUtils;
+import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.DatasetFactory;
+import org.eclipse.dataset.dense.Expression;
+import org.eclipse.dataset.dense.Maths;
+import org.eclipse.dataset.dense.ParallelUtils;
+import org.eclipse.dataset.dense.Random;
+import org.eclipse.dataset.internal.dense.LazyDataset;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExpressionTest {
+
+	@Test
+	public void testShape() {
+		Expression e = Expression.of(DatasetFactory.zeros(new int[] {3, 1, 5}, Dataset.INT32))
+				.add(DatasetFactory.zeros(new int[] {4, 1}, Dataset.FLOAT64)).multiply(2);
+		Assert.assertArrayEquals(new int[] {3, 4, 5}, e.getShape());
+
+		try {
+			Expression.of(DatasetFactory.zeros(new int[] {3}, Dataset.INT32)).add(DatasetFactory.zeros(new int[] {4}, Dataset.INT32));
+			Assert.fail("Should have thrown an illegal argument exception");
+		} catch (IllegalArgumentException e1) {
+			// do nothing
+		}
+	}
+
+	@Test
+	public void testEvaluate() {
+		Random.seed(12);
+		Dataset img = Random.rand(new int[] {6, 7, 1300});
+		Dataset dark = Random.rand(new int[] {7, 1300});
+		Dataset flat = Maths.add(Random.rand(new int[] {6, 1, 1300}), 2);
+
+		Dataset expected = Maths.divide(Maths.subtract(img, dark), Maths.subtract(flat, dark));
+		Expression e = Expression.of(img).subtract(dark).divide(Expression.of(flat).subtract(dark));
+		TestUtils.assertDatasetEquals(expected, e.evaluate(), 1e-15, 1e-15);
+
+		// views
+		Dataset v = img.getSliceView(new int[] {1, 0, 0}, null, new int[] {2, 1, 3});
+		expected = Maths.sqrt(Maths.abs(Maths.multiply(v, -0.5)));
+		TestUtils.assertDatasetEquals(expected, Expression.of(v).multiply(-0.5).abs().sqrt().evaluate(), 1e-15, 1e-15);
+
+		// lazy operands
+		LazyDataset limg = LazyDataset.createLazyDataset(img);
+		LazyDataset ldark = LazyDataset.createLazyDataset(dark);
+		expected = Maths.divide(Maths.subtract(img, dark), Maths.subtract(flat, dark));
+		e = Expression.of(limg).subtract(ldark).divide(Expression.of(flat).subtract(ldark));
+		TestUtils.assertDatasetEquals(expected, e.evaluate(), 1e-15, 1e-15);
+
+		// output into integer dataset
+		Dataset out = DatasetFactory.zeros(new int[] {6, 7, 1300}, Dataset.INT32);
+		Expression.of(img).multiply(100).evaluate(out);
+		TestUtils.assertDatasetEquals(Maths.multiply(img, 100).cast(Dataset.INT32), out, 0, 0);
+
+		ParallelUtils.enable(3);
+		int threshold = ParallelUtils.getThreshold();
+		ParallelUtils.setThreshold(1024);
+		try {
+			TestUtils.assertDatasetEquals(expected, e.evaluate(), 1e-15, 1e-15);
+		} finally {
+			ParallelUtils.setThreshold(threshold);
+			ParallelUtils.disable();
+		}
+	}
+
+	@Test
+	public void testSharedNodes() throws Exception {
+		// expressions that share nodes can be evaluated by many threads at once
+		Random.seed(17);
+		final Dataset a = Random.rand(new int[] {40, 50});
+		final Dataset b = Random.rand(new int[] {50});
+		final Dataset c = Random.rand(new int[] {40, 1});
+		Expression s = Expression.of(a).multiply(b);
+		final Expression[] es = new Expression[] {s.add(c), Expression.of(c).subtract(a).divide(s.add(1)), s.add(s)};
+		final Dataset[] expected = new Dataset[] {Maths.add(Maths.multiply(a, b), c),
+				Maths.divide(Maths.subtract(c, a), Maths.add(Maths.multiply(a, b), 1)), Maths.multiply(Maths.multiply(a, b), 2)};
+
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Dataset>> results = new ArrayList<Future<Dataset>>();
+			for (int i = 0; i < 60; i++) {
+				final Expression e = es[i % es.length];
+				results.add(pool.submit(new Callable<Dataset>() {
+					@Override
+					public Dataset call() throws Exception {
+						return e.evaluate();
+					}
+				}));
+			}
+			for (int i = 0; i < results.size(); i++) {
+				TestUtils.assertDatasetEquals(expected[i % es.length], results.get(i).get(), 1e-15, 1e-15);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
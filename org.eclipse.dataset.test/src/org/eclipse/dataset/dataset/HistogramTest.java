@@ -0,0 +1,190 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.dataset;
+
+import org.eclipse.dataset.TestUtils;
+import org.eclipse.dataset.dense.Comparisons;
+import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.DatasetFactory;
+import org.eclipse.dataset.dense.Histogram;
+import org.eclipse.dataset.dense.Maths;
+import org.eclipse.dataset.dense.ParallelUtils;
+import org.eclipse.dataset.dense.Random;
+import org.eclipse.dataset.metadata.MaskMetadataImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HistogramTest {
+
+	private static long[] histogram(Dataset a, double[] edges) {
+		long[] h = new long[edges.length - 1];
+		for (int i = 0; i < a.getSize(); i++) {
+			double v = a.getElementDoubleAbs(i);
+			for (int b = 0; b < h.length; b++) {
+				if (v >= edges[b] && (v < edges[b + 1] || (b == h.length - 1 && v == edges[b + 1]))) {
+					h[b]++;
+					break;
+				}
+			}
+		}
+		return h;
+	}
+
+	@Test
+	public void testUniform() {
+		Dataset a = DatasetFactory.createFromObject(new double[] {0, 0.5, 1, 1.5, 2, 2.5, 3, 3.5, 4, Double.NaN, -1, 5});
+		Histogram h = new Histogram(4, 0, 4);
+		h.update(a);
+		Assert.assertEquals(Dataset.INT64, h.getCounts().getDType());
+		TestUtils.assertDatasetEquals(DatasetFactory.createFromObject(new long[] {2, 2, 2, 3}), h.getCounts(), 0, 0);
+		TestUtils.assertDatasetEquals(DatasetFactory.createFromObject(new double[] {0, 1, 2, 3, 4}), h.getEdges(), 1e-15, 1e-15);
+
+		// incremental and integer dtypes
+		h.update(DatasetFactory.createRange(5, Dataset.INT16));
+		TestUtils.assertDatasetEquals(DatasetFactory.createFromObject(new long[] {3, 3, 3, 5}), h.getCounts(), 0, 0);
+
+		Random.seed(12371);
+		Dataset r = Random.rand(new int[] {100, 37});
+		double[] edges = new double[11];
+		for (int i = 0; i <= 10; i++) {
+			edges[i] = 0.1 * i;
+		}
+		for (int dtype : new int[] {Dataset.FLOAT64, Dataset.FLOAT32, Dataset.INT64, Dataset.INT32, Dataset.INT8}) {
+			Dataset d = Maths.multiply(r, 256).cast(dtype);
+			double[] e = new double[edges.length];
+			for (int i = 0; i < e.length; i++) {
+				e[i] = edges[i] * 256;
+			}
+			long[] expected = histogram(d, e);
+			h = new Histogram(10, 0, 256);
+			h.update(d);
+			Assert.assertArrayEquals(expected, (long[]) h.getCounts().getBuffer());
+			h = new Histogram(e);
+			h.update(d);
+			Assert.assertArrayEquals(expected, (long[]) h.getCounts().getBuffer());
+		}
+	}
+
+	@Test
+	public void testEdges() {
+		Random.seed(12371);
+		Dataset a = Random.randn(new int[] {50, 41});
+		double[] edges = new double[] {-3, -1, -0.5, 0, 0.1, 0.2, 2, 2.5};
+		Histogram h = new Histogram(edges);
+		Assert.assertFalse(h.isUniform());
+		h.update(a);
+		Assert.assertArrayEquals(histogram(a, edges), (long[]) h.getCounts().getBuffer());
+
+		// views
+		Dataset v = a.getSliceView(new int[] {1, 3}, null, new int[] {3, 2});
+		h.reset();
+		h.update(v);
+		Assert.assertArrayEquals(histogram(v.getSlice(), edges), (long[]) h.getCounts().getBuffer());
+
+		try {
+			new Histogram(0, 1, 0.5);
+			Assert.fail("Should have thrown an illegal argument exception");
+		} catch (IllegalArgumentException e) {
+			// do nothing
+		}
+	}
+
+	@Test
+	public void testWeightsAndMask() {
+		Dataset a = DatasetFactory.createRange(10, Dataset.FLOAT64);
+		Dataset w = Maths.multiply(DatasetFactory.ones(new int[] {10}, Dataset.FLOAT64), 0.5);
+		Histogram h = new Histogram(2, 0, 10);
+		h.update(a, w);
+		Assert.assertEquals(Dataset.FLOAT64, h.getCounts().getDType());
+		TestUtils.assertDatasetEquals(DatasetFactory.createFromObject(new double[] {2.5, 2.5}), h.getCounts(), 1e-15, 1e-15);
+
+		a.setMetadata(new MaskMetadataImpl(Comparisons.greaterThan(a, 2)));
+		h = new Histogram(2, 0, 10);
+		h.update(a);
+		TestUtils.assertDatasetEquals(DatasetFactory.createFromObject(new long[] {2, 5}), h.getCounts(), 0, 0);
+
+		try {
+			h.update(a, DatasetFactory.ones(new int[] {3}, Dataset.FLOAT64));
+			Assert.fail("Should have thrown an illegal argument exception");
+		} catch (IllegalArgumentException e) {
+			// do nothing
+		}
+	}
+
+	@Test
+	public void testMergeAndParallel() {
+		Random.seed(12371);
+		Dataset a = Random.randn(new int[] {300, 200});
+		Histogram h = Histogram.create(a, 64);
+		long[] expected = (long[]) h.getCounts().getBuffer();
+		long total = 0;
+		for (long c : expected) {
+			total += c;
+		}
+		Assert.assertEquals(a.getSize(), total);
+
+		Histogram h0 = new Histogram(64, a.min().doubleValue(), a.max().doubleValue());
+		Histogram h1 = new Histogram(64, a.min().doubleValue(), a.max().doubleValue());
+		h0.update(a.getSliceView(new int[] {0, 0}, new int[] {100, 200}, null));
+		h1.update(a.getSliceView(new int[] {100, 0}, null, null));
+		h0.merge(h1);
+		Assert.assertArrayEquals(expected, (long[]) h0.getCounts().getBuffer());
+
+		ParallelUtils.enable(3);
+		int threshold = ParallelUtils.getThreshold();
+		ParallelUtils.setThreshold(1024);
+		try {
+			h = Histogram.create(a, 64);
+		} finally {
+			ParallelUtils.setThreshold(threshold);
+			ParallelUtils.disable();
+		}
+		Assert.assertArrayEquals(expected, (long[]) h.getCounts().getBuffer());
+	}
+
+	@Test
+	public void testAxis() {
+		Random.seed(12371);
+		Dataset a = Random.rand(new int[] {4, 50, 6});
+		for (int axis = 0; axis < 3; axis++) {
+			Dataset c = Histogram.histogram(a, axis, 5, 0, 1);
+			int[] shape = a.getShape();
+			int[] expected = new int[3];
+			for (int i = 0, j = 0; i < 3; i++) {
+				if (i != axis) {
+					expected[j++] = shape[i];
+				}
+			}
+			expected[2] = 5;
+			Assert.assertArrayEquals(expected, c.getShape());
+
+			Dataset e = Histogram.histogram(a, axis, 0, 0.2, 0.4, 0.6, 0.8, 1);
+			for (int i = 0; i < expected[0]; i++) {
+				for (int j = 0; j < expected[1]; j++) {
+					int[] start = new int[3];
+					int[] stop = a.getShape();
+					for (int k = 0, l = 0; k < 3; k++) {
+						if (k != axis) {
+							start[k] = l == 0 ? i : j;
+							stop[k] = start[k] + 1;
+							l++;
+						}
+					}
+					Histogram h = new Histogram(5, 0, 1);
+					h.update(a.getSliceView(start, stop, null));
+					for (int b = 0; b < 5; b++) {
+						Assert.assertEquals(h.getCounts().getLong(b), c.getLong(i, j, b));
+						Assert.assertEquals(h.getCounts().getLong(b), e.getLong(i, j, b));
+					}
+				}
+			}
+		}
+	}
+}
@@ -9,12 +9,19 @@
 
 package org.eclipse.dataset.dataset;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import org.eclipse.dataset.Slice;
+import org.eclipse.dataset.TestUtils;
 import org.eclipse.dataset.dense.Dataset;
 import org.eclipse.dataset.dense.DatasetFactory;
+import org.eclipse.dataset.dense.DatasetUtils;
+import org.eclipse.dataset.dense.InterpolationPlan;
 import org.eclipse.dataset.dense.InterpolatorUtils;
 import org.eclipse.dataset.dense.Maths;
+import org.eclipse.dataset.dense.ParallelUtils;
+import org.eclipse.dataset.dense.Random;
 import org.junit.Test;
 
 public class InterpolatorUtilsTest {
@@ -40,6 +47,64 @@ public class InterpolatorUtilsTest {
 		assertEquals("Coordinate incorrect", 225.239, output.getDouble(54,97), 0.1);
 		assertEquals("Coordinate incorrect", 7118.775, output.getDouble(120,94), 0.1);
 	}
-	
+
+	/**
+	 * Reference remapping of line by first bracketing segment
+	 */
+	private static double remapPoint(Dataset line, Dataset axis, double point) {
+		for (int j = 0; j < axis.getSize() - 1; j++) {
+			double start = axis.getDouble(j);
+			double end = axis.getDouble(j + 1);
+			if (start < end ? start <= point && point < end : end < point && point <= start) {
+				return Maths.interpolate(line, j + (point - start) / (end - start));
+			}
+		}
+		return Double.NaN;
+	}
+
+	@Test
+	public void testPlan() {
+		Random.seed(11);
+		Dataset data = Random.rand(3, 5, 7);
+		Dataset frame = data.getSlice(new Slice(1, 2)).squeeze();
+		// increasing rows, decreasing rows and a non-monotonic row
+		Dataset x = Maths.add(DatasetFactory.createRange(7, Dataset.FLOAT64), Maths.multiply(Random.rand(5, 1), 0.5));
+		x.setSlice(Maths.multiply(x.getSlice(new Slice(1, 2)), -1), new Slice(1, 2));
+		x.setSlice(new double[] {0, 2, 1, 3, 2.5, 6, 4}, new Slice(4, 5));
+		Dataset gridX = DatasetFactory.createRange(-7, 8, 0.75, Dataset.FLOAT64);
+
+		Dataset r = InterpolatorUtils.remapAxis(frame, 1, x, gridX);
+		assertArrayEquals(new int[] {5, gridX.getSize()}, r.getShape());
+		for (int i = 0; i < 5; i++) {
+			Dataset line = frame.getSlice(new Slice(i, i + 1)).squeeze();
+			Dataset axis = x.getSlice(new Slice(i, i + 1)).squeeze();
+			for (int k = 0; k < gridX.getSize(); k++) {
+				assertEquals(remapPoint(line, axis, gridX.getDouble(k)), r.getDouble(i, k), 1e-12);
+			}
+		}
+
+		Dataset y = DatasetUtils.transpose(Maths.add(DatasetFactory.createRange(5, Dataset.FLOAT64), Maths.multiply(Random.rand(gridX.getSize(), 1), 0.5)));
+		Dataset gridY = DatasetFactory.createRange(0, 5, 0.5, Dataset.FLOAT64);
+		InterpolationPlan plan = InterpolationPlan.createRegridPlan(x, y, gridX, gridY);
+		assertArrayEquals(new int[] {gridY.getSize(), gridX.getSize()}, plan.getResultShape());
+		Dataset g = InterpolatorUtils.regrid(frame, x, y, gridX, gridY);
+		TestUtils.assertDatasetEquals(InterpolatorUtils.remapAxis(r, 0, y, gridY), g, true, 1e-12, 1e-12);
+
+		// stack of frames, in parallel
+		ParallelUtils.enable(2);
+		int threshold = ParallelUtils.getThreshold();
+		ParallelUtils.setThreshold(16);
+		try {
+			Dataset s = plan.apply(data);
+			assertArrayEquals(new int[] {3, gridY.getSize(), gridX.getSize()}, s.getShape());
+			for (int i = 0; i < 3; i++) {
+				Dataset e = InterpolatorUtils.regrid(data.getSlice(new Slice(i, i + 1)).squeeze(), x, y, gridX, gridY);
+				TestUtils.assertDatasetEquals(e, s.getSlice(new Slice(i, i + 1)).squeeze(), true, 1e-12, 1e-12);
+			}
+		} finally {
+			ParallelUtils.setThreshold(threshold);
+			ParallelUtils.disable();
+		}
+	}
 
 }
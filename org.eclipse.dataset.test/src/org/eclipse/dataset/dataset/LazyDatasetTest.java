@@ -9,13 +9,31 @@
 
 package org.eclipse.dataset.dataset;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.Future;
+
+import org.apache.commons.math.complex.Complex;
+import org.eclipse.dataset.DatasetException;
+import org.eclipse.dataset.IDataset;
 import org.eclipse.dataset.ILazyDataset;
+import org.eclipse.dataset.IMonitor;
 import org.eclipse.dataset.Slice;
 import org.eclipse.dataset.SliceND;
 import org.eclipse.dataset.TestUtils;
 import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.DatasetFactory;
+import org.eclipse.dataset.dense.DatasetUtils;
+import org.eclipse.dataset.dense.IndexIterator;
 import org.eclipse.dataset.dense.Random;
 import org.eclipse.dataset.internal.dense.LazyDataset;
+import org.eclipse.dataset.io.AsyncSliceReader;
+import org.eclipse.dataset.io.ChunkCache;
+import org.eclipse.dataset.io.ILazyLoader;
+import org.eclipse.dataset.io.RawFileLoader;
+import org.eclipse.dataset.io.PrefetchingSliceIterator;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -261,4 +279,183 @@ public class LazyDatasetTest {
 		TestUtils.assertDatasetEquals(data.getSliceView(new Slice(5)).reshape(1, 1, 5).getSliceView(null, null, new Slice(4)),
 				view.getSlice(), true, 1e-14, 1e-14);
     }
+
+	@Test
+	public void testChunkCache() throws Exception {
+		final Dataset data = Random.randn(new int[] {6, 5, 7});
+		final int[] reads = new int[1];
+		ILazyLoader loader = new ILazyLoader() {
+			@Override
+			public boolean isFileReadable() {
+				return true;
+			}
+
+			@Override
+			public IDataset getDataset(IMonitor mon, SliceND slice) throws DatasetException {
+				reads[0]++;
+				return data.getSlice(mon, slice);
+			}
+		};
+		LazyDataset ld = new LazyDataset("data", data.getDType(), data.getShape(), loader);
+
+		// chunks are single frames of 5x7 doubles
+		ChunkCache cache = new ChunkCache(4 * 5 * 7 * 8, 5 * 7 * 8);
+		Assert.assertArrayEquals(new int[] {1, 5, 7}, cache.getChunkShape(data.getShapeRef(), data.getDType(), 1));
+		ld.setCache(cache);
+
+		TestUtils.assertDatasetEquals(data.getSlice(new Slice(1, 3)), ld.getSlice(new Slice(1, 3)), true, 1e-14, 1e-14);
+		Assert.assertEquals(2, reads[0]);
+		Assert.assertEquals(0, cache.getHits());
+		Assert.assertEquals(2, cache.getMisses());
+
+		// overlapping slices are served from cached chunks
+		Slice[] slice = new Slice[] {new Slice(2, 3), new Slice(1, 5, 2), new Slice(2, 7, 3)};
+		TestUtils.assertDatasetEquals(data.getSlice(slice), ld.getSlice(slice), true, 1e-14, 1e-14);
+		Assert.assertEquals(2, reads[0]);
+		Assert.assertEquals(1, cache.getHits());
+		Assert.assertEquals(2, cache.getNumberOfChunks());
+
+		LazyDataset view = ld.getSliceView(new Slice(1, 6, 2), null, new Slice(3));
+		TestUtils.assertDatasetEquals(data.getSlice(new Slice(1, 6, 2), null, new Slice(3)), view.getSlice(), true, 1e-14, 1e-14);
+		Assert.assertEquals(4, reads[0]);
+		Assert.assertEquals(2, cache.getHits());
+		Assert.assertEquals(4, cache.getNumberOfChunks());
+		Assert.assertEquals(0, cache.getEvictions());
+
+		// least recently used chunk is evicted
+		TestUtils.assertDatasetEquals(data.getSlice(new Slice(4, 6)), ld.getSlice(new Slice(4, 6)), true, 1e-14, 1e-14);
+		Assert.assertEquals(5, reads[0]);
+		Assert.assertEquals(1, cache.getEvictions());
+		Assert.assertEquals(4, cache.getNumberOfChunks());
+		Assert.assertEquals(cache.getMaxBytes(), cache.getBytes());
+		ld.getSlice(new Slice(2, 3));
+		Assert.assertEquals(6, reads[0]);
+
+		// strided slices across chunks are copied straight into given output
+		SliceND s = new SliceND(data.getShapeRef(), new Slice(0, 5, 2), new Slice(1, 5, 2), new Slice(0, 7, 3));
+		Dataset out = DatasetFactory.zeros(new int[] {4, 3, 3}, Dataset.FLOAT64);
+		Assert.assertSame(out, cache.getSlice(loader, null, s, new int[] {2, 2, 2}, data.getDType(), 1, out, new int[] {1, 1, 0}));
+		TestUtils.assertDatasetEquals(data.getSlice(s), out.getSlice(new Slice(1, 4), new Slice(1, 3)), true, 1e-14, 1e-14);
+		Assert.assertEquals(0, ((Number) out.getSlice(new Slice(1)).sum()).doubleValue(), 0);
+		Assert.assertEquals(0, ((Number) out.getSlice((Slice) null, new Slice(1)).sum()).doubleValue(), 0);
+		TestUtils.assertDatasetEquals(data.getSlice(s), cache.getSlice(loader, null, s, new int[] {2, 2, 2}, data.getDType(), 1), true, 1e-14, 1e-14);
+
+		cache.invalidate(loader);
+		Assert.assertEquals(0, cache.getNumberOfChunks());
+		Assert.assertEquals(0, cache.getBytes());
+	}
+
+	private static void checkRawSlices(Dataset data, LazyDataset ld) {
+		Slice[][] slices = new Slice[][] {
+			{},
+			{new Slice(1, 3)},
+			{null, new Slice(1, 4), new Slice(2, 7, 2)},
+			{new Slice(3, 0, -2), null, new Slice(5, 0, -3)},
+			{new Slice(3, 4), new Slice(4, 5), new Slice(6, 7)},
+		};
+		for (Slice[] s : slices) {
+			TestUtils.assertDatasetEquals(data.getSlice(s), ld.getSlice(s), true, 0, 0);
+		}
+	}
+
+	@Test
+	public void testRawFileLoader() throws Exception {
+		File file = File.createTempFile("data", ".raw");
+		file.deleteOnExit();
+		final int[] shape = new int[] {4, 5, 7};
+		final int header = 13;
+		for (int dtype : new int[] {Dataset.BOOL, Dataset.INT8, Dataset.INT16, Dataset.INT32, Dataset.INT64, Dataset.FLOAT32, Dataset.FLOAT64, Dataset.COMPLEX128}) {
+			for (ByteOrder order : new ByteOrder[] {ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+				Dataset data = Random.randint(-100, 100, shape).cast(dtype);
+				if (dtype == Dataset.COMPLEX128) {
+					data.imultiply(new Complex(0.5, -1.5));
+				}
+				ByteBuffer buffer = ByteBuffer.allocate(header + data.getNbytes()).order(order);
+				buffer.position(header);
+				IndexIterator it = data.getIterator();
+				while (it.hasNext()) {
+					switch (dtype) {
+					case Dataset.BOOL:
+						buffer.put((byte) (data.getElementBooleanAbs(it.index) ? 1 : 0));
+						break;
+					case Dataset.INT8:
+						buffer.put((byte) data.getElementLongAbs(it.index));
+						break;
+					case Dataset.INT16:
+						buffer.putShort((short) data.getElementLongAbs(it.index));
+						break;
+					case Dataset.INT32:
+						buffer.putInt((int) data.getElementLongAbs(it.index));
+						break;
+					case Dataset.INT64:
+						buffer.putLong(data.getElementLongAbs(it.index));
+						break;
+					case Dataset.FLOAT32:
+						buffer.putFloat((float) data.getElementDoubleAbs(it.index));
+						break;
+					case Dataset.FLOAT64:
+						buffer.putDouble(data.getElementDoubleAbs(it.index));
+						break;
+					case Dataset.COMPLEX128:
+						buffer.putDouble(data.getElementDoubleAbs(it.index));
+						buffer.putDouble(data.getElementDoubleAbs(it.index + 1));
+						break;
+					}
+				}
+				FileOutputStream out = new FileOutputStream(file);
+				try {
+					out.write(buffer.array());
+				} finally {
+					out.close();
+				}
+
+				LazyDataset ld = RawFileLoader.createLazyDataset("raw", file.getPath(), dtype, shape, header, order);
+				checkRawSlices(data, ld);
+			}
+		}
+	}
+
+	@Test
+	public void testPrefetchingSliceIterator() throws DatasetException {
+		final Dataset data = Random.randn(new int[] {6, 5, 7});
+		final int[] reads = new int[1];
+		ILazyLoader loader = new ILazyLoader() {
+			@Override
+			public boolean isFileReadable() {
+				return true;
+			}
+
+			@Override
+			public IDataset getDataset(IMonitor mon, SliceND slice) throws DatasetException {
+				synchronized (reads) {
+					reads[0]++;
+				}
+				return data.getSlice(mon, slice);
+			}
+		};
+		LazyDataset ld = new LazyDataset("data", data.getDType(), data.getShape(), loader);
+
+		PrefetchingSliceIterator it = new PrefetchingSliceIterator(ld, 2, 1, 2);
+		try {
+			for (int i = 0; i < 6; i++) {
+				Assert.assertTrue(it.hasNext());
+				Assert.assertEquals(i, it.getCurrentSlice().getStart()[0]);
+				Assert.assertArrayEquals(new int[] {1, 5, 7}, it.getOutputSlice().getShape());
+				TestUtils.assertDatasetEquals(data.getSlice(new Slice(i, i + 1)), DatasetUtils.convertToDataset(it.getCurrent()), true, 1e-14, 1e-14);
+			}
+			Assert.assertFalse(it.hasNext());
+		} finally {
+			it.close();
+		}
+		Assert.assertEquals(6, reads[0]);
+
+		// stop part way through
+		it = new PrefetchingSliceIterator(ld, 3, 1, 2);
+		Assert.assertTrue(it.hasNext());
+		it.close();
+		Assert.assertFalse(it.hasNext());
+
+		Future<IDataset> f = AsyncSliceReader.getSlice(ld, new SliceND(data.getShapeRef(), new Slice(1, 3), null, new Slice(2, 5)));
+		TestUtils.assertDatasetEquals(data.getSlice(new Slice(1, 3), null, new Slice(2, 5)), DatasetUtils.convertToDataset(AsyncSliceReader.get(f)), true, 1e-14, 1e-14);
+	}
 }
@@ -9,13 +9,31 @@
 
 package org.eclipse.dataset.dataset;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.dataset.DataEvent;
+import org.eclipse.dataset.DatasetException;
+import org.eclipse.dataset.DatasetUpdateService;
 import org.eclipse.dataset.IDataListener;
+import org.eclipse.dataset.IDataset;
+import org.eclipse.dataset.IDatasetChangeChecker;
 import org.eclipse.dataset.IDynamicDataset;
+import org.eclipse.dataset.ILazyDataset;
+import org.eclipse.dataset.IMonitor;
+import org.eclipse.dataset.SliceND;
 import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.DatasetFactory;
+import org.eclipse.dataset.dense.Maths;
 import org.eclipse.dataset.internal.dense.LazyDynamicDataset;
+import org.eclipse.dataset.io.ChunkCache;
+import org.eclipse.dataset.io.ILazyLoader;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -56,6 +74,140 @@ public class LazyDynamicDatasetTest {
 		Assert.assertEquals(repeat, counter.count);
 	}
 
+	class CountingChecker implements IDatasetChangeChecker {
+		int checks = 0;
+		boolean change = false;
+
+		@Override
+		public void setDataset(ILazyDataset dataset) {
+		}
+
+		@Override
+		public synchronized boolean check() {
+			checks++;
+			return change;
+		}
+
+		@Override
+		public int hashCode() {
+			return 1;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof CountingChecker;
+		}
+	}
+
+	@Test
+	public void testSharedChecker() throws InterruptedException {
+		// equal checkers are coalesced and back off when nothing changes
+		int n = DatasetUpdateService.getNumberOfCheckers();
+		IDynamicDataset a = createDynamic();
+		IDynamicDataset b = createDynamic();
+		CountingListener ca = new CountingListener();
+		CountingListener cb = new CountingListener();
+		a.addDataListener(ca);
+		b.addDataListener(cb);
+
+		CountingChecker checker = new CountingChecker();
+		int period = 50;
+		a.startUpdateChecker(period, checker);
+		b.startUpdateChecker(period, new CountingChecker());
+		Assert.assertEquals(n + 1, DatasetUpdateService.getNumberOfCheckers());
+
+		Thread.sleep(16 * period);
+		int checks = checker.checks;
+		Assert.assertTrue("Checks should back off: " + checks, checks > 0 && checks < 8);
+		Assert.assertEquals(0, ca.count);
+
+		synchronized (checker) {
+			checker.change = true;
+		}
+		Thread.sleep(20 * period);
+		Assert.assertTrue(ca.count > 0);
+		Assert.assertTrue(Math.abs(ca.count - cb.count) <= 1);
+
+		a.startUpdateChecker(0, null);
+		Assert.assertEquals(n + 1, DatasetUpdateService.getNumberOfCheckers());
+		b.startUpdateChecker(0, null);
+		Assert.assertEquals(n, DatasetUpdateService.getNumberOfCheckers());
+	}
+
+	@Test
+	public void testRescheduleDuringCheck() throws InterruptedException {
+		// rescheduling while a check is running does not start a second chain of checks
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger count = new AtomicInteger();
+		class BlockingChecker extends CountingChecker {
+			@Override
+			public boolean check() {
+				if (count.getAndIncrement() == 0) {
+					entered.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+					}
+				}
+				return true;
+			}
+		}
+
+		IDynamicDataset a = createDynamic();
+		IDynamicDataset b = createDynamic();
+		int period = 50;
+		a.startUpdateChecker(4 * period, new BlockingChecker());
+		Assert.assertTrue(entered.await(10, TimeUnit.SECONDS));
+		b.startUpdateChecker(period, new BlockingChecker()); // reschedules with shorter period
+		release.countDown();
+
+		Thread.sleep(period / 2);
+		count.set(0);
+		Thread.sleep(10 * period);
+		int n = count.get();
+		a.startUpdateChecker(0, null);
+		b.startUpdateChecker(0, null);
+		Assert.assertTrue("Checks should run in one chain: " + n, n > 0 && n < 15);
+	}
+
+	@Test
+	public void testAsyncListeners() throws InterruptedException {
+		// slow listener on another thread does not block resizing and sees coalesced events
+		LazyDynamicDataset lazy = (LazyDynamicDataset) createDynamic();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		lazy.setDataListenerExecutor(executor);
+		final CountDownLatch latch = new CountDownLatch(1);
+		final List<int[]> shapes = new ArrayList<int[]>();
+		lazy.addDataListener(new IDataListener() {
+			@Override
+			public void dataChangePerformed(DataEvent evt) {
+				try {
+					latch.await();
+				} catch (InterruptedException e) {
+				}
+				synchronized (shapes) {
+					shapes.add(evt.getShape());
+				}
+			}
+		});
+
+		int repeat = 100;
+		for (int i = 1; i <= repeat; i++) {
+			lazy.resize(i, 4);
+			if (i == repeat / 2) {
+				CountingListener counter = new CountingListener();
+				lazy.addDataListener(counter); // no deadlock while listener is waiting
+				lazy.removeDataListener(counter);
+			}
+		}
+		latch.countDown();
+		executor.shutdown();
+		Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+		Assert.assertTrue(shapes.size() < repeat);
+		Assert.assertArrayEquals(new int[] {repeat, 4}, shapes.get(shapes.size() - 1));
+	}
+
 	@Test
 	public void testShapeChecker() {
 		// start checker and trigger changes then see if listener has been fired the correct number of times
@@ -75,4 +227,55 @@ public class LazyDynamicDatasetTest {
 		}
 		Assert.assertEquals(repeat, counter.count);
 	}
+
+	@Test
+	public void testChangeInvalidatesCache() throws Exception {
+		final Dataset[] data = new Dataset[] {DatasetFactory.createRange(12, Dataset.INT32).reshape(3, 4)};
+		ILazyLoader loader = new ILazyLoader() {
+			@Override
+			public boolean isFileReadable() {
+				return true;
+			}
+
+			@Override
+			public IDataset getDataset(IMonitor mon, SliceND slice) throws DatasetException {
+				return data[0].getSlice(mon, slice);
+			}
+		};
+		LazyDynamicDataset lazy = new LazyDynamicDataset("test", Dataset.INT32, 1, new int[] {3, 4}, new int[] {IDynamicDataset.UNLIMITED, 4}, loader);
+		ChunkCache cache = new ChunkCache();
+		lazy.setCache(cache);
+		Assert.assertEquals(data[0], lazy.getSlice());
+		Assert.assertTrue(cache.getNumberOfChunks() > 0);
+
+		// data rewritten in place
+		data[0] = Maths.add(data[0], 100);
+		Assert.assertFalse(data[0].equals(lazy.getSlice()));
+		lazy.fireDataListeners();
+		Assert.assertEquals(data[0], lazy.getSlice());
+
+		// data extended and rewritten
+		data[0] = DatasetFactory.createRange(20, Dataset.INT32).reshape(5, 4);
+		lazy.resize(5, 4);
+		Assert.assertEquals(data[0], lazy.getSlice());
+
+		// change found by update checker
+		final CountDownLatch fired = new CountDownLatch(1);
+		lazy.addDataListener(new IDataListener() {
+			@Override
+			public void dataChangePerformed(DataEvent evt) {
+				fired.countDown();
+			}
+		});
+		data[0] = Maths.multiply(data[0], -1);
+		CountingChecker checker = new CountingChecker();
+		checker.change = true;
+		lazy.startUpdateChecker(20, checker);
+		try {
+			Assert.assertTrue(fired.await(10, TimeUnit.SECONDS));
+		} finally {
+			lazy.startUpdateChecker(0, null);
+		}
+		Assert.assertEquals(data[0], lazy.getSlice());
+	}
 }
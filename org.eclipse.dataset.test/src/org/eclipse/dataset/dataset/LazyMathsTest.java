@@ -9,10 +9,21 @@
 
 package org.eclipse.dataset.dataset;
 
+import java.util.Arrays;
+
+import org.eclipse.dataset.Slice;
 import org.eclipse.dataset.dense.Dataset;
 import org.eclipse.dataset.dense.DatasetFactory;
 import org.eclipse.dataset.dense.LazyMaths;
+import org.eclipse.dataset.dense.LazyMaths.Statistics;
 import org.eclipse.dataset.dense.Maths;
+import org.eclipse.dataset.dense.ParallelUtils;
+import org.eclipse.dataset.dense.QuantileSketch;
+import org.eclipse.dataset.dense.Random;
+import org.eclipse.dataset.dense.Stats;
+import org.eclipse.dataset.internal.dense.DoubleDataset;
+import org.eclipse.dataset.internal.dense.LazyDataset;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class LazyMathsTest {
@@ -63,6 +74,44 @@ public class LazyMathsTest {
 		AbstractDatasetTest.checkDatasets(a.product(3), LazyMaths.product(a, 3), 1e-9, 1e-15);
 	}
 	
+	@Test
+	public void testMultipleAxes() {
+		Dataset a = Random.rand(new int[] {4, 5, 6, 3});
+		LazyDataset l = LazyDataset.createLazyDataset(a);
+
+		AbstractDatasetTest.checkDatasets(a.sum(3).sum(1), LazyMaths.sum(l, 1, -1), 1e-9, 1e-15);
+		AbstractDatasetTest.checkDatasets(a.max(2).max(0), LazyMaths.max(l, 0, 2), 1e-9, 1e-15);
+		AbstractDatasetTest.checkDatasets(a.min(1), LazyMaths.min(l, 1), 1e-9, 1e-15);
+		Assert.assertEquals(((Number) a.sum()).doubleValue(), LazyMaths.sum(l).getDouble(), 1e-9);
+		Assert.assertEquals(0, LazyMaths.sum(l).getRank());
+
+		Dataset b = a.getTransposedView(1, 3, 0, 2).reshape(5, 3, 24);
+		AbstractDatasetTest.checkDatasets(b.variance(2), LazyMaths.variance(l, 0, 2), 1e-9, 1e-15);
+
+		Statistics stats = LazyMaths.statistics(l, 0, 2);
+		Assert.assertEquals(24, stats.getCount());
+		AbstractDatasetTest.checkDatasets(b.mean(2), stats.getMean(), 1e-9, 1e-15);
+		AbstractDatasetTest.checkDatasets(b.sum(2), stats.getSum(), 1e-9, 1e-15);
+		AbstractDatasetTest.checkDatasets(b.max(2), stats.getMax(), 1e-9, 1e-15);
+		AbstractDatasetTest.checkDatasets(b.min(2), stats.getMin(), 1e-9, 1e-15);
+		AbstractDatasetTest.checkDatasets(Maths.multiply(b.variance(2), 23. / 24), stats.getVariance(true), 1e-9, 1e-15);
+		Assert.assertNull(stats.getProduct());
+
+		try {
+			LazyMaths.sum(l, 1, -3);
+			Assert.fail("Should have thrown an illegal argument exception");
+		} catch (IllegalArgumentException e) {
+			// do nothing
+		}
+
+		// more than one block
+		a = Random.rand(new int[] {9, 500000});
+		l = LazyDataset.createLazyDataset(a);
+		AbstractDatasetTest.checkDatasets(a.sum(0), LazyMaths.sum(l, 0), 1e-9, 1e-15);
+		AbstractDatasetTest.checkDatasets(a.max(1), LazyMaths.max(l, 1), 1e-9, 1e-15);
+		AbstractDatasetTest.checkDatasets(a.variance(0), LazyMaths.variance(l, 0), 1e-9, 1e-15);
+	}
+
 	@Test
 	public void testMeanIgnore() {
 
@@ -92,4 +141,72 @@ public class LazyMathsTest {
 		AbstractDatasetTest.checkDatasets(e, LazyMaths.mean(a, 0).getError(), 1e-9, 1e-15);
 
 	}
+
+	private static double rankOf(double[] sorted, double v) {
+		int i = Arrays.binarySearch(sorted, v);
+		return (i < 0 ? -i - 1 : i) / (double) sorted.length;
+	}
+
+	@Test
+	public void testQuantiles() {
+		Random.seed(12371);
+		Dataset a = Random.exponential(3.75, new int[] {16, 256, 256});
+		double[] sorted = ((DoubleDataset) a.flatten()).getData().clone();
+		Arrays.sort(sorted);
+		double[] qs = new double[] {0.01, 0.25, 0.5, 0.75, 0.99};
+		double error = 2 * QuantileSketch.getNormalizedRankError(QuantileSketch.DEFAULT_K);
+
+		LazyDataset la = LazyDataset.createLazyDataset(a);
+		QuantileSketch sketch = LazyMaths.quantileSketch(la);
+		Assert.assertEquals(a.getSize(), sketch.getCount());
+		Assert.assertTrue("Sketch too big", sketch.getRetainedItems() < 4 * QuantileSketch.DEFAULT_K * 3);
+		Assert.assertEquals(sorted[0], sketch.getQuantile(0), 0);
+		Assert.assertEquals(sorted[sorted.length - 1], sketch.getQuantile(1), 0);
+		double[] p = LazyMaths.quantile(la, qs);
+		for (int i = 0; i < qs.length; i++) {
+			Assert.assertEquals("Quantile " + qs[i], qs[i], rankOf(sorted, p[i]), error);
+		}
+		Assert.assertEquals("Median", 0.5, rankOf(sorted, LazyMaths.median(la)), error);
+
+		double[] cdf = sketch.getCDF(Stats.quantile(a, qs));
+		for (int i = 0; i < qs.length; i++) {
+			Assert.assertEquals("CDF " + qs[i], qs[i], cdf[i], error);
+		}
+		long[] h = sketch.getHistogram(0, sorted[sorted.length / 2], sorted[sorted.length - 1]);
+		Assert.assertEquals(a.getSize(), h[0] + h[1]);
+		Assert.assertEquals(0.5, h[0] / (double) a.getSize(), error);
+
+		// merge sketches of parts
+		QuantileSketch s0 = LazyMaths.quantileSketch(la.getSliceView(new Slice(0, 5)));
+		QuantileSketch s1 = LazyMaths.quantileSketch(la.getSliceView(new Slice(5, null)));
+		s0.merge(s1);
+		Assert.assertEquals(a.getSize(), s0.getCount());
+		p = s0.getQuantiles(qs);
+		for (int i = 0; i < qs.length; i++) {
+			Assert.assertEquals("Quantile " + qs[i], qs[i], rankOf(sorted, p[i]), error);
+		}
+
+		// sketch blocks in parallel
+		ParallelUtils.enable(3);
+		int threshold = ParallelUtils.getThreshold();
+		ParallelUtils.setThreshold(1024);
+		try {
+			p = LazyMaths.quantile(la, qs);
+		} finally {
+			ParallelUtils.setThreshold(threshold);
+			ParallelUtils.disable();
+		}
+		for (int i = 0; i < qs.length; i++) {
+			Assert.assertEquals("Quantile " + qs[i], qs[i], rankOf(sorted, p[i]), error);
+		}
+
+		// NaNs are ignored
+		Dataset b = DatasetFactory.createRange(101, Dataset.FLOAT64);
+		b.set(Double.NaN, 3);
+		sketch = new QuantileSketch();
+		sketch.update(b);
+		Assert.assertEquals(100, sketch.getCount());
+		Assert.assertEquals(1, sketch.getNaNCount());
+		Assert.assertEquals(50.5, sketch.getQuantile(0.5), 1);
+	}
 }
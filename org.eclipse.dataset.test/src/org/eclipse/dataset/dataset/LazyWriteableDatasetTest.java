@@ -9,12 +9,24 @@
 
 package org.eclipse.dataset.dataset;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.dataset.DatasetException;
+import org.eclipse.dataset.IDataset;
+import org.eclipse.dataset.ILazyWriteableDataset;
+import org.eclipse.dataset.IMonitor;
 import org.eclipse.dataset.Slice;
 import org.eclipse.dataset.SliceND;
 import org.eclipse.dataset.dense.Dataset;
 import org.eclipse.dataset.dense.DatasetFactory;
 import org.eclipse.dataset.dense.Random;
 import org.eclipse.dataset.internal.dense.LazyWriteableDataset;
+import org.eclipse.dataset.io.AsyncSliceReader;
+import org.eclipse.dataset.io.ChunkCache;
+import org.eclipse.dataset.io.ILazySaver;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -83,4 +95,182 @@ public class LazyWriteableDatasetTest {
 		ld.setSlice(sd, s);
 		Assert.assertEquals(ld.getSlice(s), sd);
 	}	
+
+	@Test
+	public void testWriteBehind() throws Exception {
+		final int[] calls = new int[1];
+		ILazySaver saver = new ILazySaver() {
+			Dataset d = DatasetFactory.zeros(new int[] {0, 4}, Dataset.INT32);
+
+			@Override
+			public boolean isFileReadable() {
+				return true;
+			}
+
+			@Override
+			public boolean isFileWriteable() {
+				return true;
+			}
+
+			@Override
+			public void initialize() throws DatasetException {
+			}
+
+			@Override
+			public synchronized Dataset getDataset(IMonitor mon, SliceND slice) throws DatasetException {
+				return d.getSlice(mon, slice);
+			}
+
+			@Override
+			public synchronized void setSlice(IMonitor mon, IDataset data, SliceND slice) throws DatasetException {
+				calls[0]++;
+				if (slice.isExpanded()) {
+					Dataset od = d;
+					d = DatasetFactory.zeros(slice.getSourceShape(), od.getDType());
+					if (od.getSize() > 0) {
+						d.setSlice(od, SliceND.createSlice(od, null, null));
+					}
+				}
+				d.setSlice(data, slice);
+			}
+		};
+
+		LazyWriteableDataset ld = new LazyWriteableDataset("test", Dataset.INT32, new int[] {0, 4},
+				new int[] {ILazyWriteableDataset.UNLIMITED, 4}, new int[] {2, 4}, saver);
+		ld.setWriteBehind(true);
+		Assert.assertTrue(ld.isWriteBehind());
+
+		// write point by point so only whole chunks and the final partial row are saved
+		int rows = 5;
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < 4; j++) {
+				ld.setSlice(null, DatasetFactory.createFromObject(new int[] {4 * i + j}), new int[] {i, j}, new int[] {i + 1, j + 1}, null);
+			}
+		}
+		Assert.assertArrayEquals(new int[] {rows, 4}, ld.getShape());
+
+		Dataset e = DatasetFactory.createRange(4 * rows, Dataset.INT32).reshape(rows, 4);
+		Assert.assertEquals(e, ld.getSlice());
+		Assert.assertEquals(3, calls[0]);
+
+		// slices with steps are written directly
+		ld.setSlice(null, DatasetFactory.ones(new int[] {2, 2}, Dataset.INT32), new int[] {0, 0}, new int[] {2, 4}, new int[] {1, 2});
+		ld.setWriteBehind(false);
+		Assert.assertEquals(4, calls[0]);
+		e.setSlice(1, new Slice(0, 2), new Slice(0, 4, 2));
+		Assert.assertEquals(e, ld.getSlice());
+	}
+
+	@Test
+	public void testWriteBehindCache() throws Exception {
+		final int[] calls = new int[1];
+		ILazySaver saver = new ILazySaver() {
+			Dataset d = DatasetFactory.zeros(new int[] {4, 4}, Dataset.INT32);
+
+			@Override
+			public boolean isFileReadable() {
+				return true;
+			}
+
+			@Override
+			public boolean isFileWriteable() {
+				return true;
+			}
+
+			@Override
+			public void initialize() throws DatasetException {
+			}
+
+			@Override
+			public synchronized Dataset getDataset(IMonitor mon, SliceND slice) throws DatasetException {
+				return d.getSlice(mon, slice);
+			}
+
+			@Override
+			public synchronized void setSlice(IMonitor mon, IDataset data, SliceND slice) throws DatasetException {
+				calls[0]++;
+				d.setSlice(data, slice);
+			}
+		};
+
+		LazyWriteableDataset ld = new LazyWriteableDataset("test", Dataset.INT32, new int[] {4, 4},
+				new int[] {4, 4}, new int[] {2, 4}, saver);
+		ld.setCache(new ChunkCache());
+		ld.setWriteBehind(true);
+
+		Dataset e = DatasetFactory.zeros(new int[] {4, 4}, Dataset.INT32);
+		Assert.assertEquals(e, ld.getSlice()); // now cached
+
+		// reads see buffered writes to the blocks they overlap
+		ld.setSlice(null, DatasetFactory.createFromObject(new int[] {5}), new int[] {0, 0}, new int[] {1, 1}, null);
+		ld.setSlice(null, DatasetFactory.createFromObject(new int[] {7}), new int[] {2, 1}, new int[] {3, 2}, null);
+		e.set(5, 0, 0);
+		e.set(7, 2, 1);
+		Assert.assertEquals(0, calls[0]);
+		Assert.assertEquals(e.getSlice(new Slice(0, 1)), ld.getSlice(new Slice(0, 1)));
+		Assert.assertEquals(1, calls[0]);
+
+		// and do not wait for other blocks
+		Assert.assertEquals(e.getSlice(new Slice(1, 2)), ld.getSlice(new Slice(1, 2)));
+		Assert.assertEquals(1, calls[0]);
+		Assert.assertEquals(e, ld.getSlice());
+		Assert.assertEquals(2, calls[0]);
+		ld.setWriteBehind(false);
+	}
+
+	@Test
+	public void testWriteBehindFlushOnReaderThread() throws Exception {
+		// reading from a thread of a single threaded reader pool must not wait for writes queued on it
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		AsyncSliceReader.setExecutor(pool);
+		try {
+			LazyWriteableDataset ld = new LazyWriteableDataset("test", Dataset.INT32, new int[] {4, 4},
+					new int[] {4, 4}, new int[] {2, 4}, new MemorySaver(new int[] {4, 4}));
+			ld.setWriteBehind(true, 1, null);
+			ld.setSlice(null, DatasetFactory.createFromObject(new int[] {5}), new int[] {0, 0}, new int[] {1, 1}, null);
+			ld.setSlice(null, DatasetFactory.createFromObject(new int[] {7}), new int[] {3, 3}, new int[] {4, 4}, null);
+
+			Dataset e = DatasetFactory.zeros(new int[] {4, 4}, Dataset.INT32);
+			e.set(5, 0, 0);
+			e.set(7, 3, 3);
+			Future<IDataset> f = AsyncSliceReader.getSlice(ld, new SliceND(ld.getShape()));
+			Assert.assertEquals(e, f.get(10, TimeUnit.SECONDS));
+			ld.setWriteBehind(false);
+		} finally {
+			AsyncSliceReader.setExecutor(null);
+			pool.shutdownNow();
+		}
+	}
+
+	private static class MemorySaver implements ILazySaver {
+		private Dataset d;
+
+		MemorySaver(int[] shape) {
+			d = DatasetFactory.zeros(shape, Dataset.INT32);
+		}
+
+		@Override
+		public boolean isFileReadable() {
+			return true;
+		}
+
+		@Override
+		public boolean isFileWriteable() {
+			return true;
+		}
+
+		@Override
+		public void initialize() throws DatasetException {
+		}
+
+		@Override
+		public synchronized Dataset getDataset(IMonitor mon, SliceND slice) throws DatasetException {
+			return d.getSlice(mon, slice);
+		}
+
+		@Override
+		public synchronized void setSlice(IMonitor mon, IDataset data, SliceND slice) throws DatasetException {
+			d.setSlice(data, slice);
+		}
+	}
 }
@@ -13,6 +13,8 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+
 import org.eclipse.dataset.Slice;
 import org.eclipse.dataset.TestUtils;
 import org.eclipse.dataset.dense.Dataset;
@@ -20,8 +22,12 @@ import org.eclipse.dataset.dense.DatasetFactory;
 import org.eclipse.dataset.dense.DatasetUtils;
 import org.eclipse.dataset.dense.LinearAlgebra;
 import org.eclipse.dataset.dense.Maths;
+import org.eclipse.dataset.dense.ParallelUtils;
 import org.eclipse.dataset.dense.Random;
 import org.eclipse.dataset.dense.LinearAlgebra.NormOrder;
+import org.eclipse.dataset.internal.dense.ComplexDoubleDataset;
+import org.eclipse.dataset.internal.dense.DatasetRealMatrix;
+import org.eclipse.dataset.internal.dense.DatasetRealVector;
 import org.eclipse.dataset.internal.dense.DoubleDataset;
 import org.eclipse.dataset.internal.dense.FloatDataset;
 import org.eclipse.dataset.internal.dense.IntegerDataset;
@@ -85,6 +91,7 @@ public class LinearAlgebraTest {
 		Number n = (Number) d.typedSum();
 		nstart += System.nanoTime();
 		System.out.printf("Time taken %dus %dus\n", start/1000, nstart/1000);
+		assertEquals("Rank", 0, c.getRank());
 		assertTrue("Data does not match", n.equals(c.getObjectAbs(0)));
 		assertTrue("Data does not match", n.equals(c.getObject()));
 	}
@@ -268,4 +275,144 @@ public class LinearAlgebraTest {
 		Dataset b = new IntegerDataset(new int[] {9, 8}, null);
 		TestUtils.assertDatasetEquals(new DoubleDataset(new double[]{2, 3}), LinearAlgebra.solve(a, b), true, 1e-12, 1e-12);
 	}
+
+	@Test
+	public void testMatrixProduct() {
+		// sizes that are not multiples of blocks
+		int[][] sizes = {{1, 1, 1}, {5, 3, 7}, {37, 300, 21}, {130, 67, 9}};
+		for (int[] mnk : sizes) {
+			Dataset a = Random.randn(mnk[0], mnk[2]);
+			Dataset b = Random.randn(mnk[2], mnk[1]);
+			Dataset c = LinearAlgebra.dotProduct(a, b);
+			LinearAlgebra.setCompensatedSummation(true);
+			try {
+				TestUtils.assertDatasetEquals(LinearAlgebra.dotProduct(a, b), c, true, 1e-12, 1e-12);
+				TestUtils.assertDatasetEquals(LinearAlgebra.tensorDotProduct(b, a, new int[] {0}, new int[] {1}),
+						LinearAlgebra.dotProduct(b.transpose(), a.transpose()), true, 1e-12, 1e-12);
+			} finally {
+				LinearAlgebra.setCompensatedSummation(false);
+			}
+		}
+
+		// parallel and batched
+		Dataset a = Random.randn(6, 50, 40);
+		Dataset b = Random.randn(40, 70);
+		ParallelUtils.enable(3);
+		int threshold = ParallelUtils.getThreshold();
+		ParallelUtils.setThreshold(64);
+		Dataset c;
+		try {
+			c = LinearAlgebra.dotProduct(a, b);
+		} finally {
+			ParallelUtils.setThreshold(threshold);
+			ParallelUtils.disable();
+		}
+		assertArrayEquals("Shape", new int[] {6, 50, 70}, c.getShape());
+		for (int i = 0; i < 6; i++) {
+			Dataset s = a.getSlice(new Slice(i, i + 1), null, null).squeeze();
+			TestUtils.assertDatasetEquals(LinearAlgebra.dotProduct(s, b), c.getSlice(new Slice(i, i + 1), null, null).squeeze(), true, 1e-12, 1e-12);
+		}
+
+		// complex
+		Dataset ca = new ComplexDoubleDataset(new double[] {1, 2, 3, -1, 0, 1, 2, 0}, 2, 2);
+		Dataset cb = new ComplexDoubleDataset(new double[] {0, 1, 1, 0, 2, 2, -1, 3}, 2, 2);
+		Dataset e = new ComplexDoubleDataset(new double[] {6, 5, 1, 12, 3, 4, -2, 7}, 2, 2);
+		TestUtils.assertDatasetEquals(e, LinearAlgebra.dotProduct(ca, cb), true, 1e-12, 1e-12);
+		e = new ComplexDoubleDataset(new double[] {6, -2, 4, 1, 4, 0, 2, 1}, 2, 2);
+		TestUtils.assertDatasetEquals(e, LinearAlgebra.dotProduct(ca, DatasetFactory.createFromObject(new double[] {0, 1, 2, 1}).reshape(2, 2)), true, 1e-12, 1e-12);
+	}
+
+	@Test
+	public void testRealMatrixAdapters() {
+		DoubleDataset d = (DoubleDataset) DatasetFactory.createRange(12, Dataset.FLOAT64).reshape(3, 4);
+		Dataset v = d.getSliceView(new Slice(0, 3, 2), new Slice(3, 0, -2)).getTransposedView();
+		DatasetRealMatrix m = DatasetRealMatrix.createRealMatrix(v);
+		assertEquals(2, m.getRowDimension());
+		assertEquals(2, m.getColumnDimension());
+		for (int i = 0; i < 2; i++) {
+			for (int j = 0; j < 2; j++) {
+				assertEquals(v.getDouble(i, j), m.getEntry(i, j), 0);
+			}
+		}
+		assertArrayEquals(new double[] {3, 11}, m.getRow(0), 0);
+		assertArrayEquals(new double[] {3 * 2 + 11 * 3, 1 * 2 + 9 * 3}, m.operate(new double[] {2, 3}), 1e-12);
+
+		// write through to dataset
+		m.setEntry(1, 0, -1);
+		assertEquals(-1, d.getDouble(0, 1), 0);
+		assertEquals(-1, v.getDouble(1, 0), 0);
+		TestUtils.assertDatasetEquals(v, DatasetRealMatrix.createDataset(m.copy()), 1e-12, 1e-12);
+
+		DatasetRealVector rv = DatasetRealVector.createRealVector(d.getSliceView(new Slice(null, null, 2), new Slice(1, 2)).squeeze());
+		assertArrayEquals(new double[] {-1, 9}, rv.getData(), 0);
+		assertEquals(9, rv.getSubVector(1, 1).getEntry(0), 0);
+		assertEquals(-1 * 2 + 9 * 3, rv.dotProduct(new double[] {2, 3}), 1e-12);
+
+		// decompositions of views
+		Dataset a = new DoubleDataset(new double[] {0, 3, 0, 1, 0, 1, 0, 2}, 2, 4).getSliceView(null, new Slice(1, null, 2));
+		Dataset b = new DoubleDataset(new double[] {9, 0, 8, 0}).getSliceView(new Slice(null, null, 2));
+		TestUtils.assertDatasetEquals(new DoubleDataset(new double[] {2, 3}), LinearAlgebra.solve(a, b), true, 1e-12, 1e-12);
+		TestUtils.assertDatasetEquals(LinearAlgebra.calcInverse(a.clone()), LinearAlgebra.calcInverse(a), true, 1e-12, 1e-12);
+	}
+
+	@Test
+	public void testBatch() {
+		ParallelUtils.enable(3);
+		int threshold = ParallelUtils.getThreshold();
+		ParallelUtils.setThreshold(16);
+		try {
+			for (int n = 1; n <= 6; n++) {
+				Random.seed(n);
+				Dataset a = Random.rand(3, 2, n, n);
+				Dataset s = Maths.add(a, DatasetUtils.transpose(a, 0, 1, 3, 2));
+				Dataset v = Random.rand(3, 2, n);
+				Dataset w = Random.rand(3, 2, n, 2);
+
+				Dataset inv = LinearAlgebra.calcInverseBatch(a);
+				Dataset det = LinearAlgebra.calcDeterminantBatch(a);
+				Dataset sdet = LinearAlgebra.calcDeterminantBatch(s);
+				Dataset x = LinearAlgebra.solveBatch(a, v);
+				Dataset y = LinearAlgebra.solveBatch(a, w);
+				Dataset e = LinearAlgebra.calcEigenvaluesBatch(s);
+				assertArrayEquals(new int[] {3, 2, n, n}, inv.getShape());
+				assertArrayEquals(new int[] {3, 2}, det.getShape());
+				assertArrayEquals(new int[] {3, 2, n}, x.getShape());
+				assertArrayEquals(new int[] {3, 2, n, 2}, y.getShape());
+				assertArrayEquals(new int[] {3, 2, n}, e.getShape());
+
+				for (int i = 0; i < 3; i++) {
+					for (int j = 0; j < 2; j++) {
+						Slice[] ms = new Slice[] {new Slice(i, i + 1), new Slice(j, j + 1)};
+						Dataset m = a.getSlice(ms).reshape(n, n);
+						TestUtils.assertDatasetEquals(LinearAlgebra.calcInverse(m), inv.getSlice(ms).reshape(n, n), true, 1e-8, 1e-8);
+						TestUtils.assertDatasetEquals(LinearAlgebra.solve(m, v.getSlice(ms).reshape(n)), x.getSlice(ms).reshape(n), true, 1e-8, 1e-8);
+						TestUtils.assertDatasetEquals(LinearAlgebra.solve(m, w.getSlice(ms).reshape(n, 2)), y.getSlice(ms).reshape(n, 2), true, 1e-8, 1e-8);
+						assertEquals(1, det.getDouble(i, j) * LinearAlgebra.calcDeterminantBatch(inv.getSlice(ms)).getDouble(0, 0), 1e-8);
+
+						Dataset sm = s.getSlice(ms).reshape(n, n);
+						assertEquals(LinearAlgebra.calcDeterminant(sm), sdet.getDouble(i, j), 1e-8 * Math.max(1, Math.abs(sdet.getDouble(i, j))));
+						Dataset ev = LinearAlgebra.calcEigenvalues(sm);
+						double[] ed = (double[]) DatasetUtils.cast(ev, Dataset.FLOAT64).getBuffer();
+						Arrays.sort(ed);
+						for (int k = 0; k < n; k++) {
+							assertEquals(ed[n - 1 - k], e.getDouble(i, j, k), 1e-8);
+						}
+					}
+				}
+			}
+		} finally {
+			ParallelUtils.setThreshold(threshold);
+			ParallelUtils.disable();
+		}
+
+		Dataset z = DatasetFactory.zeros(new int[] {2, 3, 3}, Dataset.FLOAT64);
+		z.set(1, 0, 0, 0);
+		z.set(1, 0, 1, 1);
+		z.set(1, 0, 2, 2);
+		Dataset zi = LinearAlgebra.calcInverseBatch(z);
+		assertEquals(1, zi.getDouble(0, 1, 1), 0);
+		assertTrue(Double.isNaN(zi.getDouble(1, 0, 0)));
+		assertEquals(0, LinearAlgebra.calcDeterminantBatch(z).getDouble(1), 0);
+		assertEquals(-2, LinearAlgebra.calcDeterminantBatch(new DoubleDataset(new double[] {1, 2, 3, 4}, 2, 2)).getDouble(), 1e-12);
+	}
 }
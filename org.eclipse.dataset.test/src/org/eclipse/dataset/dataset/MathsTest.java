@@ -25,6 +25,7 @@ import org.eclipse.dataset.dense.DatasetFactory;
 import org.eclipse.dataset.dense.DatasetUtils;
 import org.eclipse.dataset.dense.IndexIterator;
 import org.eclipse.dataset.dense.Maths;
+import org.eclipse.dataset.dense.ParallelUtils;
 import org.eclipse.dataset.dense.Random;
 import org.eclipse.dataset.internal.dense.ByteDataset;
 import org.eclipse.dataset.internal.dense.ComplexDoubleDataset;
@@ -2169,4 +2170,43 @@ public class MathsTest {
 		TestUtils.assertDatasetEquals(new FloatDataset(new float[] {-1.5f, -0.5f, -2, -1, 0, -1.5f, -0.5f, -2}),
 				Maths.floorRemainder(xa, -2.5f), true, ABSERRD, ABSERRD);
 	}
+
+	@Test
+	public void testParallel() {
+		Random.seed(12735L);
+		Dataset a = Random.randn(new int[] {37, 21, 5}).imultiply(100);
+		Dataset b = Random.randn(new int[] {21, 1}).imultiply(100);
+		Dataset c = Random.randn(new int[] {74, 21, 5}).imultiply(100);
+
+		for (String dn : classes.keySet()) {
+			final int dtype = classes.get(dn);
+			Dataset xa = castForParallel(a, dtype);
+			Dataset xb = castForParallel(b, dtype);
+			Dataset xc = castForParallel(c, dtype).getSliceView(new Slice(null, null, 2));
+
+			Dataset[] serial = new Dataset[] {Maths.add(xa, xb), Maths.multiply(xa, xc), Maths.subtract(xc, 2.5),
+					Maths.dividez(xa, xb), Maths.sin(xa), Maths.abs(xc)};
+			int threshold = ParallelUtils.getThreshold();
+			try {
+				ParallelUtils.enable(3);
+				ParallelUtils.setThreshold(64);
+				Dataset[] parallel = new Dataset[] {Maths.add(xa, xb), Maths.multiply(xa, xc), Maths.subtract(xc, 2.5),
+						Maths.dividez(xa, xb), Maths.sin(xa), Maths.abs(xc)};
+				for (int i = 0; i < serial.length; i++) {
+					Assert.assertEquals(dn + ": " + i, serial[i], parallel[i]);
+					Assert.assertEquals(dn + ": " + i, serial[i].getName(), parallel[i].getName());
+				}
+			} finally {
+				ParallelUtils.disable();
+				ParallelUtils.setThreshold(threshold);
+			}
+		}
+	}
+
+	private static Dataset castForParallel(Dataset a, int dtype) {
+		if (dtype < Dataset.ARRAYINT8) {
+			return a.cast(dtype);
+		}
+		return DatasetUtils.cast(new Dataset[] {a, a.clone().imultiply(-2)}, dtype);
+	}
 }
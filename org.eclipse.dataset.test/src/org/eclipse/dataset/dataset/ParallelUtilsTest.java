@@ -0,0 +1,48 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.dataset;
+
+import java.util.List;
+
+import org.eclipse.dataset.SliceND;
+import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.DatasetFactory;
+import org.eclipse.dataset.dense.IndexIterator;
+import org.eclipse.dataset.dense.ParallelUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelUtilsTest {
+
+	private static void checkSplit(int chunks, int... shape) {
+		Dataset count = DatasetFactory.zeros(shape, Dataset.INT32);
+		List<SliceND> slices = ParallelUtils.split(shape, chunks);
+		for (SliceND s : slices) {
+			Dataset v = count.getSliceView(s);
+			v.iadd(1);
+		}
+		IndexIterator it = count.getIterator();
+		while (it.hasNext()) {
+			Assert.assertEquals(1, count.getElementLongAbs(it.index));
+		}
+		Assert.assertTrue(slices.size() <= 2 * chunks);
+	}
+
+	@Test
+	public void testSplit() {
+		checkSplit(1, 10);
+		checkSplit(4, 10);
+		checkSplit(16, 3);
+		checkSplit(8, 2, 7, 5);
+		checkSplit(12, 5, 3, 11);
+		checkSplit(100, 4, 4, 4);
+		Assert.assertEquals(1, ParallelUtils.split(new int[0], 8).size());
+	}
+}
@@ -11,6 +11,10 @@ package org.eclipse.dataset.dataset;
 
 import static org.junit.Assert.assertEquals;
 
+import org.eclipse.dataset.IDataset;
+import org.eclipse.dataset.ILazyDataset;
+import org.eclipse.dataset.Slice;
+import org.eclipse.dataset.dense.ParallelUtils;
 import org.eclipse.dataset.dense.Random;
 import org.eclipse.dataset.internal.dense.DoubleDataset;
 import org.eclipse.dataset.internal.dense.IntegerDataset;
@@ -103,4 +107,52 @@ public class RandomTest {
 		assertEquals(msg, 2.3, ((Number) ta.mean()).doubleValue(), 2.3*5e-2);
 		assertEquals(msg, Math.sqrt(2.3), ta.stdDeviation().doubleValue(), 2.3*5e-2);
 	}
+
+	/**
+	 * Poisson distribution with large mean
+	 */
+	@Test
+	public void TestPoiLarge() {
+		Random.seed(103);
+		IntegerDataset ta = Random.poisson(230, new int[] {10000});
+
+		assertEquals(msg, 230, ((Number) ta.mean()).doubleValue(), 230*5e-3);
+		assertEquals(msg, Math.sqrt(230), ta.stdDeviation().doubleValue(), Math.sqrt(230)*5e-2);
+	}
+
+	/**
+	 * Values do not depend on splitting between threads
+	 */
+	@Test
+	public void TestParallel() {
+		Random.seed(109);
+		DoubleDataset ta = Random.randn(5000);
+		IntegerDataset tp = Random.poisson(12.5, 5000);
+
+		ParallelUtils.enable(3);
+		int threshold = ParallelUtils.getThreshold();
+		ParallelUtils.setThreshold(64);
+		try {
+			Random.seed(109);
+			assertEquals(ta, Random.randn(5000));
+			assertEquals(tp, Random.poisson(12.5, 5000));
+		} finally {
+			ParallelUtils.setThreshold(threshold);
+			ParallelUtils.disable();
+		}
+	}
+
+	/**
+	 * Lazy datasets give same values for same slices
+	 */
+	@Test
+	public void TestLazyRand() throws Exception {
+		ILazyDataset l = Random.lazyRand(6, 8);
+		IDataset s = l.getSlice(new Slice(1, 5, 2), new Slice(7, 0, -3));
+		IDataset a = l.getSlice();
+		assertEquals(s, l.getSlice(new Slice(1, 5, 2), new Slice(7, 0, -3)));
+		assertEquals(a.getSlice(new Slice(1, 5, 2), new Slice(7, 0, -3)), s);
+		assertEquals(a, l.getSlice());
+		assertEquals(a.getSlice(new Slice(5, 6)), l.getSlice(new Slice(5, 6)));
+	}
 }
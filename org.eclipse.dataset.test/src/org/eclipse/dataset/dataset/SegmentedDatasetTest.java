@@ -0,0 +1,151 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.dataset;
+
+import org.eclipse.dataset.Slice;
+import org.eclipse.dataset.SliceND;
+import org.eclipse.dataset.TestUtils;
+import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.IndexIterator;
+import org.eclipse.dataset.dense.Maths;
+import org.eclipse.dataset.dense.Random;
+import org.eclipse.dataset.dense.SegmentedDataset;
+import org.eclipse.dataset.dense.SegmentedDataset.SegmentFunction;
+import org.eclipse.dataset.dense.SegmentedDataset.SegmentPairFunction;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SegmentedDatasetTest {
+
+	private static SegmentedDataset createSegmented(Dataset d, int maxSegmentSize) {
+		SegmentedDataset s = SegmentedDataset.zeros(maxSegmentSize, d.getShapeRef(), d.getDType());
+		IndexIterator it = d.getIterator(true);
+		int[] pos = it.getPos();
+		while (it.hasNext()) {
+			s.set(d.getObjectAbs(it.index), pos);
+		}
+		return s;
+	}
+
+	@Test
+	public void testCreate() {
+		SegmentedDataset s = SegmentedDataset.zeros(50, new int[] {23, 4, 3}, Dataset.FLOAT64);
+		Assert.assertEquals(6, s.getNumberOfSegments());
+		Assert.assertArrayEquals(new int[] {4, 4, 3}, s.getSegment(0).getShapeRef());
+		Assert.assertArrayEquals(new int[] {3, 4, 3}, s.getSegment(5).getShapeRef());
+		Assert.assertArrayEquals(new int[] {23, 4, 3}, s.getShape());
+		Assert.assertEquals(23 * 4 * 3, s.getLongSize());
+
+		try {
+			SegmentedDataset.zeros(10, new int[] {3, 4, 3}, Dataset.FLOAT64);
+			Assert.fail("Should have thrown an exception");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testGetSet() {
+		Dataset d = Random.randn(23, 4, 3);
+		SegmentedDataset s = createSegmented(d, 50);
+
+		Assert.assertEquals(d.getDouble(13, 2, 1), s.getDouble(13, 2, 1), 0);
+		Assert.assertEquals(d.getDouble(22, 3, 2), s.getDouble(22, 3, 2), 0);
+		for (long i = 0; i < s.getLongSize(); i += 7) {
+			Assert.assertEquals(d.getElementDoubleAbs((int) i), s.getElementDouble(i), 0);
+		}
+		s.set(-2.5, 8, 0, 0);
+		Assert.assertEquals(-2.5, s.getSegment(2).getDouble(0, 0, 0), 0);
+	}
+
+	@Test
+	public void testGetSlice() {
+		Dataset d = Random.randn(23, 4, 3);
+		SegmentedDataset s = createSegmented(d, 50);
+		int[] shape = d.getShapeRef();
+
+		Slice[][] slices = new Slice[][] {
+			{},
+			{new Slice(5, 6)},
+			{new Slice(3, 19)},
+			{new Slice(2, 22, 3), new Slice(1, 3)},
+			{new Slice(21, 2, -3), null, new Slice(null, null, -1)},
+			{new Slice(null, null, -5)},
+			{new Slice(7, 7)},
+		};
+		for (Slice[] sl : slices) {
+			SliceND slice = new SliceND(shape, sl);
+			TestUtils.assertDatasetEquals(d.getSlice(slice), s.getSlice(slice), true, 0, 0);
+		}
+	}
+
+	@Test
+	public void testApply() {
+		Dataset d = Random.randn(23, 4, 3);
+		SegmentedDataset s = createSegmented(d, 50);
+		Dataset b = Random.randn(4, 1);
+
+		SegmentedDataset r = s.apply(new SegmentFunction() {
+			@Override
+			public Dataset apply(Dataset a, Dataset o) {
+				return Maths.sin(a, o);
+			}
+		});
+		TestUtils.assertDatasetEquals(Maths.sin(d), r.getSlice(new SliceND(d.getShapeRef())), true, 0, 0);
+
+		SegmentPairFunction add = new SegmentPairFunction() {
+			@Override
+			public Dataset apply(Dataset a, Object b, Dataset o) {
+				return Maths.add(a, b, o);
+			}
+		};
+		r = s.apply(b, add);
+		TestUtils.assertDatasetEquals(Maths.add(d, b), r.getSlice(new SliceND(d.getShapeRef())), true, 0, 0);
+
+		r.iapply(s, add);
+		TestUtils.assertDatasetEquals(Maths.add(d, b).iadd(d), r.getSlice(new SliceND(d.getShapeRef())), true, 0, 0);
+
+		try {
+			s.apply(createSegmented(d, 30), add);
+			Assert.fail("Should have thrown an exception");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testReductions() {
+		Dataset d = Random.randn(23, 4, 3);
+		SegmentedDataset s = createSegmented(d, 50);
+
+		Assert.assertEquals(((Number) d.sum()).doubleValue(), s.sum(), 1e-12);
+		Assert.assertEquals(((Number) d.mean()).doubleValue(), s.mean(), 1e-12);
+		Assert.assertEquals(d.max().doubleValue(), s.max(), 0);
+		Assert.assertEquals(d.min().doubleValue(), s.min(), 0);
+		Assert.assertEquals(d.variance().doubleValue(), s.variance(), 1e-12);
+		Assert.assertEquals(d.variance().doubleValue() * (d.getSize() - 1) / d.getSize(), s.variance(true), 1e-12);
+
+		TestUtils.assertDatasetEquals(d.sum(0), s.sum(0), 1e-12, 1e-12);
+		TestUtils.assertDatasetEquals(d.mean(0), s.mean(0), 1e-12, 1e-12);
+		TestUtils.assertDatasetEquals(d.max(0), s.max(0), 0, 0);
+		TestUtils.assertDatasetEquals(d.min(0), s.min(0), 0, 0);
+
+		TestUtils.assertDatasetEquals(d.sum(2), s.sum(2), 1e-12, 1e-12);
+		TestUtils.assertDatasetEquals(d.mean(1), s.mean(1), 1e-12, 1e-12);
+		TestUtils.assertDatasetEquals(d.max(1), s.max(-2), 0, 0);
+		TestUtils.assertDatasetEquals(d.min(2), s.min(2), 0, 0);
+
+		// means of integers are not truncated
+		Dataset n = Random.randint(0, 10, new int[] {23, 4, 3});
+		SegmentedDataset sn = createSegmented(n, 50);
+		TestUtils.assertDatasetEquals(n.mean(0), sn.mean(0), 1e-12, 1e-12);
+		TestUtils.assertDatasetEquals(n.mean(1), sn.mean(1), 1e-12, 1e-12);
+	}
+}
@@ -15,12 +15,20 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
 
+import org.apache.commons.math.stat.descriptive.moment.Kurtosis;
+import org.apache.commons.math.stat.descriptive.moment.Skewness;
+import org.apache.commons.math.stat.descriptive.moment.Variance;
+import org.eclipse.dataset.TestUtils;
+import org.eclipse.dataset.dense.CompoundDataset;
 import org.eclipse.dataset.dense.Dataset;
 import org.eclipse.dataset.dense.DatasetFactory;
 import org.eclipse.dataset.dense.DatasetUtils;
+import org.eclipse.dataset.dense.IndexIterator;
 import org.eclipse.dataset.dense.Maths;
+import org.eclipse.dataset.dense.ParallelUtils;
 import org.eclipse.dataset.dense.Random;
 import org.eclipse.dataset.dense.Stats;
+import org.eclipse.dataset.dense.Summary;
 import org.eclipse.dataset.internal.dense.DoubleDataset;
 import org.eclipse.dataset.internal.dense.IntegerDataset;
 import org.junit.Test;
@@ -37,7 +45,7 @@ public class StatsTest {
 	 */
 	@Test
 	public void testRand() {
-		Random.seed(103);
+		Random.seed(107);
 		DoubleDataset ta = Random.rand(100000);
 
 		assertEquals(msg, 0.5, ((Number) ta.mean()).doubleValue(), 4e-2);
@@ -100,7 +108,7 @@ public class StatsTest {
 	 */
 	@Test
 	public void testRandExp() {
-		Random.seed(103);
+		Random.seed(107);
 		double beta = 0.3;
 		DoubleDataset ta = Random.exponential(beta, 100000);
 
@@ -144,6 +152,221 @@ public class StatsTest {
 		assertEquals("Product", 720, (Double) Stats.product(a, true), 1e-6);
 	}
 
+	private static double sortedQuantile(double[] v, double q) {
+		double[] s = v.clone();
+		Arrays.sort(s);
+		double f = (s.length - 1) * q;
+		int k = (int) Math.floor(f);
+		f -= k;
+		return f > 0 ? (1 - f) * s[k] + f * s[k + 1] : s[k];
+	}
+
+	@Test
+	public void testQuantiles() {
+		Random.seed(12371);
+		double[] qs = new double[] {0.75, 0, 0.1, 0.5, 0.25, 1};
+		Dataset a = Random.randint(-20, 20, new int[] {7, 33, 5});
+		double[] values = ((DoubleDataset) DatasetUtils.cast(a.flatten(), Dataset.FLOAT64)).getData();
+		assertEquals("Median", sortedQuantile(values, 0.5), ((Number) Stats.median(a)).doubleValue(), 1e-12);
+		double[] p = Stats.quantile(a, qs);
+		for (int i = 0; i < qs.length; i++) {
+			assertEquals("Quantile " + qs[i], sortedQuantile(values, qs[i]), p[i], 1e-12);
+		}
+
+		for (int axis = 0; axis < a.getRank(); axis++) {
+			Dataset[] ps = Stats.quantile(a, axis, qs);
+			Dataset m = Stats.median(a, axis);
+			int[] shape = a.getShape();
+			shape[axis] = 1;
+			assertArrayEquals(DatasetUtils.squeezeShape(shape, false), m.getShape());
+			IndexIterator it = m.getIterator(true);
+			int[] pos = it.getPos();
+			while (it.hasNext()) {
+				int[] start = new int[a.getRank()];
+				int[] stop = a.getShape();
+				for (int i = 0, j = 0; i < start.length; i++) {
+					if (i != axis) {
+						start[i] = pos[j++];
+						stop[i] = start[i] + 1;
+					}
+				}
+				double[] line = ((DoubleDataset) DatasetUtils.cast(a.getSlice(start, stop, null).flatten(), Dataset.FLOAT64)).getData();
+				assertEquals("Median", sortedQuantile(line, 0.5), m.getDouble(pos), 1e-12);
+				for (int i = 0; i < qs.length; i++) {
+					assertEquals("Quantile " + qs[i], sortedQuantile(line, qs[i]), ps[i].getDouble(pos), 1e-12);
+				}
+			}
+		}
+
+		// views and NaNs
+		Dataset v = a.getSliceView(new int[] {1, 2, 0}, null, new int[] {2, 3, 2});
+		Dataset e = DatasetUtils.cast(v, Dataset.FLOAT64);
+		assertEquals("Median", ((Number) Stats.median(e)).doubleValue(), ((Number) Stats.median(v)).doubleValue(), 1e-12);
+		TestUtils.assertDatasetEquals(Stats.median(e, 1), Stats.median(v, 1), 1e-12, 1e-12);
+		TestUtils.assertDatasetEquals(Stats.iqr(e, 2), Stats.iqr(v, 2), 1e-12, 1e-12);
+		e.set(Double.NaN, 0, 0, 0);
+		assertTrue("Quantile", Double.isNaN(Stats.quantile(e, 1)));
+		double[] rest = Arrays.copyOfRange(((DoubleDataset) e.flatten()).getData(), 1, e.getSize());
+		assertEquals("Quantile", sortedQuantile(rest, 0), Stats.quantile(e, 0), 1e-12);
+		assertTrue("Quantile", Double.isNaN(Stats.quantile(e, 0, 1)[0].getDouble(0, 0)));
+		assertEquals("Quantile", Math.max(e.getDouble(1, 0, 0), e.getDouble(2, 0, 0)), Stats.quantile(e, 0, 0.5)[0].getDouble(0, 0), 1e-12);
+		assertEquals("Median", Stats.median(v, 0).getDouble(1, 1), Stats.median(e, 0).getDouble(1, 1), 1e-12);
+
+		// compound
+		CompoundDataset c = DatasetUtils.createCompoundDataset(a, Maths.multiply(a, -2));
+		Dataset[] cm = Stats.quantile(c, 1, 0.5, 0.25);
+		TestUtils.assertDatasetEquals(Stats.median(a, 1), ((CompoundDataset) cm[0]).getElements(0), 1e-12, 1e-12);
+		TestUtils.assertDatasetEquals(Stats.median(Maths.multiply(a, -2), 1), ((CompoundDataset) cm[0]).getElements(1), 1e-12, 1e-12);
+		TestUtils.assertDatasetEquals(Stats.quantile(a, 1, 0.25)[0], ((CompoundDataset) cm[1]).getElements(0), 1e-12, 1e-12);
+
+		// split lines over threads
+		Dataset b = Random.randn(new int[] {300, 41});
+		Dataset expected = Stats.median(b, 1);
+		ParallelUtils.enable(3);
+		int threshold = ParallelUtils.getThreshold();
+		ParallelUtils.setThreshold(1024);
+		try {
+			TestUtils.assertDatasetEquals(expected, Stats.median(b.clone(), 1), 1e-15, 1e-15);
+			TestUtils.assertDatasetEquals(Stats.quantile(b, 0, 0.3)[0], Stats.quantile(b.clone(), 0, 0.3)[0], 1e-15, 1e-15);
+		} finally {
+			ParallelUtils.setThreshold(threshold);
+			ParallelUtils.disable();
+		}
+	}
+
+	@Test
+	public void testSummary() {
+		Random.seed(12371);
+		Dataset a = Random.exponential(2.5, new int[] {30, 41, 7});
+		double[] values = ((DoubleDataset) a.flatten()).getData();
+		Skewness sk = new Skewness();
+		Kurtosis ku = new Kurtosis();
+		sk.incrementAll(values);
+		ku.incrementAll(values);
+
+		Summary s = Stats.summary(a, false, false);
+		assertArrayEquals(new int[0], s.getShape());
+		assertEquals(a.getSize(), s.getCount());
+		assertEquals(0, s.getNaNCount(0));
+		assertEquals(a.max().doubleValue(), s.getMax(), 0);
+		assertEquals(a.min().doubleValue(), s.getMin(), 0);
+		assertEquals(a.argMax(), s.getMaxIndex());
+		assertEquals(a.argMin(), s.getMinIndex());
+		assertEquals(sk.getResult(), s.getSkewness(), 1e-12);
+		assertEquals(ku.getResult(), s.getKurtosis(), 1e-12);
+		assertEquals(sk.getResult(), ((Number) Stats.skewness(a)).doubleValue(), 1e-12);
+		assertEquals(ku.getResult(), ((Number) Stats.kurtosis(a)).doubleValue(), 1e-12);
+		double sum = 0;
+		for (double v : values) {
+			sum += v;
+		}
+		double mean = sum / values.length;
+		double m2 = 0;
+		for (double v : values) {
+			m2 += (v - mean) * (v - mean);
+		}
+		assertEquals(mean, ((Number) a.mean()).doubleValue(), 1e-12);
+		assertEquals(m2 / (values.length - 1), a.variance().doubleValue(), 1e-12);
+		assertEquals(m2 / values.length, s.getVariance(0, true), 1e-12);
+		assertTrue("Summary is stored", s == Stats.summary(a, false, false));
+
+		// per axis
+		for (int axis = 0; axis < 3; axis++) {
+			Summary t = Stats.summary(a, axis, false, false);
+			Dataset skew = Stats.skewness(a, axis);
+			Dataset max = a.max(axis);
+			Dataset amax = a.argMax(axis);
+			Dataset amin = a.argMin(axis);
+			Dataset var = a.variance(axis);
+			assertTrue("Summary is stored", t == Stats.summary(a, axis, false, false));
+			assertEquals(max.getSize(), t.getSize());
+			IndexIterator it = max.getIterator(true);
+			int[] pos = it.getPos();
+			while (it.hasNext()) {
+				int[] start = new int[3];
+				int[] stop = a.getShape();
+				for (int i = 0, j = 0; i < 3; i++) {
+					if (i != axis) {
+						start[i] = pos[j++];
+						stop[i] = start[i] + 1;
+					}
+				}
+				double[] line = ((DoubleDataset) a.getSlice(start, stop, null).flatten()).getData();
+				sk.clear();
+				sk.incrementAll(line);
+				double lmax = Double.NEGATIVE_INFINITY;
+				int imax = -1;
+				double lmin = Double.POSITIVE_INFINITY;
+				int imin = -1;
+				for (int i = 0; i < line.length; i++) {
+					if (line[i] > lmax) {
+						lmax = line[i];
+						imax = i;
+					}
+					if (line[i] < lmin) {
+						lmin = line[i];
+						imin = i;
+					}
+				}
+				assertEquals(lmax, max.getDouble(pos), 0);
+				assertEquals(imax, amax.getInt(pos));
+				assertEquals(imin, amin.getInt(pos));
+				assertEquals(imax, t.getMaxIndex(it.index));
+				assertEquals(sk.getResult(), skew.getDouble(pos), 1e-12);
+				assertEquals(new Variance().evaluate(line), var.getDouble(pos), 1e-12);
+			}
+		}
+
+		// NaNs and infinities
+		Dataset b = a.getSlice(new int[] {2, 3, 1}, new int[] {12, 31, 6}, new int[] {2, 1, 1});
+		Dataset c = b.clone();
+		c.set(Double.NaN, 1, 2, 3);
+		c.set(Double.NaN, 3, 2, 3);
+		c.set(Double.POSITIVE_INFINITY, 2, 2, 1);
+		s = Stats.summary(c, false, false);
+		assertEquals(c.getSize(), s.getCount());
+		assertEquals(2, s.getNaNCount(0));
+		assertEquals(1, s.getInfCount(0));
+		assertTrue(Double.isNaN(s.getMax()));
+		assertTrue(Double.isNaN(s.getMean()));
+		assertEquals(c.get1DIndex(new int[] {1, 2, 3}), s.getMaxIndex());
+		s = Stats.summary(c, true, false);
+		assertEquals(c.getSize() - 2, s.getCount());
+		assertEquals(Double.POSITIVE_INFINITY, s.getMax(), 0);
+		s = Stats.summary(c, true, true);
+		assertEquals(c.getSize() - 3, s.getCount());
+		c.set(b.getDouble(1, 2, 3), 1, 2, 3);
+		c.set(b.getDouble(3, 2, 3), 3, 2, 3);
+		c.set(b.getDouble(2, 2, 1), 2, 2, 1);
+		assertEquals(((Number) b.mean()).doubleValue(), Stats.summary(c, true, true).getMean(), 1e-12);
+
+		// in parallel, with results that are the same as in serial
+		Dataset big = Random.exponential(2.5, new int[] {80, 41, 30});
+		Summary r = Stats.summary(big.clone(), false, false);
+		ParallelUtils.enable(3);
+		int threshold = ParallelUtils.getThreshold();
+		ParallelUtils.setThreshold(1024);
+		try {
+			Summary p = Stats.summary(big, false, false);
+			assertEquals(r.getMaxIndex(), p.getMaxIndex());
+			assertEquals(r.getMinIndex(), p.getMinIndex());
+			assertEquals(r.getSum(), p.getSum(), 0);
+			assertEquals(r.getMean(), p.getMean(), 0);
+			assertEquals(r.getVariance(), p.getVariance(), 0);
+			assertEquals(r.getSkewness(), p.getSkewness(), 0);
+			assertEquals(r.getKurtosis(), p.getKurtosis(), 0);
+			p = Stats.summary(a.clone(), 1, false, false);
+			Summary q = Stats.summary(a, 1, false, false);
+			for (int i = 0; i < q.getSize(); i++) {
+				assertEquals(q.getMean(i), p.getMean(i), 0);
+				assertEquals(q.getMaxIndex(i), p.getMaxIndex(i));
+			}
+		} finally {
+			ParallelUtils.setThreshold(threshold);
+			ParallelUtils.disable();
+		}
+	}
+
 	@Test
 	public void testQuantileSpeed() {
 		int REPEAT = 5;
@@ -10,18 +10,63 @@
 package org.eclipse.dataset;
 
 import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Class used by DynamicDatasets to delegate 
+ * Class used by DynamicDatasets to delegate
+ * <p>
+ * No locks are held while listeners are notified. By default, events are fired on the calling
+ * thread. If an executor is set, events are fired on it instead and are coalesced: an event that
+ * is fired before the previous one has been dispatched replaces it so listeners only see the
+ * latest event. Use a single-threaded executor to keep events in order.
  */
 public class DataListenerDelegate {
 
 	private EventListenerList eventListenerlist;
 
+	private volatile Executor executor;
+
+	private final AtomicReference<DataEvent> pending = new AtomicReference<DataEvent>();
+
+	private final Runnable dispatcher = new Runnable() {
+		@Override
+		public void run() {
+			DataEvent evt = pending.getAndSet(null);
+			if (evt != null) {
+				fireNow(evt);
+			}
+		}
+	};
+
 	public DataListenerDelegate() {
 		eventListenerlist = new EventListenerList();
 	}
-	
+
+	/**
+	 * @param executor used to fire events (can be null to fire on calling thread)
+	 */
+	public DataListenerDelegate(Executor executor) {
+		this();
+		this.executor = executor;
+	}
+
+	/**
+	 * Set executor used to fire events
+	 * @param executor can be null to fire on calling thread
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * @return executor used to fire events (can be null)
+	 */
+	public Executor getExecutor() {
+		return executor;
+	}
+
 	public void addDataListener(IDataListener l) {
 		eventListenerlist.addListener(IDataListener.class, l);
 	}
@@ -30,7 +75,31 @@ public class DataListenerDelegate {
 		eventListenerlist.removeListener(IDataListener.class, l);
 	}
 
+	/**
+	 * @return true if there are any listeners
+	 */
+	public boolean hasDataListeners() {
+		return eventListenerlist.containsListener(IDataListener.class);
+	}
+
 	public void fire(DataEvent evt) {
+		final Executor e = executor;
+		if (e == null) {
+			fireNow(evt);
+			return;
+		}
+
+		if (pending.getAndSet(evt) == null) { // otherwise, a queued dispatch will fire this event
+			try {
+				e.execute(dispatcher);
+			} catch (RejectedExecutionException ex) {
+				pending.compareAndSet(evt, null);
+				throw ex;
+			}
+		}
+	}
+
+	private void fireNow(DataEvent evt) {
 		for (Iterator<IDataListener> iterator = eventListenerlist.getListeners(IDataListener.class); iterator.hasNext();) {
 			IDataListener l = iterator.next();
 			l.dataChangePerformed(evt);
@@ -0,0 +1,314 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs periodic update checks of dynamic datasets on a small shared pool of daemon threads.
+ * <p>
+ * Checkers that are equal (for example, {@link FileChangeChecker}s of the same file) are coalesced:
+ * only one of them is run, at the shortest of their periods, and all of their datasets are alerted
+ * when it detects a change. When a checker does not detect a change, the time to its next check
+ * is doubled up to the maximum backoff times its period; it returns to its period after a change.
+ * A null checker alerts its dataset unconditionally at every period.
+ * <p>
+ * By default, listeners are fired on the checking thread. Set a listener executor to fire them
+ * elsewhere, for example, on a user interface thread.
+ *
+ * @see IDynamicDataset#startUpdateChecker(int, IDatasetChangeChecker)
+ */
+public class DatasetUpdateService {
+	private static final Logger logger = LoggerFactory.getLogger(DatasetUpdateService.class);
+
+	/**
+	 * Default number of checking threads
+	 */
+	public static final int DEFAULT_THREADS = 2;
+
+	/**
+	 * Default maximum factor by which the period between checks is increased
+	 */
+	public static final int DEFAULT_MAXIMUM_BACKOFF = 8;
+
+	private static ScheduledThreadPoolExecutor scheduler = null;
+
+	private static Executor listenerExecutor = null;
+
+	private static int maxBackoff = DEFAULT_MAXIMUM_BACKOFF;
+
+	private static final Map<Object, Group> groups = new HashMap<Object, Group>();
+
+	private DatasetUpdateService() {
+	}
+
+	/**
+	 * Registration of a dataset for update checks
+	 */
+	public static final class Registration {
+		private final IDynamicDataset dataset;
+		private final IDatasetChangeChecker checker;
+		private final long period;
+		private Group group;
+
+		private Registration(IDynamicDataset dataset, IDatasetChangeChecker checker, long period) {
+			this.dataset = dataset;
+			this.checker = checker;
+			this.period = period;
+		}
+
+		/**
+		 * Stop update checks for dataset. Checks of any coalesced datasets continue
+		 */
+		public void cancel() {
+			synchronized (DatasetUpdateService.class) {
+				if (group == null) {
+					return;
+				}
+				group.members.remove(this);
+				if (group.members.isEmpty()) {
+					group.cancel();
+					groups.remove(group.key);
+				} else if (period == group.period) {
+					group.reschedule(); // period may be longer now
+				}
+				group = null;
+			}
+		}
+
+		/**
+		 * @return true if checks have not been cancelled
+		 */
+		public boolean isActive() {
+			synchronized (DatasetUpdateService.class) {
+				return group != null;
+			}
+		}
+	}
+
+	/**
+	 * Datasets that share a checker
+	 */
+	private static class Group {
+		private final Object key;
+		private final IDatasetChangeChecker checker;
+		private final List<Registration> members = new ArrayList<Registration>();
+		private long period;
+		private long delay;
+		private ScheduledFuture<?> future;
+		private int generation; // identifies latest scheduled check
+
+		Group(Object key, IDatasetChangeChecker checker) {
+			this.key = key;
+			this.checker = checker;
+		}
+
+		/**
+		 * Run check scheduled as given generation. Only the latest scheduled check schedules the
+		 * next one so a check that overlaps with a rescheduling does not start a second chain
+		 * @param g
+		 */
+		void run(int g) {
+			synchronized (DatasetUpdateService.class) {
+				if (g != generation) { // cancelled or rescheduled
+					return;
+				}
+			}
+
+			boolean changed;
+			try {
+				changed = checker == null || checker.check();
+			} catch (RuntimeException e) {
+				logger.error("Could not check for changes", e);
+				changed = false;
+			}
+
+			final IDynamicDataset[] datasets;
+			synchronized (DatasetUpdateService.class) {
+				if (future == null) { // cancelled
+					return;
+				}
+				if (g == generation) {
+					delay = changed ? period : Math.min(2 * delay, maxBackoff * period);
+					schedule(delay);
+				}
+				if (!changed) {
+					return;
+				}
+				datasets = new IDynamicDataset[members.size()];
+				for (int i = 0; i < datasets.length; i++) {
+					datasets[i] = members.get(i).dataset;
+				}
+			}
+
+			fire(datasets);
+		}
+
+		private void schedule(long milliseconds) {
+			final int g = ++generation;
+			future = DatasetUpdateService.schedule(new Runnable() {
+				@Override
+				public void run() {
+					Group.this.run(g);
+				}
+			}, milliseconds);
+		}
+
+		void cancel() {
+			generation++;
+			if (future != null) {
+				future.cancel(false);
+				future = null;
+			}
+		}
+
+		/**
+		 * Set period to shortest of members and restart checks
+		 */
+		void reschedule() {
+			long p = Long.MAX_VALUE;
+			for (Registration r : members) {
+				p = Math.min(p, r.period);
+			}
+			period = p;
+			delay = p;
+			cancel();
+			schedule(p);
+		}
+	}
+
+	/**
+	 * Set executor used to fire listeners
+	 * @param executor can be null to fire listeners on checking thread
+	 */
+	public static synchronized void setListenerExecutor(Executor executor) {
+		listenerExecutor = executor;
+	}
+
+	/**
+	 * @return executor used to fire listeners (can be null)
+	 */
+	public static synchronized Executor getListenerExecutor() {
+		return listenerExecutor;
+	}
+
+	/**
+	 * Set maximum factor by which period between checks is increased when no changes are detected
+	 * @param factor (1 stops backoff)
+	 */
+	public static synchronized void setMaximumBackoff(int factor) {
+		if (factor < 1) {
+			throw new IllegalArgumentException("Maximum backoff must be at least 1");
+		}
+		maxBackoff = factor;
+	}
+
+	/**
+	 * @return maximum factor by which period between checks is increased
+	 */
+	public static synchronized int getMaximumBackoff() {
+		return maxBackoff;
+	}
+
+	/**
+	 * @return number of checkers being run
+	 */
+	public static synchronized int getNumberOfCheckers() {
+		return groups.size();
+	}
+
+	/**
+	 * Start periodic checks for a dataset. The checker should have been given the dataset already
+	 * @param dataset
+	 * @param milliseconds period between checks in milliseconds
+	 * @param checker can be null to alert listeners unconditionally
+	 * @return registration
+	 */
+	public static synchronized Registration register(IDynamicDataset dataset, int milliseconds, IDatasetChangeChecker checker) {
+		if (dataset == null) {
+			throw new IllegalArgumentException("Dataset must not be null");
+		}
+		if (milliseconds <= 0) {
+			throw new IllegalArgumentException("Period must be positive");
+		}
+
+		Registration r = new Registration(dataset, checker, milliseconds);
+		Object key = checker == null ? r : checker;
+		Group g = groups.get(key);
+		if (g == null) {
+			g = new Group(key, checker);
+			groups.put(key, g);
+		}
+		g.members.add(r);
+		r.group = g;
+		if (g.future == null || milliseconds < g.period) {
+			g.reschedule();
+		}
+		return r;
+	}
+
+	private static ScheduledFuture<?> schedule(Runnable task, long milliseconds) {
+		if (scheduler == null) {
+			scheduler = new ScheduledThreadPoolExecutor(DEFAULT_THREADS, new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "Update checker " + count.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			scheduler.setRemoveOnCancelPolicy(true);
+		}
+		return scheduler.schedule(task, milliseconds, TimeUnit.MILLISECONDS);
+	}
+
+	private static void fire(final IDynamicDataset[] datasets) {
+		Executor executor = getListenerExecutor();
+		for (final IDynamicDataset d : datasets) {
+			if (executor == null) {
+				fire(d);
+			} else {
+				try {
+					executor.execute(new Runnable() {
+						@Override
+						public void run() {
+							fire(d);
+						}
+					});
+				} catch (RejectedExecutionException e) {
+					logger.error("Listener executor rejected task", e);
+				}
+			}
+		}
+	}
+
+	private static void fire(IDynamicDataset dataset) {
+		try {
+			dataset.fireDataListeners();
+		} catch (RuntimeException e) {
+			logger.error("Data listener failed", e);
+		}
+	}
+}
@@ -11,13 +11,18 @@
 package org.eclipse.dataset;
 
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * This class is intended for internal use only.
+ * <p>
+ * Listeners are held in an array that is replaced whenever a listener is added or removed so
+ * no locks are held: iterators run over a snapshot of the listeners at the time they were
+ * created and listeners can be added or removed while others are being notified.
  */
 final class EventListenerList {
 
-	private volatile Object array[];
+	private final AtomicReference<Object[]> array = new AtomicReference<Object[]>();
 
 	/**
 	 * Adds a listener of type <i>c</i> to the list.
@@ -27,17 +32,21 @@ final class EventListenerList {
 	 * @param listener
 	 *            the listener
 	 */
-	public synchronized void addListener(Class<?> c, Object listener) {
+	public void addListener(Class<?> c, Object listener) {
 		if (listener == null || c == null)
 			throw new IllegalArgumentException();
 
-		int oldSize = (array == null) ? 0 : array.length;
-		Object[] newArray = new Object[oldSize + 2];
-		if (oldSize != 0)
-			System.arraycopy(array, 0, newArray, 0, oldSize);
-		newArray[oldSize++] = c;
-		newArray[oldSize] = listener;
-		array = newArray;
+		Object[] oldArray;
+		Object[] newArray;
+		do {
+			oldArray = array.get();
+			int oldSize = (oldArray == null) ? 0 : oldArray.length;
+			newArray = new Object[oldSize + 2];
+			if (oldSize != 0)
+				System.arraycopy(oldArray, 0, newArray, 0, oldSize);
+			newArray[oldSize++] = c;
+			newArray[oldSize] = listener;
+		} while (!array.compareAndSet(oldArray, newArray));
 	}
 
 	/**
@@ -48,11 +57,12 @@ final class EventListenerList {
 	 *            the type
 	 * @return whether this list contains a listener of type <i>c</i>
 	 */
-	public synchronized boolean containsListener(Class<?> c) {
-		if (array == null)
+	public boolean containsListener(Class<?> c) {
+		final Object[] a = array.get();
+		if (a == null)
 			return false;
-		for (int i = 0; i < array.length; i += 2)
-			if (array[i] == c)
+		for (int i = 0; i < a.length; i += 2)
+			if (a[i] == c)
 				return true;
 		return false;
 	}
@@ -98,8 +108,8 @@ final class EventListenerList {
 	 * @return an Iterator of all the listeners of type <i>c</i>
 	 */
 	@SuppressWarnings("unchecked")
-	public synchronized <T> Iterator<T> getListeners(final Class<T> listenerType) {
-		return new TypeIterator<T>((T[]) array, listenerType);
+	public <T> Iterator<T> getListeners(final Class<T> listenerType) {
+		return new TypeIterator<T>((T[]) array.get(), listenerType);
 	}
 
 	/**
@@ -110,26 +120,34 @@ final class EventListenerList {
 	 * @param listener
 	 *            the listener
 	 */
-	public synchronized void removeListener(Class<?> c, Object listener) {
-		if (array == null || array.length == 0)
+	public void removeListener(Class<?> c, Object listener) {
+		Object[] a = array.get();
+		if (a == null || a.length == 0)
 			return;
 		if (listener == null || c == null)
 			throw new IllegalArgumentException();
 
-		int index = 0;
-		while (index < array.length) {
-			if (array[index] == c && array[index + 1] == listener)
-				break;
-			index += 2;
-		}
-		if (index == array.length)
-			return; // listener was not found
-
-		Object newArray[] = new Object[array.length - 2];
-		System.arraycopy(array, 0, newArray, 0, index);
-		System.arraycopy(array, index + 2, newArray, index, array.length
-				- index - 2);
-		array = newArray;
+		Object[] oldArray;
+		Object[] newArray;
+		do {
+			oldArray = array.get();
+			if (oldArray == null || oldArray.length == 0)
+				return;
+
+			int index = 0;
+			while (index < oldArray.length) {
+				if (oldArray[index] == c && oldArray[index + 1] == listener)
+					break;
+				index += 2;
+			}
+			if (index == oldArray.length)
+				return; // listener was not found
+
+			newArray = new Object[oldArray.length - 2];
+			System.arraycopy(oldArray, 0, newArray, 0, index);
+			System.arraycopy(oldArray, index + 2, newArray, index, oldArray.length
+					- index - 2);
+		} while (!array.compareAndSet(oldArray, newArray));
 	}
 
 }
@@ -0,0 +1,81 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset;
+
+import java.io.File;
+
+/**
+ * Checks whether the length or modification time of a file has changed between waits.
+ * <p>
+ * Checkers of the same file are equal so {@link DatasetUpdateService} checks the file once for all
+ * datasets held in it.
+ */
+public class FileChangeChecker implements IDatasetChangeChecker {
+
+	private final File file;
+	private boolean initialized = false;
+	private long length;
+	private long modified;
+
+	/**
+	 * @param path of file
+	 */
+	public FileChangeChecker(String path) {
+		if (path == null) {
+			throw new IllegalArgumentException("Path must not be null");
+		}
+		file = new File(path).getAbsoluteFile();
+	}
+
+	/**
+	 * @return file being checked
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	@Override
+	public synchronized void setDataset(ILazyDataset dataset) {
+		if (!initialized) {
+			length = file.length();
+			modified = file.lastModified();
+			initialized = true;
+		}
+	}
+
+	@Override
+	public synchronized boolean check() {
+		long l = file.length();
+		long m = file.lastModified();
+		if (initialized && l == length && m == modified) {
+			return false;
+		}
+		length = l;
+		modified = m;
+		initialized = true;
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		return file.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof FileChangeChecker)) {
+			return false;
+		}
+		return file.equals(((FileChangeChecker) obj).file);
+	}
+}
@@ -15,6 +15,12 @@ package org.eclipse.dataset.dense;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.dataset.DatasetException;
 import org.eclipse.dataset.IDataset;
@@ -22,11 +28,18 @@ import org.eclipse.dataset.ILazyDataset;
 import org.eclipse.dataset.IMonitor;
 import org.eclipse.dataset.Slice;
 import org.eclipse.dataset.SliceND;
+import org.eclipse.dataset.internal.dense.LazyDataset;
 import org.eclipse.dataset.internal.dense.LazyDatasetBase;
+import org.eclipse.dataset.io.AsyncSliceReader;
 
 /**
  * Class to aggregate a set of lazy datasets and present them as a single lazy dataset where
  * the first position value accesses the aggregation
+ * <p>
+ * Slices that span several datasets are read concurrently (by default, on the shared pool of
+ * {@link AsyncSliceReader}) and copied straight into the output. The monitor is told of each
+ * dataset read and is checked for cancellation while waiting. Slices requested from a thread of
+ * that pool are read in that thread
  */
 public class AggregateDataset extends LazyDatasetBase implements ILazyDataset {
 
@@ -44,6 +57,14 @@ public class AggregateDataset extends LazyDatasetBase implements ILazyDataset {
 	protected AggregateDataset base = null;
 	private int[] sliceStart = null;
 	private int[] sliceStep  = null;
+	private transient ExecutorService executor = null;
+
+	/**
+	 * Period in milliseconds between checks of monitor for cancellation
+	 */
+	private static final long CANCEL_CHECK_PERIOD = 100;
+
+	private static final ThreadLocal<Boolean> inLoad = new ThreadLocal<Boolean>();
 
 	/**
 	 * Calculate (possibly extended) shapes from given datasets
@@ -247,39 +268,188 @@ public class AggregateDataset extends LazyDatasetBase implements ILazyDataset {
 			return base.getSlice(monitor, start, stop, step);
 		}
 
+		Dataset out = DatasetFactory.zeros(isize, slice.getShape(), dtype);
+		out.setName(name);
+		final int n = out.getShape()[0];
+		if (out.getSize() == 0) {
+			return out;
+		}
+
 		// convert first dimension's slice to individual slices per stored dataset
-		int fb = start[0];
-		int fe = stop[0];
-		int fs = step[0];
-
-		List<Dataset> sliced = new ArrayList<Dataset>();
-		int op = fb;
-		int p = op;
-		ILazyDataset od = data[map[op]];
-		ILazyDataset nd; 
-		while (p < fe) {
-			
-			if (monitor!=null && monitor.isCancelled()) throw new DatasetException("Slice cancelled");
-			nd = data[map[p]];
-			if (nd != od) {
-				start[0] = op - offset[map[op]];
-				stop[0] = p - offset[map[op]];
-				Dataset a = DatasetUtils.convertToDataset(od.getSlice(monitor, start, stop, step));
-				sliced.add(a.cast(dtype));
-
-				od = nd;
-				op = p;
+		List<Part> parts = new ArrayList<Part>();
+		int b = 0;
+		for (int i = 1; i <= n; i++) {
+			if (i == n || map[start[0] + i * step[0]] != map[start[0] + b * step[0]]) {
+				parts.add(new Part(map[start[0] + b * step[0]], start, stop, step, b, i));
+				b = i;
+			}
+		}
+
+		final IMonitor cmonitor = monitor == null ? null : new CancelMonitor(monitor);
+		ExecutorService e = executor;
+		// load in this thread if it is a worker as waiting on other workers could deadlock a bounded pool
+		if (parts.size() == 1 || Boolean.TRUE.equals(inLoad.get()) || AsyncSliceReader.isReaderThread()) {
+			for (Part t : parts) {
+				if (monitor != null && monitor.isCancelled()) {
+					throw new DatasetException("Slice cancelled");
+				}
+				t.load(out, cmonitor);
+				if (monitor != null) {
+					monitor.worked(1);
+				}
+			}
+			return out;
+		}
+
+		if (e == null) {
+			e = AsyncSliceReader.getExecutor();
+		}
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		try {
+			for (Part t : parts) {
+				futures.add(e.submit(t.task(out, cmonitor)));
+			}
+			for (Future<Void> f : futures) {
+				while (monitor != null) {
+					if (monitor.isCancelled()) {
+						throw new DatasetException("Slice cancelled");
+					}
+					try {
+						f.get(CANCEL_CHECK_PERIOD, TimeUnit.MILLISECONDS);
+						break;
+					} catch (TimeoutException ex) {
+						// check monitor again
+					} catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+						break;
+					} catch (ExecutionException ex) {
+						break;
+					}
+				}
+				AsyncSliceReader.get(f);
+				if (monitor != null) {
+					monitor.worked(1);
+				}
+			}
+		} finally {
+			for (Future<Void> f : futures) {
+				f.cancel(true);
 			}
-			p += fs;
 		}
-		start[0] = op - offset[map[op]];
-		stop[0] = p - offset[map[op]];
-		Dataset a = DatasetUtils.convertToDataset(od.getSlice(monitor, start, stop, step));
-		sliced.add(a.cast(dtype));
 
-		IDataset d = DatasetUtils.concatenate(sliced.toArray(new Dataset[0]), 0);
-		d.setName(name);
-		return d;
+		return out;
+	}
+
+	/**
+	 * Part of slice held in one stored dataset
+	 */
+	private class Part {
+		private final int index;
+		private final SliceND slice;
+		private final int[] oStart;
+		private final int[] oStop;
+
+		/**
+		 * @param index of stored dataset
+		 * @param start of slice
+		 * @param stop of slice
+		 * @param step of slice
+		 * @param b first position in output
+		 * @param e end position in output
+		 */
+		Part(int index, int[] start, int[] stop, int[] step, int b, int e) {
+			this.index = index;
+			int rank = start.length;
+			slice = new SliceND(data[index].getShape());
+			for (int i = 0; i < rank; i++) {
+				Integer lstart = start[i];
+				Integer lstop = stop[i];
+				if (i == 0) {
+					lstart = start[0] + b * step[0] - offset[index];
+					lstop = lstart + (e - b) * step[0];
+				}
+				if (step[i] < 0 && lstop < 0) {
+					lstop = null;
+				}
+				slice.setSlice(i, lstart, lstop, step[i]);
+			}
+			oStart = new int[rank];
+			oStart[0] = b;
+			oStop = slice.getShape().clone();
+			oStop[0] = e;
+		}
+
+		/**
+		 * Copy part straight into output. Stored datasets that are not dense or lazy are read
+		 * into an intermediate dataset
+		 */
+		void load(Dataset out, IMonitor monitor) throws DatasetException {
+			ILazyDataset d = data[index];
+			if (d instanceof Dataset) {
+				out.setSlice(((Dataset) d).getSliceView(slice), oStart, oStop, null);
+			} else if (d instanceof LazyDataset) {
+				((LazyDataset) d).getSlice(monitor, slice, out, oStart);
+			} else {
+				out.setSlice(d.getSlice(monitor, slice), oStart, oStop, null);
+			}
+		}
+
+		Callable<Void> task(final Dataset out, final IMonitor monitor) {
+			return new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					if (monitor != null && monitor.isCancelled()) {
+						throw new DatasetException("Slice cancelled");
+					}
+					inLoad.set(Boolean.TRUE);
+					try {
+						load(out, monitor);
+						return null;
+					} finally {
+						inLoad.set(Boolean.FALSE);
+					}
+				}
+			};
+		}
+	}
+
+	/**
+	 * Passes on cancellation to slices read on other threads
+	 */
+	private static class CancelMonitor implements IMonitor {
+		private final IMonitor monitor;
+
+		CancelMonitor(IMonitor monitor) {
+			this.monitor = monitor;
+		}
+
+		@Override
+		public void worked(int amount) {
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return monitor.isCancelled();
+		}
+
+		@Override
+		public void subTask(String taskName) {
+		}
+	}
+
+	/**
+	 * Set executor used to read slices of stored datasets concurrently
+	 * @param executor can be null to use shared pool of {@link AsyncSliceReader}
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * @return executor used to read slices of stored datasets (can be null)
+	 */
+	public ExecutorService getExecutor() {
+		return executor;
 	}
 
 	@Override
@@ -0,0 +1,459 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.dense;
+
+import java.util.Arrays;
+
+import org.eclipse.dataset.internal.dense.BooleanDataset;
+
+/**
+ * Boolean values packed into the bits of long words, one bit per item in row-major order.
+ * <p>
+ * This takes an eighth of the memory of a boolean dataset of the same shape and its logical
+ * operations, counts and searches work on 64 items at a time. Masks in logical operations must
+ * have the same shape. Masks can be created directly by comparisons such as
+ * {@link Comparisons#greaterThanMask(Object, Object)}, otherwise use {@link #fromDataset(Dataset)}
+ * and {@link #toDataset()} to convert from and to boolean datasets.
+ */
+public final class BitMask {
+	private static final int ADDRESS_BITS = 6;
+	private static final int WORD_SIZE = 1 << ADDRESS_BITS;
+	private static final long ALL = -1L;
+
+	private final int[] shape;
+	private final int size;
+	private final long[] words;
+
+	/**
+	 * Create a mask of given shape that is all false
+	 * @param shape
+	 */
+	public BitMask(final int... shape) {
+		this.shape = shape.clone();
+		size = DatasetUtils.calculateSize(shape);
+		words = new long[(size + WORD_SIZE - 1) >>> ADDRESS_BITS];
+	}
+
+	private BitMask(final int[] shape, final int size, final long[] words) {
+		this.shape = shape;
+		this.size = size;
+		this.words = words;
+	}
+
+	/**
+	 * Create a mask from a dataset. For multi-element items, the mask is true if all elements are true
+	 * @param a
+	 * @return mask that is true where items in dataset are true
+	 */
+	public static BitMask fromDataset(final Dataset a) {
+		final BitMask m = new BitMask(a.getShapeRef());
+		final long[] w = m.words;
+		final int is = a.getElementsPerItem();
+		// contiguous datasets are read directly, views (which may be strided or offset) are iterated
+		if (a instanceof BooleanDataset && ((BooleanDataset) a).getStrides() == null && ((BooleanDataset) a).getOffset() == 0
+				&& ((BooleanDataset) a).getData().length == m.size) {
+			final boolean[] data = ((BooleanDataset) a).getData();
+			for (int k = 0, i = 0; i < m.size; k++) {
+				final int end = Math.min(m.size, i + WORD_SIZE);
+				long v = 0;
+				for (int b = 0; i < end; i++, b++) {
+					if (data[i]) {
+						v |= 1L << b;
+					}
+				}
+				w[k] = v;
+			}
+			return m;
+		}
+
+		final IndexIterator it = a.getIterator();
+		int i = 0;
+		while (it.hasNext()) {
+			boolean v = true;
+			for (int j = 0; v && j < is; j++) {
+				v = a.getElementBooleanAbs(it.index + j);
+			}
+			if (v) {
+				w[i >>> ADDRESS_BITS] |= 1L << i;
+			}
+			i++;
+		}
+		return m;
+	}
+
+	/**
+	 * @return boolean dataset of same shape
+	 */
+	public BooleanDataset toDataset() {
+		final boolean[] data = new boolean[size];
+		for (int k = 0; k < words.length; k++) {
+			long v = words[k];
+			while (v != 0) {
+				data[(k << ADDRESS_BITS) + Long.numberOfTrailingZeros(v)] = true;
+				v &= v - 1;
+			}
+		}
+		return new BooleanDataset(data, shape);
+	}
+
+	/**
+	 * @return shape of mask
+	 */
+	public int[] getShape() {
+		return shape.clone();
+	}
+
+	/**
+	 * @return number of items in mask
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return number of words used to hold mask
+	 */
+	public int getWordCount() {
+		return words.length;
+	}
+
+	/**
+	 * @return words used to hold mask where item i is bit (i % 64) of word (i / 64)
+	 */
+	long[] getWordsRef() {
+		return words;
+	}
+
+	/**
+	 * @param index in row-major order
+	 * @return value at index
+	 */
+	public boolean getAbs(final int index) {
+		return (words[index >>> ADDRESS_BITS] & (1L << index)) != 0;
+	}
+
+	/**
+	 * @param index in row-major order
+	 * @param value
+	 */
+	public void setAbs(final int index, final boolean value) {
+		if (value) {
+			words[index >>> ADDRESS_BITS] |= 1L << index;
+		} else {
+			words[index >>> ADDRESS_BITS] &= ~(1L << index);
+		}
+	}
+
+	/**
+	 * @param pos
+	 * @return value at position
+	 */
+	public boolean get(final int... pos) {
+		return getAbs(getIndex(pos));
+	}
+
+	/**
+	 * @param value
+	 * @param pos
+	 */
+	public void set(final boolean value, final int... pos) {
+		setAbs(getIndex(pos), value);
+	}
+
+	private int getIndex(final int[] pos) {
+		if (pos.length != shape.length) {
+			throw new IllegalArgumentException("Number of position values must be equal to rank of " + shape.length);
+		}
+		int index = 0;
+		for (int i = 0; i < shape.length; i++) {
+			int p = pos[i];
+			if (p < 0) {
+				p += shape[i];
+			}
+			if (p < 0 || p >= shape[i]) {
+				throw new ArrayIndexOutOfBoundsException("Index (" + pos[i] + ") out of range [-" + shape[i] + "," + shape[i] + "] in dimension " + i);
+			}
+			index = index * shape[i] + p;
+		}
+		return index;
+	}
+
+	/**
+	 * Set all items
+	 * @param value
+	 * @return this
+	 */
+	public BitMask fill(final boolean value) {
+		Arrays.fill(words, value ? ALL : 0);
+		clearTail();
+		return this;
+	}
+
+	/**
+	 * Clear unused bits in last word
+	 */
+	private void clearTail() {
+		final int r = size & (WORD_SIZE - 1);
+		if (r != 0) {
+			words[words.length - 1] &= ALL >>> (WORD_SIZE - r);
+		}
+	}
+
+	private void checkShape(final BitMask b) {
+		if (!Arrays.equals(shape, b.shape)) {
+			throw new IllegalArgumentException("Masks must have same shape: " + Arrays.toString(shape) + " and " + Arrays.toString(b.shape));
+		}
+	}
+
+	@Override
+	public BitMask clone() {
+		return new BitMask(shape.clone(), size, words.clone());
+	}
+
+	/**
+	 * @return new mask where item is true if item in this is false
+	 */
+	public BitMask not() {
+		return clone().inot();
+	}
+
+	/**
+	 * Negate item-wise in place
+	 * @return this
+	 */
+	public BitMask inot() {
+		for (int k = 0; k < words.length; k++) {
+			words[k] = ~words[k];
+		}
+		clearTail();
+		return this;
+	}
+
+	/**
+	 * @param b
+	 * @return new mask where item is true if this and b are true
+	 */
+	public BitMask and(final BitMask b) {
+		return clone().iand(b);
+	}
+
+	/**
+	 * @param b
+	 * @return this where item is true if this and b are true
+	 */
+	public BitMask iand(final BitMask b) {
+		checkShape(b);
+		for (int k = 0; k < words.length; k++) {
+			words[k] &= b.words[k];
+		}
+		return this;
+	}
+
+	/**
+	 * @param b
+	 * @return new mask where item is true if this is true and b is false
+	 */
+	public BitMask andNot(final BitMask b) {
+		return clone().iandNot(b);
+	}
+
+	/**
+	 * @param b
+	 * @return this where item is true if this is true and b is false
+	 */
+	public BitMask iandNot(final BitMask b) {
+		checkShape(b);
+		for (int k = 0; k < words.length; k++) {
+			words[k] &= ~b.words[k];
+		}
+		return this;
+	}
+
+	/**
+	 * @param b
+	 * @return new mask where item is true if this or b are true
+	 */
+	public BitMask or(final BitMask b) {
+		return clone().ior(b);
+	}
+
+	/**
+	 * @param b
+	 * @return this where item is true if this or b are true
+	 */
+	public BitMask ior(final BitMask b) {
+		checkShape(b);
+		for (int k = 0; k < words.length; k++) {
+			words[k] |= b.words[k];
+		}
+		return this;
+	}
+
+	/**
+	 * @param b
+	 * @return new mask where item is true if only one of this and b is true
+	 */
+	public BitMask xor(final BitMask b) {
+		return clone().ixor(b);
+	}
+
+	/**
+	 * @param b
+	 * @return this where item is true if only one of this and b is true
+	 */
+	public BitMask ixor(final BitMask b) {
+		checkShape(b);
+		for (int k = 0; k < words.length; k++) {
+			words[k] ^= b.words[k];
+		}
+		return this;
+	}
+
+	/**
+	 * @return true if all items are true
+	 */
+	public boolean allTrue() {
+		final int n = words.length;
+		if (n == 0) {
+			return true;
+		}
+		for (int k = 0; k < n - 1; k++) {
+			if (words[k] != ALL) {
+				return false;
+			}
+		}
+		final int r = size & (WORD_SIZE - 1);
+		return words[n - 1] == (r == 0 ? ALL : ALL >>> (WORD_SIZE - r));
+	}
+
+	/**
+	 * @return true if any item is true
+	 */
+	public boolean anyTrue() {
+		for (long w : words) {
+			if (w != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return number of true items
+	 */
+	public int count() {
+		int c = 0;
+		for (long w : words) {
+			c += Long.bitCount(w);
+		}
+		return c;
+	}
+
+	/**
+	 * @param from index to start search at
+	 * @param value to find
+	 * @return index of first item at or after given index that has given value, or -1 if there is none
+	 */
+	public int next(final int from, final boolean value) {
+		if (from < 0) {
+			throw new IndexOutOfBoundsException("Index must not be negative");
+		}
+		if (from >= size) {
+			return -1;
+		}
+		int k = from >>> ADDRESS_BITS;
+		long w = (value ? words[k] : ~words[k]) & (ALL << from);
+		while (true) {
+			if (w != 0) {
+				int i = (k << ADDRESS_BITS) + Long.numberOfTrailingZeros(w);
+				return i < size ? i : -1;
+			}
+			if (++k == words.length) {
+				return -1;
+			}
+			w = value ? words[k] : ~words[k];
+		}
+	}
+
+	/**
+	 * @return iterator over true items
+	 */
+	public IndexIterator getIterator() {
+		return getIterator(true);
+	}
+
+	/**
+	 * Get iterator over items of given value. The iterator's index is the row-major index of the item
+	 * which is also the index in the data array of a new dataset of the same shape
+	 * @param value
+	 * @return iterator
+	 */
+	public IndexIterator getIterator(final boolean value) {
+		return new IndexIterator() {
+			private final int[] pos = new int[shape.length];
+			{
+				reset();
+			}
+
+			@Override
+			public boolean hasNext() {
+				int i = next(index + 1, value);
+				if (i < 0) {
+					index = size;
+					return false;
+				}
+				index = i;
+				return true;
+			}
+
+			@Override
+			public int[] getPos() {
+				int i = index;
+				for (int j = shape.length - 1; j >= 0; j--) {
+					pos[j] = i % shape[j];
+					i /= shape[j];
+				}
+				return pos;
+			}
+
+			@Override
+			public void reset() {
+				index = -1;
+			}
+
+			@Override
+			public int[] getShape() {
+				return shape;
+			}
+		};
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof BitMask)) {
+			return false;
+		}
+		BitMask b = (BitMask) obj;
+		return Arrays.equals(shape, b.shape) && Arrays.equals(words, b.words);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(shape) + Arrays.hashCode(words);
+	}
+
+	@Override
+	public String toString() {
+		return "Bit mask of shape " + Arrays.toString(shape) + " with " + count() + " true";
+	}
+}
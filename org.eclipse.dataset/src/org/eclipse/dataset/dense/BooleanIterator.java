@@ -19,8 +19,11 @@ import org.eclipse.dataset.internal.dense.BooleanDataset;
  */
 public class BooleanIterator extends IndexIterator {
 	final private BooleanDataset b;
+	final private BitMask m;
+	private int i; // index in mask
 	final private IndexIterator iterb;
 	final private IndexIterator iterd;
+	final private ContiguousIterator iterc; // used to jump to matched items
 	final private boolean v;
 	final private int[] pos; // position in dataset
 
@@ -45,8 +48,32 @@ public class BooleanIterator extends IndexIterator {
 	 */
 	public BooleanIterator(final IndexIterator iter, final Dataset selection, boolean value) {
 		b = (BooleanDataset) DatasetUtils.cast(selection, Dataset.BOOL);
+		m = null;
 
 		iterb = selection.getIterator();
+		iterc = null;
+		iterd = iter;
+		pos = iterd.getPos();
+		v = value;
+	}
+
+	/**
+	 * Constructor for an iterator over the items of a bit mask that match
+	 * given value. The mask is matched to the dataset iterator in row-major order.
+	 * Words of unmatched items are skipped and, for a contiguous dataset iterator, the
+	 * iterator jumps straight to matched items
+	 *
+	 * @param iter dataset iterator
+	 * @param selection bit mask
+	 * @param value
+	 */
+	public BooleanIterator(final IndexIterator iter, final BitMask selection, boolean value) {
+		b = null;
+		m = selection;
+		i = -1;
+
+		iterb = null;
+		iterc = iter instanceof ContiguousIterator ? (ContiguousIterator) iter : null;
 		iterd = iter;
 		pos = iterd.getPos();
 		v = value;
@@ -54,6 +81,29 @@ public class BooleanIterator extends IndexIterator {
 
 	@Override
 	public boolean hasNext() {
+		if (m != null) {
+			// skip runs of unmatched items a word at a time
+			final int n = m.next(i + 1, v);
+			if (n < 0) {
+				return false;
+			}
+			if (iterc != null) {
+				i = n;
+				if (!iterc.setItem(n)) {
+					return false;
+				}
+				index = iterc.index;
+				return true;
+			}
+			while (i < n) {
+				if (!iterd.hasNext()) {
+					return false;
+				}
+				i++;
+			}
+			index = iterd.index;
+			return true;
+		}
 		while (iterb.hasNext() && iterd.hasNext()) {
 			if (b.getAbs(iterb.index) == v) {
 				index = iterd.index;
@@ -70,7 +120,11 @@ public class BooleanIterator extends IndexIterator {
 
 	@Override
 	public void reset() {
-		iterb.reset();
+		if (iterb != null) {
+			iterb.reset();
+		} else {
+			i = -1;
+		}
 		iterd.reset();
 	}
 }
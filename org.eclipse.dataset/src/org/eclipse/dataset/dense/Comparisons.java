@@ -709,6 +709,198 @@ public class Comparisons {
 		return r;
 	}
 
+	/**
+	 * Item-wise comparison of values that is used to fill bit masks
+	 */
+	private static abstract class MaskComparison {
+		abstract boolean compare(double a, double b);
+
+		abstract boolean compare(long a, long b);
+	}
+
+	private static final MaskComparison EQUAL_TO = new MaskComparison() {
+		@Override
+		boolean compare(double a, double b) {
+			return a == b;
+		}
+
+		@Override
+		boolean compare(long a, long b) {
+			return a == b;
+		}
+	};
+
+	private static final MaskComparison GREATER_THAN = new MaskComparison() {
+		@Override
+		boolean compare(double a, double b) {
+			return a > b;
+		}
+
+		@Override
+		boolean compare(long a, long b) {
+			return a > b;
+		}
+	};
+
+	private static final MaskComparison GREATER_THAN_OR_EQUAL_TO = new MaskComparison() {
+		@Override
+		boolean compare(double a, double b) {
+			return a >= b;
+		}
+
+		@Override
+		boolean compare(long a, long b) {
+			return a >= b;
+		}
+	};
+
+	private static final MaskComparison LESS_THAN = new MaskComparison() {
+		@Override
+		boolean compare(double a, double b) {
+			return a < b;
+		}
+
+		@Override
+		boolean compare(long a, long b) {
+			return a < b;
+		}
+	};
+
+	private static final MaskComparison LESS_THAN_OR_EQUAL_TO = new MaskComparison() {
+		@Override
+		boolean compare(double a, double b) {
+			return a <= b;
+		}
+
+		@Override
+		boolean compare(long a, long b) {
+			return a <= b;
+		}
+	};
+
+	/**
+	 * Compare item-wise and pack results into a bit mask a word at a time
+	 * @param da
+	 * @param db
+	 * @param c comparison
+	 * @return mask where item is true if comparison of a and b is true
+	 */
+	private static BitMask compareToMask(final Dataset da, final Dataset db, final MaskComparison c) {
+		List<int[]> sl = BroadcastIterator.broadcastShapes(da.getShapeRef(), db.getShapeRef());
+
+		final BitMask r = new BitMask(sl.get(0));
+		final long[] w = r.getWordsRef();
+
+		// without an output, the iterator visits the broadcasted items in row-major order
+		final BroadcastIterator it = BroadcastIterator.createIterator(da, db);
+		final boolean asDouble = it.isOutputDouble();
+		final int as = da.getElementsPerItem();
+		final int bs = db.getElementsPerItem();
+		final int is = Math.max(as, bs);
+
+		int i = 0;
+		long v = 0;
+		while (it.hasNext()) {
+			boolean rb;
+			if (is == 1) {
+				rb = asDouble ? c.compare(it.aDouble, it.bDouble) : c.compare(it.aLong, it.bLong);
+			} else {
+				rb = true;
+				for (int j = 0; rb && j < is; j++) {
+					final int ai = it.aIndex + (as < bs ? 0 : j);
+					final int bi = it.bIndex + (bs < as ? 0 : j);
+					rb = asDouble ? c.compare(da.getElementDoubleAbs(ai), db.getElementDoubleAbs(bi)) :
+						c.compare(da.getElementLongAbs(ai), db.getElementLongAbs(bi));
+				}
+			}
+			if (rb) {
+				v |= 1L << i;
+			}
+			if ((++i & 63) == 0) {
+				w[(i >>> 6) - 1] = v;
+				v = 0;
+			}
+		}
+		if ((i & 63) != 0) {
+			w[i >>> 6] = v;
+		}
+		return r;
+	}
+
+	/**
+	 * Compare item-wise for whether a's element is equal b's
+	 * <p>
+	 * This is the same as {@link #equalTo(Object, Object)} but returns a bit mask
+	 * @param a
+	 * @param b
+	 * @return mask where item is true if a == b
+	 */
+	public static BitMask equalToMask(Object a, Object b) {
+		final Dataset da = a instanceof Dataset ? (Dataset) a : DatasetFactory.createFromObject(a);
+		final Dataset db = b instanceof Dataset ? (Dataset) b : DatasetFactory.createFromObject(b);
+		if (da.getElementsPerItem() != db.getElementsPerItem() && (da.isComplex() || db.isComplex())) {
+			// imaginary part is compared with zero
+			return BitMask.fromDataset(equalTo(da, db));
+		}
+		return compareToMask(da, db, EQUAL_TO);
+	}
+
+	/**
+	 * Compare item-wise for whether a's element is greater than b's
+	 * <p>
+	 * This is the same as {@link #greaterThan(Object, Object)} but returns a bit mask
+	 * @param a
+	 * @param b
+	 * @return mask where item is true if a > b
+	 */
+	public static BitMask greaterThanMask(Object a, Object b) {
+		final Dataset da = a instanceof Dataset ? (Dataset) a : DatasetFactory.createFromObject(a);
+		final Dataset db = b instanceof Dataset ? (Dataset) b : DatasetFactory.createFromObject(b);
+		return compareToMask(da, db, GREATER_THAN);
+	}
+
+	/**
+	 * Compare item-wise for whether a's element is greater than or equal to b's
+	 * <p>
+	 * This is the same as {@link #greaterThanOrEqualTo(Object, Object)} but returns a bit mask
+	 * @param a
+	 * @param b
+	 * @return mask where item is true if a >= b
+	 */
+	public static BitMask greaterThanOrEqualToMask(Object a, Object b) {
+		final Dataset da = a instanceof Dataset ? (Dataset) a : DatasetFactory.createFromObject(a);
+		final Dataset db = b instanceof Dataset ? (Dataset) b : DatasetFactory.createFromObject(b);
+		return compareToMask(da, db, GREATER_THAN_OR_EQUAL_TO);
+	}
+
+	/**
+	 * Compare item-wise for whether a's element is less than b's
+	 * <p>
+	 * This is the same as {@link #lessThan(Object, Object)} but returns a bit mask
+	 * @param a
+	 * @param b
+	 * @return mask where item is true if a < b
+	 */
+	public static BitMask lessThanMask(Object a, Object b) {
+		final Dataset da = a instanceof Dataset ? (Dataset) a : DatasetFactory.createFromObject(a);
+		final Dataset db = b instanceof Dataset ? (Dataset) b : DatasetFactory.createFromObject(b);
+		return compareToMask(da, db, LESS_THAN);
+	}
+
+	/**
+	 * Compare item-wise for whether a's element is less than or equal to b's
+	 * <p>
+	 * This is the same as {@link #lessThanOrEqualTo(Object, Object)} but returns a bit mask
+	 * @param a
+	 * @param b
+	 * @return mask where item is true if a <= b
+	 */
+	public static BitMask lessThanOrEqualToMask(Object a, Object b) {
+		final Dataset da = a instanceof Dataset ? (Dataset) a : DatasetFactory.createFromObject(a);
+		final Dataset db = b instanceof Dataset ? (Dataset) b : DatasetFactory.createFromObject(b);
+		return compareToMask(da, db, LESS_THAN_OR_EQUAL_TO);
+	}
+
 	/**
 	 * @param a
 	 * @param lo lower bound
@@ -856,6 +1048,9 @@ public class Comparisons {
 	 * @return true if all elements are true
 	 */
 	public static boolean allTrue(Object a) {
+		if (a instanceof BitMask) {
+			return ((BitMask) a).allTrue();
+		}
 		final Dataset da = a instanceof Dataset ? (Dataset) a : DatasetFactory.createFromObject(a);
 		final IndexIterator it = da.getIterator();
 		final int as = da.getElementsPerItem();
@@ -921,6 +1116,9 @@ public class Comparisons {
 	 * @return true if any element is true
 	 */
 	public static boolean anyTrue(Object a) {
+		if (a instanceof BitMask) {
+			return ((BitMask) a).anyTrue();
+		}
 		final Dataset da = a instanceof Dataset ? (Dataset) a : DatasetFactory.createFromObject(a);
 		final IndexIterator it = da.getIterator();
 		final int as = da.getElementsPerItem();
@@ -993,6 +1191,15 @@ public class Comparisons {
 		return logicalNot(a, null);
 	}
 
+	/**
+	 * Negate item-wise
+	 * @param a
+	 * @return mask where item is true when a is false
+	 */
+	public static BitMask logicalNot(BitMask a) {
+		return a.not();
+	}
+
 	/**
 	 * Negate item-wise
 	 * <p>
@@ -1042,6 +1249,16 @@ public class Comparisons {
 		return logicalAnd(a, b, null);
 	}
 
+	/**
+	 * Compare item-wise for whether a's item is true and b's true too.
+	 * @param a
+	 * @param b mask of same shape
+	 * @return mask where item is true if a && b is true
+	 */
+	public static BitMask logicalAnd(BitMask a, BitMask b) {
+		return a.and(b);
+	}
+
 	/**
 	 * Compare item-wise for whether a's item is true and b's true too.
 	 * <p>
@@ -1117,6 +1334,16 @@ public class Comparisons {
 		return logicalOr(a, b, null);
 	}
 
+	/**
+	 * Compare item-wise for whether a's item is true or b's true.
+	 * @param a
+	 * @param b mask of same shape
+	 * @return mask where item is true if a || b is true
+	 */
+	public static BitMask logicalOr(BitMask a, BitMask b) {
+		return a.or(b);
+	}
+
 	/**
 	 * Compare item-wise for whether a's item is true or b's true.
 	 * <p>
@@ -1192,6 +1419,16 @@ public class Comparisons {
 		return logicalXor(a, b, null);
 	}
 
+	/**
+	 * Compare item-wise for whether a's item is true or b's true exclusively.
+	 * @param a
+	 * @param b mask of same shape
+	 * @return mask where item is true if a ^ b is true
+	 */
+	public static BitMask logicalXor(BitMask a, BitMask b) {
+		return a.xor(b);
+	}
+
 	/**
 	 * Compare item-wise for whether a's item is true or b's true exclusively.
 	 * <p>
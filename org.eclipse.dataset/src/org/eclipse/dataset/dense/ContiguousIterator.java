@@ -48,6 +48,16 @@ public class ContiguousIterator extends IndexIterator {
 		return index < imax;
 	}
 
+	/**
+	 * Move to given item
+	 * @param item
+	 * @return true if item is within dataset
+	 */
+	boolean setItem(final int item) {
+		index = item * istep;
+		return index < imax;
+	}
+
 	@Override
 	public int[] getPos() {
 		return null;
@@ -149,12 +149,14 @@ public class DatasetFactory {
 	 * Create a dataset from object (automatically detect dataset type)
 	 * 
 	 * @param obj
-	 *            can be Java list, array or Number
+	 *            can be Java list, array, Number or bit mask
 	 * @return dataset
 	 */
 	public static Dataset createFromObject(Object obj) {
 		if (obj instanceof IDataset)
 			return DatasetUtils.convertToDataset((IDataset) obj);
+		if (obj instanceof BitMask)
+			return ((BitMask) obj).toDataset();
 		if (obj instanceof BigInteger) {
 			obj = ((BigInteger) obj).longValue();
 		}
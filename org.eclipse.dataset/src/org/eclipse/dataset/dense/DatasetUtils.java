@@ -16,12 +16,16 @@ import java.io.Serializable;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.eclipse.dataset.IDataset;
 import org.eclipse.dataset.IDatasetIterator;
 import org.eclipse.dataset.ILazyDataset;
 import org.eclipse.dataset.PositionIterator;
+import org.eclipse.dataset.SliceND;
 import org.eclipse.dataset.internal.dense.AbstractDataset;
 import org.eclipse.dataset.internal.dense.BooleanDataset;
 import org.eclipse.dataset.internal.dense.ByteDataset;
@@ -2052,6 +2056,103 @@ public class DatasetUtils {
 		return indexes;
 	}
 
+	/**
+	 * Find unique items of a dataset together with the indexes that reconstruct the dataset from
+	 * the unique items and the number of times each unique item occurs
+	 * @param a
+	 * @param returnInverse if true, find indexes of unique items for each item in dataset
+	 * @param returnCounts if true, count occurrences of each unique item
+	 * @return array of sorted unique items, inverse indexes with the same shape as the dataset,
+	 * and counts. Inverse indexes or counts are null if not requested
+	 */
+	public static Dataset[] unique(final Dataset a, final boolean returnInverse, final boolean returnCounts) {
+		if (a.getElementsPerItem() != 1) {
+			throw new UnsupportedOperationException("Unique items of compound datasets not supported");
+		}
+		final Dataset u = a.getUniqueItems();
+		final Dataset[] result = new Dataset[] {u, null, null};
+		if (!returnInverse && !returnCounts) {
+			return result;
+		}
+
+		final int n = u.getSize();
+		final int dtype = a.getDType();
+		final long[] lkeys;
+		final double[] dkeys;
+		final Map<Object, Integer> okeys;
+		if (dtype == Dataset.BOOL || dtype == Dataset.INT8 || dtype == Dataset.INT16 || dtype == Dataset.INT32 || dtype == Dataset.INT64) {
+			lkeys = new long[n];
+			for (int i = 0; i < n; i++) {
+				lkeys[i] = u.getElementLongAbs(i);
+			}
+			dkeys = null;
+			okeys = null;
+		} else if (dtype == Dataset.FLOAT32 || dtype == Dataset.FLOAT64) {
+			lkeys = null;
+			dkeys = new double[n];
+			for (int i = 0; i < n; i++) {
+				dkeys[i] = u.getElementDoubleAbs(i);
+			}
+			okeys = null;
+		} else {
+			lkeys = null;
+			dkeys = null;
+			okeys = new HashMap<Object, Integer>(2 * n);
+			for (int i = 0; i < n; i++) {
+				okeys.put(u.getObjectAbs(i), i);
+			}
+		}
+
+		final int[] shape = a.getShapeRef();
+		final IntegerDataset inverse = (IntegerDataset) DatasetFactory.zeros(shape, Dataset.INT32);
+		final int[] idata = inverse.getData();
+		final List<SliceND> slices = ParallelUtils.shouldSplit(a.getSize()) ? ParallelUtils.split(shape) : ParallelUtils.split(shape, 1);
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(slices.size());
+		for (final SliceND s : slices) {
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					// slices are contiguous runs of positions so start at the flat index of first position
+					final int[] start = s.getStart();
+					int k = 0;
+					for (int i = 0; i < shape.length; i++) {
+						k = k * shape[i] + start[i];
+					}
+					final Dataset v = a.getSliceView(s);
+					final IndexIterator it = v.getIterator();
+					if (lkeys != null) {
+						while (it.hasNext()) {
+							idata[k++] = Arrays.binarySearch(lkeys, v.getElementLongAbs(it.index));
+						}
+					} else if (dkeys != null) {
+						while (it.hasNext()) {
+							idata[k++] = Arrays.binarySearch(dkeys, v.getElementDoubleAbs(it.index));
+						}
+					} else {
+						while (it.hasNext()) {
+							idata[k++] = okeys.get(v.getObjectAbs(it.index));
+						}
+					}
+					return null;
+				}
+			});
+		}
+		ParallelUtils.invokeAll(tasks);
+
+		if (returnInverse) {
+			result[1] = inverse;
+		}
+		if (returnCounts) {
+			final IntegerDataset counts = new IntegerDataset(n);
+			final int[] cdata = counts.getData();
+			for (int i : idata) {
+				cdata[i]++;
+			}
+			result[2] = counts;
+		}
+		return result;
+	}
+
 	/**
 	 * Roll items over given axis by given amount
 	 * @param a
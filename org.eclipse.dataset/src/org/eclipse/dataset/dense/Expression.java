@@ -0,0 +1,629 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.dense;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.eclipse.dataset.BinaryOperation;
+import org.eclipse.dataset.ILazyDataset;
+import org.eclipse.dataset.SliceND;
+
+/**
+ * Deferred element-wise expression over datasets and lazy datasets. Operations are recorded as a
+ * graph with broadcasting resolved when each node is created. No intermediate datasets are created
+ * on evaluation: the graph is evaluated in one pass over the output, a block of items at a time,
+ * and only the final result is stored. For example,
+ * <pre>
+ * Dataset r = Expression.of(img).subtract(dark).divide(Expression.of(flat).subtract(dark)).evaluate();
+ * </pre>
+ * Lazy operands are evaluated chunk by chunk so only slices of them are loaded. Chunks are run in
+ * parallel when enabled by {@link ParallelUtils}.
+ * <p>
+ * Expressions are evaluated in double precision and only real (single element) operands are supported.
+ * Expressions are immutable so they can be shared and evaluated by many threads at once.
+ */
+public abstract class Expression {
+	/**
+	 * Number of items evaluated at a time
+	 */
+	private static final int BLOCK = 1024;
+
+	/**
+	 * Maximum number of items in a chunk when there are lazy operands
+	 */
+	private static final int LAZY_CHUNK_ITEMS = 1 << 20;
+
+	/**
+	 * Function of a single value
+	 */
+	public interface UnaryFunction {
+		/**
+		 * @param x
+		 * @return f(x)
+		 */
+		double apply(double x);
+	}
+
+	protected final int[] shape;
+
+	protected Expression(int[] shape) {
+		this.shape = shape;
+	}
+
+	/**
+	 * Create an expression from an object
+	 * @param a expression, dataset, lazy dataset, number or object that can be converted to a dataset
+	 * @return expression
+	 */
+	public static Expression of(Object a) {
+		if (a instanceof Expression) {
+			return (Expression) a;
+		}
+		if (a instanceof Number) {
+			return new Constant(((Number) a).doubleValue());
+		}
+		if (a instanceof Dataset || !(a instanceof ILazyDataset)) {
+			final Dataset d = a instanceof Dataset ? (Dataset) a : DatasetFactory.createFromObject(a);
+			if (d.getElementsPerItem() != 1) {
+				throw new IllegalArgumentException("Only single element datasets are supported");
+			}
+			return new Operand(d, null);
+		}
+		final ILazyDataset l = (ILazyDataset) a;
+		if (l.getElementsPerItem() != 1) {
+			throw new IllegalArgumentException("Only single element datasets are supported");
+		}
+		return new Operand(null, l);
+	}
+
+	/**
+	 * @return shape of result
+	 */
+	public int[] getShape() {
+		return shape.clone();
+	}
+
+	/**
+	 * @param b
+	 * @return expression of this + b
+	 */
+	public Expression add(Object b) {
+		return operate(new BinaryOperation.Addition(), b);
+	}
+
+	/**
+	 * @param b
+	 * @return expression of this - b
+	 */
+	public Expression subtract(Object b) {
+		return operate(new BinaryOperation.Subtraction(), b);
+	}
+
+	/**
+	 * @param b
+	 * @return expression of this * b
+	 */
+	public Expression multiply(Object b) {
+		return operate(new BinaryOperation.Multiplication(), b);
+	}
+
+	/**
+	 * @param b
+	 * @return expression of this / b
+	 */
+	public Expression divide(Object b) {
+		return operate(new BinaryOperation.Division(), b);
+	}
+
+	/**
+	 * @param b
+	 * @return expression of this / b where division by zero gives zero
+	 */
+	public Expression dividez(Object b) {
+		return operate(new BinaryOperation.DivisionWithZero(), b);
+	}
+
+	/**
+	 * @param b
+	 * @return expression of this % b
+	 */
+	public Expression remainder(Object b) {
+		return operate(new BinaryOperation.Remainder(), b);
+	}
+
+	/**
+	 * @param b
+	 * @return expression of this ** b
+	 */
+	public Expression power(Object b) {
+		return operate(new BinaryOperation.Exponentiation(), b);
+	}
+
+	/**
+	 * @param op binary operation
+	 * @param b
+	 * @return expression of this op b
+	 */
+	public Expression operate(BinaryOperation op, Object b) {
+		return new Binary(op, this, of(b));
+	}
+
+	/**
+	 * @param f function
+	 * @return expression of f(this)
+	 */
+	public Expression apply(UnaryFunction f) {
+		return apply(f, f.toString());
+	}
+
+	/**
+	 * @return expression of -this
+	 */
+	public Expression negate() {
+		return apply(new UnaryFunction() {
+			@Override
+			public double apply(double x) {
+				return -x;
+			}
+		}, "-");
+	}
+
+	/**
+	 * @return expression of |this|
+	 */
+	public Expression abs() {
+		return apply(new UnaryFunction() {
+			@Override
+			public double apply(double x) {
+				return Math.abs(x);
+			}
+		}, "abs");
+	}
+
+	/**
+	 * @return expression of square root of this
+	 */
+	public Expression sqrt() {
+		return apply(new UnaryFunction() {
+			@Override
+			public double apply(double x) {
+				return Math.sqrt(x);
+			}
+		}, "sqrt");
+	}
+
+	/**
+	 * @return expression of exponential of this
+	 */
+	public Expression exp() {
+		return apply(new UnaryFunction() {
+			@Override
+			public double apply(double x) {
+				return Math.exp(x);
+			}
+		}, "exp");
+	}
+
+	/**
+	 * @return expression of natural logarithm of this
+	 */
+	public Expression log() {
+		return apply(new UnaryFunction() {
+			@Override
+			public double apply(double x) {
+				return Math.log(x);
+			}
+		}, "log");
+	}
+
+	private Expression apply(UnaryFunction f, String name) {
+		return new Unary(f, name, this);
+	}
+
+	/**
+	 * Evaluate expression
+	 * @return double dataset
+	 */
+	public Dataset evaluate() {
+		return evaluate(DatasetFactory.zeros(shape, Dataset.FLOAT64));
+	}
+
+	/**
+	 * Evaluate expression into given dataset
+	 * @param out output dataset of same shape as expression
+	 * @return output
+	 */
+	public Dataset evaluate(final Dataset out) {
+		if (!Arrays.equals(out.getShapeRef(), shape)) {
+			throw new IllegalArgumentException("Output dataset must have same shape as expression");
+		}
+		if (out.getElementsPerItem() != 1) {
+			throw new IllegalArgumentException("Output dataset must have single element items");
+		}
+		final int size = out.getSize();
+		if (size == 0) {
+			return out;
+		}
+
+		final Program program = new Program();
+		compile(program);
+		boolean lazy = false;
+		for (Operand o : program.operands) {
+			if (o.data == null) {
+				lazy = true;
+				break;
+			}
+		}
+
+		final List<SliceND> slices;
+		if (lazy) {
+			int n = (size + LAZY_CHUNK_ITEMS - 1) / LAZY_CHUNK_ITEMS;
+			if (ParallelUtils.shouldSplit(size)) {
+				n = Math.max(n, ParallelUtils.getNumberOfChunks(size));
+			}
+			slices = ParallelUtils.split(shape, n);
+		} else if (ParallelUtils.shouldSplit(size)) {
+			slices = ParallelUtils.split(shape);
+		} else {
+			slices = ParallelUtils.split(shape, 1);
+		}
+
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(slices.size());
+		for (final SliceND s : slices) {
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					evaluateChunk(program, out, s);
+					return null;
+				}
+			});
+		}
+		ParallelUtils.invokeAll(tasks);
+		out.setDirty();
+		return out;
+	}
+
+	private void evaluateChunk(final Program program, final Dataset out, final SliceND s) {
+		final int[] cshape = s.getShape();
+		final Context c = new Context(program);
+		for (int i = 0; i < c.views.length; i++) {
+			c.views[i] = new View(program.operands.get(i).getBroadcastSlice(shape, s), cshape);
+		}
+		final View ov = new View(out.getSliceView(s), cshape);
+
+		final int rank = cshape.length;
+		final int length = rank == 0 ? 1 : cshape[rank - 1];
+		final double[] result = new double[Math.min(BLOCK, length)];
+		final int[] pos = new int[Math.max(0, rank - 1)];
+		while (true) {
+			for (View v : c.views) {
+				v.setRow(pos);
+			}
+			ov.setRow(pos);
+			for (int b = 0; b < length; b += BLOCK) {
+				final int n = Math.min(BLOCK, length - b);
+				c.start = b;
+				compute(c, result, n);
+				ov.set(result, b, n);
+			}
+
+			int j = rank - 2;
+			for (; j >= 0; j--) {
+				if (++pos[j] < cshape[j]) {
+					break;
+				}
+				pos[j] = 0;
+			}
+			if (j < 0) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Assign slots to nodes and collect operands
+	 * @param program
+	 */
+	abstract void compile(Program program);
+
+	/**
+	 * Compute a block of values
+	 * @param c context
+	 * @param out values
+	 * @param n number of values
+	 */
+	abstract void compute(Context c, double[] out, int n);
+
+	private static int[] broadcast(int[] a, int[] b) {
+		return BroadcastIterator.broadcastShapes(a, b).get(0);
+	}
+
+	/**
+	 * Operands and slots of nodes of an expression compiled for an evaluation. Slots are held here
+	 * rather than in nodes so that an expression can be compiled by many threads at once
+	 */
+	private static class Program {
+		final List<Operand> operands = new ArrayList<Operand>();
+		final Map<Expression, Integer> slots = new IdentityHashMap<Expression, Integer>();
+		int nodes; // number of nodes that need buffers
+
+		/**
+		 * @param e compiled node
+		 * @return index of operand or of buffer of node
+		 */
+		int getSlot(Expression e) {
+			return slots.get(e);
+		}
+	}
+
+	/**
+	 * State of an evaluation of a chunk
+	 */
+	private static class Context {
+		final Program program;
+		final View[] views;
+		final double[][] buffers;
+		int start;
+
+		Context(Program program) {
+			this.program = program;
+			views = new View[program.operands.size()];
+			buffers = new double[program.nodes][];
+		}
+
+		double[] getBuffer(int id) {
+			double[] b = buffers[id];
+			if (b == null) {
+				b = new double[BLOCK];
+				buffers[id] = b;
+			}
+			return b;
+		}
+	}
+
+	/**
+	 * Strided access to rows of a dataset that broadcasts to a chunk
+	 */
+	private static class View {
+		private final Dataset data;
+		private final double[] buffer;
+		private final int[] stride;
+		private final int offset;
+		private int index;
+		private int step;
+
+		View(Dataset d, int[] cshape) {
+			data = d;
+			final Object b = d.getBuffer();
+			buffer = b instanceof double[] ? (double[]) b : null;
+			final int rank = cshape.length;
+			final int[] dshape = d.getShapeRef();
+			final int[] s = d.getStrides();
+			stride = new int[rank];
+			if (s == null) {
+				int t = 1;
+				for (int i = rank - 1; i >= 0; i--) {
+					stride[i] = t;
+					t *= dshape[i];
+				}
+				offset = 0;
+			} else {
+				System.arraycopy(s, 0, stride, 0, rank);
+				offset = d.getOffset();
+			}
+			for (int i = 0; i < rank; i++) {
+				if (dshape[i] == 1) {
+					stride[i] = 0;
+				}
+			}
+		}
+
+		void setRow(int[] pos) {
+			int i = offset;
+			for (int j = 0; j < pos.length; j++) {
+				i += pos[j] * stride[j];
+			}
+			index = i;
+			step = stride.length == 0 ? 0 : stride[stride.length - 1];
+		}
+
+		void get(double[] out, int start, int n) {
+			int i = index + start * step;
+			if (buffer != null) {
+				for (int k = 0; k < n; k++, i += step) {
+					out[k] = buffer[i];
+				}
+			} else {
+				for (int k = 0; k < n; k++, i += step) {
+					out[k] = data.getElementDoubleAbs(i);
+				}
+			}
+		}
+
+		void set(double[] in, int start, int n) {
+			int i = index + start * step;
+			if (buffer != null) {
+				for (int k = 0; k < n; k++, i += step) {
+					buffer[i] = in[k];
+				}
+			} else {
+				for (int k = 0; k < n; k++, i += step) {
+					data.setObjectAbs(i, in[k]);
+				}
+			}
+		}
+	}
+
+	private static class Operand extends Expression {
+		private final Dataset data;
+		private final ILazyDataset lazy;
+
+		Operand(Dataset data, ILazyDataset lazy) {
+			super(data == null ? lazy.getShape() : data.getShape());
+			this.data = data;
+			this.lazy = lazy;
+		}
+
+		/**
+		 * @param full shape
+		 * @param slice of full shape
+		 * @return slice of operand with same rank as full shape
+		 */
+		Dataset getBroadcastSlice(int[] full, SliceND slice) {
+			if (data != null) {
+				return ParallelUtils.getBroadcastSliceView(data, full, slice);
+			}
+			final int rank = full.length;
+			final int pad = rank - shape.length;
+			final int[] start = slice.getStart();
+			final int[] stop = slice.getStop();
+			final int[] lstart = new int[shape.length];
+			final int[] lstop = shape.clone();
+			final int[] lshape = new int[rank];
+			for (int i = 0; i < rank; i++) {
+				if (i < pad) {
+					lshape[i] = 1;
+				} else if (shape[i - pad] == full[i]) {
+					lstart[i - pad] = start[i];
+					lstop[i - pad] = stop[i];
+					lshape[i] = stop[i] - start[i];
+				} else {
+					lshape[i] = shape[i - pad];
+				}
+			}
+			return DatasetUtils.convertToDataset(lazy.getSlice(lstart, lstop, null)).reshape(lshape);
+		}
+
+		@Override
+		void compile(Program program) {
+			if (program.slots.containsKey(this)) {
+				return;
+			}
+			final List<Operand> operands = program.operands;
+			for (int i = 0; i < operands.size(); i++) {
+				final Operand o = operands.get(i);
+				if (o.data == data && o.lazy == lazy) {
+					program.slots.put(this, i);
+					return;
+				}
+			}
+			program.slots.put(this, operands.size());
+			operands.add(this);
+		}
+
+		@Override
+		void compute(Context c, double[] out, int n) {
+			c.views[c.program.getSlot(this)].get(out, c.start, n);
+		}
+
+		@Override
+		public String toString() {
+			final String name = data == null ? lazy.getName() : data.getName();
+			return name == null || name.isEmpty() ? "?" : name;
+		}
+	}
+
+	private static class Constant extends Expression {
+		private final double value;
+
+		Constant(double value) {
+			super(new int[0]);
+			this.value = value;
+		}
+
+		@Override
+		void compile(Program program) {
+		}
+
+		@Override
+		void compute(Context c, double[] out, int n) {
+			Arrays.fill(out, 0, n, value);
+		}
+
+		@Override
+		public String toString() {
+			return Double.toString(value);
+		}
+	}
+
+	private static class Unary extends Expression {
+		private final UnaryFunction f;
+		private final String name;
+		private final Expression a;
+
+		Unary(UnaryFunction f, String name, Expression a) {
+			super(a.shape);
+			this.f = f;
+			this.name = name;
+			this.a = a;
+		}
+
+		@Override
+		void compile(Program program) {
+			a.compile(program);
+		}
+
+		@Override
+		void compute(Context c, double[] out, int n) {
+			a.compute(c, out, n);
+			for (int i = 0; i < n; i++) {
+				out[i] = f.apply(out[i]);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return name + "(" + a + ")";
+		}
+	}
+
+	private static class Binary extends Expression {
+		private final BinaryOperation op;
+		private final Expression a;
+		private final Expression b;
+
+		Binary(BinaryOperation op, Expression a, Expression b) {
+			super(broadcast(a.shape, b.shape));
+			this.op = op;
+			this.a = a;
+			this.b = b;
+		}
+
+		@Override
+		void compile(Program program) {
+			if (program.slots.containsKey(this)) {
+				return;
+			}
+			program.slots.put(this, program.nodes++);
+			a.compile(program);
+			b.compile(program);
+		}
+
+		@Override
+		void compute(Context c, double[] out, int n) {
+			a.compute(c, out, n);
+			final double[] t = c.getBuffer(c.program.getSlot(this));
+			b.compute(c, t, n);
+			for (int i = 0; i < n; i++) {
+				out[i] = op.doubleOperate(out[i], t[i]);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "(" + a + " " + op + " " + b + ")";
+		}
+	}
+}
@@ -0,0 +1,458 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.dense;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.eclipse.dataset.IDataset;
+import org.eclipse.dataset.ILazyDataset;
+import org.eclipse.dataset.MetadataException;
+import org.eclipse.dataset.SliceND;
+import org.eclipse.dataset.internal.dense.DoubleDataset;
+import org.eclipse.dataset.internal.dense.LongDataset;
+import org.eclipse.dataset.metadata.MaskMetadata;
+
+/**
+ * Histogram of values in datasets of any (non-compound) dtype.
+ * <p>
+ * Bins include their lower edge and the last bin also includes the upper edge; values outside
+ * the bins and NaNs are ignored. The bin of a value is calculated arithmetically for uniform
+ * bins and found by binary search otherwise. Primitive buffers are read directly.
+ * <p>
+ * A histogram can be updated with successive datasets (such as frames of a scan) and
+ * histograms with the same bins can be merged. Items can be weighted and, if a dataset has
+ * {@link MaskMetadata}, only items whose mask value is true are counted. Large datasets are
+ * split into chunks on the {@link ParallelUtils} pool with partial histograms that are summed.
+ * <p>
+ * This class is not thread safe.
+ */
+public class Histogram {
+	private final int nbins;
+	private final double[] edges;
+	private final double lower;
+	private final double upper;
+	private final boolean uniform;
+	private final double scale;
+	private final double[] counts;
+	private boolean weighted = false;
+
+	/**
+	 * Create a histogram with uniform bins
+	 * @param nbins number of bins
+	 * @param lower edge of first bin
+	 * @param upper edge of last bin
+	 */
+	public Histogram(int nbins, double lower, double upper) {
+		if (nbins < 1) {
+			throw new IllegalArgumentException("Number of bins must be positive");
+		}
+		if (!(lower < upper) || Double.isInfinite(lower) || Double.isInfinite(upper)) {
+			throw new IllegalArgumentException("Lower edge must be finite and less than finite upper edge");
+		}
+		this.nbins = nbins;
+		this.lower = lower + 0.; // remove any negative zero
+		this.upper = upper + 0.;
+		uniform = true;
+		scale = nbins / (upper - lower);
+		edges = new double[nbins + 1];
+		final double delta = (upper - lower) / nbins;
+		for (int i = 0; i < nbins; i++) {
+			edges[i] = this.lower + i * delta;
+		}
+		edges[nbins] = this.upper;
+		counts = new double[nbins];
+	}
+
+	/**
+	 * Create a histogram
+	 * @param edges of bins in increasing order
+	 */
+	public Histogram(double... edges) {
+		if (edges == null || edges.length < 2) {
+			throw new IllegalArgumentException("At least two edges are needed");
+		}
+		nbins = edges.length - 1;
+		this.edges = new double[edges.length];
+		for (int i = 0; i <= nbins; i++) {
+			this.edges[i] = edges[i] + 0.;
+			if (i > 0 && !(this.edges[i] > this.edges[i - 1])) {
+				throw new IllegalArgumentException("Edges must be in increasing order");
+			}
+		}
+		lower = this.edges[0];
+		upper = this.edges[nbins];
+		uniform = false;
+		scale = 0;
+		counts = new double[nbins];
+	}
+
+	/**
+	 * Create a histogram with uniform bins that span the range of values in the dataset, ignoring
+	 * NaNs and infinities, and count the dataset's items
+	 * @param data
+	 * @param nbins number of bins
+	 * @return histogram
+	 */
+	public static Histogram create(IDataset data, int nbins) {
+		Dataset d = DatasetUtils.convertToDataset(data);
+		double lo = d.min(true, true).doubleValue();
+		double hi = d.max(true, true).doubleValue();
+		if (Double.isNaN(lo) || Double.isInfinite(lo)) {
+			lo = 0;
+			hi = 1;
+		} else if (!(hi > lo)) {
+			lo -= 0.5;
+			hi = lo + 1;
+		}
+		Histogram h = new Histogram(nbins, lo, hi);
+		h.update(d);
+		return h;
+	}
+
+	/**
+	 * Count items along axis in separate histograms with uniform bins
+	 * @param a
+	 * @param axis
+	 * @param nbins number of bins
+	 * @param lower edge of first bin
+	 * @param upper edge of last bin
+	 * @return counts with axis removed from shape and bins appended as last axis
+	 */
+	public static Dataset histogram(Dataset a, int axis, int nbins, double lower, double upper) {
+		return new Histogram(nbins, lower, upper).count(a, axis);
+	}
+
+	/**
+	 * Count items along axis in separate histograms
+	 * @param a
+	 * @param axis
+	 * @param edges of bins in increasing order
+	 * @return counts with axis removed from shape and bins appended as last axis
+	 */
+	public static Dataset histogram(Dataset a, int axis, double... edges) {
+		return new Histogram(edges).count(a, axis);
+	}
+
+	/**
+	 * @return number of bins
+	 */
+	public int getNumberOfBins() {
+		return nbins;
+	}
+
+	/**
+	 * @return true if bins are uniform
+	 */
+	public boolean isUniform() {
+		return uniform;
+	}
+
+	/**
+	 * @return edges of bins
+	 */
+	public Dataset getEdges() {
+		return new DoubleDataset(edges.clone(), nbins + 1);
+	}
+
+	/**
+	 * @return counts in bins as 64-bit integers or, if any items were weighted, as sums of weights in
+	 * 64-bit floating point
+	 */
+	public Dataset getCounts() {
+		if (weighted) {
+			return new DoubleDataset(counts.clone(), nbins);
+		}
+		long[] c = new long[nbins];
+		for (int i = 0; i < nbins; i++) {
+			c[i] = (long) counts[i];
+		}
+		return new LongDataset(c, nbins);
+	}
+
+	/**
+	 * Set all counts to zero
+	 */
+	public void reset() {
+		Arrays.fill(counts, 0);
+		weighted = false;
+	}
+
+	/**
+	 * Add other histogram's counts to this histogram
+	 * @param other histogram with same bins
+	 */
+	public void merge(Histogram other) {
+		if (!Arrays.equals(edges, other.edges)) {
+			throw new IllegalArgumentException("Histograms must have the same bins");
+		}
+		for (int i = 0; i < nbins; i++) {
+			counts[i] += other.counts[i];
+		}
+		weighted |= other.weighted;
+	}
+
+	/**
+	 * Count items of dataset
+	 * @param data
+	 */
+	public void update(IDataset data) {
+		update(data, null);
+	}
+
+	/**
+	 * Add weights of items of dataset
+	 * @param data
+	 * @param weights can be null to count items
+	 */
+	public void update(IDataset data, IDataset weights) {
+		final Dataset d = getContiguous(data);
+		final Dataset w = weights == null ? null : getContiguous(weights);
+		final Dataset m = getMask(data);
+		if (w != null) {
+			checkShape(d, w, "Weights");
+			weighted = true;
+		}
+		if (m != null) {
+			checkShape(d, m, "Mask");
+		}
+
+		final int size = d.getSize();
+		if (!ParallelUtils.shouldSplit(size)) {
+			count(d, w, m, 0, size, counts);
+			return;
+		}
+
+		final int n = ParallelUtils.getNumberOfChunks(size);
+		final List<Callable<double[]>> tasks = new ArrayList<Callable<double[]>>(n);
+		for (int c = 0; c < n; c++) {
+			final int start = (int) (((long) c * size) / n);
+			final int stop = (int) (((long) (c + 1) * size) / n);
+			tasks.add(new Callable<double[]>() {
+				@Override
+				public double[] call() throws Exception {
+					double[] h = new double[nbins];
+					count(d, w, m, start, stop, h);
+					return h;
+				}
+			});
+		}
+		for (double[] h : ParallelUtils.invokeAll(tasks)) {
+			for (int i = 0; i < nbins; i++) {
+				counts[i] += h[i];
+			}
+		}
+	}
+
+	private static Dataset getContiguous(final IDataset data) {
+		Dataset d = DatasetUtils.convertToDataset(data);
+		if (d.getElementsPerItem() != 1) {
+			throw new UnsupportedOperationException("Compound datasets are not supported");
+		}
+		return d.getStrides() == null ? d : d.getSlice();
+	}
+
+	private static Dataset getMask(final IDataset data) {
+		try {
+			List<MaskMetadata> ml = data.getMetadata(MaskMetadata.class);
+			if (ml != null && !ml.isEmpty()) {
+				ILazyDataset mask = ml.get(0).getMask();
+				if (mask != null) {
+					return getContiguous(mask.getSlice());
+				}
+			}
+		} catch (MetadataException e) {
+		}
+		return null;
+	}
+
+	private static void checkShape(final Dataset d, final Dataset o, final String name) {
+		if (!Arrays.equals(d.getShapeRef(), o.getShapeRef())) {
+			throw new IllegalArgumentException(name + " must have same shape as data");
+		}
+	}
+
+	/**
+	 * @param v
+	 * @return bin index or -1 if value is not in any bin
+	 */
+	private int findBin(final double v) {
+		if (!(v >= lower && v <= upper)) {
+			return -1;
+		}
+		int b;
+		if (uniform) {
+			b = (int) ((v - lower) * scale);
+			if (b >= nbins) {
+				return nbins - 1;
+			}
+			// correct for rounding
+			if (v < edges[b]) {
+				b--;
+			} else if (v >= edges[b + 1] && b + 1 < nbins) {
+				b++;
+			}
+			return b;
+		}
+		b = Arrays.binarySearch(edges, v + 0.);
+		if (b < 0) {
+			b = -b - 2;
+		}
+		return b >= nbins ? nbins - 1 : b;
+	}
+
+	/**
+	 * Count items in range of a contiguous dataset
+	 * @param d
+	 * @param w weights (can be null)
+	 * @param m mask (can be null)
+	 * @param start
+	 * @param stop
+	 * @param h histogram
+	 */
+	private void count(final Dataset d, final Dataset w, final Dataset m, final int start, final int stop, final double[] h) {
+		if (w == null && m == null) {
+			final Object buffer = d.getBuffer();
+			if (buffer instanceof double[]) {
+				final double[] x = (double[]) buffer;
+				for (int i = start; i < stop; i++) {
+					final int b = findBin(x[i]);
+					if (b >= 0) {
+						h[b]++;
+					}
+				}
+				return;
+			} else if (buffer instanceof float[]) {
+				final float[] x = (float[]) buffer;
+				for (int i = start; i < stop; i++) {
+					final int b = findBin(x[i]);
+					if (b >= 0) {
+						h[b]++;
+					}
+				}
+				return;
+			} else if (buffer instanceof long[]) {
+				final long[] x = (long[]) buffer;
+				for (int i = start; i < stop; i++) {
+					final int b = findBin(x[i]);
+					if (b >= 0) {
+						h[b]++;
+					}
+				}
+				return;
+			} else if (buffer instanceof int[]) {
+				final int[] x = (int[]) buffer;
+				for (int i = start; i < stop; i++) {
+					final int b = findBin(x[i]);
+					if (b >= 0) {
+						h[b]++;
+					}
+				}
+				return;
+			} else if (buffer instanceof short[]) {
+				final short[] x = (short[]) buffer;
+				for (int i = start; i < stop; i++) {
+					final int b = findBin(x[i]);
+					if (b >= 0) {
+						h[b]++;
+					}
+				}
+				return;
+			} else if (buffer instanceof byte[]) {
+				final byte[] x = (byte[]) buffer;
+				for (int i = start; i < stop; i++) {
+					final int b = findBin(x[i]);
+					if (b >= 0) {
+						h[b]++;
+					}
+				}
+				return;
+			}
+		}
+
+		for (int i = start; i < stop; i++) {
+			if (m != null && !m.getElementBooleanAbs(i)) {
+				continue;
+			}
+			final int b = findBin(d.getElementDoubleAbs(i));
+			if (b >= 0) {
+				h[b] += w == null ? 1 : w.getElementDoubleAbs(i);
+			}
+		}
+	}
+
+	/**
+	 * Count items along axis in separate histograms. This histogram is not updated
+	 * @param a
+	 * @param axis
+	 * @return counts
+	 */
+	private Dataset count(final Dataset a, int axis) {
+		axis = a.checkAxis(axis);
+		final Dataset d = getContiguous(a);
+		final Dataset m = getMask(a);
+		if (m != null) {
+			checkShape(d, m, "Mask");
+		}
+
+		final int[] shape = d.getShapeRef();
+		final int rank = shape.length;
+		final int length = shape[axis];
+		final int[] hshape = new int[rank];
+		for (int i = 0, j = 0; i < rank; i++) {
+			if (i != axis) {
+				hshape[j++] = shape[i];
+			}
+		}
+		hshape[rank - 1] = nbins;
+		final int lines = d.getSize() / Math.max(1, length);
+		final long[] hdata = new long[lines * nbins];
+		if (lines == 0 || length == 0) {
+			return new LongDataset(hdata, hshape);
+		}
+
+		// contiguous lines are split into outer and inner parts about axis
+		int s = 1;
+		for (int i = axis + 1; i < rank; i++) {
+			s *= shape[i];
+		}
+		final int inner = s;
+
+		final List<SliceND> slices = ParallelUtils.shouldSplit(d.getSize()) ? ParallelUtils.split(new int[] {lines}) : ParallelUtils.split(new int[] {lines}, 1);
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(slices.size());
+		for (final SliceND slice : slices) {
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					final int stop = slice.getStop()[0];
+					for (int l = slice.getStart()[0]; l < stop; l++) {
+						final int o = l / inner;
+						final int base = o * length * inner + (l - o * inner);
+						final int hbase = l * nbins;
+						for (int k = 0, i = base; k < length; k++, i += inner) {
+							if (m != null && !m.getElementBooleanAbs(i)) {
+								continue;
+							}
+							final int b = findBin(d.getElementDoubleAbs(i));
+							if (b >= 0) {
+								hdata[hbase + b]++;
+							}
+						}
+					}
+					return null;
+				}
+			});
+		}
+		ParallelUtils.invokeAll(tasks);
+		return new LongDataset(hdata, hshape);
+	}
+}
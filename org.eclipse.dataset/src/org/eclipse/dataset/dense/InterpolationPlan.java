@@ -0,0 +1,302 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.dense;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.eclipse.dataset.internal.dense.DoubleDataset;
+
+/**
+ * Reusable plan for linearly remapping frames along one or more axes, as done by
+ * {@link InterpolatorUtils#remapAxis(Dataset, int, Dataset, Dataset)} and
+ * {@link InterpolatorUtils#regrid(Dataset, Dataset, Dataset, Dataset, Dataset)}.
+ * <p>
+ * The bracketing index and weight of every output point are found once when the plan is created.
+ * A plan can then be applied to a frame, or to a stack of frames held in leading axes, in a
+ * single pass over each frame. Stacks are split between threads with {@link ParallelUtils} when
+ * large enough. Output points that are outside an axis are set to NaN.
+ */
+public class InterpolationPlan {
+	private final Stage[] stages;
+	private final int[] shape;
+	private final int[] resultShape;
+	private final int work; // size of largest intermediate frame
+
+	private InterpolationPlan(Stage... stages) {
+		this.stages = stages;
+		shape = stages[0].shape;
+		resultShape = stages[stages.length - 1].resultShape;
+		int w = 0;
+		for (int i = 0; i < stages.length - 1; i++) {
+			w = Math.max(w, stages[i].resultSize);
+		}
+		work = w;
+	}
+
+	/**
+	 * Create a plan to remap one axis
+	 * @param originalAxisForCorrection axis values of each point in a frame
+	 * @param axisIndex
+	 * @param outputAxis
+	 * @return plan
+	 */
+	public static InterpolationPlan createRemapAxisPlan(Dataset originalAxisForCorrection, int axisIndex, Dataset outputAxis) {
+		return new InterpolationPlan(new Stage(originalAxisForCorrection, axisIndex, outputAxis));
+	}
+
+	/**
+	 * Create a plan to regrid 2D frames by remapping second then first axes
+	 * @param x values of second axis of each point in a frame
+	 * @param y values of first axis of each point in a frame that has been remapped along its
+	 * second axis
+	 * @param gridX
+	 * @param gridY
+	 * @return plan
+	 */
+	public static InterpolationPlan createRegridPlan(Dataset x, Dataset y, Dataset gridX, Dataset gridY) {
+		Stage sx = new Stage(x, 1, gridX);
+		if (!Arrays.equals(sx.resultShape, y.getShapeRef())) {
+			throw new IllegalArgumentException("Y dataset must match shape of frame remapped along X axis");
+		}
+		return new InterpolationPlan(sx, new Stage(y, 0, gridY));
+	}
+
+	/**
+	 * @return shape of frames
+	 */
+	public int[] getShape() {
+		return shape.clone();
+	}
+
+	/**
+	 * @return shape of remapped frames
+	 */
+	public int[] getResultShape() {
+		return resultShape.clone();
+	}
+
+	/**
+	 * Apply plan to a frame or a stack of frames
+	 * @param data whose trailing axes must match the shape of frames
+	 * @return remapped frames
+	 */
+	public Dataset apply(Dataset data) {
+		final int[] dshape = data.getShapeRef();
+		final int lead = dshape.length - shape.length;
+		if (lead < 0 || !Arrays.equals(shape, Arrays.copyOfRange(dshape, lead, dshape.length))) {
+			throw new IllegalArgumentException("Dataset's trailing axes must match shape of frames in plan");
+		}
+		if (data.getElementsPerItem() != 1) {
+			throw new UnsupportedOperationException("Compound datasets not supported");
+		}
+
+		final int[] rshape = Arrays.copyOf(dshape, lead + resultShape.length);
+		System.arraycopy(resultShape, 0, rshape, lead, resultShape.length);
+		final DoubleDataset result = new DoubleDataset(rshape);
+
+		DoubleDataset d = (DoubleDataset) DatasetUtils.cast(data, Dataset.FLOAT64);
+		if (d.getStrides() != null) {
+			d = d.clone();
+		}
+		final double[] in = d.getData();
+		final double[] out = result.getData();
+		final int frames = DatasetUtils.calculateSize(Arrays.copyOf(dshape, lead));
+		if (frames < 2 || !ParallelUtils.shouldSplit(in.length)) {
+			apply(in, out, 0, frames);
+			return result;
+		}
+
+		final int chunks = Math.min(frames, ParallelUtils.getNumberOfChunks(in.length));
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(chunks);
+		for (int t = 0; t < chunks; t++) {
+			final int begin = (int) (((long) t * frames) / chunks);
+			final int end = (int) (((long) (t + 1) * frames) / chunks);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					apply(in, out, begin, end);
+					return null;
+				}
+			});
+		}
+		ParallelUtils.invokeAll(tasks);
+		return result;
+	}
+
+	/**
+	 * Apply stages to given range of frames
+	 */
+	private void apply(final double[] in, final double[] out, final int begin, final int end) {
+		final int isize = stages[0].size;
+		final int osize = stages[stages.length - 1].resultSize;
+		final double[][] tmp = stages.length > 1 ? new double[][] {new double[work], new double[work]} : null;
+		for (int f = begin; f < end; f++) {
+			double[] src = in;
+			int so = f * isize;
+			for (int s = 0; s < stages.length; s++) {
+				final boolean last = s == stages.length - 1;
+				final double[] dst = last ? out : tmp[s % 2];
+				final int dO = last ? f * osize : 0;
+				stages[s].apply(src, so, dst, dO);
+				src = dst;
+				so = 0;
+			}
+		}
+	}
+
+	/**
+	 * Remapping along one axis. Frames are considered as blocks of lines of points, with the lines
+	 * running along the axis. Tables of bracketing indices and weights are held in the order of the
+	 * output so they are read in step with it
+	 */
+	private static class Stage {
+		final int[] shape;
+		final int[] resultShape;
+		final int size;
+		final int resultSize;
+		final int blocks; // product of lengths of preceding axes
+		final int length; // length of axis
+		final int outLength;
+		final int post; // product of lengths of following axes
+		final int[] index;
+		final double[] weight;
+
+		Stage(Dataset axis, int axisIndex, Dataset outputAxis) {
+			shape = axis.getShape();
+			final int rank = shape.length;
+			if (axisIndex < 0 || axisIndex >= rank) {
+				throw new IllegalArgumentException("Axis index out of range");
+			}
+			if (outputAxis.getRank() != 1) {
+				throw new IllegalArgumentException("Output axis must be 1D");
+			}
+			length = shape[axisIndex];
+			outLength = outputAxis.getSize();
+			resultShape = shape.clone();
+			resultShape[axisIndex] = outLength;
+			size = DatasetUtils.calculateSize(shape);
+			resultSize = DatasetUtils.calculateSize(resultShape);
+			blocks = DatasetUtils.calculateSize(Arrays.copyOf(shape, axisIndex));
+			post = DatasetUtils.calculateSize(Arrays.copyOfRange(shape, axisIndex + 1, rank));
+
+			final double[] points = new double[outLength];
+			for (int k = 0; k < outLength; k++) {
+				points[k] = outputAxis.getDouble(k);
+			}
+
+			DoubleDataset a = (DoubleDataset) DatasetUtils.cast(axis, Dataset.FLOAT64);
+			if (a.getStrides() != null) {
+				a = a.clone();
+			}
+			final double[] ad = a.getData();
+			final double[] line = new double[length];
+			index = new int[resultSize];
+			weight = new double[resultSize];
+			for (int b = 0; b < blocks; b++) {
+				for (int p = 0; p < post; p++) {
+					final int base = b * length * post + p;
+					for (int i = 0; i < length; i++) {
+						line[i] = ad[base + i * post];
+					}
+					final int direction = getDirection(line);
+					for (int k = 0; k < outLength; k++) {
+						final int t = (b * outLength + k) * post + p;
+						final double x = points[k];
+						final int j = direction == 0 ? findFirst(line, x) : findSorted(line, x, direction > 0);
+						index[t] = j;
+						weight[t] = j < 0 ? 0 : (x - line[j]) / (line[j + 1] - line[j]);
+					}
+				}
+			}
+		}
+
+		/**
+		 * @return 1 if non-decreasing, -1 if non-increasing, otherwise 0
+		 */
+		private static int getDirection(final double[] line) {
+			boolean up = true;
+			boolean down = true;
+			for (int i = 1; i < line.length; i++) {
+				final double d = line[i] - line[i - 1];
+				if (d < 0) {
+					up = false;
+				} else if (d > 0) {
+					down = false;
+				} else if (d != 0) { // NaN
+					return 0;
+				}
+			}
+			return up ? 1 : (down ? -1 : 0);
+		}
+
+		/**
+		 * @return index of first segment that brackets point or -1
+		 */
+		private static int findFirst(final double[] line, final double x) {
+			for (int j = 0; j < line.length - 1; j++) {
+				final double start = line[j];
+				final double end = line[j + 1];
+				if (start < end) {
+					if (end > x && start <= x) {
+						return j;
+					}
+				} else if (end < x && start >= x) {
+					return j;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Bisect for segment that brackets point. This is the same segment as found by
+		 * {@link #findFirst(double[], double)} as a point lies in at most one segment
+		 * of a monotonic line
+		 * @return index of segment or -1
+		 */
+		private static int findSorted(final double[] line, final double x, final boolean increasing) {
+			// find number of values before point (<= x if increasing, >= x otherwise)
+			int lo = 0;
+			int hi = line.length;
+			while (lo < hi) {
+				final int mid = (lo + hi) >>> 1;
+				if (increasing ? line[mid] <= x : line[mid] >= x) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			final int j = lo - 1;
+			return j >= 0 && j < line.length - 1 ? j : -1;
+		}
+
+		void apply(final double[] in, final int io, final double[] out, final int oo) {
+			for (int b = 0; b < blocks; b++) {
+				final int ib = io + b * length * post;
+				for (int k = 0; k < outLength; k++) {
+					final int t = (b * outLength + k) * post;
+					final int ob = oo + t;
+					for (int p = 0; p < post; p++) {
+						final int j = index[t + p];
+						if (j < 0) {
+							out[ob + p] = Double.NaN;
+							continue;
+						}
+						final double w = weight[t + p];
+						final int i = ib + j * post + p;
+						out[ob + p] = w == 0 ? in[i] : (1 - w) * in[i] + w * in[i + post];
+					}
+				}
+			}
+		}
+	}
+}
@@ -404,43 +404,9 @@ public class InterpolatorUtils {
 	}
 	
 	public static Dataset remap1D(Dataset dataset, Dataset axis, Dataset outputAxis) {
-		DoubleDataset data = (DoubleDataset) DatasetFactory.zeros(outputAxis.getShapeRef(), Dataset.FLOAT64);
-		for(int i = 0; i < outputAxis.getShapeRef()[0]; i++) {
-			double point = outputAxis.getDouble(i);
-			double position = getRealPositionAsIndex(axis, point);
-			if (position >= 0.0) {
-				data.set(Maths.interpolate(dataset, position), i);
-			} else {
-				data.set(Double.NaN,i);
-			}
-		}
-		
-		return data;
+		return InterpolationPlan.createRemapAxisPlan(axis, 0, outputAxis).apply(dataset);
 	}
 
-	// TODO need to make this work with reverse number lists
-	private static double getRealPositionAsIndex(Dataset dataset, double point) {
-		for (int j = 0; j < dataset.getShapeRef()[0]-1; j++) {
-			double end = dataset.getDouble(j+1);
-			double start = dataset.getDouble(j);
-			//TODO could make this check once outside the loop with a minor assumption.
-			if ( start < end) {
-				if ((end > point) && (start <= point)) {
-					// we have a bounding point
-					double proportion = ((point-start)/(end-start));
-					return j + proportion;
-				}
-			} else {
-				if ((end < point) && (start >= point)) {
-					// we have a bounding point
-					double proportion = ((point-start)/(end-start));
-					return j + proportion;
-				}
-			}
-		}
-		return -1.0;
-	}
-	
 	public static Dataset remapOneAxis(Dataset dataset, int axisIndex, Dataset corrections,
 			Dataset originalAxisForCorrection, Dataset outputAxis) {
 		int[] stop = dataset.getShape();
@@ -491,58 +457,40 @@ public class InterpolatorUtils {
 	}
 	
 	
+	/**
+	 * Remap dataset along given axis. To remap many frames with the same axes, use a plan from
+	 * {@link InterpolationPlan#createRemapAxisPlan(Dataset, int, Dataset)}
+	 * @param dataset
+	 * @param axisIndex
+	 * @param originalAxisForCorrection axis values of each point in dataset
+	 * @param outputAxis
+	 * @return remapped dataset
+	 */
 	public static Dataset remapAxis(Dataset dataset, int axisIndex, Dataset originalAxisForCorrection, Dataset outputAxis) {
 		if (!dataset.isCompatibleWith(originalAxisForCorrection)) {
 			throw new IllegalArgumentException("Datasets must be of the same shape");
 		}
-		
-		int[] stop = dataset.getShapeRef();
-		int[] start = new int[stop.length];
-		int[] step = new int[stop.length];
-		int[] resultSize = new int[stop.length];
-		for (int i = 0 ; i < start.length; i++) {
-			start[i] = 0;
-			step[i] = 1;
-			resultSize[i] = stop[i];
-		}
-		
-		resultSize[axisIndex] = outputAxis.getShapeRef()[0];
-		DoubleDataset result = (DoubleDataset) DatasetFactory.zeros(resultSize, Dataset.FLOAT64);
-		
-		step[axisIndex] = dataset.getShapeRef()[axisIndex];
-		IDatasetIterator iter = dataset.getSliceIterator(start, stop, step);
-		
-		int[] pos = iter.getPos();
-		int[] posEnd = new int[pos.length];
-		while (iter.hasNext()){
-			for (int i = 0 ; i < posEnd.length; i++) {
-				posEnd[i] = pos[i]+1;
-			}
-			posEnd[axisIndex] = stop[axisIndex];
-			
-			// get the dataset
-			Dataset slice = dataset.getSlice(pos, posEnd, null).squeeze();
-			Dataset axis = originalAxisForCorrection.getSlice(pos, posEnd, null).squeeze();
-			
-			Dataset remapped = remap1D(slice,axis,outputAxis);
-			
-			int[] ref = ArrayUtils.clone(pos);
-			
-			for (int k = 0; k < result.getShapeRef()[axisIndex]; k++) {
-				ref[axisIndex] = k;
-				result.set(remapped.getDouble(k), ref);
-			}
-		}
-		
-		return result;
+
+		return InterpolationPlan.createRemapAxisPlan(originalAxisForCorrection, axisIndex, outputAxis).apply(dataset);
 	}
 
+	/**
+	 * Regrid 2D dataset by remapping X (second) then Y (first) axes. To regrid many frames with the
+	 * same axes, use a plan from {@link InterpolationPlan#createRegridPlan(Dataset, Dataset, Dataset, Dataset)}
+	 * @param data
+	 * @param x
+	 * @param y
+	 * @param gridX
+	 * @param gridY
+	 * @return regridded dataset
+	 */
 	public static Dataset regrid(Dataset data, Dataset x, Dataset y, Dataset gridX, Dataset gridY) {
 		
+		if (!data.isCompatibleWith(x)) {
+			throw new IllegalArgumentException("Datasets must be of the same shape");
+		}
+
 		// apply X then Y regridding
-		Dataset result = remapAxis(data,1,x,gridX);
-		result = remapAxis(result,0,y,gridY);
-		
-		return result;
+		return InterpolationPlan.createRegridPlan(x, y, gridX, gridY).apply(data);
 	}
 }
@@ -12,11 +12,16 @@
 
 package org.eclipse.dataset.dense;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.eclipse.dataset.IDataset;
 import org.eclipse.dataset.ILazyDataset;
+import org.eclipse.dataset.ILazyWriteableDataset;
 import org.eclipse.dataset.PositionIterator;
+import org.eclipse.dataset.internal.dense.DoubleDataset;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,55 +34,495 @@ public final class LazyMaths {
 	 */
 	protected static final Logger logger = LoggerFactory.getLogger(LazyMaths.class);
 
+	/**
+	 * Maximum number of items in a block read from a lazy dataset in a streaming reduction
+	 */
+	private static final long MAX_BLOCK_ITEMS = 1L << 22;
+
+	private static final int SUM = 1;
+	private static final int PRODUCT = 2;
+	private static final int EXTREMA = 4;
+	private static final int VARIANCE = 8;
+
 	/**
 	 * @param data
-	 * @param axis (can be negative)
-	 * @return sum along axis in lazy dataset
+	 * @param axes to reduce over (can be negative). If none are given then all axes are reduced
+	 * @return sum over axes in lazy dataset
 	 */
-	public static Dataset sum(final ILazyDataset data, int axis) {
-		int[][] sliceInfo = new int[3][];
-		int[] shape = data.getShape();
-		final Dataset result = prepareDataset(axis, shape, sliceInfo);
+	public static Dataset sum(final ILazyDataset data, int... axes) {
+		return reduce(data, SUM, axes).getSum();
+	}
 
-		final int[] start = sliceInfo[0];
-		final int[] stop = sliceInfo[1];
-		final int[] step = sliceInfo[2];
-		final int length = shape[axis];
+	/**
+	 * @param data
+	 * @param axes to reduce over (can be negative). If none are given then all axes are reduced
+	 * @return product over axes in lazy dataset
+	 */
+	public static Dataset product(final ILazyDataset data, int... axes) {
+		return reduce(data, PRODUCT, axes).getProduct();
+	}
 
-		for (int i = 0; i < length; i++) {
-			start[axis] = i;
-			stop[axis] = i + 1;
-			result.iadd(data.getSlice(start, stop, step));
-		}
+	/**
+	 * @param data
+	 * @param axes to reduce over (can be negative). If none are given then all axes are reduced
+	 * @return maximum over axes in lazy dataset
+	 */
+	public static Dataset max(final ILazyDataset data, int... axes) {
+		return reduce(data, EXTREMA, axes).getMax();
+	}
 
-		result.setShape(DatasetUtils.squeezeShape(shape, axis));
-		return result;
+	/**
+	 * @param data
+	 * @param axes to reduce over (can be negative). If none are given then all axes are reduced
+	 * @return minimum over axes in lazy dataset
+	 */
+	public static Dataset min(final ILazyDataset data, int... axes) {
+		return reduce(data, EXTREMA, axes).getMin();
 	}
 
 	/**
 	 * @param data
-	 * @param axis (can be negative)
-	 * @return product along axis in lazy dataset
+	 * @param axes to reduce over (can be negative). If none are given then all axes are reduced
+	 * @return sample variance over axes in lazy dataset
 	 */
-	public static Dataset product(final ILazyDataset data, int axis) {
-		int[][] sliceInfo = new int[3][];
-		int[] shape = data.getShape();
-		final Dataset result = prepareDataset(axis, shape, sliceInfo);
-		result.fill(1);
+	public static Dataset variance(final ILazyDataset data, int... axes) {
+		return variance(data, false, axes);
+	}
 
-		final int[] start = sliceInfo[0];
-		final int[] stop = sliceInfo[1];
-		final int[] step = sliceInfo[2];
-		final int length = shape[axis];
+	/**
+	 * @param data
+	 * @param isWholePopulation if false, consider as sample of population
+	 * @param axes to reduce over (can be negative). If none are given then all axes are reduced
+	 * @return variance over axes in lazy dataset
+	 */
+	public static Dataset variance(final ILazyDataset data, boolean isWholePopulation, int... axes) {
+		return reduce(data, VARIANCE, axes).getVariance(isWholePopulation);
+	}
+
+	/**
+	 * Calculate sum, mean, maximum, minimum and variance in a single pass
+	 * @param data
+	 * @param axes to reduce over (can be negative). If none are given then all axes are reduced
+	 * @return statistics over axes in lazy dataset
+	 */
+	public static Statistics statistics(final ILazyDataset data, int... axes) {
+		return reduce(data, SUM | EXTREMA | VARIANCE, axes);
+	}
 
-		for (int i = 0; i < length; i++) {
-			start[axis] = i;
-			stop[axis] = i + 1;
-			result.imultiply(data.getSlice(start, stop, step));
+	/**
+	 * Statistics from a streaming reduction of a lazy dataset. Values that are not calculated are null
+	 */
+	public static final class Statistics {
+		private final int[] shape;
+		private final long count;
+		private final double[] sum;
+		private final double[] product;
+		private final double[] max;
+		private final double[] min;
+		private final double[] mean;
+		private final double[] m2;
+		private final long[] seen;
+
+		private Statistics(int[] shape, long count, int flags) {
+			this.shape = shape;
+			this.count = count;
+			final int size = DatasetUtils.calculateSize(shape);
+			sum = (flags & SUM) != 0 ? new double[size] : null;
+			if ((flags & PRODUCT) != 0) {
+				product = new double[size];
+				Arrays.fill(product, 1);
+			} else {
+				product = null;
+			}
+			if ((flags & EXTREMA) != 0) {
+				max = new double[size];
+				min = new double[size];
+				Arrays.fill(max, Double.NEGATIVE_INFINITY);
+				Arrays.fill(min, Double.POSITIVE_INFINITY);
+			} else {
+				max = null;
+				min = null;
+			}
+			if ((flags & VARIANCE) != 0) {
+				mean = new double[size];
+				m2 = new double[size];
+				seen = new long[size];
+			} else {
+				mean = null;
+				m2 = null;
+				seen = null;
+			}
 		}
 
-		result.setShape(DatasetUtils.squeezeShape(shape, axis));
-		return result;
+		/**
+		 * @return number of items reduced to each output item
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return sum
+		 */
+		public Dataset getSum() {
+			return create(sum);
+		}
+
+		/**
+		 * @return product
+		 */
+		public Dataset getProduct() {
+			return create(product);
+		}
+
+		/**
+		 * @return maximum
+		 */
+		public Dataset getMax() {
+			return create(max);
+		}
+
+		/**
+		 * @return minimum
+		 */
+		public Dataset getMin() {
+			return create(min);
+		}
+
+		/**
+		 * @return mean
+		 */
+		public Dataset getMean() {
+			if (mean != null) {
+				return create(mean);
+			}
+			if (sum == null) {
+				return null;
+			}
+			final double[] m = new double[sum.length];
+			for (int i = 0; i < m.length; i++) {
+				m[i] = sum[i] / count;
+			}
+			return create(m);
+		}
+
+		/**
+		 * @return sample variance
+		 */
+		public Dataset getVariance() {
+			return getVariance(false);
+		}
+
+		/**
+		 * @param isWholePopulation if false, consider as sample of population
+		 * @return variance
+		 */
+		public Dataset getVariance(boolean isWholePopulation) {
+			if (m2 == null) {
+				return null;
+			}
+			final long n = isWholePopulation ? count : count - 1;
+			final double[] v = new double[m2.length];
+			for (int i = 0; i < v.length; i++) {
+				v[i] = n > 0 ? m2[i] / n : 0;
+			}
+			return create(v);
+		}
+
+		private Dataset create(double[] values) {
+			if (values == null) {
+				return null;
+			}
+			Dataset d = new DoubleDataset(values.clone());
+			d.setShape(shape);
+			return d;
+		}
+
+		/**
+		 * Accumulate a contiguous run of items
+		 * @param d dataset
+		 * @param index of first item in dataset
+		 * @param n number of items
+		 * @param o index of first output item
+		 * @param step between output items
+		 */
+		private void update(final Dataset d, final int index, final int n, int o, final int step) {
+			final Object buf = d.getBuffer();
+			final double[] data = buf instanceof double[] ? (double[]) buf : null;
+			for (int k = 0; k < n; k++, o += step) {
+				final double x = data != null ? data[index + k] : d.getElementDoubleAbs(index + k);
+				if (sum != null) {
+					sum[o] += x;
+				}
+				if (product != null) {
+					product[o] *= x;
+				}
+				if (max != null) {
+					if (x > max[o] || Double.isNaN(x)) { // NaNs propagate
+						max[o] = x;
+					}
+					if (x < min[o] || Double.isNaN(x)) {
+						min[o] = x;
+					}
+				}
+				if (m2 != null) { // Welford's update
+					final double delta = x - mean[o];
+					mean[o] += delta / ++seen[o];
+					m2[o] += delta * (x - mean[o]);
+				}
+			}
+		}
+	}
+
+	private static Statistics reduce(final ILazyDataset data, final int flags, int... axes) {
+		final int[] shape = data.getShape();
+		final int rank = shape.length;
+		final boolean[] reduced = new boolean[rank];
+		if (axes == null || axes.length == 0) {
+			Arrays.fill(reduced, true);
+		} else {
+			for (int a : axes) {
+				if (a < 0) {
+					a += rank;
+				}
+				if (a < 0 || a >= rank) {
+					logger.error("Axis argument is outside allowed range");
+					throw new IllegalArgumentException("Axis argument is outside allowed range");
+				}
+				if (reduced[a]) {
+					throw new IllegalArgumentException("Axis argument must not be repeated");
+				}
+				reduced[a] = true;
+			}
+		}
+
+		// output has reduced axes removed; index it using strides of the shape with reduced axes set to one
+		final int[] ostride = new int[rank];
+		int orank = 0;
+		long count = 1;
+		int s = 1;
+		for (int i = rank - 1; i >= 0; i--) {
+			if (reduced[i]) {
+				count *= shape[i];
+			} else {
+				ostride[i] = s;
+				s *= shape[i];
+				orank++;
+			}
+		}
+		final int[] oshape = new int[orank];
+		for (int i = 0, j = 0; i < rank; i++) {
+			if (!reduced[i]) {
+				oshape[j++] = shape[i];
+			}
+		}
+		final Statistics stats = new Statistics(oshape, count, flags);
+		if (count == 0 || DatasetUtils.calculateSize(oshape) == 0) {
+			return stats;
+		}
+
+		if (rank == 0) {
+			stats.update(DatasetUtils.convertToDataset(data.getSlice()).getSlice(), 0, 1, 0, 0);
+			return stats;
+		}
+
+		final int[] block = getBlockShape(data, shape);
+		final int[] start = new int[rank];
+		final int[] stop = new int[rank];
+		final int[] bshape = new int[rank];
+		final int[] pos = new int[rank - 1];
+		final int last = rank - 1;
+		while (true) {
+			for (int i = 0; i < rank; i++) {
+				stop[i] = Math.min(start[i] + block[i], shape[i]);
+				bshape[i] = stop[i] - start[i];
+			}
+			Dataset d = DatasetUtils.convertToDataset(data.getSlice(start, stop, null));
+			if (d.getStrides() != null) {
+				d = d.getSlice(); // make contiguous
+			}
+
+			// accumulate rows along last axis
+			final int length = bshape[last];
+			final int ostep = reduced[last] ? 0 : 1;
+			Arrays.fill(pos, 0);
+			int index = 0;
+			while (true) {
+				int o = reduced[last] ? 0 : start[last];
+				for (int i = 0; i < last; i++) {
+					o += (start[i] + pos[i]) * ostride[i];
+				}
+				stats.update(d, index, length, o, ostep);
+				index += length;
+
+				int j = last - 1;
+				for (; j >= 0; j--) {
+					if (++pos[j] < bshape[j]) {
+						break;
+					}
+					pos[j] = 0;
+				}
+				if (j < 0) {
+					break;
+				}
+			}
+
+			if (!nextBlock(start, block, shape)) {
+				break;
+			}
+		}
+		return stats;
+	}
+
+	/**
+	 * Move start to next block in row-major order
+	 * @param start
+	 * @param block
+	 * @param shape
+	 * @return false if there are no more blocks
+	 */
+	private static boolean nextBlock(final int[] start, final int[] block, final int[] shape) {
+		for (int j = shape.length - 1; j >= 0; j--) {
+			start[j] += block[j];
+			if (start[j] < shape[j]) {
+				return true;
+			}
+			start[j] = 0;
+		}
+		return false;
+	}
+
+	/**
+	 * Create a quantile sketch of all items of a lazy dataset in a single streaming pass. Blocks
+	 * are read in turn and each block is sketched in parallel chunks whose sketches are merged
+	 * @param data
+	 * @return sketch with default size
+	 */
+	public static QuantileSketch quantileSketch(final ILazyDataset data) {
+		return quantileSketch(data, QuantileSketch.DEFAULT_K);
+	}
+
+	/**
+	 * Create a quantile sketch of all items of a lazy dataset in a single streaming pass. Blocks
+	 * are read in turn and each block is sketched in parallel chunks whose sketches are merged
+	 * @param data
+	 * @param k size parameter of sketch
+	 * @return sketch
+	 */
+	public static QuantileSketch quantileSketch(final ILazyDataset data, final int k) {
+		final QuantileSketch sketch = new QuantileSketch(k);
+		final int[] shape = data.getShape();
+		final int rank = shape.length;
+		if (data.getSize() == 0) {
+			return sketch;
+		}
+		if (rank == 0) {
+			sketch.update(data.getSlice());
+			return sketch;
+		}
+
+		final int[] block = getBlockShape(data, shape);
+		final int[] start = new int[rank];
+		final int[] stop = new int[rank];
+		do {
+			for (int i = 0; i < rank; i++) {
+				stop[i] = Math.min(start[i] + block[i], shape[i]);
+			}
+			Dataset d = DatasetUtils.convertToDataset(data.getSlice(start, stop, null));
+			if (d.getStrides() != null) {
+				d = d.getSlice(); // make contiguous
+			}
+			final Dataset b = d;
+			final int size = b.getSize();
+			if (!ParallelUtils.shouldSplit(size)) {
+				sketch.update(b, 0, size);
+				continue;
+			}
+
+			final int n = ParallelUtils.getNumberOfChunks(size);
+			final List<Callable<QuantileSketch>> tasks = new ArrayList<Callable<QuantileSketch>>(n);
+			for (int c = 0; c < n; c++) {
+				final int cstart = (int) (((long) c * size) / n);
+				final int cstop = (int) (((long) (c + 1) * size) / n);
+				tasks.add(new Callable<QuantileSketch>() {
+					@Override
+					public QuantileSketch call() throws Exception {
+						QuantileSketch s = new QuantileSketch(k);
+						s.update(b, cstart, cstop);
+						return s;
+					}
+				});
+			}
+			for (QuantileSketch s : ParallelUtils.invokeAll(tasks)) {
+				sketch.merge(s);
+			}
+		} while (nextBlock(start, block, shape));
+		return sketch;
+	}
+
+	/**
+	 * Estimate quantiles of all items of a lazy dataset in a single streaming pass with bounded memory.
+	 * See {@link QuantileSketch} for the accuracy of estimates
+	 * @param data
+	 * @param q
+	 * @return estimates of points at which CDF has given values
+	 */
+	public static double[] quantile(final ILazyDataset data, final double... q) {
+		return quantileSketch(data).getQuantiles(q);
+	}
+
+	/**
+	 * Estimate median of all items of a lazy dataset in a single streaming pass with bounded memory
+	 * @param data
+	 * @return estimate of median
+	 */
+	public static double median(final ILazyDataset data) {
+		return quantileSketch(data).getQuantile(0.5);
+	}
+
+	/**
+	 * Estimate interquartile range of all items of a lazy dataset in a single streaming pass with bounded memory
+	 * @param data
+	 * @return estimate of range between first and third quartiles
+	 */
+	public static double iqr(final ILazyDataset data) {
+		double[] q = quantileSketch(data).getQuantiles(0.25, 0.75);
+		return q[1] - q[0];
+	}
+
+	/**
+	 * Get shape of blocks to read. Blocks are aligned to the chunking of the lazy dataset, if
+	 * known, and enlarged from the last axis until the number of items in a block is bounded
+	 * @param data
+	 * @param shape
+	 * @return block shape
+	 */
+	private static int[] getBlockShape(final ILazyDataset data, final int[] shape) {
+		final int rank = shape.length;
+		int[] chunk = data instanceof ILazyWriteableDataset ? ((ILazyWriteableDataset) data).getChunking() : null;
+		final int[] block = new int[rank];
+		long items = 1;
+		for (int i = 0; i < rank; i++) {
+			block[i] = chunk == null || chunk.length != rank ? 1 : Math.max(1, Math.min(chunk[i], shape[i]));
+			items *= block[i];
+		}
+		for (int i = rank - 1; i >= 0; i--) {
+			if (block[i] >= shape[i]) {
+				continue;
+			}
+			final long other = items / block[i];
+			final long m = MAX_BLOCK_ITEMS / (other * block[i]);
+			if (m <= 1) {
+				break;
+			}
+			final int b = (int) Math.min(shape[i], block[i] * m);
+			items = other * b;
+			block[i] = b;
+			if (b < shape[i]) {
+				break;
+			}
+		}
+		return block;
 	}
 
 	/**
@@ -116,27 +561,31 @@ public final class LazyMaths {
 		return  av != null ? av.getCurrentAverage().squeeze() : null;
 	}
 	
+	/**
+	 * @param data
+	 * @param ignoreAxes
+	 * @return mean when given axes are ignored in lazy dataset
+	 */
 	public static Dataset mean(ILazyDataset data, int... ignoreAxes) {
-		return mean(0, Integer.MAX_VALUE -1 , data, ignoreAxes);
-	}
-
-	private static Dataset prepareDataset(int axis, int[] shape, int[][] sliceInfo) {
-		int rank = shape.length;
-		if (axis < 0)
-			axis += rank;
-		if (axis < 0 || axis >= rank) {
-			logger.error("Axis argument is outside allowed range");
-			throw new IllegalArgumentException("Axis argument is outside allowed range");
+		if (data.getError() != null) { // errors are propagated by running average
+			return mean(0, Integer.MAX_VALUE -1 , data, ignoreAxes);
 		}
 
-		sliceInfo[0] = new int[rank];
-		sliceInfo[1] = shape.clone();
-		sliceInfo[2] = new int[rank];
-		Arrays.fill(sliceInfo[2], 1);
-
-		final int[] nshape = shape.clone();
-		nshape[axis] = 1;
-
-		return DatasetFactory.zeros(nshape, Dataset.FLOAT64);
+		final int rank = data.getRank();
+		final boolean[] ignore = new boolean[rank];
+		for (int a : ignoreAxes) {
+			ignore[a < 0 ? a + rank : a] = true;
+		}
+		final int[] axes = new int[rank];
+		int n = 0;
+		for (int i = 0; i < rank; i++) {
+			if (!ignore[i]) {
+				axes[n++] = i;
+			}
+		}
+		if (n == 0) {
+			return DatasetUtils.convertToDataset(data.getSlice()).cast(Dataset.FLOAT64).squeeze();
+		}
+		return reduce(data, SUM, Arrays.copyOf(axes, n)).getMean().squeeze();
 	}
 }
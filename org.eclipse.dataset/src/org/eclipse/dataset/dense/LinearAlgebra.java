@@ -12,19 +12,18 @@
 
 package org.eclipse.dataset.dense;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.math.complex.Complex;
-import org.apache.commons.math.linear.Array2DRowRealMatrix;
-import org.apache.commons.math.linear.ArrayRealVector;
 import org.apache.commons.math.linear.CholeskyDecomposition;
 import org.apache.commons.math.linear.CholeskyDecompositionImpl;
 import org.apache.commons.math.linear.EigenDecomposition;
 import org.apache.commons.math.linear.EigenDecompositionImpl;
 import org.apache.commons.math.linear.LUDecomposition;
 import org.apache.commons.math.linear.LUDecompositionImpl;
-import org.apache.commons.math.linear.MatrixUtils;
 import org.apache.commons.math.linear.NotPositiveDefiniteMatrixException;
 import org.apache.commons.math.linear.NotSymmetricMatrixException;
 import org.apache.commons.math.linear.QRDecomposition;
@@ -36,7 +35,10 @@ import org.apache.commons.math.linear.SingularValueDecompositionImpl;
 import org.eclipse.dataset.IDatasetIterator;
 import org.eclipse.dataset.PositionIterator;
 import org.eclipse.dataset.internal.dense.AbstractDataset;
+import org.eclipse.dataset.internal.dense.ComplexDoubleDataset;
 import org.eclipse.dataset.internal.dense.CompoundLongDataset;
+import org.eclipse.dataset.internal.dense.DatasetRealMatrix;
+import org.eclipse.dataset.internal.dense.DatasetRealVector;
 import org.eclipse.dataset.internal.dense.DoubleDataset;
 import org.eclipse.dataset.internal.utils.MissingFromMath2;
 
@@ -45,6 +47,26 @@ public class LinearAlgebra {
 
 	private static final int CROSSOVERPOINT = 16; // point at which using slice iterators for inner loop is faster 
 
+	private static volatile boolean compensated = false;
+
+	/**
+	 * Set whether tensor dot products use compensated (Kahan) summation. When not set (the default),
+	 * real and complex datasets are multiplied as matrices of doubles using a blocked algorithm that
+	 * runs in parallel when enabled in {@link ParallelUtils}. When set, each item is summed along the
+	 * axes with compensation which is more accurate but much slower for large datasets
+	 * @param compensate
+	 */
+	public static void setCompensatedSummation(boolean compensate) {
+		compensated = compensate;
+	}
+
+	/**
+	 * @return true if tensor dot products use compensated summation
+	 */
+	public static boolean isCompensatedSummation() {
+		return compensated;
+	}
+
 	/**
 	 * Calculate the tensor dot product over given axes. This is the sum of products of elements selected
 	 * from the given axes in each dataset
@@ -55,6 +77,10 @@ public class LinearAlgebra {
 	 * @return tensor dot product
 	 */
 	public static Dataset tensorDotProduct(final Dataset a, final Dataset b, final int axisa, final int axisb) {
+		if (!compensated && isMatrixProductSupported(a, b)) {
+			return tensorDotProduct(a, b, new int[] {axisa}, new int[] {axisb});
+		}
+
 		// this is slower for summing lengths < ~15
 		final int[] ashape = a.getShapeRef();
 		final int[] bshape = b.getShapeRef();
@@ -184,6 +210,9 @@ public class LinearAlgebra {
 				dshape[d++] = bshape[i];
 		}
 		int dtype = DTypeUtils.getBestDType(a.getDType(), b.getDType());
+		if (!compensated && isMatrixProductSupported(a, b)) {
+			return matrixProduct(a, b, achoice, aaxes, bchoice, baxes, dshape, dtype);
+		}
 		Dataset data = DatasetFactory.zeros(dshape, dtype);
 
 		SliceIterator ita = a.getSliceIteratorFromAxes(null, achoice);
@@ -224,6 +253,101 @@ public class LinearAlgebra {
 		return data;
 	}
 
+	/**
+	 * @param a
+	 * @param b
+	 * @return true if datasets are real or complex
+	 */
+	private static boolean isMatrixProductSupported(final Dataset a, final Dataset b) {
+		return (a.getElementsPerItem() == 1 || DTypeUtils.isDTypeComplex(a.getDType())) &&
+				(b.getElementsPerItem() == 1 || DTypeUtils.isDTypeComplex(b.getDType()));
+	}
+
+	/**
+	 * Calculate tensor dot product as a matrix product where the rows of the first matrix
+	 * run over the free axes of a and its columns run over the summing axes
+	 */
+	private static Dataset matrixProduct(final Dataset a, final Dataset b, final boolean[] achoice, final int[] aaxes,
+			final boolean[] bchoice, final int[] baxes, final int[] dshape, final int dtype) {
+		final int[] ashape = a.getShapeRef();
+		final int[] bshape = b.getShapeRef();
+		final int[] aorder = new int[ashape.length];
+		final int[] border = new int[bshape.length];
+		int m = 1;
+		int n = 1;
+		int k = 1;
+		int i = 0;
+		for (int j = 0; j < ashape.length; j++) {
+			if (achoice[j]) {
+				aorder[i++] = j;
+				m *= ashape[j];
+			}
+		}
+		for (int j = 0; j < aaxes.length; j++) {
+			aorder[i++] = aaxes[j];
+			border[j] = baxes[j];
+			k *= ashape[aaxes[j]];
+		}
+		i = baxes.length;
+		for (int j = 0; j < bshape.length; j++) {
+			if (bchoice[j]) {
+				border[i++] = j;
+				n *= bshape[j];
+			}
+		}
+
+		final double[][] am = toMatrix(a, aorder);
+		final double[][] bm = toMatrix(b, border);
+		final double[] real = new double[m * n];
+		MatrixProduct.multiply(1, am[0], bm[0], real, m, n, k);
+		if (!DTypeUtils.isDTypeComplex(dtype)) {
+			Dataset r = new DoubleDataset(real);
+			r.setShape(dshape); // allow zero rank
+			return DatasetUtils.cast(r, dtype);
+		}
+
+		final double[] imag = new double[m * n];
+		if (am[1] != null && bm[1] != null) {
+			MatrixProduct.multiply(-1, am[1], bm[1], real, m, n, k);
+		}
+		if (bm[1] != null) {
+			MatrixProduct.multiply(1, am[0], bm[1], imag, m, n, k);
+		}
+		if (am[1] != null) {
+			MatrixProduct.multiply(1, am[1], bm[0], imag, m, n, k);
+		}
+		Dataset r = new ComplexDoubleDataset(real, imag);
+		r.setShape(dshape);
+		return DatasetUtils.cast(r, dtype);
+	}
+
+	/**
+	 * Copy dataset to row-major arrays in order of given axes
+	 * @param a
+	 * @param axes
+	 * @return real and imaginary (null if not complex) parts
+	 */
+	private static double[][] toMatrix(final Dataset a, final int[] axes) {
+		final Dataset t = axes.length < 2 ? a : a.getTransposedView(axes);
+		final boolean complex = DTypeUtils.isDTypeComplex(a.getDType());
+		final int size = t.getSize();
+		final double[] real = new double[size];
+		final double[] imag = complex ? new double[size] : null;
+		final IndexIterator it = t.getIterator();
+		int l = 0;
+		if (complex) {
+			while (it.hasNext()) {
+				real[l] = t.getElementDoubleAbs(it.index);
+				imag[l++] = t.getElementDoubleAbs(it.index + 1);
+			}
+		} else {
+			while (it.hasNext()) {
+				real[l++] = t.getElementDoubleAbs(it.index);
+			}
+		}
+		return new double[][] {real, imag};
+	}
+
 	/**
 	 * Calculate the dot product of two datasets. When <b>b</b> is a 1D dataset, the sum product over
 	 * the last axis of <b>a</b> and <b>b</b> is returned. Where <b>a</b> is also a 1D dataset, a zero-rank dataset
@@ -1181,6 +1305,190 @@ public class LinearAlgebra {
 		return createDataset(lud.getSolver().solve(x));
 	}
 
+
+	/**
+	 * Calculate determinants of a stack of square matrices held in the last two axes
+	 * @param a
+	 * @return dataset of determinants with shape of leading axes
+	 */
+	public static Dataset calcDeterminantBatch(Dataset a) {
+		final DoubleDataset da = createMatrixStack(a);
+		final int r = da.getRank();
+		final int n = da.getShapeRef()[r - 1];
+		final DoubleDataset result = new DoubleDataset(Arrays.copyOf(da.getShapeRef(), r - 2));
+		final double[] in = da.getData();
+		final double[] out = result.getData();
+		runBatch(out.length, n, new MatrixBatch() {
+			@Override
+			public void run(int begin, int end, double[] work) {
+				for (int i = begin; i < end; i++) {
+					out[i] = SmallMatrices.determinant(n, in, i * n * n, work);
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Calculate inverses of a stack of square matrices held in the last two axes. Singular
+	 * matrices give inverses filled with NaNs
+	 * @param a
+	 * @return dataset of inverses
+	 */
+	public static Dataset calcInverseBatch(Dataset a) {
+		final DoubleDataset da = createMatrixStack(a);
+		final int[] shape = da.getShapeRef();
+		final int n = shape[shape.length - 1];
+		final int nn = n * n;
+		final DoubleDataset result = new DoubleDataset(shape);
+		final double[] in = da.getData();
+		final double[] out = result.getData();
+		runBatch(nn == 0 ? 0 : out.length / nn, n, new MatrixBatch() {
+			@Override
+			public void run(int begin, int end, double[] work) {
+				for (int i = begin; i < end; i++) {
+					SmallMatrices.inverse(n, in, i * nn, out, i * nn, work);
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Solve a stack of linear matrix equations A x = v where the matrices are held in the last two
+	 * axes of A. When v has one fewer dimension than A, it is a stack of vectors otherwise it is a
+	 * stack of matrices. The leading axes of A and v must match. Singular matrices give solutions
+	 * filled with NaNs
+	 * @param a
+	 * @param v
+	 * @return x
+	 */
+	public static Dataset solveBatch(Dataset a, Dataset v) {
+		final DoubleDataset da = createMatrixStack(a);
+		final int[] ashape = da.getShapeRef();
+		final int r = ashape.length;
+		final int n = ashape[r - 1];
+		final int[] vshape = v.getShapeRef();
+		final boolean isVector = vshape.length == r - 1;
+		if (!isVector && vshape.length != r) {
+			throw new IllegalArgumentException("Right-hand side must have same rank as matrices or one fewer");
+		}
+		for (int i = 0; i < r - 2; i++) {
+			if (vshape[i] != ashape[i]) {
+				throw new IllegalArgumentException("Leading axes of right-hand side must match those of matrices");
+			}
+		}
+		if (vshape[r - 2] != n) {
+			throw new IllegalArgumentException("Right-hand side does not match size of matrices");
+		}
+
+		final int m = isVector ? 1 : vshape[r - 1];
+		final int nn = n * n;
+		final int nm = n * m;
+		final double[] in = da.getData();
+		final double[] vin = createContiguous(v).getData();
+		final DoubleDataset result = new DoubleDataset(vshape);
+		final double[] out = result.getData();
+		runBatch(nm == 0 ? 0 : out.length / nm, n, new MatrixBatch() {
+			@Override
+			public void run(int begin, int end, double[] work) {
+				for (int i = begin; i < end; i++) {
+					SmallMatrices.solve(n, m, in, i * nn, vin, i * nm, out, i * nm, work);
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Calculate eigenvalues of a stack of symmetric matrices held in the last two axes. Only the
+	 * upper triangle of each matrix is used
+	 * @param a
+	 * @return dataset of eigenvalues in decreasing order along last axis
+	 */
+	public static Dataset calcEigenvaluesBatch(Dataset a) {
+		final DoubleDataset da = createMatrixStack(a);
+		final int[] shape = da.getShapeRef();
+		final int r = shape.length;
+		final int n = shape[r - 1];
+		final int nn = n * n;
+		final DoubleDataset result = new DoubleDataset(Arrays.copyOf(shape, r - 1));
+		final double[] in = da.getData();
+		final double[] out = result.getData();
+		runBatch(n == 0 ? 0 : out.length / n, n, new MatrixBatch() {
+			@Override
+			public void run(int begin, int end, double[] work) {
+				for (int i = begin; i < end; i++) {
+					SmallMatrices.symmetricEigenvalues(n, in, i * nn, out, i * n, work);
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * @param a
+	 * @return contiguous double dataset of stack of square matrices
+	 */
+	private static DoubleDataset createMatrixStack(Dataset a) {
+		final int[] shape = a.getShapeRef();
+		final int r = shape.length;
+		if (r < 2) {
+			throw new IllegalArgumentException("Dataset must be rank 2 or more");
+		}
+		if (shape[r - 1] != shape[r - 2]) {
+			throw new IllegalArgumentException("Last two axes must have same length");
+		}
+		return createContiguous(a);
+	}
+
+	private static DoubleDataset createContiguous(Dataset a) {
+		if (a.getElementsPerItem() != 1) {
+			throw new UnsupportedOperationException("Compound datasets not supported");
+		}
+		DoubleDataset d = (DoubleDataset) DatasetUtils.cast(a, Dataset.FLOAT64);
+		if (d.getStrides() != null) {
+			d = d.clone();
+		}
+		return d;
+	}
+
+	/**
+	 * Task that processes a range of matrices in a stack with a work array
+	 */
+	private interface MatrixBatch {
+		void run(int begin, int end, double[] work);
+	}
+
+	/**
+	 * Run batch over given number of matrices, splitting it between threads with {@link ParallelUtils}
+	 * when the stack is large enough. Each thread is given its own work array
+	 * @param count number of matrices
+	 * @param n number of rows of each matrix
+	 * @param batch
+	 */
+	private static void runBatch(final int count, final int n, final MatrixBatch batch) {
+		final int items = count * n * n;
+		if (count < 2 || !ParallelUtils.shouldSplit(items)) {
+			batch.run(0, count, new double[n * n]);
+			return;
+		}
+
+		final int chunks = Math.min(count, ParallelUtils.getNumberOfChunks(items));
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(chunks);
+		for (int t = 0; t < chunks; t++) {
+			final int begin = (int) (((long) t * count) / chunks);
+			final int end = (int) (((long) (t + 1) * count) / chunks);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					batch.run(begin, end, new double[n * n]);
+					return null;
+				}
+			});
+		}
+		ParallelUtils.invokeAll(tasks);
+	}
 	
 	/**
 	 * Solve least squares matrix equation A x = v by SVD
@@ -1242,65 +1550,18 @@ public class LinearAlgebra {
 	}
 
 	private static RealMatrix createRealMatrix(Dataset a) {
-		if (a.getRank() != 2) {
-			throw new IllegalArgumentException("Dataset must be rank 2");
-		}
-		int[] shape = a.getShapeRef();
-		IndexIterator it = a.getIterator(true);
-		int[] pos = it.getPos();
-		RealMatrix m = MatrixUtils.createRealMatrix(shape[0], shape[1]);
-		while (it.hasNext()) {
-			m.setEntry(pos[0], pos[1], a.getElementDoubleAbs(it.index));
-		}
-		return m;
+		return DatasetRealMatrix.createRealMatrix(a);
 	}
 
 	private static RealVector createRealVector(Dataset a) {
-		if (a.getRank() != 1) {
-			throw new IllegalArgumentException("Dataset must be rank 1");
-		}
-		int size = a.getSize();
-		IndexIterator it = a.getIterator(true);
-		int[] pos = it.getPos();
-		RealVector m = new ArrayRealVector(size);
-		while (it.hasNext()) {
-			m.setEntry(pos[0], a.getElementDoubleAbs(it.index));
-		}
-		return m;
+		return DatasetRealVector.createRealVector(a);
 	}
 
 	private static Dataset createDataset(RealVector v) {
-		DoubleDataset r = (DoubleDataset) DatasetFactory.zeros(new int[] {v.getDimension()}, Dataset.FLOAT64);
-		int size = r.getSize();
-		if (v instanceof ArrayRealVector) {
-			double[] data = ((ArrayRealVector) v).getDataRef();
-			for (int i = 0; i < size; i++) {
-				r.setAbs(i, data[i]);
-			}
-		} else {
-			for (int i = 0; i < size; i++) {
-				r.setAbs(i, v.getEntry(i));
-			}
-		}
-		return r;
+		return DatasetRealVector.createDataset(v);
 	}
 
 	private static Dataset createDataset(RealMatrix m) {
-		DoubleDataset r = (DoubleDataset) DatasetFactory.zeros(new int[] {m.getRowDimension(), m.getColumnDimension()}, Dataset.FLOAT64);
-		if (m instanceof Array2DRowRealMatrix) {
-			double[][] data = ((Array2DRowRealMatrix) m).getDataRef();
-			IndexIterator it = r.getIterator(true);
-			int[] pos = it.getPos();
-			while (it.hasNext()) {
-				r.setAbs(it.index, data[pos[0]][pos[1]]);
-			}
-		} else {
-			IndexIterator it = r.getIterator(true);
-			int[] pos = it.getPos();
-			while (it.hasNext()) {
-				r.setAbs(it.index, m.getEntry(pos[0], pos[1]));
-			}
-		}
-		return r;
+		return DatasetRealMatrix.createDataset(m);
 	}
 }
@@ -17,11 +17,13 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.math.complex.Complex;
 import org.eclipse.dataset.BinaryOperation;
 import org.eclipse.dataset.IDataset;
 import org.eclipse.dataset.PositionIterator;
+import org.eclipse.dataset.SliceND;
 import org.eclipse.dataset.internal.dense.BooleanDataset;
 import org.eclipse.dataset.internal.dense.ByteDataset;
 import org.eclipse.dataset.internal.dense.ComplexDoubleDataset;
@@ -92,6 +94,90 @@ public class Maths {
 		return (long) d;
 	}
 
+	/**
+	 * Function to run on a chunk of the output of a binary operation
+	 */
+	private interface BinaryChunkFunction {
+		public void run(Dataset a, Dataset b, Dataset o);
+	}
+
+	/**
+	 * Function to run on a chunk of the output of a unary operation
+	 */
+	private interface UnaryChunkFunction {
+		public void run(Dataset a, Dataset o);
+	}
+
+	/**
+	 * @param a
+	 * @param b
+	 * @param result
+	 * @return true if operation should be split into chunks and run in parallel
+	 * @see ParallelUtils
+	 */
+	private static boolean isParallel(final Dataset a, final Dataset b, final Dataset result) {
+		final int is = Math.max(a.getElementsPerItem(), b.getElementsPerItem());
+		return (is == 1 || is == result.getElementsPerItem()) && isParallel(result);
+	}
+
+	/**
+	 * @param a
+	 * @param result
+	 * @return true if operation should be split into chunks and run in parallel
+	 * @see ParallelUtils
+	 */
+	private static boolean isParallel(final Dataset a, final Dataset result) {
+		final int is = a.getElementsPerItem();
+		return (is == 1 || is == result.getElementsPerItem()) && isParallel(result);
+	}
+
+	private static boolean isParallel(final Dataset result) {
+		return result.getRank() > 0 && ParallelUtils.shouldSplit(result.getSize());
+	}
+
+	/**
+	 * Split output into chunks and run function on views of each chunk in parallel
+	 * @param a
+	 * @param b
+	 * @param o output
+	 * @param f function
+	 */
+	private static void runInParallel(final Dataset a, final Dataset b, final Dataset o, final BinaryChunkFunction f) {
+		final int[] shape = o.getShapeRef();
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (final SliceND s : ParallelUtils.split(shape)) {
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					f.run(ParallelUtils.getBroadcastSliceView(a, shape, s), ParallelUtils.getBroadcastSliceView(b, shape, s), o.getSliceView(s));
+					return null;
+				}
+			});
+		}
+		ParallelUtils.invokeAll(tasks);
+	}
+
+	/**
+	 * Split output into chunks and run function on views of each chunk in parallel
+	 * @param a
+	 * @param o output
+	 * @param f function
+	 */
+	private static void runInParallel(final Dataset a, final Dataset o, final UnaryChunkFunction f) {
+		final int[] shape = o.getShapeRef();
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (final SliceND s : ParallelUtils.split(shape)) {
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					f.run(ParallelUtils.getBroadcastSliceView(a, shape, s), o.getSliceView(s));
+					return null;
+				}
+			});
+		}
+		ParallelUtils.invokeAll(tasks);
+	}
+
 	/**
 	 * Unwrap result from mathematical methods if necessary
 	 * @param o
@@ -539,6 +625,17 @@ public class Maths {
 		final int dt = result.getDType();
 		final int as = da.getElementsPerItem();
 	
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					abs(ca, co);
+				}
+			});
+			addFunctionName(result, "abs");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -840,6 +937,17 @@ public class Maths {
 		final Dataset result = it.getOutput();
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					hypot(ca, cb, co);
+				}
+			});
+			addFunctionName(da, db, result, "hypot");
+			return result;
+		}
+
 		switch (dt) {
 		case Dataset.BOOL:
 			boolean[] bdata = ((BooleanDataset) result).getData();
@@ -1102,6 +1210,17 @@ public class Maths {
 		final Dataset result = it.getOutput();
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					arctan2(ca, cb, co);
+				}
+			});
+			addFunctionName(da, db, result, "atan2");
+			return result;
+		}
+
 		switch (dt) {
 		case Dataset.BOOL:
 			boolean[] bdata = ((BooleanDataset) result).getData();
@@ -3353,6 +3472,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					add(ca, cb, co);
+				}
+			});
+			addBinaryOperatorName(da, db, result, "+");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -4241,6 +4371,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					subtract(ca, cb, co);
+				}
+			});
+			addBinaryOperatorName(da, db, result, "-");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -5129,6 +5270,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					multiply(ca, cb, co);
+				}
+			});
+			addBinaryOperatorName(da, db, result, "*");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -6017,6 +6169,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					divide(ca, cb, co);
+				}
+			});
+			addBinaryOperatorName(da, db, result, "/");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -7007,6 +7170,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					dividez(ca, cb, co);
+				}
+			});
+			addBinaryOperatorName(da, db, result, "/");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -7979,6 +8153,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					divideTowardsFloor(ca, cb, co);
+				}
+			});
+			addBinaryOperatorName(da, db, result, "/");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -9417,6 +9602,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					power(ca, cb, co);
+				}
+			});
+			addBinaryOperatorName(da, db, result, "**");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -10317,6 +10513,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					remainder(ca, cb, co);
+				}
+			});
+			addBinaryOperatorName(da, db, result, "%");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -11119,6 +11326,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					maximum(ca, cb, co);
+				}
+			});
+			addBinaryOperatorName(da, db, result, "maximum");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -12055,6 +12273,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					minimum(ca, cb, co);
+				}
+			});
+			addBinaryOperatorName(da, db, result, "minimum");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -12992,6 +13221,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					bitwiseAnd(ca, cb, co);
+				}
+			});
+			addBinaryOperatorName(da, db, result, "&");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -13315,6 +13555,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					bitwiseOr(ca, cb, co);
+				}
+			});
+			addBinaryOperatorName(da, db, result, "|");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -13638,6 +13889,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					bitwiseXor(ca, cb, co);
+				}
+			});
+			addBinaryOperatorName(da, db, result, "^");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -13961,6 +14223,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					leftShift(ca, cb, co);
+				}
+			});
+			addBinaryOperatorName(da, db, result, "<<");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -14284,6 +14557,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					rightShift(ca, cb, co);
+				}
+			});
+			addBinaryOperatorName(da, db, result, ">>");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -14608,6 +14892,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, db, result)) {
+			runInParallel(da, db, result, new BinaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset cb, final Dataset co) {
+					unsignedRightShift(ca, cb, co);
+				}
+			});
+			addBinaryOperatorName(da, db, result, ">>>");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -14935,6 +15230,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					bitwiseInvert(ca, co);
+				}
+			});
+			addFunctionName(result, "bitwiseInvert");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -15150,6 +15456,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					sin(ca, co);
+				}
+			});
+			addFunctionName(result, "sin");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -15701,6 +16018,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					cos(ca, co);
+				}
+			});
+			addFunctionName(result, "cos");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -16252,6 +16580,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					tan(ca, co);
+				}
+			});
+			addFunctionName(result, "tan");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -16827,6 +17166,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					arcsin(ca, co);
+				}
+			});
+			addFunctionName(result, "arcsin");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -17386,6 +17736,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					arccos(ca, co);
+				}
+			});
+			addFunctionName(result, "arccos");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -17945,6 +18306,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					arctan(ca, co);
+				}
+			});
+			addFunctionName(result, "arctan");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -18504,6 +18876,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					sinh(ca, co);
+				}
+			});
+			addFunctionName(result, "sinh");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -19055,6 +19438,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					cosh(ca, co);
+				}
+			});
+			addFunctionName(result, "cosh");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -19606,6 +20000,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					tanh(ca, co);
+				}
+			});
+			addFunctionName(result, "tanh");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -20181,6 +20586,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					arcsinh(ca, co);
+				}
+			});
+			addFunctionName(result, "arcsinh");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -20740,6 +21156,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					arccosh(ca, co);
+				}
+			});
+			addFunctionName(result, "arccosh");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -21299,6 +21726,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					arctanh(ca, co);
+				}
+			});
+			addFunctionName(result, "arctanh");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -21858,6 +22296,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					log(ca, co);
+				}
+			});
+			addFunctionName(result, "log");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -22409,6 +22858,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					log2(ca, co);
+				}
+			});
+			addFunctionName(result, "log2");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -22960,6 +23420,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					log10(ca, co);
+				}
+			});
+			addFunctionName(result, "log10");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -23511,6 +23982,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					log1p(ca, co);
+				}
+			});
+			addFunctionName(result, "log1p");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -24062,6 +24544,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					exp(ca, co);
+				}
+			});
+			addFunctionName(result, "exp");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -24621,6 +25114,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					expm1(ca, co);
+				}
+			});
+			addFunctionName(result, "expm1");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -25180,6 +25684,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					sqrt(ca, co);
+				}
+			});
+			addFunctionName(result, "sqrt");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -25739,6 +26254,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					cbrt(ca, co);
+				}
+			});
+			addFunctionName(result, "cbrt");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -26298,6 +26824,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					square(ca, co);
+				}
+			});
+			addFunctionName(result, "square");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -26849,6 +27386,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					floor(ca, co);
+				}
+			});
+			addFunctionName(result, "floor");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -27400,6 +27948,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					ceil(ca, co);
+				}
+			});
+			addFunctionName(result, "ceil");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -27951,6 +28510,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					rint(ca, co);
+				}
+			});
+			addFunctionName(result, "rint");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -28502,6 +29072,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					truncate(ca, co);
+				}
+			});
+			addFunctionName(result, "truncate");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -29053,6 +29634,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					toDegrees(ca, co);
+				}
+			});
+			addFunctionName(result, "toDegrees");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -29604,6 +30196,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					toRadians(ca, co);
+				}
+			});
+			addFunctionName(result, "toRadians");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -30155,6 +30758,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					signum(ca, co);
+				}
+			});
+			addFunctionName(result, "signum");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -30706,6 +31320,17 @@ public class Maths {
 		final int is = result.getElementsPerItem();
 		final int dt = result.getDType();
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					negative(ca, co);
+				}
+			});
+			addFunctionName(result, "negative");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
@@ -31263,6 +31888,17 @@ public class Maths {
 		final double pax = DTypeUtils.toReal(pa);
 		final double pbx = DTypeUtils.toReal(pb);
 
+		if (isParallel(da, result)) {
+			runInParallel(da, result, new UnaryChunkFunction() {
+				@Override
+				public void run(final Dataset ca, final Dataset co) {
+					clip(ca, co, pa, pb);
+				}
+			});
+			addFunctionName(result, "clip");
+			return result;
+		}
+
 		switch(dt) {
 		case Dataset.INT8:
 			final byte[] oi8data = ((ByteDataset) result).getData();
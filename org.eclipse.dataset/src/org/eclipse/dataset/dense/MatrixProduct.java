@@ -0,0 +1,212 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.dense;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Dense matrix multiplication of row-major arrays of doubles.
+ * <p>
+ * The operands are copied in blocks into panels laid out in the order that a register-blocked
+ * kernel reads them: a panel of B (KC rows by NC columns) is shared by all threads and each
+ * thread packs blocks of A (MC rows by KC columns) for its rows of the output. The kernel
+ * updates MR by NR tiles of the output held in local variables. Rows of the output are split
+ * between threads with {@link ParallelUtils} when the output is large enough.
+ */
+final class MatrixProduct {
+	private static final int MR = 4;
+	private static final int NR = 4;
+	private static final int MC = 128;
+	private static final int KC = 256;
+	private static final int NC = 2048;
+
+	private MatrixProduct() {
+	}
+
+	/**
+	 * Update c += alpha * a * b
+	 * @param alpha
+	 * @param a m by k matrix
+	 * @param b k by n matrix
+	 * @param c m by n matrix
+	 * @param m
+	 * @param n
+	 * @param k
+	 */
+	static void multiply(final double alpha, final double[] a, final double[] b, final double[] c, final int m, final int n, final int k) {
+		if (m == 0 || n == 0 || k == 0) {
+			return;
+		}
+
+		final int nc = Math.min(NC, roundUp(n, NR));
+		final int kc = Math.min(KC, k);
+		final double[] bp = new double[kc * nc];
+		final boolean split = ParallelUtils.shouldSplit(m * n) && m > MR;
+		final int chunks = split ? Math.min(ParallelUtils.getNumberOfChunks(m * n), (m + MR - 1) / MR) : 1;
+		final double[][] aps = new double[chunks][];
+
+		for (int jc = 0; jc < n; jc += NC) {
+			final int jn = Math.min(NC, n - jc);
+			for (int pc = 0; pc < k; pc += KC) {
+				final int pn = Math.min(KC, k - pc);
+				packB(b, n, pc, pn, jc, jn, bp);
+				if (chunks == 1) {
+					if (aps[0] == null) {
+						aps[0] = new double[Math.min(MC, roundUp(m, MR)) * kc];
+					}
+					multiplyRows(alpha, a, k, c, n, 0, m, pc, pn, jc, jn, bp, aps[0]);
+					continue;
+				}
+
+				final int fpc = pc;
+				final int fjc = jc;
+				List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(chunks);
+				for (int t = 0; t < chunks; t++) {
+					// split rows on tile boundaries
+					final int tiles = (m + MR - 1) / MR;
+					final int ib = Math.min(m, (int) (((long) t * tiles) / chunks) * MR);
+					final int ie = Math.min(m, (int) (((long) (t + 1) * tiles) / chunks) * MR);
+					if (ib >= ie) {
+						continue;
+					}
+					if (aps[t] == null) {
+						aps[t] = new double[Math.min(MC, roundUp(ie - ib, MR)) * kc];
+					}
+					final double[] ap = aps[t];
+					tasks.add(new Callable<Void>() {
+						@Override
+						public Void call() throws Exception {
+							multiplyRows(alpha, a, k, c, n, ib, ie, fpc, pn, fjc, jn, bp, ap);
+							return null;
+						}
+					});
+				}
+				ParallelUtils.invokeAll(tasks);
+			}
+		}
+	}
+
+	private static int roundUp(final int x, final int r) {
+		return ((x + r - 1) / r) * r;
+	}
+
+	/**
+	 * Multiply given rows of a with packed panel of b
+	 */
+	private static void multiplyRows(final double alpha, final double[] a, final int lda, final double[] c, final int ldc,
+			final int ib, final int ie, final int pc, final int pn, final int jc, final int jn, final double[] bp, final double[] ap) {
+		final int mc = Math.min(MC, roundUp(ie - ib, MR));
+		for (int ic = ib; ic < ie; ic += mc) {
+			final int in = Math.min(mc, ie - ic);
+			packA(a, lda, ic, in, pc, pn, ap);
+			for (int jr = 0; jr < jn; jr += NR) {
+				final int nr = Math.min(NR, jn - jr);
+				for (int ir = 0; ir < in; ir += MR) {
+					final int mr = Math.min(MR, in - ir);
+					kernel(alpha, pn, ap, ir * pn, bp, jr * pn, c, (ic + ir) * ldc + jc + jr, ldc, mr, nr);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Pack block of a into slivers of MR rows where each column of a sliver is contiguous.
+	 * Rows past the end are filled with zeros
+	 */
+	private static void packA(final double[] a, final int lda, final int ic, final int in, final int pc, final int pn, final double[] ap) {
+		int l = 0;
+		for (int ir = 0; ir < in; ir += MR) {
+			final int mr = Math.min(MR, in - ir);
+			final int base = (ic + ir) * lda + pc;
+			for (int p = 0; p < pn; p++) {
+				int r = 0;
+				for (; r < mr; r++) {
+					ap[l++] = a[base + r * lda + p];
+				}
+				for (; r < MR; r++) {
+					ap[l++] = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Pack block of b into slivers of NR columns where each row of a sliver is contiguous.
+	 * Columns past the end are filled with zeros
+	 */
+	private static void packB(final double[] b, final int ldb, final int pc, final int pn, final int jc, final int jn, final double[] bp) {
+		int l = 0;
+		for (int jr = 0; jr < jn; jr += NR) {
+			final int nr = Math.min(NR, jn - jr);
+			for (int p = 0; p < pn; p++) {
+				final int base = (pc + p) * ldb + jc + jr;
+				int j = 0;
+				for (; j < nr; j++) {
+					bp[l++] = b[base + j];
+				}
+				for (; j < NR; j++) {
+					bp[l++] = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Update MR by NR tile of c with product of slivers
+	 */
+	private static void kernel(final double alpha, final int pn, final double[] ap, int ai, final double[] bp, int bi,
+			final double[] c, final int ci, final int ldc, final int mr, final int nr) {
+		double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+		double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+		double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+		double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+		for (int p = 0; p < pn; p++) {
+			final double a0 = ap[ai++];
+			final double a1 = ap[ai++];
+			final double a2 = ap[ai++];
+			final double a3 = ap[ai++];
+			final double b0 = bp[bi++];
+			final double b1 = bp[bi++];
+			final double b2 = bp[bi++];
+			final double b3 = bp[bi++];
+			c00 += a0 * b0; c01 += a0 * b1; c02 += a0 * b2; c03 += a0 * b3;
+			c10 += a1 * b0; c11 += a1 * b1; c12 += a1 * b2; c13 += a1 * b3;
+			c20 += a2 * b0; c21 += a2 * b1; c22 += a2 * b2; c23 += a2 * b3;
+			c30 += a3 * b0; c31 += a3 * b1; c32 += a3 * b2; c33 += a3 * b3;
+		}
+
+		if (mr == MR && nr == NR) {
+			int i = ci;
+			c[i] += alpha * c00; c[i + 1] += alpha * c01; c[i + 2] += alpha * c02; c[i + 3] += alpha * c03;
+			i += ldc;
+			c[i] += alpha * c10; c[i + 1] += alpha * c11; c[i + 2] += alpha * c12; c[i + 3] += alpha * c13;
+			i += ldc;
+			c[i] += alpha * c20; c[i + 1] += alpha * c21; c[i + 2] += alpha * c22; c[i + 3] += alpha * c23;
+			i += ldc;
+			c[i] += alpha * c30; c[i + 1] += alpha * c31; c[i + 2] += alpha * c32; c[i + 3] += alpha * c33;
+			return;
+		}
+
+		// edge tile
+		final double[] t = {
+				c00, c01, c02, c03,
+				c10, c11, c12, c13,
+				c20, c21, c22, c23,
+				c30, c31, c32, c33};
+		for (int r = 0; r < mr; r++) {
+			final int i = ci + r * ldc;
+			for (int j = 0; j < nr; j++) {
+				c[i + j] += alpha * t[r * NR + j];
+			}
+		}
+	}
+}
@@ -0,0 +1,321 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.dense;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.eclipse.dataset.SliceND;
+
+/**
+ * Policy and helpers for running dataset operations in parallel.
+ * <p>
+ * Parallel execution is opt-in: by default no pool is set and all operations run on the
+ * calling thread. Once a pool is set, operations whose output has at least the threshold
+ * number of items are split into chunks which are run on the pool. Each chunk is processed
+ * by the same code as the serial path so results are identical. Reductions are split into the
+ * same slices, and their partial results merged in the same order, whether or not they run in
+ * parallel.
+ * <p>
+ * Code running inside a chunk is never split again.
+ */
+public class ParallelUtils {
+	/**
+	 * Default minimum number of items in output before splitting
+	 */
+	public static final int DEFAULT_THRESHOLD = 1 << 16;
+
+	/**
+	 * Number of chunks to create per thread in pool. This is also used to set the minimum
+	 * number of items in each chunk as a fraction of the threshold
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	/**
+	 * Maximum number of chunks to split a reduction into
+	 */
+	private static final int MAX_REDUCTION_CHUNKS = 256;
+
+	/**
+	 * Minimum number of items in each chunk of a reduction
+	 */
+	private static final int REDUCTION_CHUNK_SIZE = DEFAULT_THRESHOLD / CHUNKS_PER_THREAD;
+
+	private static volatile ForkJoinPool pool = null;
+
+	private static boolean ownPool = false;
+
+	private static volatile int threshold = DEFAULT_THRESHOLD;
+
+	private static final ThreadLocal<Boolean> inChunk = new ThreadLocal<Boolean>() {
+		@Override
+		protected Boolean initialValue() {
+			return Boolean.FALSE;
+		}
+	};
+
+	/**
+	 * Enable parallel execution using a new pool with a thread per available processor
+	 */
+	public static void enable() {
+		enable(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Enable parallel execution using a new pool
+	 * @param parallelism number of threads
+	 */
+	public static synchronized void enable(int parallelism) {
+		setPool(new ForkJoinPool(parallelism));
+		ownPool = true;
+	}
+
+	/**
+	 * Disable parallel execution. The current pool is shut down if it was created by {@link #enable(int)}
+	 */
+	public static void disable() {
+		setPool(null);
+	}
+
+	/**
+	 * Set pool used for parallel execution
+	 * @param pool can be null to disable parallel execution
+	 */
+	public static synchronized void setPool(ForkJoinPool pool) {
+		ForkJoinPool old = ParallelUtils.pool;
+		ParallelUtils.pool = pool;
+		if (ownPool && old != null && old != pool) {
+			old.shutdown();
+		}
+		ownPool = false;
+	}
+
+	/**
+	 * @return pool used for parallel execution (can be null)
+	 */
+	public static ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * @return true if parallel execution is enabled
+	 */
+	public static boolean isEnabled() {
+		return pool != null;
+	}
+
+	/**
+	 * Set minimum number of items in output for an operation to be split
+	 * @param threshold
+	 */
+	public static void setThreshold(int threshold) {
+		if (threshold < 1) {
+			throw new IllegalArgumentException("Threshold must be positive");
+		}
+		ParallelUtils.threshold = threshold;
+	}
+
+	/**
+	 * @return minimum number of items in output for an operation to be split
+	 */
+	public static int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * @param size number of items in output
+	 * @return true if an operation of given size should be split and run in parallel
+	 */
+	public static boolean shouldSplit(final int size) {
+		return pool != null && size >= threshold && !inChunk.get();
+	}
+
+	/**
+	 * @param size number of items
+	 * @return number of chunks to split given number of items into
+	 */
+	public static int getNumberOfChunks(final int size) {
+		final ForkJoinPool p = pool;
+		if (p == null) {
+			return 1;
+		}
+		int n = p.getParallelism() * CHUNKS_PER_THREAD;
+		int m = Math.max(1, size / Math.max(1, threshold / CHUNKS_PER_THREAD));
+		return Math.min(n, m);
+	}
+
+	/**
+	 * Split shape into slices, each covering a contiguous run of positions. The slices
+	 * are ordered as the positions in the shape
+	 * @param shape
+	 * @return list of slices that cover shape
+	 */
+	public static List<SliceND> split(final int[] shape) {
+		return split(shape, getNumberOfChunks(DatasetUtils.calculateSize(shape)));
+	}
+
+	/**
+	 * Split shape into slices for a reduction. Unlike {@link #split(int[])}, the slices only
+	 * depend on the shape, not on the threshold or pool, so partial results merged in order are
+	 * the same in serial and parallel reductions
+	 * @param shape
+	 * @return list of slices that cover shape
+	 */
+	public static List<SliceND> splitForReduction(final int[] shape) {
+		final int size = DatasetUtils.calculateSize(shape);
+		return split(shape, Math.min(MAX_REDUCTION_CHUNKS, Math.max(1, size / REDUCTION_CHUNK_SIZE)));
+	}
+
+	/**
+	 * Split shape into slices, each covering a contiguous run of positions. The slices
+	 * are ordered as the positions in the shape
+	 * @param shape
+	 * @param chunks number of chunks wanted (this is a guide only)
+	 * @return list of slices that cover shape
+	 */
+	public static List<SliceND> split(final int[] shape, final int chunks) {
+		final List<SliceND> slices = new ArrayList<SliceND>();
+		final int rank = shape.length;
+		if (rank == 0 || chunks <= 1) {
+			slices.add(new SliceND(shape));
+			return slices;
+		}
+
+		// find first axis where number of leading positions reaches number of chunks
+		int axis = 0;
+		int outer = 1;
+		for (; axis < rank - 1; axis++) {
+			if (outer * shape[axis] >= chunks) {
+				break;
+			}
+			outer *= shape[axis];
+		}
+		final int length = shape[axis];
+		final int parts = Math.max(1, Math.min(length, (chunks + outer - 1) / outer));
+
+		final int[] pos = new int[axis];
+		for (int o = 0; o < outer; o++) {
+			for (int p = 0; p < parts; p++) {
+				final int begin = (int) (((long) p * length) / parts);
+				final int end = (int) (((long) (p + 1) * length) / parts);
+				if (begin == end) {
+					continue;
+				}
+				final int[] start = new int[rank];
+				final int[] stop = shape.clone();
+				for (int i = 0; i < axis; i++) {
+					start[i] = pos[i];
+					stop[i] = pos[i] + 1;
+				}
+				start[axis] = begin;
+				stop[axis] = end;
+				slices.add(new SliceND(shape, start, stop, null));
+			}
+
+			// increment position in leading axes
+			for (int i = axis - 1; i >= 0; i--) {
+				if (++pos[i] < shape[i]) {
+					break;
+				}
+				pos[i] = 0;
+			}
+		}
+		return slices;
+	}
+
+	/**
+	 * Get slice of a dataset that broadcasts to a slice of the full shape. Dimensions where the
+	 * dataset has a length of one are not sliced
+	 * @param a dataset
+	 * @param shape full shape
+	 * @param slice of full shape
+	 * @return view of dataset with same rank as full shape
+	 */
+	public static Dataset getBroadcastSliceView(final Dataset a, final int[] shape, final SliceND slice) {
+		final int rank = shape.length;
+		final Dataset b = a.getRank() == rank ? a : a.reshape(BroadcastIterator.padShape(a.getShapeRef(), rank - a.getRank()));
+		final int[] bshape = b.getShapeRef();
+		final int[] start = slice.getStart().clone();
+		final int[] stop = slice.getStop().clone();
+		for (int i = 0; i < rank; i++) {
+			if (bshape[i] != shape[i]) {
+				start[i] = 0;
+				stop[i] = bshape[i];
+			}
+		}
+		return b.getSliceView(start, stop, null);
+	}
+
+	/**
+	 * Run tasks on pool (or on calling thread if parallel execution is disabled) and wait for them
+	 * to complete. Any exception thrown by a task is rethrown
+	 * @param tasks
+	 * @return results in same order as tasks
+	 */
+	public static <T> List<T> invokeAll(final Collection<? extends Callable<T>> tasks) {
+		final List<T> results = new ArrayList<T>(tasks.size());
+		final ForkJoinPool p = pool;
+		if (p == null || tasks.size() == 1) {
+			final boolean old = inChunk.get();
+			inChunk.set(Boolean.TRUE);
+			try {
+				for (Callable<T> t : tasks) {
+					results.add(t.call());
+				}
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IllegalStateException("Problem with running task", e);
+			} finally {
+				inChunk.set(old);
+			}
+			return results;
+		}
+
+		final List<Callable<T>> wrapped = new ArrayList<Callable<T>>(tasks.size());
+		for (final Callable<T> t : tasks) {
+			wrapped.add(new Callable<T>() {
+				@Override
+				public T call() throws Exception {
+					final boolean old = inChunk.get();
+					inChunk.set(Boolean.TRUE);
+					try {
+						return t.call();
+					} finally {
+						inChunk.set(old);
+					}
+				}
+			});
+		}
+
+		try {
+			for (Future<T> f : p.invokeAll(wrapped)) {
+				results.add(f.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for tasks", e);
+		} catch (ExecutionException e) {
+			Throwable c = e.getCause();
+			if (c instanceof RuntimeException) {
+				throw (RuntimeException) c;
+			} else if (c instanceof Error) {
+				throw (Error) c;
+			}
+			throw new IllegalStateException("Problem with running task", c);
+		}
+		return results;
+	}
+}
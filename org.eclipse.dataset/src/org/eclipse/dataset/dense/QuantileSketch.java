@@ -0,0 +1,420 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.dense;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.eclipse.dataset.IDataset;
+
+/**
+ * Streaming estimator of quantiles that uses bounded memory. This is a KLL sketch (Karnin,
+ * Lang and Liberty, 2016) made of a hierarchy of compactors: items at level h each stand for
+ * 2<sup>h</sup> values and a full level is sorted and every other item (from a random offset)
+ * is promoted to the next level.
+ * <p>
+ * Values can be added singly or as datasets and sketches of separate parts of a dataset can be
+ * merged. The number of retained items grows only with the logarithm of the number of values.
+ * For a given quantile, the rank of the estimate differs from the requested rank by at most
+ * {@link #getNormalizedRankError()} (as a fraction of the count) with 99% confidence. The
+ * minimum and maximum are exact.
+ * <p>
+ * NaNs are counted but are otherwise ignored. For compound datasets, only the first element
+ * of each item is used. This class is not thread safe.
+ */
+public class QuantileSketch {
+	/**
+	 * Default size parameter which gives a rank error of about 1.5%
+	 */
+	public static final int DEFAULT_K = 200;
+
+	private static final double CAPACITY_RATIO = 2. / 3;
+
+	private static final int MIN_CAPACITY = 8;
+
+	private final int k;
+	private final Random random;
+	private double[][] levels;
+	private int[] sizes;
+	private int height;
+	private int retained;
+	private int maxRetained;
+	private long count;
+	private long nans;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Create a sketch with default size
+	 */
+	public QuantileSketch() {
+		this(DEFAULT_K);
+	}
+
+	/**
+	 * Create a sketch
+	 * @param k size parameter which controls the accuracy (must be at least 8)
+	 */
+	public QuantileSketch(int k) {
+		this(k, new Random());
+	}
+
+	/**
+	 * Create a sketch that compacts with the given random number generator. This can be used
+	 * to make estimates reproducible
+	 * @param k size parameter which controls the accuracy (must be at least 8)
+	 * @param random
+	 */
+	public QuantileSketch(int k, Random random) {
+		if (k < MIN_CAPACITY) {
+			throw new IllegalArgumentException("Size parameter must be at least " + MIN_CAPACITY);
+		}
+		this.k = k;
+		this.random = random;
+		levels = new double[0][];
+		sizes = new int[0];
+		grow();
+	}
+
+	/**
+	 * @return size parameter
+	 */
+	public int getK() {
+		return k;
+	}
+
+	/**
+	 * @return number of values that are not NaNs
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return number of NaNs
+	 */
+	public long getNaNCount() {
+		return nans;
+	}
+
+	/**
+	 * @return minimum value or NaN if there are no values
+	 */
+	public double getMin() {
+		return count == 0 ? Double.NaN : min;
+	}
+
+	/**
+	 * @return maximum value or NaN if there are no values
+	 */
+	public double getMax() {
+		return count == 0 ? Double.NaN : max;
+	}
+
+	/**
+	 * @return number of items retained by sketch
+	 */
+	public int getRetainedItems() {
+		return retained;
+	}
+
+	/**
+	 * @return approximate bound on error in rank of a quantile as a fraction of count
+	 */
+	public double getNormalizedRankError() {
+		return getNormalizedRankError(k);
+	}
+
+	/**
+	 * @param k size parameter
+	 * @return approximate bound on error in rank of a quantile as a fraction of count
+	 */
+	public static double getNormalizedRankError(int k) {
+		return 2.296 / Math.pow(k, 0.9444);
+	}
+
+	/**
+	 * Add value
+	 * @param v
+	 */
+	public void update(double v) {
+		if (Double.isNaN(v)) {
+			nans++;
+			return;
+		}
+		count++;
+		if (v < min) {
+			min = v;
+		}
+		if (v > max) {
+			max = v;
+		}
+		if (sizes[0] == levels[0].length) {
+			levels[0] = Arrays.copyOf(levels[0], 2 * levels[0].length);
+		}
+		levels[0][sizes[0]++] = v;
+		if (++retained >= maxRetained) {
+			compress();
+		}
+	}
+
+	/**
+	 * Add all items of dataset
+	 * @param data
+	 */
+	public void update(IDataset data) {
+		Dataset d = DatasetUtils.convertToDataset(data);
+		IndexIterator it = d.getIterator();
+		while (it.hasNext()) {
+			update(d.getElementDoubleAbs(it.index));
+		}
+	}
+
+	/**
+	 * Add items of a contiguous dataset
+	 * @param data contiguous dataset
+	 * @param start index of first item
+	 * @param stop index after last item
+	 */
+	void update(Dataset data, int start, int stop) {
+		final int is = data.getElementsPerItem();
+		for (int i = start * is, n = stop * is; i < n; i += is) {
+			update(data.getElementDoubleAbs(i));
+		}
+	}
+
+	/**
+	 * Merge other sketch into this sketch. The other sketch is not changed
+	 * @param other sketch with the same size parameter
+	 */
+	public void merge(QuantileSketch other) {
+		if (other.k != k) {
+			throw new IllegalArgumentException("Sketches must have the same size parameter");
+		}
+		if (other.count == 0) {
+			nans += other.nans;
+			return;
+		}
+		while (height < other.height) {
+			grow();
+		}
+		for (int h = 0; h < other.height; h++) {
+			final int n = other.sizes[h];
+			if (n == 0) {
+				continue;
+			}
+			if (sizes[h] + n > levels[h].length) {
+				levels[h] = Arrays.copyOf(levels[h], Math.max(2 * levels[h].length, sizes[h] + n));
+			}
+			System.arraycopy(other.levels[h], 0, levels[h], sizes[h], n);
+			sizes[h] += n;
+			retained += n;
+		}
+		count += other.count;
+		nans += other.nans;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		while (retained >= maxRetained) {
+			compress();
+		}
+	}
+
+	/**
+	 * @param h level
+	 * @return number of items level can hold before it is compacted
+	 */
+	private int getCapacity(final int h) {
+		return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_RATIO, height - h - 1)));
+	}
+
+	private void grow() {
+		height++;
+		levels = Arrays.copyOf(levels, height);
+		sizes = Arrays.copyOf(sizes, height);
+		levels[height - 1] = new double[MIN_CAPACITY];
+		maxRetained = 0;
+		for (int h = 0; h < height; h++) {
+			maxRetained += getCapacity(h);
+		}
+	}
+
+	/**
+	 * Compact the lowest full level
+	 */
+	private void compress() {
+		for (int h = 0; h < height; h++) {
+			int n = sizes[h];
+			if (n < getCapacity(h)) {
+				continue;
+			}
+			if (h + 1 == height) {
+				grow();
+			}
+
+			// keep one item back when odd so weights are preserved
+			final double[] level = levels[h];
+			Arrays.sort(level, 0, n);
+			final int odd = n & 1;
+			final int promoted = n >> 1;
+			if (sizes[h + 1] + promoted > levels[h + 1].length) {
+				levels[h + 1] = Arrays.copyOf(levels[h + 1], Math.max(2 * levels[h + 1].length, sizes[h + 1] + promoted));
+			}
+			final double[] next = levels[h + 1];
+			int m = sizes[h + 1];
+			for (int i = odd + (random.nextBoolean() ? 1 : 0); i < n; i += 2) {
+				next[m++] = level[i];
+			}
+			sizes[h + 1] = m;
+			sizes[h] = odd;
+			retained -= promoted;
+			return;
+		}
+	}
+
+	/**
+	 * @return retained items and their weights sorted by value
+	 */
+	private double[][] getSortedItems() {
+		double[] values = new double[0];
+		double[] weights = new double[0];
+		for (int h = 0; h < height; h++) {
+			final int m = sizes[h];
+			if (m == 0) {
+				continue;
+			}
+			final double[] level = Arrays.copyOf(levels[h], m);
+			Arrays.sort(level);
+			final double w = 1L << h;
+
+			// merge sorted level into sorted items
+			final int n = values.length;
+			final double[] v = new double[n + m];
+			final double[] u = new double[n + m];
+			int i = 0, j = 0, l = 0;
+			while (i < n || j < m) {
+				if (j == m || (i < n && values[i] <= level[j])) {
+					v[l] = values[i];
+					u[l++] = weights[i++];
+				} else {
+					v[l] = level[j++];
+					u[l++] = w;
+				}
+			}
+			values = v;
+			weights = u;
+		}
+		return new double[][] {values, weights};
+	}
+
+	/**
+	 * @param q
+	 * @return estimate of point at which CDF has value q or NaN if there are no values
+	 */
+	public double getQuantile(double q) {
+		return getQuantiles(q)[0];
+	}
+
+	/**
+	 * @param q
+	 * @return estimates of points at which CDF has given values
+	 */
+	public double[] getQuantiles(double... q) {
+		final double[] points = new double[q.length];
+		for (double v : q) {
+			if (v < 0 || v > 1) {
+				throw new IllegalArgumentException("Quantile requested is outside [0,1]");
+			}
+		}
+		if (count == 0) {
+			Arrays.fill(points, Double.NaN);
+			return points;
+		}
+
+		final double[][] items = getSortedItems();
+		final double[] values = items[0];
+		final double[] cumulative = items[1];
+		for (int i = 1; i < cumulative.length; i++) {
+			cumulative[i] += cumulative[i - 1];
+		}
+		for (int i = 0; i < q.length; i++) {
+			if (q[i] == 0) {
+				points[i] = min;
+			} else if (q[i] == 1) {
+				points[i] = max;
+			} else {
+				int j = Arrays.binarySearch(cumulative, q[i] * count);
+				j = j < 0 ? -j - 1 : j;
+				points[i] = values[Math.min(j, values.length - 1)];
+			}
+		}
+		return points;
+	}
+
+	/**
+	 * @param values
+	 * @return estimates of fractions of count that are less than or equal to given values
+	 */
+	public double[] getCDF(double... values) {
+		final double[] cdf = new double[values.length];
+		if (count == 0) {
+			Arrays.fill(cdf, Double.NaN);
+			return cdf;
+		}
+
+		final double[][] items = getSortedItems();
+		final double[] sorted = items[0];
+		final double[] weights = items[1];
+		for (int i = 0; i < values.length; i++) {
+			final double v = values[i];
+			double w = 0;
+			for (int j = 0; j < sorted.length && sorted[j] <= v; j++) {
+				w += weights[j];
+			}
+			cdf[i] = w / count;
+		}
+		return cdf;
+	}
+
+	/**
+	 * Estimate a histogram
+	 * @param edges bin edges in increasing order. Bins include their lower edge and the last
+	 * bin also includes its upper edge
+	 * @return estimates of number of values in each bin
+	 */
+	public long[] getHistogram(double... edges) {
+		if (edges.length < 2) {
+			throw new IllegalArgumentException("At least two edges are needed");
+		}
+		final long[] histo = new long[edges.length - 1];
+		if (count == 0) {
+			return histo;
+		}
+
+		final double[][] items = getSortedItems();
+		final double[] sorted = items[0];
+		final double[] weights = items[1];
+		int b = 0;
+		final int last = histo.length - 1;
+		for (int j = 0; j < sorted.length; j++) {
+			final double v = sorted[j];
+			if (v < edges[0]) {
+				continue;
+			}
+			while (b < last && v >= edges[b + 1]) {
+				b++;
+			}
+			if (b == last && v > edges[last + 1]) {
+				break;
+			}
+			histo[b] += (long) weights[j];
+		}
+		return histo;
+	}
+}
@@ -13,10 +13,11 @@
 package org.eclipse.dataset.dense;
 
 
-import org.apache.commons.math.random.MersenneTwister;
-import org.apache.commons.math.random.RandomData;
-import org.apache.commons.math.random.RandomDataImpl;
-import org.apache.commons.math.random.RandomGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.math.special.Gamma;
 import org.eclipse.dataset.DatasetException;
 import org.eclipse.dataset.IDataset;
 import org.eclipse.dataset.ILazyDataset;
@@ -31,30 +32,48 @@ import org.eclipse.dataset.io.ILazyLoader;
  * Class to hold methods to create random datasets
  * 
  * Emulates numpy.random
+ * <p>
+ * Values are generated with a counter-based generator derived from SplitMix64: each call takes
+ * a new key from the seed and the value of each element is a function of that key and the
+ * element's flat index only. So this class is thread-safe, large datasets are filled in parallel
+ * when enabled in {@link ParallelUtils}, and lazy random datasets give the same values for the
+ * same slices whichever order those are read in.
  */
 public class Random {
-	private final static RandomGenerator generator = new MersenneTwister();
-	private final static RandomData prng = new RandomDataImpl(generator);
+	private static long seed = System.nanoTime();
+	private static long calls = 0;
 
 	/**
 	 * @param seed
 	 */
 	public static void seed(final int seed) {
-		generator.setSeed(seed);
+		seed((long) seed);
 	}
 
 	/**
 	 * @param seed
 	 */
 	public static void seed(final int[] seed) {
-		generator.setSeed(seed);
+		long s = 0;
+		for (int i : seed) {
+			s = Stream.mix(s + i);
+		}
+		seed(s);
 	}
 
 	/**
 	 * @param seed
 	 */
-	public static void seed(final long seed) {
-		generator.setSeed(seed);
+	public static synchronized void seed(final long seed) {
+		Random.seed = seed;
+		calls = 0;
+	}
+
+	/**
+	 * @return key for a new call
+	 */
+	private static synchronized long nextKey() {
+		return Stream.mix(seed + Stream.GOLDEN * ++calls);
 	}
 
 	/**
@@ -62,13 +81,15 @@ public class Random {
 	 * @return an array of values sampled from a uniform distribution between 0 (inclusive) and 1 (exclusive) 
 	 */
 	public static DoubleDataset rand(final int... shape) {
-		double[] buf = new double[DatasetUtils.calculateSize(shape)];
-
-		for (int i = 0; i < buf.length; i++) {
-			buf[i] = generator.nextDouble();
-		}
+		final double[] buf = new double[DatasetUtils.calculateSize(shape)];
+		fill(nextKey(), buf.length, new Filler() {
+			@Override
+			public void fill(Stream s, int i) {
+				buf[i] = s.nextDouble();
+			}
+		});
 
-		DoubleDataset data = (DoubleDataset) DatasetFactory.createFromObject(buf);
+		DoubleDataset data = new DoubleDataset(buf);
 		data.setShape(shape);
 		return data;
 	}
@@ -79,14 +100,21 @@ public class Random {
 	 * @param shape
 	 * @return an array of values sampled from a uniform distribution between low and high (both exclusive) 
 	 */
-	public static DoubleDataset rand(double low, double high, final int... shape) {
-		double[] buf = new double[DatasetUtils.calculateSize(shape)];
-
-		for (int i = 0; i < buf.length; i++) {
-			buf[i] = prng.nextUniform(low, high);
-		}
+	public static DoubleDataset rand(final double low, final double high, final int... shape) {
+		final double[] buf = new double[DatasetUtils.calculateSize(shape)];
+		final double range = high - low;
+		fill(nextKey(), buf.length, new Filler() {
+			@Override
+			public void fill(Stream s, int i) {
+				double u;
+				do {
+					u = s.nextDouble();
+				} while (u == 0);
+				buf[i] = low + u * range;
+			}
+		});
 
-		DoubleDataset data = (DoubleDataset) DatasetFactory.createFromObject(buf);
+		DoubleDataset data = new DoubleDataset(buf);
 		data.setShape(shape);
 		return data;
 	}
@@ -99,15 +127,7 @@ public class Random {
 	 * same name Carl Friedrich Gauss  http://en.wikipedia.org/wiki/Carl_Friedrich_Gauss born in 1777.)
 	 */
 	public static DoubleDataset randn(final int... shape) {
-		double[] buf = new double[DatasetUtils.calculateSize(shape)];
-
-		for (int i = 0; i < buf.length; i++) {
-			buf[i] = generator.nextGaussian();
-		}
-
-		DoubleDataset data = (DoubleDataset) DatasetFactory.createFromObject(buf);
-		data.setShape(shape);
-		return data;
+		return randn(0, 1, shape);
 	}
 
 	/**
@@ -116,14 +136,16 @@ public class Random {
 	 * @param shape
 	 * @return an array of values sampled from a Gaussian distribution with given mean and standard deviation 
 	 */
-	public static DoubleDataset randn(double mean, double std, final int... shape) {
-		double[] buf = new double[DatasetUtils.calculateSize(shape)];
-
-		for (int i = 0; i < buf.length; i++) {
-			buf[i] = prng.nextGaussian(mean, std);
-		}
+	public static DoubleDataset randn(final double mean, final double std, final int... shape) {
+		final double[] buf = new double[DatasetUtils.calculateSize(shape)];
+		fill(nextKey(), buf.length, new Filler() {
+			@Override
+			public void fill(Stream s, int i) {
+				buf[i] = mean + std * s.nextGaussian();
+			}
+		});
 
-		DoubleDataset data = (DoubleDataset) DatasetFactory.createFromObject(buf);
+		DoubleDataset data = new DoubleDataset(buf);
 		data.setShape(shape);
 		return data;
 	}
@@ -145,19 +167,23 @@ public class Random {
 	 * @return an array of values sampled from a discrete uniform distribution in range [low, high]
 	 */
 	public static IntegerDataset random_integers(final int low, final int high, final int[] shape) {
-		int[] buf = new int[DatasetUtils.calculateSize(shape)];
+		final int[] buf = new int[DatasetUtils.calculateSize(shape)];
 
 		if (low == high) {
 			for (int i = 0; i < buf.length; i++) {
 				buf[i] = low;
 			}			
 		} else {
-			for (int i = 0; i < buf.length; i++) {
-				buf[i] = prng.nextInt(low, high);
-			}
+			final long range = (long) high - low + 1;
+			fill(nextKey(), buf.length, new Filler() {
+				@Override
+				public void fill(Stream s, int i) {
+					buf[i] = (int) (low + s.nextLong(range));
+				}
+			});
 		}
 
-		IntegerDataset data = (IntegerDataset) DatasetFactory.createFromObject(buf);
+		IntegerDataset data = new IntegerDataset(buf, null);
 		data.setShape(shape);
 		return data;
 	}
@@ -168,13 +194,15 @@ public class Random {
 	 * @return an array of values sampled from an exponential distribution with mean beta
 	 */
 	public static DoubleDataset exponential(final double beta, final int... shape) {
-		double[] buf = new double[DatasetUtils.calculateSize(shape)];
-
-		for (int i = 0; i < buf.length; i++) {
-			buf[i] = prng.nextExponential(beta);
-		}
+		final double[] buf = new double[DatasetUtils.calculateSize(shape)];
+		fill(nextKey(), buf.length, new Filler() {
+			@Override
+			public void fill(Stream s, int i) {
+				buf[i] = -beta * Math.log1p(-s.nextDouble());
+			}
+		});
 
-		DoubleDataset data = (DoubleDataset) DatasetFactory.createFromObject(buf);
+		DoubleDataset data = new DoubleDataset(buf);
 		data.setShape(shape);
 		return data;
 	}
@@ -185,13 +213,18 @@ public class Random {
 	 * @return an array of values sampled from an exponential distribution with mean lambda
 	 */
 	public static IntegerDataset poisson(final double lam, final int... shape) {
-		int[] buf = new int[DatasetUtils.calculateSize(shape)];
-
-		for (int i = 0; i < buf.length; i++) {
-			buf[i] = (int) prng.nextPoisson(lam);
+		if (lam <= 0) {
+			throw new IllegalArgumentException("Mean must be positive");
 		}
+		final int[] buf = new int[DatasetUtils.calculateSize(shape)];
+		fill(nextKey(), buf.length, new Filler() {
+			@Override
+			public void fill(Stream s, int i) {
+				buf[i] = (int) s.nextPoisson(lam);
+			}
+		});
 
-		IntegerDataset data = (IntegerDataset) DatasetFactory.createFromObject(buf);
+		IntegerDataset data = new IntegerDataset(buf, null);
 		data.setShape(shape);
 		return data;
 	}
@@ -217,10 +250,12 @@ public class Random {
 	 * @param dtype
 	 * @param name
 	 * @param shape
-	 * @return a lazy dataset with uniformly distributed random numbers
+	 * @return a lazy dataset with uniformly distributed random numbers. Each element's value
+	 * depends only on its position so identical slices give identical values
 	 */
 	public static ILazyDataset lazyRand(int dtype, String name, int... shape) {
-		
+		final long key = nextKey();
+
 		return new LazyDataset(name, dtype, shape, new ILazyLoader() {
 
 			@Override
@@ -230,8 +265,189 @@ public class Random {
 
 			@Override
 			public IDataset getDataset(IMonitor mon, SliceND slice) throws DatasetException {
-                return rand(slice.getShape());
+				final int[] sShape = slice.getSourceShape();
+				final int[] start = slice.getStart();
+				final int[] step = slice.getStep();
+				final int[] lShape = slice.getShape();
+				final int rank = lShape.length;
+				final double[] buf = new double[DatasetUtils.calculateSize(lShape)];
+
+				// strides of source in flat indices
+				final long[] stride = new long[rank];
+				long st = 1;
+				for (int j = rank - 1; j >= 0; j--) {
+					stride[j] = st * step[j];
+					st *= sShape[j];
+				}
+				final int[] pos = new int[rank];
+				long index = 0;
+				st = 1;
+				for (int j = rank - 1; j >= 0; j--) {
+					index += st * start[j];
+					st *= sShape[j];
+				}
+
+				final Stream s = new Stream();
+				for (int i = 0; i < buf.length; i++) {
+					s.reset(key, index);
+					buf[i] = s.nextDouble();
+
+					// move to next position in slice
+					for (int j = rank - 1; j >= 0; j--) {
+						index += stride[j];
+						if (++pos[j] < lShape[j]) {
+							break;
+						}
+						index -= stride[j] * pos[j];
+						pos[j] = 0;
+					}
+				}
+
+				return new DoubleDataset(buf, lShape);
 			}
 		});
 	}
+
+	/**
+	 * Sets an element of a dataset from its stream
+	 */
+	private interface Filler {
+		void fill(Stream s, int i);
+	}
+
+	/**
+	 * Fill elements from their streams, splitting ranges of elements between threads with
+	 * {@link ParallelUtils} when there are enough of them
+	 * @param key
+	 * @param size
+	 * @param filler
+	 */
+	private static void fill(final long key, final int size, final Filler filler) {
+		if (!ParallelUtils.shouldSplit(size)) {
+			fill(key, 0, size, filler);
+			return;
+		}
+
+		final int chunks = ParallelUtils.getNumberOfChunks(size);
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(chunks);
+		for (int t = 0; t < chunks; t++) {
+			final int begin = (int) (((long) t * size) / chunks);
+			final int end = (int) (((long) (t + 1) * size) / chunks);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					fill(key, begin, end, filler);
+					return null;
+				}
+			});
+		}
+		ParallelUtils.invokeAll(tasks);
+	}
+
+	private static void fill(final long key, final int begin, final int end, final Filler filler) {
+		final Stream s = new Stream();
+		for (int i = begin; i < end; i++) {
+			s.reset(key, i);
+			filler.fill(s, i);
+		}
+	}
+
+	/**
+	 * SplitMix64 stream of an element. Its state starts at a hash of the key and the element's
+	 * index and is advanced by a Weyl increment before each output is mixed
+	 */
+	private static class Stream {
+		static final long GOLDEN = 0x9e3779b97f4a7c15L;
+		private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+
+		private long state;
+
+		static long mix(long z) {
+			z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+			z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+			return z ^ (z >>> 31);
+		}
+
+		void reset(final long key, final long index) {
+			state = mix(key ^ mix(index * GOLDEN + GOLDEN));
+		}
+
+		long nextLong() {
+			return mix(state += GOLDEN);
+		}
+
+		/**
+		 * @return value in [0, 1)
+		 */
+		double nextDouble() {
+			return (nextLong() >>> 11) * DOUBLE_UNIT;
+		}
+
+		/**
+		 * @param n
+		 * @return value in [0, n)
+		 */
+		long nextLong(final long n) {
+			// reject values from incomplete last range
+			final long limit = Long.MAX_VALUE - Long.MAX_VALUE % n;
+			long r;
+			do {
+				r = nextLong() >>> 1;
+			} while (r >= limit);
+			return r % n;
+		}
+
+		/**
+		 * @return standard normal value by Marsaglia's polar method
+		 */
+		double nextGaussian() {
+			double x, y, r;
+			do {
+				x = 2 * nextDouble() - 1;
+				y = 2 * nextDouble() - 1;
+				r = x * x + y * y;
+			} while (r >= 1 || r == 0);
+			return x * Math.sqrt(-2 * Math.log(r) / r);
+		}
+
+		/**
+		 * @param lam
+		 * @return Poisson value by multiplication of uniforms for small means or by transformed
+		 * rejection (Hormann's PTRS) otherwise
+		 */
+		long nextPoisson(final double lam) {
+			if (lam < 10) {
+				final double l = Math.exp(-lam);
+				long k = 0;
+				double p = nextDouble();
+				while (p > l) {
+					k++;
+					p *= nextDouble();
+				}
+				return k;
+			}
+
+			final double slam = Math.sqrt(lam);
+			final double loglam = Math.log(lam);
+			final double b = 0.931 + 2.53 * slam;
+			final double a = -0.059 + 0.02483 * b;
+			final double invalpha = 1.1239 + 1.1328 / (b - 3.4);
+			final double vr = 0.9277 - 3.6224 / (b - 2);
+			while (true) {
+				final double u = nextDouble() - 0.5;
+				final double v = nextDouble();
+				final double us = 0.5 - Math.abs(u);
+				final long k = (long) Math.floor((2 * a / us + b) * u + lam + 0.43);
+				if (us >= 0.07 && v <= vr) {
+					return k;
+				}
+				if (k < 0 || (us < 0.013 && v > us)) {
+					continue;
+				}
+				if (Math.log(v) + Math.log(invalpha) - Math.log(a / (us * us) + b) <= -lam + k * loglam - Gamma.logGamma(k + 1)) {
+					return k;
+				}
+			}
+		}
+	}
 }
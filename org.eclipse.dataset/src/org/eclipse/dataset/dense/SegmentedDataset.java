@@ -0,0 +1,639 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.dense;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.dataset.SliceND;
+
+/**
+ * Dense dataset held in memory as a list of segments split along the first axis. Each segment is an
+ * ordinary dataset so the whole can hold more than 2^31 items. Positions and flattened indexes are
+ * long-valued and items are accessed through the segment that holds them.
+ * <p>
+ * Element-wise operations are applied to each segment in turn (each segment operation can run in
+ * parallel, see {@link ParallelUtils}) and reductions over the whole dataset or along an axis merge
+ * the results from all segments.
+ */
+public class SegmentedDataset {
+	/**
+	 * Maximum number of items in a segment
+	 */
+	public static final int MAX_SEGMENT_SIZE = Integer.MAX_VALUE - 8;
+
+	/**
+	 * Function applied to a segment
+	 */
+	public interface SegmentFunction {
+		/**
+		 * @param a segment
+		 * @param o output segment (can be null)
+		 * @return result
+		 */
+		public Dataset apply(Dataset a, Dataset o);
+	}
+
+	/**
+	 * Function applied to a pair of segments
+	 */
+	public interface SegmentPairFunction {
+		/**
+		 * @param a segment
+		 * @param b segment or other operand
+		 * @param o output segment (can be null)
+		 * @return result
+		 */
+		public Dataset apply(Dataset a, Object b, Dataset o);
+	}
+
+	private final Dataset[] segments;
+	private final long[] offsets; // cumulative first dimension lengths
+	private final int[] shape;
+	private final long size;
+	private final int dtype;
+	private final int isize;
+
+	/**
+	 * Create a segmented dataset from datasets that are joined along their first axis
+	 * @param segments
+	 */
+	public SegmentedDataset(Dataset... segments) {
+		if (segments == null || segments.length == 0) {
+			throw new IllegalArgumentException("No segments given");
+		}
+		final Dataset first = segments[0];
+		final int rank = first.getRank();
+		if (rank == 0) {
+			throw new IllegalArgumentException("Segments must have at least one dimension");
+		}
+		dtype = first.getDType();
+		isize = first.getElementsPerItem();
+		final int[] fshape = first.getShapeRef();
+		offsets = new long[segments.length + 1];
+		for (int i = 0; i < segments.length; i++) {
+			Dataset s = segments[i];
+			if (s.getDType() != dtype || s.getElementsPerItem() != isize) {
+				throw new IllegalArgumentException("Segments must have the same dataset type");
+			}
+			int[] sshape = s.getShapeRef();
+			if (sshape.length != rank || !Arrays.equals(Arrays.copyOfRange(sshape, 1, rank), Arrays.copyOfRange(fshape, 1, rank))) {
+				throw new IllegalArgumentException("Segments must have the same shape except in first dimension");
+			}
+			offsets[i + 1] = offsets[i] + sshape[0];
+		}
+		if (offsets[segments.length] > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("First dimension is too long");
+		}
+		this.segments = segments.clone();
+		shape = fshape.clone();
+		shape[0] = (int) offsets[segments.length];
+		size = DatasetUtils.calculateLongSize(shape);
+	}
+
+	/**
+	 * Create a segmented dataset filled with zeros
+	 * @param shape
+	 * @param dtype
+	 * @return dataset
+	 */
+	public static SegmentedDataset zeros(final int[] shape, final int dtype) {
+		return zeros(MAX_SEGMENT_SIZE, shape, dtype);
+	}
+
+	/**
+	 * Create a segmented dataset filled with zeros
+	 * @param maxSegmentSize maximum number of items in a segment
+	 * @param shape
+	 * @param dtype
+	 * @return dataset
+	 */
+	public static SegmentedDataset zeros(final int maxSegmentSize, final int[] shape, final int dtype) {
+		if (shape.length == 0) {
+			throw new IllegalArgumentException("Shape must have at least one dimension");
+		}
+		final int rank = shape.length;
+		long row = 1;
+		for (int i = 1; i < rank; i++) {
+			row *= shape[i];
+		}
+		if (row > maxSegmentSize) {
+			throw new IllegalArgumentException("Size of item in first dimension exceeds maximum segment size");
+		}
+		final int rows = (int) Math.max(1, maxSegmentSize / Math.max(1, row));
+		final int n = shape[0] == 0 ? 1 : (shape[0] + rows - 1) / rows;
+		final Dataset[] segments = new Dataset[n];
+		final int[] sshape = shape.clone();
+		for (int i = 0; i < n; i++) {
+			sshape[0] = Math.min(rows, shape[0] - i * rows);
+			segments[i] = DatasetFactory.zeros(sshape, dtype);
+		}
+		return new SegmentedDataset(segments);
+	}
+
+	/**
+	 * @return shape
+	 */
+	public int[] getShape() {
+		return shape.clone();
+	}
+
+	/**
+	 * @return rank
+	 */
+	public int getRank() {
+		return shape.length;
+	}
+
+	/**
+	 * @return number of items
+	 */
+	public long getLongSize() {
+		return size;
+	}
+
+	/**
+	 * @return dataset type
+	 */
+	public int getDType() {
+		return dtype;
+	}
+
+	/**
+	 * @return number of elements per item
+	 */
+	public int getElementsPerItem() {
+		return isize;
+	}
+
+	/**
+	 * @return number of segments
+	 */
+	public int getNumberOfSegments() {
+		return segments.length;
+	}
+
+	/**
+	 * @param i
+	 * @return segment
+	 */
+	public Dataset getSegment(int i) {
+		return segments[i];
+	}
+
+	/**
+	 * @return list of segments
+	 */
+	public List<Dataset> getSegments() {
+		return Collections.unmodifiableList(Arrays.asList(segments));
+	}
+
+	/**
+	 * @param row position in first dimension
+	 * @return index of segment that holds row
+	 */
+	private int findSegment(long row) {
+		if (row < 0 || row >= shape[0]) {
+			throw new ArrayIndexOutOfBoundsException("Position is out of bounds: " + row);
+		}
+		int i = Arrays.binarySearch(offsets, row);
+		if (i < 0) {
+			return -i - 2;
+		}
+		while (i < segments.length && offsets[i + 1] == row) { // skip empty segments
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * @param s segment index
+	 * @param pos
+	 * @return position in segment
+	 */
+	private int[] getSegmentPosition(int s, int[] pos) {
+		if (pos.length != shape.length) {
+			throw new IllegalArgumentException("Position must have same rank as dataset");
+		}
+		int[] spos = pos.clone();
+		spos[0] = (int) (pos[0] - offsets[s]);
+		return spos;
+	}
+
+	/**
+	 * @param pos
+	 * @return item in given position as a double
+	 */
+	public double getDouble(final int... pos) {
+		int s = findSegment(pos[0]);
+		return segments[s].getDouble(getSegmentPosition(s, pos));
+	}
+
+	/**
+	 * @param pos
+	 * @return item in given position as a long
+	 */
+	public long getLong(final int... pos) {
+		int s = findSegment(pos[0]);
+		return segments[s].getLong(getSegmentPosition(s, pos));
+	}
+
+	/**
+	 * @param pos
+	 * @return item in given position
+	 */
+	public Object getObject(final int... pos) {
+		int s = findSegment(pos[0]);
+		return segments[s].getObject(getSegmentPosition(s, pos));
+	}
+
+	/**
+	 * Set item at given position
+	 * @param obj
+	 * @param pos
+	 */
+	public void set(final Object obj, final int... pos) {
+		int s = findSegment(pos[0]);
+		segments[s].set(obj, getSegmentPosition(s, pos));
+	}
+
+	/**
+	 * @param index of item in flattened dataset
+	 * @return first element of item as a double
+	 */
+	public double getElementDouble(final long index) {
+		if (index < 0 || index >= size) {
+			throw new ArrayIndexOutOfBoundsException("Index is out of bounds: " + index);
+		}
+		final long row = size / shape[0];
+		final int s = findSegment(index / row);
+		final Dataset d = segments[s];
+		final long i = index - offsets[s] * row; // index in segment
+		return d.getStrides() == null ? d.getElementDoubleAbs((int) (i * isize)) : d.getDouble(d.getNDPosition((int) i));
+	}
+
+	/**
+	 * Get a slice of the dataset. The slice must fit in a dataset
+	 * @param slice
+	 * @return dataset
+	 */
+	public Dataset getSlice(final SliceND slice) {
+		final int[] lshape = slice.getShape();
+		final int[] lstart = slice.getStart();
+		final int[] lstop = slice.getStop();
+		final int[] lstep = slice.getStep();
+		final int rank = shape.length;
+		final int step = lstep[0];
+		final List<Dataset> parts = new ArrayList<Dataset>();
+
+		if (lshape[0] > 0) {
+			final long last = lstart[0] + (lshape[0] - 1L) * step;
+			int s = findSegment(lstart[0]);
+			final int e = findSegment(last);
+			long row = lstart[0];
+			while (true) {
+				final long b = offsets[s];
+				final long end = step > 0 ? Math.min(offsets[s + 1], last + 1) : Math.max(b - 1, last - 1);
+				final SliceND ss = new SliceND(segments[s].getShapeRef());
+				final Integer stop = end < b ? null : Integer.valueOf((int) (end - b));
+				ss.setSlice(0, Integer.valueOf((int) (row - b)), stop, step);
+				for (int i = 1; i < rank; i++) {
+					final Integer istop = lstop[i] < 0 ? null : Integer.valueOf(lstop[i]);
+					ss.setSlice(i, Integer.valueOf(lstart[i]), istop, lstep[i]);
+				}
+				Dataset d = segments[s].getSlice(ss);
+				if (d.getSize() > 0) {
+					parts.add(d);
+				}
+				if (s == e) {
+					break;
+				}
+				// next selected row beyond this segment
+				long n = (end - row + step + (step > 0 ? -1 : 1)) / step;
+				row += n * step;
+				s = findSegment(row);
+			}
+		}
+
+		if (parts.isEmpty()) {
+			return DatasetFactory.zeros(isize, lshape, dtype);
+		}
+		if (parts.size() == 1) {
+			return parts.get(0);
+		}
+		long total = 0;
+		for (Dataset p : parts) {
+			total += p.getSize();
+		}
+		if (total > MAX_SEGMENT_SIZE) {
+			throw new IllegalArgumentException("Slice is too large to fit in a dataset");
+		}
+		return DatasetUtils.concatenate(parts.toArray(new Dataset[parts.size()]), 0);
+	}
+
+	/**
+	 * Apply function to each segment
+	 * @param f
+	 * @return new dataset of results
+	 */
+	public SegmentedDataset apply(final SegmentFunction f) {
+		final Dataset[] results = new Dataset[segments.length];
+		for (int i = 0; i < segments.length; i++) {
+			results[i] = f.apply(segments[i], null);
+		}
+		return new SegmentedDataset(results);
+	}
+
+	/**
+	 * Apply function to each segment in place
+	 * @param f
+	 * @return this dataset
+	 */
+	public SegmentedDataset iapply(final SegmentFunction f) {
+		for (Dataset s : segments) {
+			f.apply(s, s);
+		}
+		return this;
+	}
+
+	/**
+	 * Apply function to each segment and the other operand. If the operand is a segmented dataset,
+	 * its segments must match those of this dataset, otherwise it is passed unchanged so it
+	 * must broadcast against each segment
+	 * @param b
+	 * @param f
+	 * @return new dataset of results
+	 */
+	public SegmentedDataset apply(final Object b, final SegmentPairFunction f) {
+		final Dataset[] results = new Dataset[segments.length];
+		for (int i = 0; i < segments.length; i++) {
+			results[i] = f.apply(segments[i], getOperand(b, i), null);
+		}
+		return new SegmentedDataset(results);
+	}
+
+	/**
+	 * Apply function to each segment and the other operand in place. If the operand is a segmented
+	 * dataset, its segments must match those of this dataset, otherwise it is passed unchanged so it
+	 * must broadcast against each segment
+	 * @param b
+	 * @param f
+	 * @return this dataset
+	 */
+	public SegmentedDataset iapply(final Object b, final SegmentPairFunction f) {
+		for (int i = 0; i < segments.length; i++) {
+			f.apply(segments[i], getOperand(b, i), segments[i]);
+		}
+		return this;
+	}
+
+	private Object getOperand(Object b, int i) {
+		if (b instanceof SegmentedDataset) {
+			SegmentedDataset sb = (SegmentedDataset) b;
+			if (!Arrays.equals(offsets, sb.offsets)) {
+				throw new IllegalArgumentException("Segmented datasets must have matching segments");
+			}
+			return sb.segments[i];
+		}
+		return b;
+	}
+
+	private void checkReducible() {
+		if (isize != 1) {
+			throw new UnsupportedOperationException("Reductions are only supported for single-element datasets");
+		}
+	}
+
+	/**
+	 * @return number of items
+	 */
+	public long count() {
+		return size;
+	}
+
+	/**
+	 * @return sum of all items
+	 */
+	public double sum() {
+		checkReducible();
+		double sum = 0;
+		for (Dataset s : segments) {
+			if (s.getSize() > 0) {
+				sum += ((Number) s.sum()).doubleValue();
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * @return mean of all items
+	 */
+	public double mean() {
+		return size == 0 ? Double.NaN : sum() / size;
+	}
+
+	/**
+	 * @return maximum of all items
+	 */
+	public double max() {
+		checkReducible();
+		double max = Double.NEGATIVE_INFINITY;
+		for (Dataset s : segments) {
+			if (s.getSize() > 0) {
+				double m = s.max().doubleValue();
+				if (Double.isNaN(m)) {
+					return m;
+				}
+				max = Math.max(max, m);
+			}
+		}
+		return size == 0 ? Double.NaN : max;
+	}
+
+	/**
+	 * @return minimum of all items
+	 */
+	public double min() {
+		checkReducible();
+		double min = Double.POSITIVE_INFINITY;
+		for (Dataset s : segments) {
+			if (s.getSize() > 0) {
+				double m = s.min().doubleValue();
+				if (Double.isNaN(m)) {
+					return m;
+				}
+				min = Math.min(min, m);
+			}
+		}
+		return size == 0 ? Double.NaN : min;
+	}
+
+	/**
+	 * @return sample variance of all items
+	 */
+	public double variance() {
+		return variance(false);
+	}
+
+	/**
+	 * @param isWholePopulation
+	 * @return variance of all items
+	 */
+	public double variance(final boolean isWholePopulation) {
+		checkReducible();
+		long n = 0;
+		double mean = 0;
+		double m2 = 0;
+		for (Dataset s : segments) {
+			final long sn = s.getSize();
+			if (sn == 0) {
+				continue;
+			}
+			final double smean = ((Number) s.mean()).doubleValue();
+			final double sm2 = sn < 2 ? 0 : s.variance().doubleValue() * (sn - 1);
+			final long t = n + sn;
+			final double delta = smean - mean;
+			mean += delta * sn / t;
+			m2 += sm2 + delta * delta * ((double) n * sn / t);
+			n = t;
+		}
+		if (isWholePopulation) {
+			return n == 0 ? Double.NaN : m2 / n;
+		}
+		return n < 2 ? Double.NaN : m2 / (n - 1);
+	}
+
+	/**
+	 * @param axis
+	 * @return sum along axis. This must fit in a dataset: use {@link #apply(SegmentFunction)} to
+	 * reduce each segment along other axes into a segmented dataset
+	 */
+	public Dataset sum(int axis) {
+		checkReducible();
+		axis = checkAxis(axis);
+		if (axis > 0) {
+			final int a = axis;
+			return reduce(new SegmentFunction() {
+				@Override
+				public Dataset apply(Dataset s, Dataset o) {
+					return s.sum(a);
+				}
+			});
+		}
+		Dataset sum = null;
+		for (Dataset s : segments) {
+			Dataset p = s.sum(0);
+			sum = sum == null ? p : Maths.add(sum, p); // do not modify stored value
+		}
+		return sum;
+	}
+
+	/**
+	 * @param axis
+	 * @return mean along axis. This must fit in a dataset: use {@link #apply(SegmentFunction)} to
+	 * reduce each segment along other axes into a segmented dataset
+	 */
+	public Dataset mean(int axis) {
+		checkReducible();
+		axis = checkAxis(axis);
+		if (axis > 0) {
+			final int a = axis;
+			return reduce(new SegmentFunction() {
+				@Override
+				public Dataset apply(Dataset s, Dataset o) {
+					return s.mean(a);
+				}
+			});
+		}
+		Dataset sum = DatasetUtils.cast(sum(0), Dataset.FLOAT64); // as integer division truncates
+		return Maths.divide(sum, shape[0]);
+	}
+
+	/**
+	 * @param axis
+	 * @return maximum along axis. This must fit in a dataset: use {@link #apply(SegmentFunction)} to
+	 * reduce each segment along other axes into a segmented dataset
+	 */
+	public Dataset max(int axis) {
+		checkReducible();
+		axis = checkAxis(axis);
+		if (axis > 0) {
+			final int a = axis;
+			return reduce(new SegmentFunction() {
+				@Override
+				public Dataset apply(Dataset s, Dataset o) {
+					return s.max(a);
+				}
+			});
+		}
+		Dataset max = null;
+		for (Dataset s : segments) {
+			Dataset p = s.max(0);
+			max = max == null ? p : Maths.maximum(max, p);
+		}
+		return max;
+	}
+
+	/**
+	 * @param axis
+	 * @return minimum along axis. This must fit in a dataset: use {@link #apply(SegmentFunction)} to
+	 * reduce each segment along other axes into a segmented dataset
+	 */
+	public Dataset min(int axis) {
+		checkReducible();
+		axis = checkAxis(axis);
+		if (axis > 0) {
+			final int a = axis;
+			return reduce(new SegmentFunction() {
+				@Override
+				public Dataset apply(Dataset s, Dataset o) {
+					return s.min(a);
+				}
+			});
+		}
+		Dataset min = null;
+		for (Dataset s : segments) {
+			Dataset p = s.min(0);
+			min = min == null ? p : Maths.minimum(min, p);
+		}
+		return min;
+	}
+
+	/**
+	 * Reduce each segment along an axis other than the first and join the results
+	 * @param f
+	 * @return dataset of results
+	 */
+	private Dataset reduce(final SegmentFunction f) {
+		final Dataset[] results = new Dataset[segments.length];
+		for (int i = 0; i < segments.length; i++) {
+			results[i] = f.apply(segments[i], null);
+		}
+		return results.length == 1 ? results[0] : DatasetUtils.concatenate(results, 0);
+	}
+
+	private int checkAxis(int axis) {
+		final int rank = shape.length;
+		if (axis < 0) {
+			axis += rank;
+		}
+		if (axis < 0 || axis >= rank) {
+			throw new IllegalArgumentException("Axis " + axis + " given is out of range [0, " + rank + ")");
+		}
+		return axis;
+	}
+
+	@Override
+	public String toString() {
+		return "Segmented dataset has shape " + Arrays.toString(shape) + " in " + segments.length + " segments";
+	}
+}
@@ -0,0 +1,365 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.dense;
+
+import java.util.Arrays;
+
+/**
+ * Kernels for small square matrices held in row-major order in arrays of doubles.
+ * <p>
+ * Matrices of up to three rows use closed-form expressions; larger ones use the given
+ * work array (of at least n*n elements) so nothing is allocated per matrix. Matrices that
+ * are singular give results of NaNs.
+ */
+final class SmallMatrices {
+
+	private SmallMatrices() {
+	}
+
+	/**
+	 * @param n number of rows
+	 * @param a
+	 * @param ao offset of matrix
+	 * @param work
+	 * @return determinant
+	 */
+	static double determinant(final int n, final double[] a, final int ao, final double[] work) {
+		switch (n) {
+		case 0:
+			return 1;
+		case 1:
+			return a[ao];
+		case 2:
+			return a[ao] * a[ao + 3] - a[ao + 1] * a[ao + 2];
+		case 3:
+			return a[ao] * (a[ao + 4] * a[ao + 8] - a[ao + 5] * a[ao + 7])
+					- a[ao + 1] * (a[ao + 3] * a[ao + 8] - a[ao + 5] * a[ao + 6])
+					+ a[ao + 2] * (a[ao + 3] * a[ao + 7] - a[ao + 4] * a[ao + 6]);
+		default:
+			System.arraycopy(a, ao, work, 0, n * n);
+			double det = 1;
+			for (int k = 0; k < n; k++) {
+				int p = pivot(n, work, k);
+				if (work[p * n + k] == 0) {
+					return 0;
+				}
+				if (p != k) {
+					swapRows(n, work, p, k);
+					det = -det;
+				}
+				final double d = work[k * n + k];
+				det *= d;
+				for (int i = k + 1; i < n; i++) {
+					final double f = work[i * n + k] / d;
+					for (int j = k + 1; j < n; j++) {
+						work[i * n + j] -= f * work[k * n + j];
+					}
+				}
+			}
+			return det;
+		}
+	}
+
+	/**
+	 * Invert matrix
+	 * @param n number of rows
+	 * @param a
+	 * @param ao offset of matrix
+	 * @param b output
+	 * @param bo offset of output
+	 * @param work
+	 */
+	static void inverse(final int n, final double[] a, final int ao, final double[] b, final int bo, final double[] work) {
+		switch (n) {
+		case 0:
+			return;
+		case 1:
+			b[bo] = a[ao] == 0 ? Double.NaN : 1 / a[ao];
+			return;
+		case 2: {
+			final double det = determinant(2, a, ao, work);
+			if (det == 0) {
+				Arrays.fill(b, bo, bo + 4, Double.NaN);
+				return;
+			}
+			b[bo] = a[ao + 3] / det;
+			b[bo + 1] = -a[ao + 1] / det;
+			b[bo + 2] = -a[ao + 2] / det;
+			b[bo + 3] = a[ao] / det;
+			return;
+		}
+		case 3: {
+			final double c00 = a[ao + 4] * a[ao + 8] - a[ao + 5] * a[ao + 7];
+			final double c01 = a[ao + 5] * a[ao + 6] - a[ao + 3] * a[ao + 8];
+			final double c02 = a[ao + 3] * a[ao + 7] - a[ao + 4] * a[ao + 6];
+			final double det = a[ao] * c00 + a[ao + 1] * c01 + a[ao + 2] * c02;
+			if (det == 0) {
+				Arrays.fill(b, bo, bo + 9, Double.NaN);
+				return;
+			}
+			b[bo] = c00 / det;
+			b[bo + 1] = (a[ao + 2] * a[ao + 7] - a[ao + 1] * a[ao + 8]) / det;
+			b[bo + 2] = (a[ao + 1] * a[ao + 5] - a[ao + 2] * a[ao + 4]) / det;
+			b[bo + 3] = c01 / det;
+			b[bo + 4] = (a[ao] * a[ao + 8] - a[ao + 2] * a[ao + 6]) / det;
+			b[bo + 5] = (a[ao + 2] * a[ao + 3] - a[ao] * a[ao + 5]) / det;
+			b[bo + 6] = c02 / det;
+			b[bo + 7] = (a[ao + 1] * a[ao + 6] - a[ao] * a[ao + 7]) / det;
+			b[bo + 8] = (a[ao] * a[ao + 4] - a[ao + 1] * a[ao + 3]) / det;
+			return;
+		}
+		default:
+			// Gauss-Jordan elimination with partial pivoting
+			final int nn = n * n;
+			System.arraycopy(a, ao, work, 0, nn);
+			for (int i = 0; i < n; i++) {
+				final int r = bo + i * n;
+				for (int j = 0; j < n; j++) {
+					b[r + j] = i == j ? 1 : 0;
+				}
+			}
+			for (int k = 0; k < n; k++) {
+				int p = pivot(n, work, k);
+				if (work[p * n + k] == 0) {
+					Arrays.fill(b, bo, bo + nn, Double.NaN);
+					return;
+				}
+				if (p != k) {
+					swapRows(n, work, p, k);
+					swapRows(n, b, bo, p, k);
+				}
+				final double d = work[k * n + k];
+				for (int j = 0; j < n; j++) {
+					work[k * n + j] /= d;
+					b[bo + k * n + j] /= d;
+				}
+				for (int i = 0; i < n; i++) {
+					if (i == k) {
+						continue;
+					}
+					final double f = work[i * n + k];
+					if (f == 0) {
+						continue;
+					}
+					for (int j = 0; j < n; j++) {
+						work[i * n + j] -= f * work[k * n + j];
+						b[bo + i * n + j] -= f * b[bo + k * n + j];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Solve a x = v
+	 * @param n number of rows
+	 * @param m number of right-hand sides
+	 * @param a
+	 * @param ao offset of matrix
+	 * @param v n by m matrix
+	 * @param vo offset of right-hand sides
+	 * @param x output n by m matrix
+	 * @param xo offset of output
+	 * @param work
+	 */
+	static void solve(final int n, final int m, final double[] a, final int ao, final double[] v, final int vo,
+			final double[] x, final int xo, final double[] work) {
+		final int nn = n * n;
+		final int nm = n * m;
+		System.arraycopy(a, ao, work, 0, nn);
+		System.arraycopy(v, vo, x, xo, nm);
+
+		// forward elimination with partial pivoting
+		for (int k = 0; k < n; k++) {
+			int p = pivot(n, work, k);
+			if (work[p * n + k] == 0) {
+				Arrays.fill(x, xo, xo + nm, Double.NaN);
+				return;
+			}
+			if (p != k) {
+				swapRows(n, work, p, k);
+				swapRows(m, x, xo, p, k);
+			}
+			final double d = work[k * n + k];
+			for (int i = k + 1; i < n; i++) {
+				final double f = work[i * n + k] / d;
+				if (f == 0) {
+					continue;
+				}
+				for (int j = k + 1; j < n; j++) {
+					work[i * n + j] -= f * work[k * n + j];
+				}
+				for (int j = 0; j < m; j++) {
+					x[xo + i * m + j] -= f * x[xo + k * m + j];
+				}
+			}
+		}
+
+		// back substitution
+		for (int i = n - 1; i >= 0; i--) {
+			final double d = work[i * n + i];
+			for (int j = 0; j < m; j++) {
+				double s = x[xo + i * m + j];
+				for (int l = i + 1; l < n; l++) {
+					s -= work[i * n + l] * x[xo + l * m + j];
+				}
+				x[xo + i * m + j] = s / d;
+			}
+		}
+	}
+
+	/**
+	 * Find eigenvalues of symmetric matrix (only the upper triangle is used)
+	 * @param n number of rows
+	 * @param a
+	 * @param ao offset of matrix
+	 * @param e output in decreasing order
+	 * @param eo offset of output
+	 * @param work
+	 */
+	static void symmetricEigenvalues(final int n, final double[] a, final int ao, final double[] e, final int eo, final double[] work) {
+		switch (n) {
+		case 0:
+			return;
+		case 1:
+			e[eo] = a[ao];
+			return;
+		case 2: {
+			final double h = 0.5 * (a[ao] + a[ao + 3]);
+			final double d = 0.5 * (a[ao] - a[ao + 3]);
+			final double r = Math.hypot(d, a[ao + 1]);
+			e[eo] = h + r;
+			e[eo + 1] = h - r;
+			return;
+		}
+		case 3: {
+			// trigonometric solution of characteristic cubic
+			final double a01 = a[ao + 1];
+			final double a02 = a[ao + 2];
+			final double a12 = a[ao + 5];
+			final double p1 = a01 * a01 + a02 * a02 + a12 * a12;
+			final double q = (a[ao] + a[ao + 4] + a[ao + 8]) / 3;
+			final double b00 = a[ao] - q;
+			final double b11 = a[ao + 4] - q;
+			final double b22 = a[ao + 8] - q;
+			final double p2 = b00 * b00 + b11 * b11 + b22 * b22 + 2 * p1;
+			if (p2 == 0) {
+				e[eo] = e[eo + 1] = e[eo + 2] = q;
+				return;
+			}
+			final double p = Math.sqrt(p2 / 6);
+			final double det = b00 * (b11 * b22 - a12 * a12) - a01 * (a01 * b22 - a12 * a02) + a02 * (a01 * a12 - b11 * a02);
+			final double r = Math.max(-1, Math.min(1, det / (2 * p * p * p)));
+			final double phi = Math.acos(r) / 3;
+			final double e0 = q + 2 * p * Math.cos(phi);
+			final double e2 = q + 2 * p * Math.cos(phi + 2 * Math.PI / 3);
+			e[eo] = e0;
+			e[eo + 1] = 3 * q - e0 - e2;
+			e[eo + 2] = e2;
+			return;
+		}
+		default:
+			jacobi(n, a, ao, e, eo, work);
+		}
+	}
+
+	private static final int MAX_SWEEPS = 50;
+	private static final double EPS = Math.ulp(1.0);
+
+	/**
+	 * Cyclic Jacobi eigenvalue algorithm
+	 */
+	private static void jacobi(final int n, final double[] a, final int ao, final double[] e, final int eo, final double[] w) {
+		for (int i = 0; i < n; i++) {
+			for (int j = i; j < n; j++) {
+				w[i * n + j] = w[j * n + i] = a[ao + i * n + j];
+			}
+		}
+
+		for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+			double off = 0;
+			double diag = 0;
+			for (int i = 0; i < n; i++) {
+				diag += w[i * n + i] * w[i * n + i];
+				for (int j = i + 1; j < n; j++) {
+					off += w[i * n + j] * w[i * n + j];
+				}
+			}
+			if (off <= EPS * EPS * diag) {
+				break;
+			}
+			for (int p = 0; p < n; p++) {
+				for (int q = p + 1; q < n; q++) {
+					final double apq = w[p * n + q];
+					if (apq == 0) {
+						continue;
+					}
+					final double theta = (w[q * n + q] - w[p * n + p]) / (2 * apq);
+					final double t = (theta < 0 ? -1 : 1) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+					final double c = 1 / Math.sqrt(t * t + 1);
+					final double s = t * c;
+					for (int k = 0; k < n; k++) {
+						final double akp = w[k * n + p];
+						final double akq = w[k * n + q];
+						w[k * n + p] = c * akp - s * akq;
+						w[k * n + q] = s * akp + c * akq;
+					}
+					for (int k = 0; k < n; k++) {
+						final double apk = w[p * n + k];
+						final double aqk = w[q * n + k];
+						w[p * n + k] = c * apk - s * aqk;
+						w[q * n + k] = s * apk + c * aqk;
+					}
+					w[p * n + q] = w[q * n + p] = 0;
+				}
+			}
+		}
+
+		for (int i = 0; i < n; i++) {
+			e[eo + i] = w[i * n + i];
+		}
+		Arrays.sort(e, eo, eo + n);
+		for (int i = 0, j = n - 1; i < j; i++, j--) {
+			final double t = e[eo + i];
+			e[eo + i] = e[eo + j];
+			e[eo + j] = t;
+		}
+	}
+
+	/**
+	 * @return row index of largest magnitude in column k on or below diagonal
+	 */
+	private static int pivot(final int n, final double[] w, final int k) {
+		int p = k;
+		double max = Math.abs(w[k * n + k]);
+		for (int i = k + 1; i < n; i++) {
+			final double v = Math.abs(w[i * n + k]);
+			if (v > max) {
+				max = v;
+				p = i;
+			}
+		}
+		return p;
+	}
+
+	private static void swapRows(final int n, final double[] w, final int r, final int s) {
+		swapRows(n, w, 0, r, s);
+	}
+
+	private static void swapRows(final int n, final double[] w, final int o, final int r, final int s) {
+		final int ro = o + r * n;
+		final int so = o + s * n;
+		for (int j = 0; j < n; j++) {
+			final double t = w[ro + j];
+			w[ro + j] = w[so + j];
+			w[so + j] = t;
+		}
+	}
+}
@@ -13,15 +13,18 @@
 package org.eclipse.dataset.dense;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.math.complex.Complex;
 import org.apache.commons.math.stat.descriptive.moment.Kurtosis;
 import org.apache.commons.math.stat.descriptive.moment.Skewness;
 import org.eclipse.dataset.IDatasetIterator;
 import org.eclipse.dataset.PositionIterator;
+import org.eclipse.dataset.SliceND;
 import org.eclipse.dataset.internal.dense.AbstractDataset;
 import org.eclipse.dataset.internal.dense.ComplexDoubleDataset;
 import org.eclipse.dataset.internal.dense.ComplexFloatDataset;
@@ -43,38 +46,36 @@ public class Stats {
 	private static final String STORE_QUARTILE1 = "quartile1";
 	private static final String STORE_QUARTILE3 = "quartile3";
 
-	// calculates statistics and returns sorted dataset (0th element if compound)
-	private static Dataset calcQuartileStats(final Dataset a) {
-		Dataset s = null;
+	private static final double[] QUARTILES = new double[] {0.5, 0.25, 0.75};
+
+	// calculates median and quartiles by selection
+	private static void calcQuartileStats(final Dataset a) {
 		final int is = a.getElementsPerItem();
+		final double[] values = new double[a.getSize()];
+		final double[] q = new double[QUARTILES.length];
 
 		if (is == 1) {
-			s = DatasetUtils.sort(a, null);
-		
-			a.setStoredValue(STORE_MEDIAN, Double.valueOf(pQuantile(s, 0.5)));
-			a.setStoredValue(STORE_QUARTILE1, Double.valueOf(pQuantile(s, 0.25)));
-			a.setStoredValue(STORE_QUARTILE3, Double.valueOf(pQuantile(s, 0.75)));
+			copyValues(a, 0, values);
+			quantiles(values, values.length, QUARTILES, getOrder(QUARTILES), q);
+			a.setStoredValue(STORE_MEDIAN, Double.valueOf(q[0]));
+			a.setStoredValue(STORE_QUARTILE1, Double.valueOf(q[1]));
+			a.setStoredValue(STORE_QUARTILE3, Double.valueOf(q[2]));
 		} else {
-			Dataset w = DatasetFactory.zeros(a.getShapeRef(), a.getDType());
-			a.setStoredValue(STORE_MEDIAN, new double[is]);
-			a.setStoredValue(STORE_QUARTILE1, new double[is]);
-			a.setStoredValue(STORE_QUARTILE3, new double[is]);
+			final double[] median = new double[is];
+			final double[] q1 = new double[is];
+			final double[] q3 = new double[is];
+			final int[] order = getOrder(QUARTILES);
 			for (int j = 0; j < is; j++) {
-				((CompoundDataset) a).copyElements(w, j);
-				w.sort(null);
-
-				double[] store;
-				store = (double[]) a.getStoredValue(STORE_MEDIAN);
-				store[j] = pQuantile(w, 0.5);
-				store = (double[]) a.getStoredValue(STORE_QUARTILE1);
-				store[j] = pQuantile(w, 0.25);
-				store = (double[]) a.getStoredValue(STORE_QUARTILE3);
-				store[j] = pQuantile(w, 0.75);
-				if (j == 0)
-					s = w.clone();
+				copyValues(a, j, values);
+				quantiles(values, values.length, QUARTILES, order, q);
+				median[j] = q[0];
+				q1[j] = q[1];
+				q3[j] = q[2];
 			}
+			a.setStoredValue(STORE_MEDIAN, median);
+			a.setStoredValue(STORE_QUARTILE1, q1);
+			a.setStoredValue(STORE_QUARTILE3, q3);
 		}
-		return s;
 	}
 
 	static private Object getQStatistics(final Dataset a, final String stat) {
@@ -89,120 +90,240 @@ public class Stats {
 	static private Dataset getQStatistics(final Dataset a, int axis, final String stat) {
 		axis = a.checkAxis(axis);
 		Object obj = a.getStoredValue(stat);
-		final int is = a.getElementsPerItem();
 
 		if (obj == null) {
-			if (is == 1) {
-				Dataset s = DatasetUtils.sort(a, axis);
-
-				a.setStoredValue(STORE_MEDIAN + "-" + axis, pQuantile(s, axis, 0.5));
-				a.setStoredValue(STORE_QUARTILE1 + "-" + axis, pQuantile(s, axis, 0.25));
-				a.setStoredValue(STORE_QUARTILE3 + "-" + axis, pQuantile(s, axis, 0.75));
-			} else {
-				Dataset w = DatasetFactory.zeros(a.getShapeRef(), a.getDType());
-				for (int j = 0; j < is; j++) {
-					((CompoundDataset) a).copyElements(w, j);
-					w.sort(axis);
-
-					CompoundDoubleDataset s;
-					final Dataset c = pQuantile(w, axis, 0.5);
-					if (j == 0) {
-						s = (CompoundDoubleDataset) DatasetFactory.zeros(is, c.getShapeRef(), c.getDType());
-						a.setStoredValue(STORE_MEDIAN + "-" + axis, s);
-						s = (CompoundDoubleDataset) DatasetFactory.zeros(is, c.getShapeRef(), c.getDType());
-						a.setStoredValue(STORE_QUARTILE1 + "-" + axis, s);
-						s = (CompoundDoubleDataset) DatasetFactory.zeros(is, c.getShapeRef(), c.getDType());
-						a.setStoredValue(STORE_QUARTILE3 + "-" + axis, s);
-					}
-					s = (CompoundDoubleDataset) a.getStoredValue(STORE_MEDIAN + "-" + axis);
-					s.setElements(c, j);
-
-					s = (CompoundDoubleDataset) a.getStoredValue(STORE_QUARTILE1 + "-" + axis);
-					s.setElements(pQuantile(w, axis, 0.25), j);
-
-					s = (CompoundDoubleDataset) a.getStoredValue(STORE_QUARTILE3 + "-" + axis);
-					s.setElements(pQuantile(w, axis, 0.75), j);
-				}
-			}
+			Dataset[] q = calcQuantiles(a, axis, QUARTILES);
+			a.setStoredValue(STORE_MEDIAN + "-" + axis, q[0]);
+			a.setStoredValue(STORE_QUARTILE1 + "-" + axis, q[1]);
+			a.setStoredValue(STORE_QUARTILE3 + "-" + axis, q[2]);
 			obj = a.getStoredValue(stat);
 		}
 
 		return (Dataset) obj;
 	}
 
-	// process a sorted dataset
-	private static double pQuantile(final Dataset s, final double q) {
-		double f = (s.getSize() - 1) * q; // fraction of sample number
-		if (f < 0)
-			return Double.NaN;
-		int qpt = (int) Math.floor(f); // quantile point
-		f -= qpt;
-
-		double quantile = s.getElementDoubleAbs(qpt);
-		if (f > 0) {
-			quantile = (1-f)*quantile + f*s.getElementDoubleAbs(qpt+1);
+	/**
+	 * Copy an element of each item into buffer
+	 * @param a
+	 * @param element
+	 * @param values buffer
+	 */
+	private static void copyValues(final Dataset a, final int element, final double[] values) {
+		final IndexIterator it = a.getIterator();
+		int i = 0;
+		while (it.hasNext()) {
+			values[i++] = a.getElementDoubleAbs(it.index + element);
 		}
-		return quantile;
 	}
 
-	// process a sorted dataset and returns a double or compound double dataset
-	private static Dataset pQuantile(final Dataset s, final int axis, final double q) {
-		final int rank = s.getRank();
-		final int is = s.getElementsPerItem();
-
-		int[] oshape = s.getShape();
-
-		double f = (oshape[axis] - 1) * q; // fraction of sample number
-		int qpt = (int) Math.floor(f); // quantile point
-		f -= qpt;
-
-		oshape[axis] = 1;
-		int[] qshape = DatasetUtils.squeezeShape(oshape, false);
-		Dataset qds = DatasetFactory.zeros(is, qshape, Dataset.FLOAT64);
+	/**
+	 * @param q
+	 * @return indexes of q in ascending order of value
+	 */
+	private static int[] getOrder(final double[] q) {
+		final int n = q.length;
+		final int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			if (q[i] < 0 || q[i] > 1) {
+				throw new IllegalArgumentException("Quantile requested is outside [0,1]");
+			}
+			int j = i;
+			for (; j > 0 && q[order[j - 1]] > q[i]; j--) {
+				order[j] = order[j - 1];
+			}
+			order[j] = i;
+		}
+		return order;
+	}
 
-		IDatasetIterator qiter = qds.getIterator(true);
-		int[] qpos = qiter.getPos();
-		int[] spos = oshape;
+	/**
+	 * Calculate quantiles of values by selection. The values are reordered and NaNs are
+	 * treated as greater than all other values (as when sorted)
+	 * @param v values
+	 * @param n number of values
+	 * @param q quantiles
+	 * @param order indexes of quantiles in ascending order
+	 * @param out points at which CDF has given values
+	 */
+	private static void quantiles(final double[] v, final int n, final double[] q, final int[] order, final double[] out) {
+		int m = n; // number of values that are not NaNs
+		for (int i = 0; i < m;) {
+			if (Double.isNaN(v[i])) {
+				final double t = v[--m];
+				v[m] = v[i];
+				v[i] = t;
+			} else {
+				i++;
+			}
+		}
 
-		while (qiter.hasNext()) {
-			int i = 0;
-			for (; i < axis; i++) {
-				spos[i] = qpos[i];
+		int lo = 0;
+		for (int i : order) {
+			double f = (n - 1) * q[i]; // fraction of sample number
+			if (f < 0) {
+				out[i] = Double.NaN;
+				continue;
 			}
-			spos[i++] = qpt;
-			for (; i < rank; i++) {
-				spos[i] = qpos[i-1];
+			final int qpt = (int) Math.floor(f); // quantile point
+			f -= qpt;
+			if (qpt >= m || (f > 0 && qpt + 1 >= m)) {
+				out[i] = Double.NaN;
+				continue;
 			}
 
-			Object obj = s.getObject(spos);
-			qds.set(obj, qpos);
+			select(v, lo, m, qpt);
+			lo = qpt;
+			double quantile = v[qpt];
+			if (f > 0) {
+				double next = v[qpt + 1];
+				for (int k = qpt + 2; k < m; k++) {
+					if (v[k] < next) {
+						next = v[k];
+					}
+				}
+				quantile = (1 - f) * quantile + f * next;
+			}
+			out[i] = quantile;
 		}
+	}
 
-		if (f > 0) {
-			qiter = qds.getIterator(true);
-			qpos = qiter.getPos();
-			qpt++;
-			Dataset rds = DatasetFactory.zeros(is, qshape, Dataset.FLOAT64);
-			
-			while (qiter.hasNext()) {
-				int i = 0;
-				for (; i < axis; i++) {
-					spos[i] = qpos[i];
-				}
-				spos[i++] = qpt;
-				for (; i < rank; i++) {
-					spos[i] = qpos[i-1];
+	/**
+	 * Partially order values so the k-th smallest value is at position k, smaller values are before
+	 * it and larger values are after it. This uses quickselect with a median-of-three pivot and
+	 * falls back to sorting when partitioning does not converge
+	 * @param v values (no NaNs)
+	 * @param lo start of range
+	 * @param hi end of range (exclusive)
+	 * @param k position in range
+	 */
+	private static void select(final double[] v, int lo, int hi, final int k) {
+		int depth = 2 * (32 - Integer.numberOfLeadingZeros(hi - lo));
+		while (hi - lo > 16) {
+			if (depth-- == 0) {
+				Arrays.sort(v, lo, hi);
+				return;
+			}
+			final double a = v[lo];
+			final double b = v[(lo + hi) >>> 1];
+			final double c = v[hi - 1];
+			final double p = a < b ? (b < c ? b : (a < c ? c : a)) : (a < c ? a : (b < c ? c : b));
+
+			// partition into less than, equal to and greater than pivot
+			int lt = lo;
+			int gt = hi - 1;
+			for (int i = lo; i <= gt;) {
+				final double x = v[i];
+				if (x < p) {
+					v[i++] = v[lt];
+					v[lt++] = x;
+				} else if (x > p) {
+					v[i] = v[gt];
+					v[gt--] = x;
+				} else {
+					i++;
 				}
+			}
+			if (k < lt) {
+				hi = lt;
+			} else if (k > gt) {
+				lo = gt + 1;
+			} else {
+				return;
+			}
+		}
+		Arrays.sort(v, lo, hi);
+	}
+
+	/**
+	 * Calculate quantiles along axis by selection in each line of items
+	 * @param a
+	 * @param axis
+	 * @param q quantiles
+	 * @return double or compound double datasets of quantiles
+	 */
+	private static Dataset[] calcQuantiles(final Dataset a, final int axis, final double... q) {
+		final int[] order = getOrder(q);
+		final int rank = a.getRank();
+		final int is = a.getElementsPerItem();
+		final int[] shape = a.getShapeRef();
+		final int length = shape[axis];
+		final int[] oshape = shape.clone();
+		oshape[axis] = 1;
+		final int[] qshape = DatasetUtils.squeezeShape(oshape, false);
+
+		final int nq = q.length;
+		final Dataset[] points = new Dataset[nq];
+		final double[][] pdata = new double[nq][];
+		for (int i = 0; i < nq; i++) {
+			points[i] = DatasetFactory.zeros(is, qshape, Dataset.FLOAT64);
+			pdata[i] = (double[]) points[i].getBuffer();
+		}
 
-				Object obj = s.getObject(spos);
-				rds.set(obj, qpos);
+		final int[] stride = new int[rank];
+		final int[] s = a.getStrides();
+		final int offset;
+		if (s == null) {
+			int t = is;
+			for (int i = rank - 1; i >= 0; i--) {
+				stride[i] = t;
+				t *= shape[i];
 			}
-			rds.imultiply(f);
-			qds.imultiply(1-f);
-			qds.iadd(rds);
+			offset = 0;
+		} else {
+			System.arraycopy(s, 0, stride, 0, rank);
+			offset = a.getOffset();
 		}
 
-		return qds;
+		final List<SliceND> slices = ParallelUtils.shouldSplit(a.getSize()) ? ParallelUtils.split(oshape) : ParallelUtils.split(oshape, 1);
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(slices.size());
+		for (final SliceND slice : slices) {
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					final double[] line = new double[length];
+					final double[] values = new double[nq];
+					final int[] start = slice.getStart();
+					final int[] stop = slice.getStop();
+					final int[] pos = start.clone();
+
+					// slices are contiguous runs of positions so start at the flat index of first position
+					int o = 0;
+					for (int i = 0; i < rank; i++) {
+						o = o * oshape[i] + start[i];
+					}
+					while (true) {
+						int base = offset;
+						for (int i = 0; i < rank; i++) {
+							base += pos[i] * stride[i];
+						}
+						for (int j = 0; j < is; j++) {
+							for (int k = 0, l = base + j; k < length; k++, l += stride[axis]) {
+								line[k] = a.getElementDoubleAbs(l);
+							}
+							quantiles(line, length, q, order, values);
+							for (int i = 0; i < nq; i++) {
+								pdata[i][o * is + j] = values[i];
+							}
+						}
+						o++;
+
+						int i = rank - 1;
+						for (; i >= 0; i--) {
+							if (++pos[i] < stop[i]) {
+								break;
+							}
+							pos[i] = start[i];
+						}
+						if (i < 0) {
+							break;
+						}
+					}
+					return null;
+				}
+			});
+		}
+		ParallelUtils.invokeAll(tasks);
+		return points;
 	}
 
 	/**
@@ -212,11 +333,7 @@ public class Stats {
 	 * @return point at which CDF has value q
 	 */
 	public static double quantile(final Dataset a, final double q) {
-		if (q < 0 || q > 1) {
-			throw new IllegalArgumentException("Quantile requested is outside [0,1]");
-		}
-		final Dataset s = calcQuartileStats(a);
-		return pQuantile(s, q);
+		return quantile(a, new double[] {q})[0];
 	}
 
 	/**
@@ -227,14 +344,10 @@ public class Stats {
 	 */
 	public static double[] quantile(final Dataset a, final double... values) {
 		final double[] points  = new double[values.length];
-		final Dataset s = calcQuartileStats(a);
-		for (int i = 0; i < points.length; i++) {
-			final double q = values[i];
-			if (q < 0 || q > 1) {
-				throw new IllegalArgumentException("Quantile requested is outside [0,1]");
-			}
-			points[i] = pQuantile(s, q);
-		}
+		final int[] order = getOrder(values);
+		final double[] v = new double[a.getSize()];
+		copyValues(a, 0, v);
+		quantiles(v, v.length, values, order, points);
 		return points;
 	}
 
@@ -246,39 +359,7 @@ public class Stats {
 	 * @return points at which CDF has given values
 	 */
 	public static Dataset[] quantile(final Dataset a, final int axis, final double... values) {
-		final Dataset[] points  = new Dataset[values.length];
-		final int is = a.getElementsPerItem();
-
-		if (is == 1) {
-			Dataset s = DatasetUtils.sort(a, axis);
-			for (int i = 0; i < points.length; i++) {
-				final double q = values[i];
-				if (q < 0 || q > 1) {
-					throw new IllegalArgumentException("Quantile requested is outside [0,1]");
-				}
-				points[i] = pQuantile(s, axis, q);
-			}
-		} else {
-			Dataset w = DatasetFactory.zeros(a.getShapeRef(), a.getDType());
-			for (int j = 0; j < is; j++) {
-				((CompoundDataset) a).copyElements(w, j);
-				w.sort(axis);
-
-				for (int i = 0; i < points.length; i++) {
-					final double q = values[i];
-					if (q < 0 || q > 1) {
-						throw new IllegalArgumentException("Quantile requested is outside [0,1]");
-					}
-					final Dataset c = pQuantile(w, axis, q);
-					if (j == 0) {
-						points[i] = DatasetFactory.zeros(is, c.getShapeRef(), c.getDType());
-					}
-					((CompoundDoubleDataset) points[i]).setElements(c, j);
-				}
-			}
-		}
-
-		return points;
+		return calcQuantiles(a, a.checkAxis(axis), values);
 	}
 
 	/**
@@ -311,7 +392,7 @@ public class Stats {
 		}
 
 		double[] q1 = (double[]) getQStatistics(a, STORE_QUARTILE1);
-		double[] q3 = (double[]) getQStatistics(a, STORE_QUARTILE3);
+		double[] q3 = ((double[]) getQStatistics(a, STORE_QUARTILE3)).clone();
 		for (int j = 0; j < is; j++) {
 			q3[j] -= q1[j];
 		}
@@ -330,6 +411,188 @@ public class Stats {
 		return Maths.subtract(q3, a.getStoredValue(STORE_QUARTILE1 + "-" + axis));
 	}
 
+	/**
+	 * Calculate summary statistics of a whole dataset in a single pass. The summary is stored in
+	 * the dataset. A large dataset is split into parts whose summaries are merged in order; the
+	 * parts are run in parallel when enabled by {@link ParallelUtils} and the result is the same
+	 * either way
+	 * @param a
+	 * @param ignoreNaNs if true, ignore NaNs
+	 * @param ignoreInfs if true, ignore infinities
+	 * @return summary with empty shape
+	 */
+	public static Summary summary(final Dataset a, boolean ignoreNaNs, boolean ignoreInfs) {
+		checkSummary(a);
+		if (!a.hasFloatingPointElements()) {
+			ignoreNaNs = false;
+			ignoreInfs = false;
+		}
+		if (!(a instanceof AbstractDataset)) {
+			return calculateSummary(a, ignoreNaNs, ignoreInfs);
+		}
+		final AbstractDataset d = (AbstractDataset) a;
+		Summary s = d.getCachedSummary(ignoreNaNs, ignoreInfs);
+		if (s == null) {
+			s = calculateSummary(a, ignoreNaNs, ignoreInfs);
+			d.setCachedSummary(ignoreNaNs, ignoreInfs, s);
+		}
+		return s;
+	}
+
+	/**
+	 * Calculate summary statistics of each line along an axis of a dataset in a single pass. The
+	 * summary is stored in the dataset
+	 * @param a
+	 * @param axis
+	 * @param ignoreNaNs if true, ignore NaNs
+	 * @param ignoreInfs if true, ignore infinities
+	 * @return summary with shape of dataset without given axis
+	 */
+	public static Summary summary(final Dataset a, int axis, boolean ignoreNaNs, boolean ignoreInfs) {
+		checkSummary(a);
+		axis = a.checkAxis(axis);
+		if (a.getRank() == 1) {
+			return summary(a, ignoreNaNs, ignoreInfs);
+		}
+		if (!a.hasFloatingPointElements()) {
+			ignoreNaNs = false;
+			ignoreInfs = false;
+		}
+		if (!(a instanceof AbstractDataset)) {
+			return calculateSummary(a, axis, ignoreNaNs, ignoreInfs);
+		}
+		final AbstractDataset d = (AbstractDataset) a;
+		Summary s = d.getCachedSummary(axis, ignoreNaNs, ignoreInfs);
+		if (s == null) {
+			s = calculateSummary(a, axis, ignoreNaNs, ignoreInfs);
+			d.setCachedSummary(axis, ignoreNaNs, ignoreInfs, s);
+		}
+		return s;
+	}
+
+	private static void checkSummary(final Dataset a) {
+		if (a.getElementsPerItem() != 1) {
+			throw new UnsupportedOperationException("Compound datasets are not supported");
+		}
+	}
+
+	/**
+	 * Summarize a whole dataset. The dataset is always split with
+	 * {@link ParallelUtils#splitForReduction(int[])} and the partial summaries are merged in order,
+	 * so the result is the same whether or not the parts are run in parallel
+	 */
+	private static Summary calculateSummary(final Dataset a, final boolean ignoreNaNs, final boolean ignoreInfs) {
+		final Summary s = new Summary(new int[0], ignoreNaNs, ignoreInfs);
+		final int[] shape = a.getShapeRef();
+		if (shape.length == 0) {
+			final IndexIterator it = a.getIterator();
+			while (it.hasNext()) {
+				s.update(0, a.getElementDoubleAbs(it.index), 0);
+			}
+			return s;
+		}
+
+		final List<Callable<Summary>> tasks = new ArrayList<Callable<Summary>>();
+		for (final SliceND slice : ParallelUtils.splitForReduction(shape)) {
+			tasks.add(new Callable<Summary>() {
+				@Override
+				public Summary call() {
+					// slices are contiguous runs of positions so start at the flat index of first position
+					final int[] start = slice.getStart();
+					int i = 0;
+					for (int j = 0; j < start.length; j++) {
+						i = i * shape[j] + start[j];
+					}
+					final Summary p = new Summary(new int[0], ignoreNaNs, ignoreInfs);
+					final IndexIterator it = a.getSliceIterator(start, slice.getStop(), slice.getStep());
+					while (it.hasNext()) {
+						p.update(0, a.getElementDoubleAbs(it.index), i++);
+					}
+					return p;
+				}
+			});
+		}
+
+		final List<Summary> parts;
+		if (ParallelUtils.shouldSplit(a.getSize())) {
+			parts = ParallelUtils.invokeAll(tasks);
+		} else {
+			parts = new ArrayList<Summary>(tasks.size());
+			for (Callable<Summary> t : tasks) {
+				try {
+					parts.add(t.call());
+				} catch (Exception e) { // not thrown
+					throw new IllegalStateException(e);
+				}
+			}
+		}
+		for (Summary p : parts) {
+			s.merge(0, p, 0);
+		}
+		return s;
+	}
+
+	private static Summary calculateSummary(final Dataset a, final int axis, final boolean ignoreNaNs, final boolean ignoreInfs) {
+		final int[] shape = a.getShapeRef();
+		final int rank = shape.length;
+		final int alen = shape[axis];
+		final int[] nshape = new int[rank - 1];
+		for (int i = 0, j = 0; i < rank; i++) {
+			if (i != axis) {
+				nshape[j++] = shape[i];
+			}
+		}
+		final Summary s = new Summary(nshape, ignoreNaNs, ignoreInfs);
+		final int lines = s.getSize();
+		if (lines == 0) {
+			return s;
+		}
+
+		final int[] stride = new int[rank];
+		final int[] t = a.getStrides();
+		final int offset;
+		if (t == null) {
+			int u = 1;
+			for (int i = rank - 1; i >= 0; i--) {
+				stride[i] = u;
+				u *= shape[i];
+			}
+			offset = 0;
+		} else {
+			System.arraycopy(t, 0, stride, 0, rank);
+			offset = a.getOffset();
+		}
+		final int astride = stride[axis];
+
+		final int n = ParallelUtils.shouldSplit(a.getSize()) ? Math.min(lines, ParallelUtils.getNumberOfChunks(a.getSize())) : 1;
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(n);
+		for (int c = 0; c < n; c++) {
+			final int begin = (int) (((long) c * lines) / n);
+			final int end = (int) (((long) (c + 1) * lines) / n);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					for (int l = begin; l < end; l++) {
+						int r = l;
+						int base = offset;
+						for (int i = rank - 1; i >= 0; i--) {
+							if (i != axis) {
+								base += (r % shape[i]) * stride[i];
+								r /= shape[i];
+							}
+						}
+						for (int k = 0; k < alen; k++, base += astride) {
+							s.update(l, a.getElementDoubleAbs(base), k);
+						}
+					}
+					return null;
+				}
+			});
+		}
+		ParallelUtils.invokeAll(tasks);
+		return s;
+	}
+
 	static private Object getHigherStatistic(final Dataset a, final boolean ignoreNaNs, String stat) {
 		Object obj = a.getStoredValue(stat);
 		if (obj == null) {
@@ -357,25 +620,9 @@ public class Stats {
 		final IndexIterator iter = a.getIterator();
 
 		if (is == 1) {
-			Skewness s = new Skewness();
-			Kurtosis k = new Kurtosis();
-			if (ignoreNaNs) {
-				while (iter.hasNext()) {
-					final double x = a.getElementDoubleAbs(iter.index);
-					if (Double.isNaN(x))
-						continue;
-					s.increment(x);
-					k.increment(x);
-				}
-			} else {
-				while (iter.hasNext()) {
-					final double x = a.getElementDoubleAbs(iter.index);
-					s.increment(x);
-					k.increment(x);
-				}
-			}
-			a.setStoredValue(AbstractDataset.storeName(ignoreNaNs, STORE_SKEWNESS), s.getResult());
-			a.setStoredValue(AbstractDataset.storeName(ignoreNaNs, STORE_KURTOSIS), k.getResult());
+			Summary s = summary(a, ignoreNaNs, false);
+			a.setStoredValue(AbstractDataset.storeName(ignoreNaNs, STORE_SKEWNESS), s.getSkewness());
+			a.setStoredValue(AbstractDataset.storeName(ignoreNaNs, STORE_KURTOSIS), s.getKurtosis());
 		} else {
 			final Skewness[] s = new Skewness[is];
 			final Kurtosis[] k = new Kurtosis[is];
@@ -433,45 +680,15 @@ public class Stats {
 	
 	
 		if (is == 1) {
-			sk = DatasetFactory.zeros(nshape, Dataset.FLOAT64);
-			ku = DatasetFactory.zeros(nshape, Dataset.FLOAT64);
-			final IDatasetIterator qiter = sk.getIterator(true);
-			final int[] qpos = qiter.getPos();
-			final int[] spos = oshape;
-	
-			while (qiter.hasNext()) {
-				int i = 0;
-				for (; i < axis; i++) {
-					spos[i] = qpos[i];
-				}
-				spos[i++] = 0;
-				for (; i < rank; i++) {
-					spos[i] = qpos[i - 1];
-				}
-	
-				Skewness s = new Skewness();
-				Kurtosis k = new Kurtosis();
-				if (ignoreNaNs) {
-					for (int j = 0; j < alen; j++) {
-						spos[axis] = j;
-						final double val = a.getDouble(spos);
-						if (Double.isNaN(val))
-							continue;
-	
-						s.increment(val);
-						k.increment(val);
-					}
-				} else {
-					for (int j = 0; j < alen; j++) {
-						spos[axis] = j;
-						final double val = a.getDouble(spos);
-						s.increment(val);
-						k.increment(val);
-					}
-				}
-				sk.set(s.getResult(), spos);
-				ku.set(k.getResult(), spos);
+			final Summary s = summary(a, axis, ignoreNaNs, false);
+			final double[] ts = new double[s.getSize()];
+			final double[] tk = new double[ts.length];
+			for (int i = 0; i < ts.length; i++) {
+				ts[i] = s.getSkewness(i);
+				tk[i] = s.getKurtosis(i);
 			}
+			sk = new DoubleDataset(ts, nshape);
+			ku = new DoubleDataset(tk, nshape);
 		} else {
 			sk = new CompoundDoubleDataset(is, nshape);
 			ku = new CompoundDoubleDataset(is, nshape);
@@ -0,0 +1,415 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.dense;
+
+/**
+ * Summary statistics of a dataset, or of each line along an axis of a dataset, found in a single
+ * pass: count, sum, minimum and maximum with their first positions, mean, second to fourth
+ * central moments, and numbers of NaNs and infinities.
+ * <p>
+ * Values are held in primitive arrays indexed by position in the shape of the summary (row-major
+ * order); a summary of a whole dataset has an empty shape and holds one set of values at index 0.
+ * Positions of minima and maxima are given as indexes into the summarized items in row-major order
+ * (for a whole dataset) or along the axis.
+ * <p>
+ * If NaNs are not ignored, they are included in the count, the moments are NaN and the minimum and
+ * maximum are NaN at the position of the first NaN. Ignored NaNs and infinities are still counted in
+ * {@link #getNaNCount(int)} and {@link #getInfCount(int)}. Moments of partial summaries are merged
+ * with the pairwise formulas of Chan et al. and Pébay.
+ *
+ * @see Stats#summary(Dataset, boolean, boolean)
+ * @see Stats#summary(Dataset, int, boolean, boolean)
+ */
+public final class Summary {
+	private final int[] shape;
+	private final boolean ignoreNaNs;
+	private final boolean ignoreInfs;
+	private final long[] count;
+	private final long[] nans;
+	private final long[] infs;
+	private final double[] sum;
+	private final double[] min;
+	private final double[] max;
+	private final int[] minIndex;
+	private final int[] maxIndex;
+	private final int[] nanIndex;
+	private final double[] mean;
+	private final double[] m2;
+	private final double[] m3;
+	private final double[] m4;
+
+	/**
+	 * @param shape of summary
+	 * @param ignoreNaNs
+	 * @param ignoreInfs
+	 */
+	Summary(final int[] shape, final boolean ignoreNaNs, final boolean ignoreInfs) {
+		this.shape = shape;
+		this.ignoreNaNs = ignoreNaNs;
+		this.ignoreInfs = ignoreInfs;
+		final int size = DatasetUtils.calculateSize(shape);
+		count = new long[size];
+		nans = new long[size];
+		infs = new long[size];
+		sum = new double[size];
+		min = new double[size];
+		max = new double[size];
+		minIndex = new int[size];
+		maxIndex = new int[size];
+		nanIndex = new int[size];
+		mean = new double[size];
+		m2 = new double[size];
+		m3 = new double[size];
+		m4 = new double[size];
+		java.util.Arrays.fill(min, Double.POSITIVE_INFINITY);
+		java.util.Arrays.fill(max, Double.NEGATIVE_INFINITY);
+		java.util.Arrays.fill(minIndex, -1);
+		java.util.Arrays.fill(maxIndex, -1);
+		java.util.Arrays.fill(nanIndex, -1);
+	}
+
+	/**
+	 * Add value
+	 * @param i index of summary
+	 * @param v value
+	 * @param position of value
+	 */
+	void update(final int i, final double v, final int position) {
+		if (Double.isNaN(v)) {
+			if (nans[i]++ == 0) {
+				nanIndex[i] = position;
+			}
+			if (ignoreNaNs) {
+				return;
+			}
+		} else if (Double.isInfinite(v)) {
+			infs[i]++;
+			if (ignoreInfs) {
+				return;
+			}
+		}
+
+		if (v > max[i]) {
+			max[i] = v;
+			maxIndex[i] = position;
+		}
+		if (v < min[i]) {
+			min[i] = v;
+			minIndex[i] = position;
+		}
+
+		final long n1 = count[i];
+		final long n = n1 + 1;
+		final double delta = v - mean[i];
+		final double dn = delta / n;
+		final double dn2 = dn * dn;
+		final double t = delta * dn * n1;
+		mean[i] += dn;
+		m4[i] += t * dn2 * ((double) n * n - 3 * n + 3) + 6 * dn2 * m2[i] - 4 * dn * m3[i];
+		m3[i] += t * dn * (n - 2) - 3 * dn * m2[i];
+		m2[i] += t;
+		sum[i] += v;
+		count[i] = n;
+	}
+
+	/**
+	 * Merge values from a summary of following items
+	 * @param i index of summary
+	 * @param o other summary
+	 * @param j index of other summary
+	 */
+	void merge(final int i, final Summary o, final int j) {
+		if (o.nans[j] > 0 && nans[i] == 0) {
+			nanIndex[i] = o.nanIndex[j];
+		}
+		nans[i] += o.nans[j];
+		infs[i] += o.infs[j];
+		if (o.max[j] > max[i]) {
+			max[i] = o.max[j];
+			maxIndex[i] = o.maxIndex[j];
+		}
+		if (o.min[j] < min[i]) {
+			min[i] = o.min[j];
+			minIndex[i] = o.minIndex[j];
+		}
+
+		final long nb = o.count[j];
+		if (nb == 0) {
+			return;
+		}
+		final long na = count[i];
+		if (na == 0) {
+			count[i] = nb;
+			sum[i] = o.sum[j];
+			mean[i] = o.mean[j];
+			m2[i] = o.m2[j];
+			m3[i] = o.m3[j];
+			m4[i] = o.m4[j];
+			return;
+		}
+
+		final double a = na;
+		final double b = nb;
+		final double n = a + b;
+		final double delta = o.mean[j] - mean[i];
+		final double d2 = delta * delta;
+		final double a2 = m2[i];
+		final double b2 = o.m2[j];
+		final double a3 = m3[i];
+		final double b3 = o.m3[j];
+		m4[i] += o.m4[j] + d2 * d2 * a * b * (a * a - a * b + b * b) / (n * n * n)
+				+ 6 * d2 * (a * a * b2 + b * b * a2) / (n * n) + 4 * delta * (a * b3 - b * a3) / n;
+		m3[i] += b3 + d2 * delta * a * b * (a - b) / (n * n) + 3 * delta * (a * b2 - b * a2) / n;
+		m2[i] += b2 + d2 * a * b / n;
+		mean[i] += delta * b / n;
+		sum[i] += o.sum[j];
+		count[i] = na + nb;
+	}
+
+	/**
+	 * @return shape of summary
+	 */
+	public int[] getShape() {
+		return shape.clone();
+	}
+
+	/**
+	 * @return number of summaries
+	 */
+	public int getSize() {
+		return count.length;
+	}
+
+	/**
+	 * @return true if NaNs were ignored
+	 */
+	public boolean isIgnoringNaNs() {
+		return ignoreNaNs;
+	}
+
+	/**
+	 * @return true if infinities were ignored
+	 */
+	public boolean isIgnoringInfs() {
+		return ignoreInfs;
+	}
+
+	private boolean hasNaNs(final int i) {
+		return !ignoreNaNs && nans[i] > 0;
+	}
+
+	/**
+	 * @return count of whole dataset
+	 */
+	public long getCount() {
+		return getCount(0);
+	}
+
+	/**
+	 * @param i index of summary
+	 * @return number of values included
+	 */
+	public long getCount(int i) {
+		return count[i];
+	}
+
+	/**
+	 * @param i index of summary
+	 * @return number of NaNs, whether ignored or not
+	 */
+	public long getNaNCount(int i) {
+		return nans[i];
+	}
+
+	/**
+	 * @param i index of summary
+	 * @return number of infinities, whether ignored or not
+	 */
+	public long getInfCount(int i) {
+		return infs[i];
+	}
+
+	/**
+	 * @return sum of whole dataset
+	 */
+	public double getSum() {
+		return getSum(0);
+	}
+
+	/**
+	 * @param i index of summary
+	 * @return sum
+	 */
+	public double getSum(int i) {
+		return sum[i];
+	}
+
+	/**
+	 * @return minimum of whole dataset
+	 */
+	public double getMin() {
+		return getMin(0);
+	}
+
+	/**
+	 * @param i index of summary
+	 * @return minimum or NaN if there are no values
+	 */
+	public double getMin(int i) {
+		return count[i] == 0 || hasNaNs(i) ? Double.NaN : min[i];
+	}
+
+	/**
+	 * @return maximum of whole dataset
+	 */
+	public double getMax() {
+		return getMax(0);
+	}
+
+	/**
+	 * @param i index of summary
+	 * @return maximum or NaN if there are no values
+	 */
+	public double getMax(int i) {
+		return count[i] == 0 || hasNaNs(i) ? Double.NaN : max[i];
+	}
+
+	/**
+	 * @return position of first minimum of whole dataset
+	 */
+	public int getMinIndex() {
+		return getMinIndex(0);
+	}
+
+	/**
+	 * @param i index of summary
+	 * @return position of first minimum or -1 if there are no values
+	 */
+	public int getMinIndex(int i) {
+		return hasNaNs(i) ? nanIndex[i] : minIndex[i];
+	}
+
+	/**
+	 * @return position of first maximum of whole dataset
+	 */
+	public int getMaxIndex() {
+		return getMaxIndex(0);
+	}
+
+	/**
+	 * @param i index of summary
+	 * @return position of first maximum or -1 if there are no values
+	 */
+	public int getMaxIndex(int i) {
+		return hasNaNs(i) ? nanIndex[i] : maxIndex[i];
+	}
+
+	/**
+	 * @return mean of whole dataset
+	 */
+	public double getMean() {
+		return getMean(0);
+	}
+
+	/**
+	 * @param i index of summary
+	 * @return mean or NaN if there are no values
+	 */
+	public double getMean(int i) {
+		return count[i] == 0 ? Double.NaN : mean[i];
+	}
+
+	/**
+	 * @return sample variance of whole dataset
+	 */
+	public double getVariance() {
+		return getVariance(0, false);
+	}
+
+	/**
+	 * @param i index of summary
+	 * @param isWholePopulation if false, consider as sample of population
+	 * @return variance or NaN if there are no values
+	 */
+	public double getVariance(int i, boolean isWholePopulation) {
+		final long n = count[i];
+		if (n == 0) {
+			return Double.NaN;
+		}
+		if (isWholePopulation) {
+			return m2[i] / n;
+		}
+		return n == 1 ? 0 : m2[i] / (n - 1);
+	}
+
+	/**
+	 * @param i index of summary
+	 * @param k order of central moment (2, 3 or 4)
+	 * @return sum of k-th powers of deviations from mean
+	 */
+	public double getCentralMoment(int i, int k) {
+		switch (k) {
+		case 2:
+			return m2[i];
+		case 3:
+			return m3[i];
+		case 4:
+			return m4[i];
+		default:
+			throw new IllegalArgumentException("Order of moment must be 2, 3 or 4");
+		}
+	}
+
+	/**
+	 * @return skewness of whole dataset
+	 */
+	public double getSkewness() {
+		return getSkewness(0);
+	}
+
+	/**
+	 * @param i index of summary
+	 * @return bias-corrected skewness or NaN if there are fewer than 3 values
+	 */
+	public double getSkewness(int i) {
+		final double n = count[i];
+		if (n < 3) {
+			return Double.NaN;
+		}
+		final double v = m2[i] / (n - 1);
+		if (v < 10E-20) {
+			return 0;
+		}
+		return (n * m3[i]) / ((n - 1) * (n - 2) * Math.sqrt(v) * v);
+	}
+
+	/**
+	 * @return kurtosis of whole dataset
+	 */
+	public double getKurtosis() {
+		return getKurtosis(0);
+	}
+
+	/**
+	 * @param i index of summary
+	 * @return bias-corrected excess kurtosis or NaN if there are fewer than 4 values
+	 */
+	public double getKurtosis(int i) {
+		final double n = count[i];
+		if (n < 4) {
+			return Double.NaN;
+		}
+		final double v = m2[i] / (n - 1);
+		if (v < 10E-20) {
+			return 0;
+		}
+		return (n * (n + 1) * m4[i] - 3 * m2[i] * m2[i] * (n - 1)) / ((n - 1) * (n - 2) * (n - 3) * v * v);
+	}
+}
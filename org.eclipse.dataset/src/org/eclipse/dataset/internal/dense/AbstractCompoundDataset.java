@@ -13,7 +13,6 @@
 package org.eclipse.dataset.internal.dense;
 
 import java.util.Arrays;
-import java.util.HashMap;
 
 import org.apache.commons.math.stat.descriptive.SummaryStatistics;
 import org.eclipse.dataset.IMonitor;
@@ -471,31 +470,37 @@ public abstract class AbstractCompoundDataset extends AbstractDataset implements
 		}
 
 		int ihash = ((int) hash) * 19 + getDType() * 17 + getElementsPerItem();
-		setStoredValue(STORE_SHAPELESS_HASH, ihash);
+		setCachedValue(StatisticsCache.SHAPELESS_HASH, false, false, ihash);
 	}
 
 	private int getHash() {
-		Object value = getStoredValue(STORE_HASH);
+		StatisticsCache c = cache;
+		Integer value = c == null ? null : c.getHash();
 		if (value == null) {
-			value = getStoredValue(STORE_SHAPELESS_HASH);
+			value = getCachedValue(StatisticsCache.SHAPELESS_HASH, false, false);
 			if (value == null) {
 				calculateHash();
-				value = getStoredValue(STORE_SHAPELESS_HASH);
+				value = getCachedValue(StatisticsCache.SHAPELESS_HASH, false, false);
 			}
 
-			int ihash = (Integer) value;
+			int ihash = value;
 			int rank = shape.length;
 			for (int i = 0; i < rank; i++) {
 				ihash = ihash * 17 + shape[i];
 			}
-			storedValues.put(STORE_HASH, ihash);
+			getWritableCache().setHash(ihash);
 			return ihash;
 		}
 
-		return (Integer) value;
+		return value;
 	}
 
-	@Override
+	/**
+	 * Calculate summary statistics of each element of items
+	 * @param ignoreNaNs if true, ignore NaNs
+	 * @param ignoreInfs if true, ignore infinities
+	 * @param name prefix of names of stored statistics
+	 */
 	protected void calculateSummaryStats(boolean ignoreNaNs, final boolean ignoreInfs, String name) {
 		IndexIterator iter = getIterator();
 		SummaryStatistics[] stats = new SummaryStatistics[isize];
@@ -524,13 +529,9 @@ public abstract class AbstractCompoundDataset extends AbstractDataset implements
 		}
 
 		// now all the calculations are done, add the values into store
-		if (storedValues == null)
-			storedValues = new HashMap<String, Object>();
-		else
-			storedValues.clear();
-
+		final StatisticsCache c = getWritableCache();
 		for (int i = 0; i < isize; i++)
-			storedValues.put(name+i, stats[i]);
+			c.put(name + i, stats[i]);
 	}
 
 	@Override
@@ -603,10 +604,8 @@ public abstract class AbstractCompoundDataset extends AbstractDataset implements
 			}
 			var.set(darray, qpos);
 		}
-		setStoredValue(storeName(ignoreNaNs, ignoreInfs, STORE_COUNT + "-" + axis), count);
-		storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_SUM + "-" + axis), sum);
-		storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_MEAN + "-" +axis), mean);
-		storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_VAR + "-" +axis), var);
+		getWritableCache().putAxisStatistics(new StatisticsCache.AxisStatistics(axis, ignoreNaNs, ignoreInfs,
+				count, null, null, sum, mean, var, null, null));
 	}
 
 	@Override
@@ -688,7 +687,7 @@ public abstract class AbstractCompoundDataset extends AbstractDataset implements
 
 		double[] results = new double[isize];
 		for (int i = 0; i < isize; i++) {
-			results[i] = ((SummaryStatistics) storedValues.get(n + i)).getMax();
+			results[i] = ((SummaryStatistics) getStoredValue(n + i)).getMax();
 		}
 		return results;
 	}
@@ -704,7 +703,7 @@ public abstract class AbstractCompoundDataset extends AbstractDataset implements
 
 		double[] results = new double[isize];
 		for (int i = 0; i < isize; i++) {
-			results[i] = ((SummaryStatistics) storedValues.get(n + i)).getMin();
+			results[i] = ((SummaryStatistics) getStoredValue(n + i)).getMin();
 		}
 		return results;
 	}
@@ -720,7 +719,7 @@ public abstract class AbstractCompoundDataset extends AbstractDataset implements
 
 		double[] results = new double[isize];
 		for (int i = 0; i < isize; i++) {
-			results[i] = ((SummaryStatistics) storedValues.get(n + i)).getSum();
+			results[i] = ((SummaryStatistics) getStoredValue(n + i)).getSum();
 		}
 		return results;
 	}
@@ -741,7 +740,7 @@ public abstract class AbstractCompoundDataset extends AbstractDataset implements
 
 		double[] results = new double[isize];
 		for (int i = 0; i < isize; i++) {
-			results[i] = ((SummaryStatistics) storedValues.get(n + i)).getMean();
+			results[i] = ((SummaryStatistics) getStoredValue(n + i)).getMean();
 		}
 		return results;
 	}
@@ -757,7 +756,7 @@ public abstract class AbstractCompoundDataset extends AbstractDataset implements
 
 		double result = 0;
 		for (int i = 0; i < isize; i++)
-			result += ((SummaryStatistics) storedValues.get(n + i)).getVariance();
+			result += ((SummaryStatistics) getStoredValue(n + i)).getVariance();
 		return result;
 	}
 
@@ -772,7 +771,7 @@ public abstract class AbstractCompoundDataset extends AbstractDataset implements
 
 		double result = 0;
 		for (int i = 0; i < isize; i++) {
-			final SummaryStatistics stats = (SummaryStatistics) storedValues.get(n + i);
+			final SummaryStatistics stats = (SummaryStatistics) getStoredValue(n + i);
 			final double mean = stats.getMean();
 			result += stats.getVariance() + mean*mean;
 		}
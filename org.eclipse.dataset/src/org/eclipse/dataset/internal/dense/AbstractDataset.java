@@ -20,8 +20,8 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
-import org.apache.commons.math.stat.descriptive.SummaryStatistics;
 import org.eclipse.dataset.IDataset;
 import org.eclipse.dataset.ILazyDataset;
 import org.eclipse.dataset.IMonitor;
@@ -43,9 +43,11 @@ import org.eclipse.dataset.dense.IntegerIterator;
 import org.eclipse.dataset.dense.IntegersIterator;
 import org.eclipse.dataset.dense.Maths;
 import org.eclipse.dataset.dense.NullIterator;
+import org.eclipse.dataset.dense.ParallelUtils;
 import org.eclipse.dataset.dense.SliceIterator;
 import org.eclipse.dataset.dense.Stats;
 import org.eclipse.dataset.dense.StrideIterator;
+import org.eclipse.dataset.dense.Summary;
 import org.eclipse.dataset.metadata.ErrorMetadata;
 import org.eclipse.dataset.metadata.ErrorMetadataImpl;
 import org.eclipse.dataset.metadata.MetadataType;
@@ -78,9 +80,10 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 	abstract protected void setData();
 
 	/**
-	 * These members hold cached values. If their values are null, then recalculate, otherwise just use the values
+	 * Cached values. This can be shared with views (and then must not be changed) so use
+	 * {@link #getWritableCache()} to change it and set it to null to invalidate it
 	 */
-	transient protected HashMap<String, Object> storedValues = null;
+	transient volatile StatisticsCache cache = null;
 
 	/**
 	 * Constructor required for serialisation.
@@ -182,11 +185,10 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 		int odtype = orig.getDType();
 		int vdtype = view.getDType();
 		if (DTypeUtils.getBestDType(odtype, vdtype) != vdtype) {
-			view.storedValues = null; // as copy is a demotion
+			view.cache = null; // as copy is a demotion
 		}
-		if (odtype != vdtype && view.storedValues != null) {
-			view.storedValues.remove(STORE_SHAPELESS_HASH);
-			view.storedValues.remove(STORE_HASH);
+		if (odtype != vdtype && view.cache != null) {
+			view.getWritableCache().clearHashes();
 		}
 	}
 
@@ -658,8 +660,8 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 		reshapeMetadata(this.shape, nshape);
 		this.shape = nshape;
 
-		if (storedValues != null)
-			filterStoredValues(storedValues); // as it is dependent on shape
+		if (cache != null)
+			getWritableCache().clearShapeDependent(); // as it is dependent on shape
 	}
 
 	@Override
@@ -1318,8 +1320,7 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 
 	@Override
 	public void setDirty() {
-		if (storedValues != null)
-			storedValues.clear();
+		cache = null;
 	}
 
 	@Override
@@ -1548,19 +1549,13 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 	protected static final String STORE_SUM = "sum";
 	protected static final String STORE_MEAN = "mean";
 	protected static final String STORE_VAR = "var";
-	private static final String STORE_POS_MAX = "+max";
-	private static final String STORE_POS_MIN = "+min";
 	protected static final String STORE_COUNT = "count";
-	private static final String STORE_INDEX = "Index";
 	protected static final String STORE_BROADCAST = "Broadcast";
 
 	@Override
 	public Object getStoredValue(String key) {
-		if (storedValues == null) {
-			return null;
-		}
-
-		return storedValues.get(key);
+		final StatisticsCache c = cache;
+		return c == null ? null : c.get(key);
 	}
 
 	/**
@@ -1573,18 +1568,110 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 	 */
 	@Override
 	public void setStoredValue(String key, Object obj) {
-		if (storedValues == null) {
-			storedValues = new HashMap<String, Object>();
+		getWritableCache().put(key, obj);
+	}
+
+	/**
+	 * @return cache that can be changed. If the current cache is shared then it is replaced by a copy
+	 */
+	StatisticsCache getWritableCache() {
+		StatisticsCache c = cache;
+		if (c == null || c.isShared()) {
+			synchronized (this) {
+				c = cache;
+				if (c == null) {
+					c = new StatisticsCache();
+					cache = c;
+				} else if (c.isShared()) {
+					c = c.copy();
+					cache = c;
+				}
+			}
 		}
+		return c;
+	}
+
+	/**
+	 * @param slot
+	 * @param ignoreNaNs
+	 * @param ignoreInfs
+	 * @return cached statistic or null
+	 */
+	<T> T getCachedValue(StatisticsCache.Slot<T> slot, boolean ignoreNaNs, boolean ignoreInfs) {
+		final StatisticsCache c = cache;
+		return c == null ? null : c.get(slot, ignoreNaNs, ignoreInfs);
+	}
+
+	/**
+	 * @param slot
+	 * @param ignoreNaNs
+	 * @param ignoreInfs
+	 * @param value
+	 */
+	<T> void setCachedValue(StatisticsCache.Slot<T> slot, boolean ignoreNaNs, boolean ignoreInfs, T value) {
+		getWritableCache().put(slot, ignoreNaNs, ignoreInfs, value);
+	}
+
+	/**
+	 * Get cached summary statistics of whole dataset
+	 * <p>
+	 * This is a <b>private method</b>: do not use!
+	 * 
+	 * @param ignoreNaNs
+	 * @param ignoreInfs
+	 * @return summary or null if not cached
+	 */
+	public Summary getCachedSummary(boolean ignoreNaNs, boolean ignoreInfs) {
+		return getCachedValue(StatisticsCache.SUMMARY, ignoreNaNs, ignoreInfs);
+	}
 
-		storedValues.put(key, obj);
+	/**
+	 * Set cached summary statistics of whole dataset
+	 * <p>
+	 * This is a <b>private method</b>: do not use!
+	 * 
+	 * @param ignoreNaNs
+	 * @param ignoreInfs
+	 * @param summary
+	 */
+	public void setCachedSummary(boolean ignoreNaNs, boolean ignoreInfs, Summary summary) {
+		setCachedValue(StatisticsCache.SUMMARY, ignoreNaNs, ignoreInfs, summary);
+	}
+
+	/**
+	 * Get cached summary statistics along an axis
+	 * <p>
+	 * This is a <b>private method</b>: do not use!
+	 * 
+	 * @param axis
+	 * @param ignoreNaNs
+	 * @param ignoreInfs
+	 * @return summary or null if not cached
+	 */
+	public Summary getCachedSummary(int axis, boolean ignoreNaNs, boolean ignoreInfs) {
+		final StatisticsCache c = cache;
+		return c == null ? null : c.getAxisSummary(axis, ignoreNaNs, ignoreInfs);
+	}
+
+	/**
+	 * Set cached summary statistics along an axis
+	 * <p>
+	 * This is a <b>private method</b>: do not use!
+	 * 
+	 * @param axis
+	 * @param ignoreNaNs
+	 * @param ignoreInfs
+	 * @param summary
+	 */
+	public void setCachedSummary(int axis, boolean ignoreNaNs, boolean ignoreInfs, Summary summary) {
+		getWritableCache().putAxisSummary(axis, ignoreNaNs, ignoreInfs, summary);
 	}
 
 	public static String storeName(boolean ignoreNaNs, String name) {
 		return storeName(ignoreNaNs, false, name);
 	}
 
-	protected static String storeName(boolean ignoreNaNs, boolean ignoreInfs, String name) {
+	public static String storeName(boolean ignoreNaNs, boolean ignoreInfs, String name) {
 		return (ignoreInfs ? "inf" : "") + (ignoreNaNs ? "nan" : "") +  name;
 	}
 
@@ -1595,109 +1682,72 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 	 * @param shapeChanged
 	 */
 	protected static void copyStoredValues(IDataset orig, AbstractDataset derived, boolean shapeChanged) {
-		if (orig instanceof AbstractDataset && ((AbstractDataset) orig).storedValues != null) {
-			derived.storedValues = new HashMap<String, Object>(((AbstractDataset) orig).storedValues);
-			if (shapeChanged) {
-				filterStoredValues(derived.storedValues);
+		if (orig instanceof AbstractDataset) {
+			final StatisticsCache c = ((AbstractDataset) orig).cache;
+			if (c == null) {
+				derived.cache = null;
+			} else if (shapeChanged) {
+				final StatisticsCache d = c.copy();
+				d.clearShapeDependent();
+				derived.cache = d;
+			} else {
+				derived.cache = c.share();
 			}
 		}
 	}
 
-	private static void filterStoredValues(Map<String, Object> map) {
-		map.remove(STORE_HASH);
-		List<String> keys = new ArrayList<String>();
-		for (String n : map.keySet()) {
-			if (n.contains("-")) { // remove anything which is axis-specific
-				keys.add(n);
-			}
-		}
-		for (String n : keys) {
-			map.remove(n);
-		}
+	/**
+	 * Hash multiplier used for each element
+	 */
+	private static final long HASH_FACTOR = 19;
+
+	/**
+	 * @param val
+	 * @return contribution of value to hash
+	 */
+	private static long hashValue(final double val) {
+		return Double.isNaN(val) || Double.isInfinite(val) ? 0 : Double.doubleToLongBits(val + 0.0); // remove negative zero
 	}
 
 	/**
-	 * Calculate minimum and maximum for a dataset
-	 * @param ignoreNaNs if true, ignore NaNs
-	 * @param ignoreInfs if true, ignore infinities
+	 * Partial statistics from a chunk of a dataset. These are merged in order so that the hash,
+	 * which depends on the order of elements, is the same as from a serial calculation
 	 */
-	protected void calculateMaxMin(final boolean ignoreNaNs, final boolean ignoreInfs) {
-		IndexIterator iter = getIterator();
+	private static class PartialStatistics {
+		long hash = 0;
+		long power = 1; // hash factor raised to number of elements
+		boolean hasNaNs = false;
 		double amax = Double.NEGATIVE_INFINITY;
 		double amin = Double.POSITIVE_INFINITY;
 		double pmax = Double.MIN_VALUE;
 		double pmin = Double.POSITIVE_INFINITY;
-		double hash = 0;
-		boolean hasNaNs = false;
-
-		while (iter.hasNext()) {
-			final double val = getElementDoubleAbs(iter.index);
-			if (Double.isNaN(val)) {
-				hash = (hash * 19) % Integer.MAX_VALUE;
-				if (ignoreNaNs)
-					continue;
-				hasNaNs = true;
-			} else if (Double.isInfinite(val)) {
-				hash = (hash * 19) % Integer.MAX_VALUE;
-				if (ignoreInfs)
-					continue;
-			} else {
-				hash = (hash * 19 + val) % Integer.MAX_VALUE;
-			}
-
-			if (val > amax) {
-				amax = val;
-			}
-			if (val < amin) {
-				amin = val;
-			}
-			if (val > 0) {
-				if (val < pmin) {
-					pmin = val;
-				}
-				if (val > pmax) {
-					pmax = val;
-				}
-			}
-		}
-
-		int ihash = ((int) hash) * 19 + getDType() * 17 + getElementsPerItem();
-		setStoredValue(storeName(ignoreNaNs, ignoreInfs, STORE_SHAPELESS_HASH), ihash);
-		storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_MAX), hasNaNs ? Double.NaN : fromDoubleToNumber(amax));
-		storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_MIN), hasNaNs ? Double.NaN : fromDoubleToNumber(amin));
-		storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_POS_MAX), hasNaNs ? Double.NaN : fromDoubleToNumber(pmax));
-		storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_POS_MIN), hasNaNs ? Double.NaN : fromDoubleToNumber(pmin));
-	}
-
-	/**
-	 * Calculate summary statistics for a dataset
-	 * @param ignoreNaNs if true, ignore NaNs
-	 * @param ignoreInfs if true, ignore infinities
-	 * @param name
-	 */
-	protected void calculateSummaryStats(final boolean ignoreNaNs, final boolean ignoreInfs, final String name) {
-		final IndexIterator iter = getIterator();
-		final SummaryStatistics stats = new SummaryStatistics();
-
-		if (storedValues == null || !storedValues.containsKey(STORE_HASH)) {
-			boolean hasNaNs = false;
-			double hash = 0;
-			double pmax = Double.MIN_VALUE;
-			double pmin = Double.POSITIVE_INFINITY;
 
+		/**
+		 * Accumulate values from iterator
+		 * @param d dataset
+		 * @param iter
+		 * @param ignoreNaNs
+		 * @param ignoreInfs
+		 */
+		void accumulate(final Dataset d, final IndexIterator iter, final boolean ignoreNaNs, final boolean ignoreInfs) {
 			while (iter.hasNext()) {
-				final double val = getElementDoubleAbs(iter.index);
+				final double val = d.getElementDoubleAbs(iter.index);
+				hash = hash * HASH_FACTOR + hashValue(val);
+				power *= HASH_FACTOR;
 				if (Double.isNaN(val)) {
-					hash = (hash * 19) % Integer.MAX_VALUE;
 					if (ignoreNaNs)
 						continue;
 					hasNaNs = true;
 				} else if (Double.isInfinite(val)) {
-					hash = (hash * 19) % Integer.MAX_VALUE;
 					if (ignoreInfs)
 						continue;
-				} else {
-					hash = (hash * 19 + val) % Integer.MAX_VALUE;
+				}
+
+				if (val > amax) {
+					amax = val;
+				}
+				if (val < amin) {
+					amin = val;
 				}
 				if (val > 0) {
 					if (val < pmin) {
@@ -1707,30 +1757,100 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 						pmax = val;
 					}
 				}
-				stats.addValue(val);
 			}
+		}
 
-			int ihash = ((int) hash) * 19 + getDType() * 17 + getElementsPerItem();
-			setStoredValue(storeName(ignoreNaNs, ignoreInfs, STORE_SHAPELESS_HASH), ihash);
-			storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_MAX), hasNaNs ? Double.NaN : fromDoubleToNumber(stats.getMax()));
-			storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_MIN), hasNaNs ? Double.NaN : fromDoubleToNumber(stats.getMin()));
-			storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_POS_MAX), hasNaNs ? Double.NaN : fromDoubleToNumber(pmax));
-			storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_POS_MIN), hasNaNs ? Double.NaN : fromDoubleToNumber(pmin));
-			storedValues.put(name, stats);
-		} else {
-			while (iter.hasNext()) {
-				final double val = getElementDoubleAbs(iter.index);
-				if (ignoreNaNs && Double.isNaN(val)) {
-					continue;
-				}
-				if (ignoreInfs && Double.isInfinite(val)) {
-					continue;
+		/**
+		 * Merge statistics from following chunk
+		 * @param o
+		 */
+		void merge(final PartialStatistics o) {
+			hash = hash * o.power + o.hash;
+			power *= o.power;
+			hasNaNs |= o.hasNaNs;
+			amax = Math.max(amax, o.amax);
+			amin = Math.min(amin, o.amin);
+			pmax = Math.max(pmax, o.pmax);
+			pmin = Math.min(pmin, o.pmin);
+		}
+	}
+
+	/**
+	 * @return true if whole dataset reductions should be split and run in parallel
+	 * @see ParallelUtils
+	 */
+	protected boolean isParallelReduction() {
+		return shape.length > 0 && ParallelUtils.shouldSplit(size);
+	}
+
+	/**
+	 * Calculate partial statistics over chunks of dataset in parallel and merge them
+	 * @param ignoreNaNs
+	 * @param ignoreInfs
+	 * @return merged statistics
+	 */
+	private PartialStatistics calculatePartialStatistics(final boolean ignoreNaNs, final boolean ignoreInfs) {
+		final List<Callable<PartialStatistics>> tasks = new ArrayList<Callable<PartialStatistics>>();
+		for (final SliceND s : ParallelUtils.splitForReduction(shape)) {
+			tasks.add(new Callable<PartialStatistics>() {
+				@Override
+				public PartialStatistics call() {
+					PartialStatistics p = new PartialStatistics();
+					p.accumulate(AbstractDataset.this, getSliceIterator(s), ignoreNaNs, ignoreInfs);
+					return p;
 				}
+			});
+		}
 
-				stats.addValue(val);
+		PartialStatistics total = null;
+		for (PartialStatistics p : ParallelUtils.invokeAll(tasks)) {
+			if (total == null) {
+				total = p;
+			} else {
+				total.merge(p);
 			}
+		}
+		return total;
+	}
+
+	private void storeMaxMin(final boolean ignoreNaNs, final boolean ignoreInfs, final PartialStatistics p) {
+		int ihash = ((int) (p.hash ^ (p.hash >>> 32))) * 19 + getDType() * 17 + getElementsPerItem();
+		final StatisticsCache c = getWritableCache();
+		c.put(StatisticsCache.SHAPELESS_HASH, ignoreNaNs, ignoreInfs, ihash);
+		c.put(StatisticsCache.MAX, ignoreNaNs, ignoreInfs, p.hasNaNs ? Double.NaN : fromDoubleToNumber(p.amax));
+		c.put(StatisticsCache.MIN, ignoreNaNs, ignoreInfs, p.hasNaNs ? Double.NaN : fromDoubleToNumber(p.amin));
+		c.put(StatisticsCache.POSITIVE_MAX, ignoreNaNs, ignoreInfs, p.hasNaNs ? Double.NaN : fromDoubleToNumber(p.pmax));
+		c.put(StatisticsCache.POSITIVE_MIN, ignoreNaNs, ignoreInfs, p.hasNaNs ? Double.NaN : fromDoubleToNumber(p.pmin));
+	}
 
-			storedValues.put(name, stats);
+	/**
+	 * Calculate minimum and maximum for a dataset
+	 * @param ignoreNaNs if true, ignore NaNs
+	 * @param ignoreInfs if true, ignore infinities
+	 */
+	protected void calculateMaxMin(final boolean ignoreNaNs, final boolean ignoreInfs) {
+		final PartialStatistics p;
+		if (isParallelReduction()) {
+			p = calculatePartialStatistics(ignoreNaNs, ignoreInfs);
+		} else {
+			p = new PartialStatistics();
+			p.accumulate(this, getIterator(), ignoreNaNs, ignoreInfs);
+		}
+		storeMaxMin(ignoreNaNs, ignoreInfs, p);
+	}
+
+	/**
+	 * Calculate summary statistics for a dataset
+	 * @param ignoreNaNs if true, ignore NaNs
+	 * @param ignoreInfs if true, ignore infinities
+	 */
+	protected void calculateSummaryStats(final boolean ignoreNaNs, final boolean ignoreInfs) {
+		final Summary stats = Stats.summary(this, ignoreNaNs, ignoreInfs); // also caches summary
+		final StatisticsCache c = getWritableCache();
+		if (c.get(StatisticsCache.MAX, ignoreNaNs, ignoreInfs) == null) {
+			final boolean hasNaNs = !ignoreNaNs && stats.getNaNCount(0) > 0;
+			c.put(StatisticsCache.MAX, ignoreNaNs, ignoreInfs, hasNaNs ? Double.NaN : fromDoubleToNumber(stats.getMax()));
+			c.put(StatisticsCache.MIN, ignoreNaNs, ignoreInfs, hasNaNs ? Double.NaN : fromDoubleToNumber(stats.getMin()));
 		}
 	}
 
@@ -1743,164 +1863,39 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 	protected void calculateSummaryStats(final boolean ignoreNaNs, final boolean ignoreInfs, final int axis) {
 		int rank = getRank();
 
-		int[] oshape = getShape();
-		int alen = oshape[axis];
-		oshape[axis] = 1;
-
 		int[] nshape = new int[rank - 1];
 		for (int i = 0; i < axis; i++) {
-			nshape[i] = oshape[i];
+			nshape[i] = shape[i];
 		}
 		for (int i = axis + 1; i < rank; i++) {
-			nshape[i - 1] = oshape[i];
+			nshape[i - 1] = shape[i];
 		}
 
 		final int dtype = getDType();
-		IntegerDataset count = new IntegerDataset(nshape);
-		Dataset max = DatasetFactory.zeros(nshape, dtype);
-		Dataset min = DatasetFactory.zeros(nshape, dtype);
-		IntegerDataset maxIndex = new IntegerDataset(nshape);
-		IntegerDataset minIndex = new IntegerDataset(nshape);
-		Dataset sum = DatasetFactory.zeros(nshape, DTypeUtils.getLargestDType(dtype));
-		DoubleDataset mean = new DoubleDataset(nshape);
-		DoubleDataset var = new DoubleDataset(nshape);
-
-		IndexIterator qiter = max.getIterator(true);
-		int[] qpos = qiter.getPos();
-		int[] spos = oshape.clone();
-
-		while (qiter.hasNext()) {
-			int i = 0;
-			for (; i < axis; i++) {
-				spos[i] = qpos[i];
-			}
-			spos[i++] = 0;
-			for (; i < rank; i++) {
-				spos[i] = qpos[i - 1];
-			}
-
-			final SummaryStatistics stats = new SummaryStatistics();
-			double amax = Double.NEGATIVE_INFINITY;
-			double amin = Double.POSITIVE_INFINITY;
-			boolean hasNaNs = false;
-			if (ignoreNaNs) {
-				for (int j = 0; j < alen; j++) {
-					spos[axis] = j;
-					final double val = getDouble(spos);
-
-					if (Double.isNaN(val)) {
-						hasNaNs = true;
-						continue;
-					} else if (ignoreInfs && Double.isInfinite(val)) {
-						continue;
-					}
-
-					if (val > amax) {
-						amax = val;
-					}
-					if (val < amin) {
-						amin = val;
-					}
-
-					stats.addValue(val);
-				}
-			} else {
-				for (int j = 0; j < alen; j++) {
-					spos[axis] = j;
-					final double val = getDouble(spos);
-
-					if (hasNaNs) {
-						if (!Double.isNaN(val))
-							stats.addValue(0);
-						continue;
-					}
-
-					if (Double.isNaN(val)) {
-						amax = Double.NaN;
-						amin = Double.NaN;
-						hasNaNs = true;
-					} else if (ignoreInfs && Double.isInfinite(val)) {
-						continue;
-					} else {
-						if (val > amax) {
-							amax = val;
-						}
-						if (val < amin) {
-							amin = val;
-						}
-					}
-					stats.addValue(val);
-				}
-			}
-
-			count.setAbs(qiter.index, (int) stats.getN());
-
-			max.setObjectAbs(qiter.index, amax);
-			min.setObjectAbs(qiter.index, amin);
-			boolean fmax = false;
-			boolean fmin = false;
-			if (hasNaNs) {
-				if (ignoreNaNs) {
-					for (int j = 0; j < alen; j++) {
-						spos[axis] = j;
-						final double val = getDouble(spos);
-						if (Double.isNaN(val))
-							continue;
-
-						if (!fmax && val == amax) {
-							maxIndex.setAbs(qiter.index, j);
-							fmax = true;
-							if (fmin)
-								break;
-						}
-						if (!fmin && val == amin) {
-							minIndex.setAbs(qiter.index, j);
-							fmin = true;
-							if (fmax)
-								break;
-						}
-					}
-				} else {
-					for (int j = 0; j < alen; j++) {
-						spos[axis] = j;
-						final double val = getDouble(spos);
-						if (Double.isNaN(val)) {
-							maxIndex.setAbs(qiter.index, j);
-							minIndex.setAbs(qiter.index, j);
-							break;
-						}
-					}
-				}
-			} else {
-				for (int j = 0; j < alen; j++) {
-					spos[axis] = j;
-					final double val = getDouble(spos);
-					if (!fmax && val == amax) {
-						maxIndex.setAbs(qiter.index, j);
-						fmax = true;
-						if (fmin)
-							break;
-					}
-					if (!fmin && val == amin) {
-						minIndex.setAbs(qiter.index, j);
-						fmin = true;
-						if (fmax)
-							break;
-					}
-				}
-			}
-			sum.setObjectAbs(qiter.index, stats.getSum());
-			mean.setAbs(qiter.index, stats.getMean());
-			var.setAbs(qiter.index, stats.getVariance());
-		}
-		setStoredValue(storeName(ignoreNaNs, ignoreInfs, STORE_COUNT + "-" + axis), count);
-		storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_MAX + "-" + axis), max);
-		storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_MIN + "-" + axis), min);
-		storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_SUM + "-" + axis), sum);
-		storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_MEAN + "-" + axis), mean);
-		storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_VAR + "-" + axis), var);
-		storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_MAX + STORE_INDEX + "-" + axis), maxIndex);
-		storedValues.put(storeName(ignoreNaNs, ignoreInfs, STORE_MIN + STORE_INDEX + "-" + axis), minIndex);
+		final IntegerDataset count = new IntegerDataset(nshape);
+		final Dataset max = DatasetFactory.zeros(nshape, dtype);
+		final Dataset min = DatasetFactory.zeros(nshape, dtype);
+		final IntegerDataset maxIndex = new IntegerDataset(nshape);
+		final IntegerDataset minIndex = new IntegerDataset(nshape);
+		final Dataset sum = DatasetFactory.zeros(nshape, DTypeUtils.getLargestDType(dtype));
+		final DoubleDataset mean = new DoubleDataset(nshape);
+		final DoubleDataset var = new DoubleDataset(nshape);
+
+		final Summary stats = Stats.summary(this, axis, ignoreNaNs, ignoreInfs);
+		final int n = stats.getSize();
+		for (int i = 0; i < n; i++) {
+			count.setAbs(i, (int) stats.getCount(i));
+			max.setObjectAbs(i, stats.getMax(i));
+			min.setObjectAbs(i, stats.getMin(i));
+			maxIndex.setAbs(i, Math.max(0, stats.getMaxIndex(i)));
+			minIndex.setAbs(i, Math.max(0, stats.getMinIndex(i)));
+			sum.setObjectAbs(i, stats.getSum(i));
+			mean.setAbs(i, stats.getMean(i));
+			var.setAbs(i, stats.getVariance(i, false));
+		}
+
+		getWritableCache().putAxisStatistics(new StatisticsCache.AxisStatistics(axis, ignoreNaNs, ignoreInfs,
+				count, max, min, sum, mean, var, maxIndex, minIndex));
 	}
 
 	/**
@@ -1909,17 +1904,16 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 	 */
 	abstract protected Number fromDoubleToNumber(double x);
 
-	private SummaryStatistics getStatistics(boolean ignoreNaNs) {
+	private Summary getStatistics(boolean ignoreNaNs) {
 		boolean ignoreInfs = false; // TODO
 		if (!hasFloatingPointElements()) {
 			ignoreNaNs = false;
 		}
 
-		String n = storeName(ignoreNaNs, ignoreInfs, STORE_STATS);
-		SummaryStatistics stats = (SummaryStatistics) getStoredValue(n);
+		Summary stats = getCachedValue(StatisticsCache.SUMMARY, ignoreNaNs, ignoreInfs);
 		if (stats == null) {
-			calculateSummaryStats(ignoreNaNs, ignoreInfs, n);
-			stats = (SummaryStatistics) getStoredValue(n);
+			calculateSummaryStats(ignoreNaNs, ignoreInfs);
+			stats = getCachedValue(StatisticsCache.SUMMARY, ignoreNaNs, ignoreInfs);
 		}
 
 		return stats;
@@ -1936,74 +1930,75 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 	}
 
 	private int getHash() {
-		Object value = getStoredValue(STORE_HASH);
+		StatisticsCache c = cache;
+		Integer value = c == null ? null : c.getHash();
 		if (value == null) {
-			value = getStoredValue(STORE_SHAPELESS_HASH);
+			value = getCachedValue(StatisticsCache.SHAPELESS_HASH, false, false);
 			if (value == null) {
 				calculateMaxMin(false, false);
-				value = getStoredValue(STORE_SHAPELESS_HASH);
+				value = getCachedValue(StatisticsCache.SHAPELESS_HASH, false, false);
 			}
 
-			int ihash = (Integer) value;
+			int ihash = value;
 			int rank = shape.length;
 			for (int i = 0; i < rank; i++) {
 				ihash = ihash * 17 + shape[i];
 			}
-			storedValues.put(STORE_HASH, ihash);
+			getWritableCache().setHash(ihash);
 			return ihash;
 		}
 
-		return (Integer) value;
+		return value;
 	}
 
-	protected Object getMaxMin(boolean ignoreNaNs, boolean ignoreInfs, String key) {
+	protected Number getMaxMin(boolean ignoreNaNs, boolean ignoreInfs, StatisticsCache.Slot<Number> slot) {
 		if (!hasFloatingPointElements()) {
 			ignoreNaNs = false;
 			ignoreInfs = false;
 		}
 
-		key = storeName(ignoreNaNs, ignoreInfs , key);
-		Object value = getStoredValue(key);
+		Number value = getCachedValue(slot, ignoreNaNs, ignoreInfs);
 		if (value == null) {
 			calculateMaxMin(ignoreNaNs, ignoreInfs);
-			value = getStoredValue(key);
+			value = getCachedValue(slot, ignoreNaNs, ignoreInfs);
 		}
 
 		return value;
 	}
 
-	private Object getStatistics(boolean ignoreNaNs, int axis, String stat) {
+	private StatisticsCache.AxisStatistics getStatistics(boolean ignoreNaNs, int axis) {
 		if (!hasFloatingPointElements())
 			ignoreNaNs = false;
 
 		boolean ignoreInfs = false; // TODO
-		stat = storeName(ignoreNaNs, ignoreInfs , stat);
 		axis = checkAxis(axis);
-		Object obj = getStoredValue(stat);
+		StatisticsCache c = cache;
+		StatisticsCache.AxisStatistics stats = c == null ? null : c.getAxisStatistics(axis, ignoreNaNs, ignoreInfs);
 
-		if (obj == null) {
+		if (stats == null) {
 			calculateSummaryStats(ignoreNaNs, ignoreInfs, axis);
-			obj = getStoredValue(stat);
+			c = cache;
+			stats = c == null ? null : c.getAxisStatistics(axis, ignoreNaNs, ignoreInfs);
 		}
 
-		return obj;
+		return stats;
 	}
 
 	@Override
 	public Number max(boolean... ignoreInvalids) {
 		boolean igNan = ignoreInvalids!=null && ignoreInvalids.length>0 ? ignoreInvalids[0] : false;
 		boolean igInf = ignoreInvalids!=null && ignoreInvalids.length>1 ? ignoreInvalids[1] : igNan;
-		return (Number) getMaxMin(igNan, igInf, STORE_MAX);
+		return getMaxMin(igNan, igInf, StatisticsCache.MAX);
 	}
 
 	@Override
 	public Number positiveMax(boolean ignoreInvalids) {
-		return (Number) getMaxMin(ignoreInvalids, ignoreInvalids, STORE_POS_MAX);
+		return getMaxMin(ignoreInvalids, ignoreInvalids, StatisticsCache.POSITIVE_MAX);
 	}
 
 	@Override
 	public Number positiveMax(boolean ignoreNaNs, boolean ignoreInfs) {
-		return (Number) getMaxMin(ignoreNaNs, ignoreInfs, STORE_POS_MAX);
+		return getMaxMin(ignoreNaNs, ignoreInfs, StatisticsCache.POSITIVE_MAX);
 	}
 
 	@Override
@@ -2013,24 +2008,24 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 
 	@Override
 	public Dataset max(boolean ignoreNaNs, int axis) {
-		return (Dataset) getStatistics(ignoreNaNs, axis, STORE_MAX + "-" + axis);
+		return getStatistics(ignoreNaNs, axis).max;
 	}
 
 	@Override
 	public Number min(boolean... ignoreInvalids) {
 		boolean igNan = ignoreInvalids!=null && ignoreInvalids.length>0 ? ignoreInvalids[0] : false;
 		boolean igInf = ignoreInvalids!=null && ignoreInvalids.length>1 ? ignoreInvalids[1] : igNan;
-		return (Number) getMaxMin(igNan, igInf, STORE_MIN);
+		return getMaxMin(igNan, igInf, StatisticsCache.MIN);
 	}
 
 	@Override
 	public Number positiveMin(boolean ignoreInvalids) {
-		return (Number) getMaxMin(ignoreInvalids, ignoreInvalids, STORE_POS_MIN);
+		return getMaxMin(ignoreInvalids, ignoreInvalids, StatisticsCache.POSITIVE_MIN);
 	}
 
 	@Override
 	public Number positiveMin(boolean ignoreNaNs, boolean ignoreInfs) {
-		return (Number) getMaxMin(ignoreNaNs, ignoreInfs, STORE_POS_MIN);
+		return getMaxMin(ignoreNaNs, ignoreInfs, StatisticsCache.POSITIVE_MIN);
 	}
 
 	@Override
@@ -2040,7 +2035,7 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 
 	@Override
 	public Dataset min(boolean ignoreNaNs, int axis) {
-		return (Dataset) getStatistics(ignoreNaNs, axis, STORE_MIN + "-" + axis);
+		return getStatistics(ignoreNaNs, axis).min;
 	}
 
 	@Override
@@ -2060,7 +2055,7 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 
 	@Override
 	public IntegerDataset argMax(boolean ignoreNaNs, int axis) {
-		return (IntegerDataset) getStatistics(ignoreNaNs, axis, STORE_MAX + STORE_INDEX + "-" + axis);
+		return getStatistics(ignoreNaNs, axis).maxIndex;
 	}
 
 	@Override
@@ -2080,7 +2075,7 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 
 	@Override
 	public IntegerDataset argMin(boolean ignoreNaNs, int axis) {
-		return (IntegerDataset) getStatistics(ignoreNaNs, axis, STORE_MIN + STORE_INDEX + "-" + axis);
+		return getStatistics(ignoreNaNs, axis).minIndex;
 	}
 
 	@Override
@@ -2100,7 +2095,7 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 
 	@Override
 	public long count(boolean ignoreNaNs) {
-		return getStatistics(ignoreNaNs).getN();
+		return getStatistics(ignoreNaNs).getCount();
 	}
 
 	@Override
@@ -2110,7 +2105,7 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 
 	@Override
 	public Dataset count(boolean ignoreNaNs, int axis) {
-		return (Dataset) getStatistics(ignoreNaNs, axis, STORE_COUNT + "-" + axis);
+		return getStatistics(ignoreNaNs, axis).count;
 	}
 
 	@Override
@@ -2130,7 +2125,7 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 
 	@Override
 	public Dataset sum(boolean ignoreNaNs, int axis) {
-		return (Dataset) getStatistics(ignoreNaNs, axis, STORE_SUM + "-" + axis);
+		return getStatistics(ignoreNaNs, axis).sum;
 	}
 
 	@Override
@@ -2181,7 +2176,7 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 
 	@Override
 	public Dataset mean(boolean ignoreNaNs, int axis) {
-		return (Dataset) getStatistics(ignoreNaNs, axis, STORE_MEAN + "-" + axis);
+		return getStatistics(ignoreNaNs, axis).mean;
 	}
 
 	@Override
@@ -2191,7 +2186,7 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 	
 	@Override
 	public Number variance(boolean isDatasetWholePopulation) {
-		SummaryStatistics stats = getStatistics(false);
+		Summary stats = getStatistics(false);
 
 		if (isDatasetWholePopulation) {
 			throw new UnsupportedOperationException("Calculating Variance on whole population requires Math3");
@@ -2207,7 +2202,7 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 
 	@Override
 	public Dataset variance(int axis) {
-		return (Dataset) getStatistics(false, axis, STORE_VAR + "-" + axis);
+		return getStatistics(false, axis).variance;
 	}
 
 	@Override
@@ -2222,21 +2217,21 @@ public abstract class AbstractDataset extends LazyDatasetBase implements Dataset
 
 	@Override
 	public Dataset stdDeviation(int axis) {
-		final Dataset v = (Dataset) getStatistics(false, axis, STORE_VAR + "-" + axis);
+		final Dataset v = getStatistics(false, axis).variance;
 		return Maths.sqrt(v);
 	}
 
 	@Override
 	public Number rootMeanSquare() {
-		final SummaryStatistics stats = getStatistics(false);
+		final Summary stats = getStatistics(false);
 		final double mean = stats.getMean();
 		return Math.sqrt(stats.getVariance() + mean * mean);
 	}
 
 	@Override
 	public Dataset rootMeanSquare(int axis) {
-		Dataset v = (Dataset) getStatistics(false, axis, STORE_VAR + "-" + axis);
-		Dataset m = (Dataset) getStatistics(false, axis, STORE_MEAN + "-" + axis);
+		Dataset v = getStatistics(false, axis).variance;
+		Dataset m = getStatistics(false, axis).mean;
 		Dataset result = Maths.power(m, 2);
 		return Maths.sqrt(result.iadd(v));
 	}
@@ -496,24 +496,24 @@ public class ComplexFloatDataset extends CompoundFloatDataset { // CLASS_TYPE
 	@Override
 	public Object sum() {
 		final String n = storeName(false, STORE_STATS_ITEM_NAME);
-		if (storedValues == null || storedValues.isEmpty()) {
+		if (getStoredValue(n + "0") == null) {
 			calculateSummaryStats(false, false, n);
 		}
 
-		final SummaryStatistics rstats = (SummaryStatistics) storedValues.get(n + "0");
-		final SummaryStatistics istats = (SummaryStatistics) storedValues.get(n + "1");
+		final SummaryStatistics rstats = (SummaryStatistics) getStoredValue(n + "0");
+		final SummaryStatistics istats = (SummaryStatistics) getStoredValue(n + "1");
 		return new Complex(rstats.getSum(), istats.getSum());
 	}
 
 	@Override
 	public Object mean(boolean... switches) {
 		final String n = storeName(false, STORE_STATS_ITEM_NAME);
-		if (storedValues == null || storedValues.isEmpty()) {
+		if (getStoredValue(n + "0") == null) {
 			calculateSummaryStats(false, false, n);
 		}
 
-		final SummaryStatistics rstats = (SummaryStatistics) storedValues.get(n + "0");
-		final SummaryStatistics istats = (SummaryStatistics) storedValues.get(n + "1");
+		final SummaryStatistics rstats = (SummaryStatistics) getStoredValue(n + "0");
+		final SummaryStatistics istats = (SummaryStatistics) getStoredValue(n + "1");
 		return new Complex(rstats.getMean(), istats.getMean());
 	}
 
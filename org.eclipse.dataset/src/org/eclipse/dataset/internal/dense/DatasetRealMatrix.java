@@ -0,0 +1,206 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.internal.dense;
+
+import org.apache.commons.math.linear.AbstractRealMatrix;
+import org.apache.commons.math.linear.Array2DRowRealMatrix;
+import org.apache.commons.math.linear.MatrixUtils;
+import org.apache.commons.math.linear.RealMatrix;
+import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.DatasetUtils;
+
+/**
+ * Real matrix that wraps a 2D double dataset. Entries are read from and written to the
+ * dataset's buffer directly, including for views with strides and an offset
+ */
+public class DatasetRealMatrix extends AbstractRealMatrix {
+	private final DoubleDataset dataset;
+	private final double[] data;
+	private final int rows;
+	private final int columns;
+	private final int offset;
+	private final int rstride;
+	private final int cstride;
+
+	/**
+	 * Wrap a dataset
+	 * @param dataset must be 2D
+	 */
+	public DatasetRealMatrix(final DoubleDataset dataset) {
+		if (dataset.getRank() != 2) {
+			throw new IllegalArgumentException("Dataset must be rank 2");
+		}
+		this.dataset = dataset;
+		data = dataset.getData();
+		int[] shape = dataset.getShapeRef();
+		rows = shape[0];
+		columns = shape[1];
+		int[] stride = dataset.getStrides();
+		if (stride == null) {
+			offset = 0;
+			rstride = columns;
+			cstride = 1;
+		} else {
+			offset = dataset.getOffset();
+			rstride = stride[0];
+			cstride = stride[1];
+		}
+	}
+
+	/**
+	 * Create a matrix of zeros
+	 * @param rows
+	 * @param columns
+	 */
+	public DatasetRealMatrix(final int rows, final int columns) {
+		this(new DoubleDataset(rows, columns));
+	}
+
+	/**
+	 * Create a matrix from a dataset. The dataset is wrapped if it is a 2D double dataset,
+	 * otherwise a converted copy is used
+	 * @param a
+	 * @return matrix
+	 */
+	public static DatasetRealMatrix createRealMatrix(final Dataset a) {
+		if (a.getRank() != 2) {
+			throw new IllegalArgumentException("Dataset must be rank 2");
+		}
+		return new DatasetRealMatrix((DoubleDataset) DatasetUtils.cast(a, Dataset.FLOAT64));
+	}
+
+	/**
+	 * Create a dataset from a matrix. The dataset is shared with wrapping matrices, otherwise
+	 * the entries are copied
+	 * @param m
+	 * @return 2D double dataset
+	 */
+	public static DoubleDataset createDataset(final RealMatrix m) {
+		if (m instanceof DatasetRealMatrix) {
+			return ((DatasetRealMatrix) m).dataset;
+		}
+
+		final int rows = m.getRowDimension();
+		final int columns = m.getColumnDimension();
+		DoubleDataset r = new DoubleDataset(rows, columns);
+		double[] rdata = r.getData();
+		if (m instanceof Array2DRowRealMatrix) {
+			double[][] mdata = ((Array2DRowRealMatrix) m).getDataRef();
+			for (int i = 0; i < rows; i++) {
+				System.arraycopy(mdata[i], 0, rdata, i * columns, columns);
+			}
+		} else {
+			int k = 0;
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < columns; j++) {
+					rdata[k++] = m.getEntry(i, j);
+				}
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * @return wrapped dataset
+	 */
+	public DoubleDataset getDataset() {
+		return dataset;
+	}
+
+	@Override
+	public DatasetRealMatrix createMatrix(final int rowDimension, final int columnDimension) {
+		return new DatasetRealMatrix(rowDimension, columnDimension);
+	}
+
+	@Override
+	public DatasetRealMatrix copy() {
+		return new DatasetRealMatrix(dataset.clone());
+	}
+
+	private int index(final int row, final int column) {
+		MatrixUtils.checkRowIndex(this, row);
+		MatrixUtils.checkColumnIndex(this, column);
+		return offset + row * rstride + column * cstride;
+	}
+
+	@Override
+	public double getEntry(final int row, final int column) {
+		return data[index(row, column)];
+	}
+
+	@Override
+	public void setEntry(final int row, final int column, final double value) {
+		data[index(row, column)] = value;
+		dataset.setDirty();
+	}
+
+	@Override
+	public void addToEntry(final int row, final int column, final double increment) {
+		data[index(row, column)] += increment;
+		dataset.setDirty();
+	}
+
+	@Override
+	public void multiplyEntry(final int row, final int column, final double factor) {
+		data[index(row, column)] *= factor;
+		dataset.setDirty();
+	}
+
+	@Override
+	public int getRowDimension() {
+		return rows;
+	}
+
+	@Override
+	public int getColumnDimension() {
+		return columns;
+	}
+
+	@Override
+	public double[] getRow(final int row) {
+		MatrixUtils.checkRowIndex(this, row);
+		final double[] r = new double[columns];
+		final int b = offset + row * rstride;
+		if (cstride == 1) {
+			System.arraycopy(data, b, r, 0, columns);
+		} else {
+			for (int j = 0; j < columns; j++) {
+				r[j] = data[b + j * cstride];
+			}
+		}
+		return r;
+	}
+
+	@Override
+	public double[][] getData() {
+		final double[][] d = new double[rows][];
+		for (int i = 0; i < rows; i++) {
+			d[i] = getRow(i);
+		}
+		return d;
+	}
+
+	@Override
+	public double[] operate(final double[] v) {
+		if (v.length != columns) {
+			throw new IllegalArgumentException("Vector length " + v.length + " does not match number of columns " + columns);
+		}
+		final double[] out = new double[rows];
+		for (int i = 0; i < rows; i++) {
+			final int b = offset + i * rstride;
+			double sum = 0;
+			for (int j = 0; j < columns; j++) {
+				sum += data[b + j * cstride] * v[j];
+			}
+			out[i] = sum;
+		}
+		return out;
+	}
+}
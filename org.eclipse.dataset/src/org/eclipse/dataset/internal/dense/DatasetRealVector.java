@@ -0,0 +1,191 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.internal.dense;
+
+import org.apache.commons.math.linear.AbstractRealVector;
+import org.apache.commons.math.linear.ArrayRealVector;
+import org.apache.commons.math.linear.RealVector;
+import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.DatasetUtils;
+
+/**
+ * Real vector that wraps a 1D double dataset. Entries are read from and written to the
+ * dataset's buffer directly, including for views with strides and an offset
+ */
+public class DatasetRealVector extends AbstractRealVector {
+	private final DoubleDataset dataset;
+	private final double[] data;
+	private final int size;
+	private final int offset;
+	private final int stride;
+
+	/**
+	 * Wrap a dataset
+	 * @param dataset must be 1D
+	 */
+	public DatasetRealVector(final DoubleDataset dataset) {
+		if (dataset.getRank() != 1) {
+			throw new IllegalArgumentException("Dataset must be rank 1");
+		}
+		this.dataset = dataset;
+		data = dataset.getData();
+		size = dataset.getSize();
+		int[] s = dataset.getStrides();
+		if (s == null) {
+			offset = 0;
+			stride = 1;
+		} else {
+			offset = dataset.getOffset();
+			stride = s[0];
+		}
+	}
+
+	/**
+	 * Create a vector from a dataset. The dataset is wrapped if it is a 1D double dataset,
+	 * otherwise a converted copy is used
+	 * @param a
+	 * @return vector
+	 */
+	public static DatasetRealVector createRealVector(final Dataset a) {
+		if (a.getRank() != 1) {
+			throw new IllegalArgumentException("Dataset must be rank 1");
+		}
+		return new DatasetRealVector((DoubleDataset) DatasetUtils.cast(a, Dataset.FLOAT64));
+	}
+
+	/**
+	 * Create a dataset from a vector. The dataset is shared with wrapping vectors and array
+	 * vectors, otherwise the entries are copied
+	 * @param v
+	 * @return 1D double dataset
+	 */
+	public static DoubleDataset createDataset(final RealVector v) {
+		if (v instanceof DatasetRealVector) {
+			return ((DatasetRealVector) v).dataset;
+		}
+		if (v instanceof ArrayRealVector) {
+			return new DoubleDataset(((ArrayRealVector) v).getDataRef());
+		}
+		return new DoubleDataset(v.getData());
+	}
+
+	/**
+	 * @return wrapped dataset
+	 */
+	public DoubleDataset getDataset() {
+		return dataset;
+	}
+
+	@Override
+	public DatasetRealVector copy() {
+		return new DatasetRealVector(dataset.clone());
+	}
+
+	@Override
+	public double getEntry(final int index) {
+		checkIndex(index);
+		return data[offset + index * stride];
+	}
+
+	@Override
+	public void setEntry(final int index, final double value) {
+		checkIndex(index);
+		data[offset + index * stride] = value;
+		dataset.setDirty();
+	}
+
+	@Override
+	public int getDimension() {
+		return size;
+	}
+
+	@Override
+	public double[] getData() {
+		final double[] d = new double[size];
+		if (stride == 1) {
+			System.arraycopy(data, offset, d, 0, size);
+		} else {
+			for (int i = 0; i < size; i++) {
+				d[i] = data[offset + i * stride];
+			}
+		}
+		return d;
+	}
+
+	@Override
+	public RealVector append(final RealVector v) {
+		return new ArrayRealVector(getData(), v.getData());
+	}
+
+	@Override
+	public RealVector append(final double d) {
+		return new ArrayRealVector(getData(), new double[] {d});
+	}
+
+	@Override
+	public RealVector append(final double[] a) {
+		return new ArrayRealVector(getData(), a);
+	}
+
+	@Override
+	public RealVector getSubVector(final int index, final int n) {
+		checkIndex(index);
+		checkIndex(index + n - 1);
+		return new DatasetRealVector((DoubleDataset) dataset.getSliceView(new int[] {index}, new int[] {index + n}, null));
+	}
+
+	@Override
+	public RealVector ebeMultiply(final RealVector v) {
+		checkVectorDimensions(v);
+		final double[] d = getData();
+		for (int i = 0; i < size; i++) {
+			d[i] *= v.getEntry(i);
+		}
+		return new ArrayRealVector(d, false);
+	}
+
+	@Override
+	public RealVector ebeDivide(final RealVector v) {
+		checkVectorDimensions(v);
+		final double[] d = getData();
+		for (int i = 0; i < size; i++) {
+			d[i] /= v.getEntry(i);
+		}
+		return new ArrayRealVector(d, false);
+	}
+
+	@Override
+	public RealVector projection(final RealVector v) {
+		return v.mapMultiply(dotProduct(v) / v.dotProduct(v));
+	}
+
+	@Override
+	public boolean isNaN() {
+		for (int i = 0; i < size; i++) {
+			if (Double.isNaN(data[offset + i * stride])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean isInfinite() {
+		if (isNaN()) {
+			return false;
+		}
+		for (int i = 0; i < size; i++) {
+			if (Double.isInfinite(data[offset + i * stride])) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -17,8 +17,6 @@ package org.eclipse.dataset.internal.dense;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
 
 import org.apache.commons.math.complex.Complex; // NAN_OMIT
 import org.eclipse.dataset.IDataset;
@@ -586,19 +584,15 @@ public class DoubleDataset extends AbstractDataset {
 
 	@Override
 	public DoubleDataset getUniqueItems() {
-		Set<Double> set = new TreeSet<Double>(); // CLASS_TYPE
+		double[] values = new double[size]; // PRIM_TYPE
 		IndexIterator it = getIterator();
+		int i = 0;
 		while (it.hasNext()) {
-			set.add(data[it.index]);
+			values[i++] = data[it.index];
 		}
 
-		DoubleDataset u = new DoubleDataset(set.size()); // CLASS_TYPE
-		int i = 0;
-		double[] udata = u.getData(); // PRIM_TYPE
-		for (Double v : set) { // CLASS_TYPE
-			udata[i++] = v;
-		}
-		return u;
+		double[] udata = UniqueUtils.unique(values); // PRIM_TYPE
+		return new DoubleDataset(udata, udata.length); // CLASS_TYPE
 	}
 
 	@Override
@@ -819,48 +813,27 @@ public class DoubleDataset extends AbstractDataset {
 		return posns;
 	}
 
-	@SuppressWarnings({ "unchecked" })
 	@Override
 	public int[] maxPos(boolean ignoreInvalids) {
-		if (storedValues == null || storedValues.isEmpty()) {
-			calculateMaxMin(ignoreInvalids, ignoreInvalids);
-		}
-		String n = storeName(ignoreInvalids, ignoreInvalids, STORE_MAX_POS);
-		Object o = storedValues.get(n);
-
-		List<int[]> max = null;
-		if (o == null) {
+		List<int[]> max = getCachedValue(StatisticsCache.MAX_POSITIONS, ignoreInvalids, ignoreInvalids);
+		if (max == null) {
 			max = findPositions(max(ignoreInvalids).doubleValue()); // PRIM_TYPE // NAN_OMIT
 			// max = findPositions(max(false).intValue() != 0); // BOOLEAN_USE
 			// max = findPositions(null); // OBJECT_USE
-			storedValues.put(n, max);
-		} else if (o instanceof List<?>) {
-			max = (List<int[]>) o;
-		} else {
-			throw new InternalError("Inconsistent internal state of stored values for statistics calculation");
+			setCachedValue(StatisticsCache.MAX_POSITIONS, ignoreInvalids, ignoreInvalids, max);
 		}
 
 		return max.get(0); // first maximum
 	}
 
-	@SuppressWarnings({ "unchecked" })
 	@Override
 	public int[] minPos(boolean ignoreInvalids) {
-		if (storedValues == null || storedValues.isEmpty()) {
-			calculateMaxMin(ignoreInvalids, ignoreInvalids);
-		}
-		String n = storeName(ignoreInvalids, ignoreInvalids, STORE_MIN_POS);
-		Object o = storedValues.get(n);
-		List<int[]> min = null;
-		if (o == null) {
+		List<int[]> min = getCachedValue(StatisticsCache.MIN_POSITIONS, ignoreInvalids, ignoreInvalids);
+		if (min == null) {
 			min = findPositions(min(ignoreInvalids).doubleValue()); // PRIM_TYPE // NAN_OMIT
 			// min = findPositions(min(false).intValue() != 0); // BOOLEAN_USE
 			// min = findPositions(null); // OBJECT_USE
-			storedValues.put(n, min);
-		} else if (o instanceof List<?>) {
-			min = (List<int[]>) o;
-		} else {
-			throw new InternalError("Inconsistent internal state of stored values for statistics calculation");
+			setCachedValue(StatisticsCache.MIN_POSITIONS, ignoreInvalids, ignoreInvalids, min);
 		}
 
 		return min.get(0); // first minimum
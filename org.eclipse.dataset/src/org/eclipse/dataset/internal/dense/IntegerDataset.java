@@ -17,8 +17,6 @@ package org.eclipse.dataset.internal.dense;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
 
 import org.apache.commons.math.complex.Complex;
 import org.eclipse.dataset.IDataset;
@@ -586,19 +584,15 @@ public class IntegerDataset extends AbstractDataset {
 
 	@Override
 	public IntegerDataset getUniqueItems() {
-		Set<Integer> set = new TreeSet<Integer>(); // CLASS_TYPE
+		int[] values = new int[size]; // PRIM_TYPE
 		IndexIterator it = getIterator();
+		int i = 0;
 		while (it.hasNext()) {
-			set.add(data[it.index]);
+			values[i++] = data[it.index];
 		}
 
-		IntegerDataset u = new IntegerDataset(set.size()); // CLASS_TYPE
-		int i = 0;
-		int[] udata = u.getData(); // PRIM_TYPE
-		for (Integer v : set) { // CLASS_TYPE
-			udata[i++] = v;
-		}
-		return u;
+		int[] udata = UniqueUtils.unique(values); // PRIM_TYPE
+		return new IntegerDataset(udata, udata.length); // CLASS_TYPE
 	}
 
 	@Override
@@ -812,48 +806,27 @@ public class IntegerDataset extends AbstractDataset {
 		return posns;
 	}
 
-	@SuppressWarnings({ "unchecked" })
 	@Override
 	public int[] maxPos(boolean ignoreInvalids) {
-		if (storedValues == null || storedValues.isEmpty()) {
-			calculateMaxMin(ignoreInvalids, ignoreInvalids);
-		}
-		String n = storeName(ignoreInvalids, ignoreInvalids, STORE_MAX_POS);
-		Object o = storedValues.get(n);
-
-		List<int[]> max = null;
-		if (o == null) {
+		List<int[]> max = getCachedValue(StatisticsCache.MAX_POSITIONS, ignoreInvalids, ignoreInvalids);
+		if (max == null) {
 			max = findPositions(max(ignoreInvalids).intValue()); // PRIM_TYPE
 			// max = findPositions(max(false).intValue() != 0); // BOOLEAN_USE
 			// max = findPositions(null); // OBJECT_USE
-			storedValues.put(n, max);
-		} else if (o instanceof List<?>) {
-			max = (List<int[]>) o;
-		} else {
-			throw new InternalError("Inconsistent internal state of stored values for statistics calculation");
+			setCachedValue(StatisticsCache.MAX_POSITIONS, ignoreInvalids, ignoreInvalids, max);
 		}
 
 		return max.get(0); // first maximum
 	}
 
-	@SuppressWarnings({ "unchecked" })
 	@Override
 	public int[] minPos(boolean ignoreInvalids) {
-		if (storedValues == null || storedValues.isEmpty()) {
-			calculateMaxMin(ignoreInvalids, ignoreInvalids);
-		}
-		String n = storeName(ignoreInvalids, ignoreInvalids, STORE_MIN_POS);
-		Object o = storedValues.get(n);
-		List<int[]> min = null;
-		if (o == null) {
+		List<int[]> min = getCachedValue(StatisticsCache.MIN_POSITIONS, ignoreInvalids, ignoreInvalids);
+		if (min == null) {
 			min = findPositions(min(ignoreInvalids).intValue()); // PRIM_TYPE
 			// min = findPositions(min(false).intValue() != 0); // BOOLEAN_USE
 			// min = findPositions(null); // OBJECT_USE
-			storedValues.put(n, min);
-		} else if (o instanceof List<?>) {
-			min = (List<int[]>) o;
-		} else {
-			throw new InternalError("Inconsistent internal state of stored values for statistics calculation");
+			setCachedValue(StatisticsCache.MIN_POSITIONS, ignoreInvalids, ignoreInvalids, min);
 		}
 
 		return min.get(0); // first minimum
@@ -29,6 +29,7 @@ import org.eclipse.dataset.SliceND;
 import org.eclipse.dataset.dense.Dataset;
 import org.eclipse.dataset.dense.DatasetUtils;
 import org.eclipse.dataset.dense.DTypeUtils;
+import org.eclipse.dataset.io.ChunkCache;
 import org.eclipse.dataset.io.ILazyLoader;
 import org.eclipse.dataset.metadata.MetadataType;
 import org.eclipse.dataset.metadata.OriginMetadataImpl;
@@ -53,6 +54,7 @@ public class LazyDataset extends LazyDatasetBase implements Serializable, Clonea
 	protected int[]       delSlice = null; // slice delta
 	protected int[]       map; // transposition map (same length as current shape)
 	protected Map<Class<? extends MetadataType>, List<MetadataType>> oMetadata = null;
+	protected transient ChunkCache cache = null; // use default when null
 
 	/**
 	 * Create a lazy dataset
@@ -207,6 +209,7 @@ public class LazyDataset extends LazyDatasetBase implements Serializable, Clonea
 		ret.base = base;
 		ret.metadata = copyMetadata();
 		ret.oMetadata = oMetadata;
+		ret.cache = cache;
 		return ret;
 	}
 
@@ -424,7 +427,12 @@ public class LazyDataset extends LazyDatasetBase implements Serializable, Clonea
 			a = base.getSlice(monitor, nslice);
 		} else {
 			try {
-				a = DatasetUtils.convertToDataset(loader.getDataset(monitor, nslice));
+				ChunkCache c = getCache();
+				if (c == null) {
+					a = DatasetUtils.convertToDataset(loader.getDataset(monitor, nslice));
+				} else {
+					a = c.getSlice(loader, monitor, nslice, getCacheChunking(), dtype, isize);
+				}
 			} catch (DatasetException e) {
 				// return a fake dataset to show that this has not worked, should not be used in general though.
 				logger.debug("Problem getting {}: {}", String.format("slice %s %s %s", Arrays.toString(slice.getStart()), Arrays.toString(slice.getStop()),
@@ -451,6 +459,63 @@ public class LazyDataset extends LazyDatasetBase implements Serializable, Clonea
 		return a;
 	}
 
+	/**
+	 * Read slice into part of given dataset. When chunks are cached, their selected elements are
+	 * copied straight into the output
+	 * @param monitor
+	 * @param slice
+	 * @param out
+	 * @param outStart position in output of first item of slice
+	 * @throws DatasetException
+	 */
+	public void getSlice(IMonitor monitor, SliceND slice, Dataset out, int[] outStart) throws DatasetException {
+		final int[] lshape = slice.getShape();
+		final int[] outStop = new int[lshape.length];
+		for (int i = 0; i < outStop.length; i++) {
+			outStop[i] = outStart[i] + lshape[i];
+		}
+
+		ChunkCache c = getCache();
+		if (base == null && map == null && c != null && loader != null && loader.isFileReadable()) {
+			// view of output region with loader's rank
+			SliceND nslice = calcTrueSlice(slice);
+			Dataset o = out.getSliceView(outStart, outStop, null);
+			o.setShape(nslice.getShape());
+			if (c.getSlice(loader, monitor, nslice, getCacheChunking(), dtype, isize, o, null) == null) {
+				throw new DatasetException("Could not read slice " + nslice);
+			}
+			return;
+		}
+
+		Dataset a = getSlice(monitor, slice);
+		if (a == null) {
+			throw new DatasetException("Could not read slice " + slice);
+		}
+		out.setSlice(a, outStart, outStop, null);
+	}
+
+	/**
+	 * Set cache used to load chunks
+	 * @param cache can be null to use default cache
+	 */
+	public void setCache(ChunkCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * @return cache used to load chunks (can be null if caching is disabled)
+	 */
+	public ChunkCache getCache() {
+		return cache == null ? ChunkCache.getDefault() : cache;
+	}
+
+	/**
+	 * @return chunk shape in cache (can be null to use cache's default)
+	 */
+	protected int[] getCacheChunking() {
+		return null;
+	}
+
 	// reverse transform
 	private int[] getOriginal(int[] values) {
 		if (values == null)
@@ -10,13 +10,16 @@
 package org.eclipse.dataset.internal.dense;
 
 import java.util.Arrays;
+import java.util.concurrent.Executor;
 
 import org.eclipse.dataset.DataEvent;
 import org.eclipse.dataset.DataListenerDelegate;
+import org.eclipse.dataset.DatasetUpdateService;
 import org.eclipse.dataset.IDataListener;
 import org.eclipse.dataset.IDatasetChangeChecker;
 import org.eclipse.dataset.IDynamicDataset;
 import org.eclipse.dataset.dense.DatasetUtils;
+import org.eclipse.dataset.io.ChunkCache;
 import org.eclipse.dataset.io.ILazyLoader;
 
 public class LazyDynamicDataset extends LazyDataset implements IDynamicDataset {
@@ -24,30 +27,8 @@ public class LazyDynamicDataset extends LazyDataset implements IDynamicDataset {
 
 	protected DataListenerDelegate eventDelegate;
 	protected IDatasetChangeChecker checker;
-	private boolean stop;
-
-	class PeriodicRunnable implements Runnable {
-		long millis;
-
-		@Override
-		public void run() {
-			while (!stop) {
-				try {
-					Thread.sleep(millis);
-				} catch (InterruptedException e) {
-					logger.error("Something has interrupted this periodic runner!");
-					stop = true; // ends runner
-				}
-				if (checker == null || checker.check()) {
-					fireDataListeners();
-				}
-			}				
-		}
-	}
-
-	private transient PeriodicRunnable runner = new PeriodicRunnable();
 
-	private Thread checkingThread;
+	private transient DatasetUpdateService.Registration registration;
 
 	public LazyDynamicDataset(String name, int dtype, int elements, int[] shape, int[] maxShape, ILazyLoader loader) {
 		super(name, dtype, elements, shape, loader);
@@ -84,6 +65,7 @@ public class LazyDynamicDataset extends LazyDataset implements IDynamicDataset {
 			size = Long.MAX_VALUE; // this indicates that the entire dataset cannot be read in! 
 		}
 
+		invalidateCache(); // edge chunks may have been cached partly filled
 		eventDelegate.fire(new DataEvent(name, shape));
 	}
 
@@ -132,6 +114,7 @@ public class LazyDynamicDataset extends LazyDataset implements IDynamicDataset {
 		ret.metadata = copyMetadata();
 		ret.oMetadata = oMetadata;
 		ret.eventDelegate = eventDelegate;
+		ret.cache = cache;
 		return ret;
 	}
 
@@ -147,12 +130,10 @@ public class LazyDynamicDataset extends LazyDataset implements IDynamicDataset {
 
 	@Override
 	public synchronized void startUpdateChecker(int milliseconds, IDatasetChangeChecker checker) {
-		// stop any current checking threads
-		if (checkingThread != null) {
-			stop = true;
-			if (checkingThread != null) {
-				checkingThread.interrupt();
-			}
+		// stop any current checks
+		if (registration != null) {
+			registration.cancel();
+			registration = null;
 		}
 		this.checker = checker;
 		if (checker != null) {
@@ -162,17 +143,36 @@ public class LazyDynamicDataset extends LazyDataset implements IDynamicDataset {
 			return;
 		}
 
-		runner.millis = milliseconds;
-		checkingThread = new Thread(runner);
-		checkingThread.setDaemon(true);
-		checkingThread.setName("Checking thread with period " + milliseconds + "ms");
-		checkingThread.start();
+		registration = DatasetUpdateService.register(this, milliseconds, checker);
 	}
 
+	/**
+	 * Set executor used to fire data listeners. Events fired before earlier ones have been
+	 * dispatched are coalesced
+	 * @param executor can be null to fire listeners on calling thread
+	 * @see DataListenerDelegate#setExecutor(Executor)
+	 */
+	public void setDataListenerExecutor(Executor executor) {
+		eventDelegate.setExecutor(executor);
+	}
+
+	/**
+	 * Alert any registered listeners. Chunks of the loader's data that have been cached are
+	 * discarded first as the data may have changed
+	 */
 	@Override
 	public void fireDataListeners() {
-		synchronized (eventDelegate) {
-			eventDelegate.fire(new DataEvent(name, shape));
+		invalidateCache();
+		eventDelegate.fire(new DataEvent(name, shape));
+	}
+
+	/**
+	 * Discard any cached chunks of the loader's data
+	 */
+	protected void invalidateCache() {
+		ChunkCache c = getCache();
+		if (c != null && loader != null) {
+			c.invalidate(loader);
 		}
 	}
 }
@@ -10,6 +10,7 @@
 package org.eclipse.dataset.internal.dense;
 
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 import org.eclipse.dataset.DataEvent;
 import org.eclipse.dataset.DatasetException;
@@ -21,6 +22,8 @@ import org.eclipse.dataset.SliceND;
 import org.eclipse.dataset.dense.Dataset;
 import org.eclipse.dataset.dense.DatasetFactory;
 import org.eclipse.dataset.dense.DatasetUtils;
+import org.eclipse.dataset.io.ChunkCache;
+import org.eclipse.dataset.io.ChunkWriteBuffer;
 import org.eclipse.dataset.io.ILazySaver;
 
 /**
@@ -29,6 +32,7 @@ import org.eclipse.dataset.io.ILazySaver;
 public class LazyWriteableDataset extends LazyDynamicDataset implements ILazyWriteableDataset {
 	private int[] chunks;
 	private ILazySaver saver;
+	private ChunkWriteBuffer writeBuffer;
 
 	/**
 	 * Create a lazy dataset
@@ -126,6 +130,11 @@ public class LazyWriteableDataset extends LazyDynamicDataset implements ILazyWri
 		this.chunks = chunks == null ? null : chunks.clone();
 	}
 
+	@Override
+	protected int[] getCacheChunking() {
+		return chunks;
+	}
+
 	@Override
 	public LazyWriteableDataset clone() {
 		LazyWriteableDataset ret = new LazyWriteableDataset(new String(name), getDType(), getElementsPerItem(), 
@@ -141,6 +150,8 @@ public class LazyWriteableDataset extends LazyDynamicDataset implements ILazyWri
 		ret.metadata = copyMetadata();
 		ret.oMetadata = oMetadata;
 		ret.eventDelegate = eventDelegate;
+		ret.cache = cache;
+		ret.writeBuffer = writeBuffer;
 		return ret;
 	}
 
@@ -186,7 +197,16 @@ public class LazyWriteableDataset extends LazyDynamicDataset implements ILazyWri
 		if (base != null) {
 			((ILazyWriteableDataset) base).setSlice(monitor, data, nslice);
 		} else {
-			saver.setSlice(monitor, data, nslice);
+			ChunkWriteBuffer b = writeBuffer;
+			if (b == null) {
+				saver.setSlice(monitor, data, nslice);
+				ChunkCache c = getCache();
+				if (c != null) {
+					c.invalidate(loader);
+				}
+			} else { // buffer invalidates cache once written
+				b.write(monitor, data, nslice);
+			}
 			oShape = nslice.getSourceShape();
 			shape = slice.getSourceShape();
 			eventDelegate.fire(new DataEvent(name, shape));
@@ -198,12 +218,107 @@ public class LazyWriteableDataset extends LazyDynamicDataset implements ILazyWri
 		setSlice(monitor, data, new SliceND(shape, maxShape, start, stop, step));
 	}
 
+	/**
+	 * Enable or disable write-behind. When enabled, slices are collected in memory into blocks that
+	 * match the chunking and each block is written in the background once it is full. Partially
+	 * filled blocks are written on {@link #flush()}, which is also done when write-behind is disabled.
+	 * Reading a slice first writes the buffered blocks that overlap it and any pending full blocks, in
+	 * the reading thread. Copies and views created before this call are not affected
+	 * @param enable
+	 * @throws DatasetException if chunking is not set or buffered data could not be written
+	 */
+	public void setWriteBehind(boolean enable) throws DatasetException {
+		setWriteBehind(enable, ChunkWriteBuffer.DEFAULT_MAX_PENDING, null);
+	}
+
+	/**
+	 * Enable or disable write-behind
+	 * @param enable
+	 * @param maxPending maximum number of full chunks waiting to be written before writers are blocked
+	 * @param executor used to write chunks (can be null to use shared pool)
+	 * @throws DatasetException if chunking is not set or buffered data could not be written
+	 * @see #setWriteBehind(boolean)
+	 */
+	public void setWriteBehind(boolean enable, int maxPending, Executor executor) throws DatasetException {
+		if (base != null) {
+			((LazyWriteableDataset) base).setWriteBehind(enable, maxPending, executor);
+			return;
+		}
+		flush();
+		if (!enable) {
+			writeBuffer = null;
+			return;
+		}
+		if (chunks == null) {
+			throw new DatasetException("Chunking must be set to use write-behind");
+		}
+		ChunkWriteBuffer b = new ChunkWriteBuffer(saver, oShape, maxShape, chunks, getDType(), getElementsPerItem(), maxPending, executor);
+		b.setCache(getCache());
+		writeBuffer = b;
+	}
+
+	/**
+	 * @return true if write-behind is enabled
+	 */
+	public boolean isWriteBehind() {
+		return base != null ? ((LazyWriteableDataset) base).isWriteBehind() : writeBuffer != null;
+	}
+
+	/**
+	 * Write any buffered slices and wait until they have been written
+	 * @throws DatasetException
+	 */
+	public void flush() throws DatasetException {
+		if (base != null) {
+			((LazyWriteableDataset) base).flush();
+			return;
+		}
+		ChunkWriteBuffer b = writeBuffer;
+		if (b != null) {
+			b.flush();
+		}
+	}
+
+	@Override
+	public Dataset getSlice(IMonitor monitor, SliceND slice) throws DatasetException {
+		flushOverlapping(slice);
+		return super.getSlice(monitor, slice);
+	}
+
+	@Override
+	public void getSlice(IMonitor monitor, SliceND slice, Dataset out, int[] outStart) throws DatasetException {
+		flushOverlapping(slice);
+		super.getSlice(monitor, slice, out, outStart);
+	}
+
+	/**
+	 * Write buffered data that overlaps slice and wait for it (views defer to their base)
+	 */
+	private void flushOverlapping(SliceND slice) throws DatasetException {
+		ChunkWriteBuffer b = writeBuffer;
+		if (base == null && b != null) {
+			b.flush(calcTrueSlice(slice));
+		}
+	}
+
+	@Override
+	public void setCache(ChunkCache cache) {
+		super.setCache(cache);
+		ChunkWriteBuffer b = writeBuffer;
+		if (b != null) {
+			b.setCache(getCache());
+		}
+	}
+
 	/**
 	 * Set saver (and also loader)
 	 * @param saver
 	 */
 	@Override
 	public void setSaver(ILazySaver saver) {
+		if (writeBuffer != null) {
+			throw new IllegalStateException("Write-behind must be disabled before changing saver");
+		}
 		this.saver = saver;
 		this.loader = saver;
 	}
@@ -0,0 +1,300 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.internal.dense;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.Summary;
+
+/**
+ * Cached statistics of a dataset. Statistics of the whole dataset are held in typed slots, one
+ * for each combination of ignoring NaNs and infinities, and statistics along an axis are held in
+ * a small table of {@link AxisStatistics}. Summaries along an axis are held in another table.
+ * Other values are held by name.
+ * <p>
+ * A cache can be shared by a dataset and its views when they have the same items: it is marked
+ * as shared and any holder must use a copy before changing it (see {@link #isShared()} and
+ * {@link #copy()}). All methods are synchronized so the cache can be read by many threads.
+ */
+final class StatisticsCache {
+
+	/**
+	 * Slot for a statistic of the whole dataset
+	 * @param <T> type of statistic
+	 */
+	static final class Slot<T> {
+		private final int index;
+
+		private Slot(int index) {
+			this.index = index;
+		}
+	}
+
+	static final Slot<Number> MAX = new Slot<Number>(0);
+	static final Slot<Number> MIN = new Slot<Number>(1);
+	static final Slot<Number> POSITIVE_MAX = new Slot<Number>(2);
+	static final Slot<Number> POSITIVE_MIN = new Slot<Number>(3);
+	static final Slot<List<int[]>> MAX_POSITIONS = new Slot<List<int[]>>(4);
+	static final Slot<List<int[]>> MIN_POSITIONS = new Slot<List<int[]>>(5);
+	static final Slot<Integer> SHAPELESS_HASH = new Slot<Integer>(6);
+	static final Slot<Summary> SUMMARY = new Slot<Summary>(7);
+
+	private static final int SLOTS = 8;
+	private static final int VARIANTS = 4;
+
+	/**
+	 * Statistics along an axis. These are calculated together and do not change
+	 */
+	static final class AxisStatistics {
+		final int axis;
+		final int variant;
+		final Dataset count;
+		final Dataset max;
+		final Dataset min;
+		final Dataset sum;
+		final Dataset mean;
+		final Dataset variance;
+		final IntegerDataset maxIndex;
+		final IntegerDataset minIndex;
+
+		/**
+		 * @param axis
+		 * @param ignoreNaNs
+		 * @param ignoreInfs
+		 * @param count
+		 * @param max can be null
+		 * @param min can be null
+		 * @param sum
+		 * @param mean
+		 * @param variance
+		 * @param maxIndex can be null
+		 * @param minIndex can be null
+		 */
+		AxisStatistics(int axis, boolean ignoreNaNs, boolean ignoreInfs, Dataset count, Dataset max, Dataset min,
+				Dataset sum, Dataset mean, Dataset variance, IntegerDataset maxIndex, IntegerDataset minIndex) {
+			this.axis = axis;
+			this.variant = getVariant(ignoreNaNs, ignoreInfs);
+			this.count = count;
+			this.max = max;
+			this.min = min;
+			this.sum = sum;
+			this.mean = mean;
+			this.variance = variance;
+			this.maxIndex = maxIndex;
+			this.minIndex = minIndex;
+		}
+	}
+
+	private final Object[] values;
+	private Integer hash;
+	private AxisStatistics[] axes;
+	private int axesUsed;
+	private Summary[] axisSummaries; // indexed by axis and variant
+	private HashMap<String, Object> others;
+	private boolean shared;
+
+	StatisticsCache() {
+		values = new Object[SLOTS * VARIANTS];
+		axes = new AxisStatistics[0];
+	}
+
+	private StatisticsCache(StatisticsCache c) {
+		values = c.values.clone();
+		hash = c.hash;
+		axes = Arrays.copyOf(c.axes, c.axesUsed);
+		axesUsed = c.axesUsed;
+		axisSummaries = c.axisSummaries == null ? null : c.axisSummaries.clone();
+		others = c.others == null ? null : new HashMap<String, Object>(c.others);
+	}
+
+	private static int getVariant(boolean ignoreNaNs, boolean ignoreInfs) {
+		return (ignoreNaNs ? 1 : 0) + (ignoreInfs ? 2 : 0);
+	}
+
+	/**
+	 * Mark cache as shared
+	 * @return this
+	 */
+	synchronized StatisticsCache share() {
+		shared = true;
+		return this;
+	}
+
+	/**
+	 * @return true if cache is shared and must be copied before it is changed
+	 */
+	synchronized boolean isShared() {
+		return shared;
+	}
+
+	/**
+	 * @return unshared copy
+	 */
+	synchronized StatisticsCache copy() {
+		return new StatisticsCache(this);
+	}
+
+	/**
+	 * @param slot
+	 * @param ignoreNaNs
+	 * @param ignoreInfs
+	 * @return value or null if not cached
+	 */
+	@SuppressWarnings("unchecked")
+	synchronized <T> T get(Slot<T> slot, boolean ignoreNaNs, boolean ignoreInfs) {
+		return (T) values[slot.index * VARIANTS + getVariant(ignoreNaNs, ignoreInfs)];
+	}
+
+	/**
+	 * @param slot
+	 * @param ignoreNaNs
+	 * @param ignoreInfs
+	 * @param value can be null to remove value
+	 */
+	synchronized <T> void put(Slot<T> slot, boolean ignoreNaNs, boolean ignoreInfs, T value) {
+		values[slot.index * VARIANTS + getVariant(ignoreNaNs, ignoreInfs)] = value;
+	}
+
+	/**
+	 * @return hash of dataset (which depends on shape) or null if not cached
+	 */
+	synchronized Integer getHash() {
+		return hash;
+	}
+
+	/**
+	 * @param hash
+	 */
+	synchronized void setHash(Integer hash) {
+		this.hash = hash;
+	}
+
+	/**
+	 * @param axis
+	 * @param ignoreNaNs
+	 * @param ignoreInfs
+	 * @return statistics along axis or null if not cached
+	 */
+	synchronized AxisStatistics getAxisStatistics(int axis, boolean ignoreNaNs, boolean ignoreInfs) {
+		final int v = getVariant(ignoreNaNs, ignoreInfs);
+		for (int i = 0; i < axesUsed; i++) {
+			final AxisStatistics s = axes[i];
+			if (s.axis == axis && s.variant == v) {
+				return s;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Add statistics along an axis, replacing any with the same axis and treatment of NaNs and infinities
+	 * @param stats
+	 */
+	synchronized void putAxisStatistics(AxisStatistics stats) {
+		for (int i = 0; i < axesUsed; i++) {
+			final AxisStatistics s = axes[i];
+			if (s.axis == stats.axis && s.variant == stats.variant) {
+				axes[i] = stats;
+				return;
+			}
+		}
+		if (axesUsed == axes.length) {
+			axes = Arrays.copyOf(axes, Math.max(2, 2 * axesUsed));
+		}
+		axes[axesUsed++] = stats;
+	}
+
+	/**
+	 * @param axis
+	 * @param ignoreNaNs
+	 * @param ignoreInfs
+	 * @return summary along axis or null if not cached
+	 */
+	synchronized Summary getAxisSummary(int axis, boolean ignoreNaNs, boolean ignoreInfs) {
+		final int i = axis * VARIANTS + getVariant(ignoreNaNs, ignoreInfs);
+		return axisSummaries == null || i >= axisSummaries.length ? null : axisSummaries[i];
+	}
+
+	/**
+	 * @param axis
+	 * @param ignoreNaNs
+	 * @param ignoreInfs
+	 * @param summary can be null to remove summary
+	 */
+	synchronized void putAxisSummary(int axis, boolean ignoreNaNs, boolean ignoreInfs, Summary summary) {
+		final int i = axis * VARIANTS + getVariant(ignoreNaNs, ignoreInfs);
+		if (axisSummaries == null) {
+			axisSummaries = new Summary[i + VARIANTS];
+		} else if (i >= axisSummaries.length) {
+			axisSummaries = Arrays.copyOf(axisSummaries, i + VARIANTS);
+		}
+		axisSummaries[i] = summary;
+	}
+
+	/**
+	 * @param key
+	 * @return named value or null if not cached
+	 */
+	synchronized Object get(String key) {
+		return others == null ? null : others.get(key);
+	}
+
+	/**
+	 * @param key
+	 * @param value can be null to remove value
+	 */
+	synchronized void put(String key, Object value) {
+		if (value == null) {
+			if (others != null) {
+				others.remove(key);
+			}
+			return;
+		}
+		if (others == null) {
+			others = new HashMap<String, Object>();
+		}
+		others.put(key, value);
+	}
+
+	/**
+	 * Remove hashes as they depend on the dataset type
+	 */
+	synchronized void clearHashes() {
+		hash = null;
+		final int start = SHAPELESS_HASH.index * VARIANTS;
+		Arrays.fill(values, start, start + VARIANTS, null);
+	}
+
+	/**
+	 * Remove values that depend on shape: the hash, statistics and summaries along axes and named
+	 * values whose names contain a hyphen
+	 */
+	synchronized void clearShapeDependent() {
+		hash = null;
+		Arrays.fill(axes, 0, axesUsed, null);
+		axesUsed = 0;
+		axisSummaries = null;
+		if (others != null) {
+			List<String> keys = new ArrayList<String>();
+			for (String n : others.keySet()) {
+				if (n.contains("-")) { // remove anything which is axis-specific
+					keys.add(n);
+				}
+			}
+			for (String n : keys) {
+				others.remove(n);
+			}
+		}
+	}
+}
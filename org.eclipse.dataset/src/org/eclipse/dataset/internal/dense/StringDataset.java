@@ -120,7 +120,7 @@ public class StringDataset extends StringDatasetBase {
 		}
 
 		int ihash = ((int) hash) * 19 + getDType() * 17 + getElementsPerItem();
-		setStoredValue(storeName(ignoreNaNs, ignoreInfs, STORE_SHAPELESS_HASH), ihash);
+		setCachedValue(StatisticsCache.SHAPELESS_HASH, ignoreNaNs, ignoreInfs, ihash);
 	}
 
 	@Override
@@ -0,0 +1,358 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.internal.dense;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.eclipse.dataset.dense.ParallelUtils;
+
+/**
+ * Find unique values in primitive arrays without boxing. Values are sorted and adjacent
+ * duplicates are removed; byte and short values are counted instead. Large arrays are sorted
+ * in runs on the {@link ParallelUtils} pool and the deduplicated runs are then merged.
+ * <p>
+ * Floating point values are ordered as by {@link Arrays#sort(double[])} so negative zero
+ * comes before positive zero and NaNs are last.
+ * <p>
+ * The given arrays are reordered.
+ */
+final class UniqueUtils {
+
+	private UniqueUtils() {
+	}
+
+	/**
+	 * @param n number of values
+	 * @return boundaries of runs or null if values should not be split
+	 */
+	private static int[] getRuns(final int n) {
+		if (!ParallelUtils.shouldSplit(n)) {
+			return null;
+		}
+		final int runs = ParallelUtils.getNumberOfChunks(n);
+		if (runs <= 1) {
+			return null;
+		}
+		final int[] bounds = new int[runs + 1];
+		for (int r = 0; r <= runs; r++) {
+			bounds[r] = (int) (((long) r * n) / runs);
+		}
+		return bounds;
+	}
+
+	static double[] unique(final double[] values) {
+		final int[] bounds = getRuns(values.length);
+		if (bounds == null) {
+			return sortUnique(values, 0, values.length);
+		}
+		final List<Callable<double[]>> tasks = new ArrayList<Callable<double[]>>();
+		for (int r = 1; r < bounds.length; r++) {
+			final int b = bounds[r - 1];
+			final int e = bounds[r];
+			tasks.add(new Callable<double[]>() {
+				@Override
+				public double[] call() throws Exception {
+					return sortUnique(values, b, e);
+				}
+			});
+		}
+		double[] u = null;
+		for (double[] r : ParallelUtils.invokeAll(tasks)) {
+			u = u == null ? r : merge(u, r);
+		}
+		return u;
+	}
+
+	private static double[] sortUnique(final double[] values, final int begin, final int end) {
+		Arrays.sort(values, begin, end);
+		int n = begin;
+		for (int i = begin; i < end; i++) {
+			if (n == begin || Double.compare(values[n - 1], values[i]) != 0) {
+				values[n++] = values[i];
+			}
+		}
+		return Arrays.copyOfRange(values, begin, n);
+	}
+
+	private static double[] merge(final double[] a, final double[] b) {
+		final double[] m = new double[a.length + b.length];
+		int i = 0, j = 0, n = 0;
+		while (i < a.length && j < b.length) {
+			final int c = Double.compare(a[i], b[j]);
+			m[n++] = c <= 0 ? a[i] : b[j];
+			if (c <= 0) {
+				i++;
+			}
+			if (c >= 0) {
+				j++;
+			}
+		}
+		while (i < a.length) {
+			m[n++] = a[i++];
+		}
+		while (j < b.length) {
+			m[n++] = b[j++];
+		}
+		return Arrays.copyOf(m, n);
+	}
+
+	static float[] unique(final float[] values) {
+		final int[] bounds = getRuns(values.length);
+		if (bounds == null) {
+			return sortUnique(values, 0, values.length);
+		}
+		final List<Callable<float[]>> tasks = new ArrayList<Callable<float[]>>();
+		for (int r = 1; r < bounds.length; r++) {
+			final int b = bounds[r - 1];
+			final int e = bounds[r];
+			tasks.add(new Callable<float[]>() {
+				@Override
+				public float[] call() throws Exception {
+					return sortUnique(values, b, e);
+				}
+			});
+		}
+		float[] u = null;
+		for (float[] r : ParallelUtils.invokeAll(tasks)) {
+			u = u == null ? r : merge(u, r);
+		}
+		return u;
+	}
+
+	private static float[] sortUnique(final float[] values, final int begin, final int end) {
+		Arrays.sort(values, begin, end);
+		int n = begin;
+		for (int i = begin; i < end; i++) {
+			if (n == begin || Float.compare(values[n - 1], values[i]) != 0) {
+				values[n++] = values[i];
+			}
+		}
+		return Arrays.copyOfRange(values, begin, n);
+	}
+
+	private static float[] merge(final float[] a, final float[] b) {
+		final float[] m = new float[a.length + b.length];
+		int i = 0, j = 0, n = 0;
+		while (i < a.length && j < b.length) {
+			final int c = Float.compare(a[i], b[j]);
+			m[n++] = c <= 0 ? a[i] : b[j];
+			if (c <= 0) {
+				i++;
+			}
+			if (c >= 0) {
+				j++;
+			}
+		}
+		while (i < a.length) {
+			m[n++] = a[i++];
+		}
+		while (j < b.length) {
+			m[n++] = b[j++];
+		}
+		return Arrays.copyOf(m, n);
+	}
+
+	static long[] unique(final long[] values) {
+		final int[] bounds = getRuns(values.length);
+		if (bounds == null) {
+			return sortUnique(values, 0, values.length);
+		}
+		final List<Callable<long[]>> tasks = new ArrayList<Callable<long[]>>();
+		for (int r = 1; r < bounds.length; r++) {
+			final int b = bounds[r - 1];
+			final int e = bounds[r];
+			tasks.add(new Callable<long[]>() {
+				@Override
+				public long[] call() throws Exception {
+					return sortUnique(values, b, e);
+				}
+			});
+		}
+		long[] u = null;
+		for (long[] r : ParallelUtils.invokeAll(tasks)) {
+			u = u == null ? r : merge(u, r);
+		}
+		return u;
+	}
+
+	private static long[] sortUnique(final long[] values, final int begin, final int end) {
+		Arrays.sort(values, begin, end);
+		int n = begin;
+		for (int i = begin; i < end; i++) {
+			if (n == begin || values[n - 1] != values[i]) {
+				values[n++] = values[i];
+			}
+		}
+		return Arrays.copyOfRange(values, begin, n);
+	}
+
+	private static long[] merge(final long[] a, final long[] b) {
+		final long[] m = new long[a.length + b.length];
+		int i = 0, j = 0, n = 0;
+		while (i < a.length && j < b.length) {
+			final long x = a[i];
+			final long y = b[j];
+			m[n++] = x <= y ? x : y;
+			if (x <= y) {
+				i++;
+			}
+			if (x >= y) {
+				j++;
+			}
+		}
+		while (i < a.length) {
+			m[n++] = a[i++];
+		}
+		while (j < b.length) {
+			m[n++] = b[j++];
+		}
+		return Arrays.copyOf(m, n);
+	}
+
+	static int[] unique(final int[] values) {
+		final int[] bounds = getRuns(values.length);
+		if (bounds == null) {
+			return sortUnique(values, 0, values.length);
+		}
+		final List<Callable<int[]>> tasks = new ArrayList<Callable<int[]>>();
+		for (int r = 1; r < bounds.length; r++) {
+			final int b = bounds[r - 1];
+			final int e = bounds[r];
+			tasks.add(new Callable<int[]>() {
+				@Override
+				public int[] call() throws Exception {
+					return sortUnique(values, b, e);
+				}
+			});
+		}
+		int[] u = null;
+		for (int[] r : ParallelUtils.invokeAll(tasks)) {
+			u = u == null ? r : merge(u, r);
+		}
+		return u;
+	}
+
+	private static int[] sortUnique(final int[] values, final int begin, final int end) {
+		Arrays.sort(values, begin, end);
+		int n = begin;
+		for (int i = begin; i < end; i++) {
+			if (n == begin || values[n - 1] != values[i]) {
+				values[n++] = values[i];
+			}
+		}
+		return Arrays.copyOfRange(values, begin, n);
+	}
+
+	private static int[] merge(final int[] a, final int[] b) {
+		final int[] m = new int[a.length + b.length];
+		int i = 0, j = 0, n = 0;
+		while (i < a.length && j < b.length) {
+			final int x = a[i];
+			final int y = b[j];
+			m[n++] = x <= y ? x : y;
+			if (x <= y) {
+				i++;
+			}
+			if (x >= y) {
+				j++;
+			}
+		}
+		while (i < a.length) {
+			m[n++] = a[i++];
+		}
+		while (j < b.length) {
+			m[n++] = b[j++];
+		}
+		return Arrays.copyOf(m, n);
+	}
+
+	static short[] unique(final short[] values) {
+		final boolean[] seen = new boolean[1 << 16];
+		int n = 0;
+		for (short v : values) {
+			final int k = v - Short.MIN_VALUE;
+			if (!seen[k]) {
+				seen[k] = true;
+				n++;
+			}
+		}
+		final short[] u = new short[n];
+		for (int k = 0, i = 0; i < n; k++) {
+			if (seen[k]) {
+				u[i++] = (short) (k + Short.MIN_VALUE);
+			}
+		}
+		return u;
+	}
+
+	static byte[] unique(final byte[] values) {
+		final boolean[] seen = new boolean[1 << 8];
+		int n = 0;
+		for (byte v : values) {
+			final int k = v - Byte.MIN_VALUE;
+			if (!seen[k]) {
+				seen[k] = true;
+				n++;
+			}
+		}
+		final byte[] u = new byte[n];
+		for (int k = 0, i = 0; i < n; k++) {
+			if (seen[k]) {
+				u[i++] = (byte) (k + Byte.MIN_VALUE);
+			}
+		}
+		return u;
+	}
+
+	static boolean[] unique(final boolean[] values) {
+		boolean f = false;
+		boolean t = false;
+		for (boolean v : values) {
+			if (v) {
+				t = true;
+			} else {
+				f = true;
+			}
+			if (t && f) {
+				break;
+			}
+		}
+		if (t && f) {
+			return new boolean[] {false, true};
+		}
+		return t ? new boolean[] {true} : (f ? new boolean[] {false} : new boolean[0]);
+	}
+
+	static <T extends Comparable<? super T>> T[] unique(final T[] values) {
+		Arrays.sort(values);
+		int n = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (n == 0 || values[n - 1].compareTo(values[i]) != 0) {
+				values[n++] = values[i];
+			}
+		}
+		return Arrays.copyOf(values, n);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static Object[] unique(final Object[] values) {
+		Arrays.sort(values);
+		int n = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (n == 0 || ((Comparable) values[n - 1]).compareTo(values[i]) != 0) {
+				values[n++] = values[i];
+			}
+		}
+		return Arrays.copyOf(values, n);
+	}
+}
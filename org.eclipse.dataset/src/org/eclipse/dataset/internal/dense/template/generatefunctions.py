@@ -198,10 +198,41 @@ def beginmethod(name, jdoc=None, params=0):
         print("\t\tfinal double %s = DTypeUtils.toReal(%s);" % (p+"x", p))
 #        print("\t\tfinal double %s = AbstractDataset.toImag(%s);" % (p+"y", p))
 
+    parallelblock(name, jdoc, plist)
     print("")
     print("\t\tswitch(dt) {")
 
 
+def parallelblock(name, jdoc, plist):
+    ptext = ""
+    for p in plist:
+        ptext += ", %s" % p
+    print("")
+    if is_binaryop:
+        print("\t\tif (isParallel(da, db, result)) {")
+        print("\t\t\trunInParallel(da, db, result, new BinaryChunkFunction() {")
+        print("\t\t\t\t@Override")
+        print("\t\t\t\tpublic void run(final Dataset ca, final Dataset cb, final Dataset co) {")
+        print("\t\t\t\t\t%s(ca, cb, co%s);" % (name, ptext))
+    else:
+        print("\t\tif (isParallel(da, result)) {")
+        print("\t\t\trunInParallel(da, result, new UnaryChunkFunction() {")
+        print("\t\t\t\t@Override")
+        print("\t\t\t\tpublic void run(final Dataset ca, final Dataset co) {")
+        print("\t\t\t\t\t%s(ca, co%s);" % (name, ptext))
+    print("\t\t\t\t}")
+    print("\t\t\t});")
+    addname(name, jdoc, "\t\t\t")
+    print("\t\t\treturn result;")
+    print("\t\t}")
+
+def addname(name, jdoc, prefix):
+    if is_binaryop:
+        opsym = jdoc.split()[1]
+        print("%saddBinaryOperatorName(da, db, result, \"%s\");" % (prefix, opsym))
+    else:
+        print("%saddFunctionName(result, \"%s\");" % (prefix, name))
+
 def endmethod(name, jdoc, types):
     print("\t\tdefault:")
     dtypes = types[0]
@@ -209,11 +240,7 @@ def endmethod(name, jdoc, types):
         dtypes += ", %s" % t
     print("\t\t\tthrow new IllegalArgumentException(\"%s supports %s datasets only\");" % (name, dtypes))
     print("\t\t}\n")
-    if is_binaryop:
-        opsym = jdoc.split()[1]
-        print("\t\taddBinaryOperatorName(da, db, result, \"%s\");" % opsym)
-    else:
-        print("\t\taddFunctionName(result, \"%s\");" % name)
+    addname(name, jdoc, "\t\t")
     print("\t\treturn result;")
     print("\t}\n")
 
@@ -0,0 +1,149 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.io;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.dataset.DatasetException;
+import org.eclipse.dataset.IDataset;
+import org.eclipse.dataset.ILazyDataset;
+import org.eclipse.dataset.IMonitor;
+import org.eclipse.dataset.SliceND;
+
+/**
+ * Reads slices of lazy datasets on a background pool.
+ * <p>
+ * By default, slices are read on a shared pool of daemon threads that is created when first
+ * needed. Slices of the same lazy dataset may be read concurrently so use a single threaded
+ * executor for loaders that do not support concurrent reads.
+ */
+public class AsyncSliceReader {
+	private static ExecutorService executor = null;
+
+	private static boolean ownExecutor = false;
+
+	private static final ThreadLocal<Boolean> reading = new ThreadLocal<Boolean>();
+
+	/**
+	 * Set executor used to read slices
+	 * @param executor can be null to use a shared pool
+	 */
+	public static synchronized void setExecutor(ExecutorService executor) {
+		ExecutorService old = AsyncSliceReader.executor;
+		AsyncSliceReader.executor = executor;
+		if (ownExecutor && old != null && old != executor) {
+			old.shutdown();
+		}
+		ownExecutor = false;
+	}
+
+	/**
+	 * @return executor used to read slices
+	 */
+	public static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(final Runnable r) {
+					Thread t = new Thread(new Runnable() {
+						@Override
+						public void run() {
+							reading.set(Boolean.TRUE);
+							r.run();
+						}
+					}, "Slice reader " + count.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			ownExecutor = true;
+		}
+		return executor;
+	}
+
+	/**
+	 * Read slice in background
+	 * @param data
+	 * @param slice
+	 * @return future slice
+	 */
+	public static Future<IDataset> getSlice(final ILazyDataset data, final SliceND slice) {
+		return getSlice(getExecutor(), data, null, slice);
+	}
+
+	/**
+	 * Read slice in background
+	 * @param executor
+	 * @param data
+	 * @param monitor can be null
+	 * @param slice
+	 * @return future slice
+	 */
+	public static Future<IDataset> getSlice(final ExecutorService executor, final ILazyDataset data, final IMonitor monitor, final SliceND slice) {
+		final SliceND s = slice.clone();
+		return executor.submit(new Callable<IDataset>() {
+			@Override
+			public IDataset call() throws Exception {
+				Boolean old = reading.get();
+				reading.set(Boolean.TRUE);
+				try {
+					return data.getSlice(monitor, s);
+				} finally {
+					reading.set(old);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Callers that wait on a pool should not do so from a thread of that pool as all its
+	 * threads could end up waiting
+	 * @return true if current thread is in shared pool or is reading a slice in background
+	 */
+	public static boolean isReaderThread() {
+		return Boolean.TRUE.equals(reading.get());
+	}
+
+	/**
+	 * Wait for a slice to be read
+	 * @param future
+	 * @return slice
+	 * @throws DatasetException if the read failed, was cancelled or interrupted
+	 */
+	public static <T> T get(final Future<T> future) throws DatasetException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DatasetException("Interrupted while waiting for slice", e);
+		} catch (CancellationException e) {
+			throw new DatasetException("Slice cancelled", e);
+		} catch (ExecutionException e) {
+			Throwable c = e.getCause();
+			if (c instanceof DatasetException) {
+				throw (DatasetException) c;
+			} else if (c instanceof RuntimeException) {
+				throw (RuntimeException) c;
+			} else if (c instanceof Error) {
+				throw (Error) c;
+			}
+			throw new DatasetException("Could not read slice", c);
+		}
+	}
+}
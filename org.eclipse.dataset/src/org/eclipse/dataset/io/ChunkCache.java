@@ -0,0 +1,456 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.io;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+import org.eclipse.dataset.DatasetException;
+import org.eclipse.dataset.IDataset;
+import org.eclipse.dataset.IMonitor;
+import org.eclipse.dataset.SliceND;
+import org.eclipse.dataset.dense.DTypeUtils;
+import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.DatasetFactory;
+import org.eclipse.dataset.dense.DatasetUtils;
+
+/**
+ * Least-recently used cache of chunks read by lazy loaders. It is bounded by the total number
+ * of bytes held in cached chunks.
+ * <p>
+ * Slices are read by splitting a loader's shape into a regular grid of chunks and loading each
+ * chunk that overlaps the requested slice. Chunks are keyed by loader identity and chunk position
+ * so overlapping slices are served from chunks that have already been read.
+ * <p>
+ * Cached chunks are not updated when the source is modified so use {@link #invalidate(ILazyLoader)}
+ * after writing to a source. Chunks being read while an invalidation occurs are not cached.
+ */
+public class ChunkCache {
+	/**
+	 * Default maximum number of bytes held in cache
+	 */
+	public static final long DEFAULT_MAX_BYTES = 256L << 20;
+
+	/**
+	 * Default target number of bytes in a chunk
+	 */
+	public static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+
+	private static volatile ChunkCache defaultCache = null;
+
+	private final LinkedHashMap<Key, Dataset> chunks;
+	private final long maxBytes;
+	private final int chunkBytes;
+	private long bytes;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long generation; // incremented by each invalidation
+
+	private static class Key {
+		private final ILazyLoader loader;
+		private final int[] start;
+		private final int[] stop;
+		private final int hash;
+
+		public Key(ILazyLoader loader, int[] start, int[] stop) {
+			this.loader = loader;
+			this.start = start;
+			this.stop = stop;
+			hash = (System.identityHashCode(loader) * 31 + Arrays.hashCode(start)) * 31 + Arrays.hashCode(stop);
+		}
+
+		boolean overlaps(int[] rstart, int[] rstop) {
+			if (rstart.length != start.length) {
+				return true;
+			}
+			for (int i = 0; i < start.length; i++) {
+				if (rstop[i] <= start[i] || rstart[i] >= stop[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return loader == other.loader && Arrays.equals(start, other.start) && Arrays.equals(stop, other.stop);
+		}
+	}
+
+	/**
+	 * Create a cache with default maximum size and chunk size
+	 */
+	public ChunkCache() {
+		this(DEFAULT_MAX_BYTES, DEFAULT_CHUNK_BYTES);
+	}
+
+	/**
+	 * Create a cache
+	 * @param maxBytes maximum number of bytes held in cache
+	 * @param chunkBytes target number of bytes in a chunk when chunk shape is not specified
+	 */
+	public ChunkCache(long maxBytes, int chunkBytes) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("Maximum size must not be negative");
+		}
+		if (chunkBytes < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive");
+		}
+		this.maxBytes = maxBytes;
+		this.chunkBytes = chunkBytes;
+		chunks = new LinkedHashMap<Key, Dataset>(16, 0.75f, true);
+	}
+
+	/**
+	 * Set cache used by lazy datasets that do not have their own cache
+	 * @param cache can be null to disable caching
+	 */
+	public static void setDefault(ChunkCache cache) {
+		defaultCache = cache;
+	}
+
+	/**
+	 * @return cache used by lazy datasets that do not have their own cache (can be null)
+	 */
+	public static ChunkCache getDefault() {
+		return defaultCache;
+	}
+
+	/**
+	 * @return maximum number of bytes held in cache
+	 */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * @return number of bytes held in cache
+	 */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return number of chunks held in cache
+	 */
+	public synchronized int getNumberOfChunks() {
+		return chunks.size();
+	}
+
+	/**
+	 * @return number of chunks served from cache
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return number of chunks read from loaders
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return number of chunks removed to keep cache within its maximum size
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Reset hit, miss and eviction counters
+	 */
+	public synchronized void resetCounters() {
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+
+	/**
+	 * Remove all chunks
+	 */
+	public synchronized void clear() {
+		chunks.clear();
+		bytes = 0;
+		generation++;
+	}
+
+	/**
+	 * Remove all chunks read from given loader
+	 * @param loader
+	 */
+	public void invalidate(ILazyLoader loader) {
+		invalidate(loader, null, null);
+	}
+
+	/**
+	 * Remove chunks read from given loader that overlap a region
+	 * @param loader
+	 * @param start of region (can be null for whole of source)
+	 * @param stop of region (can be null for whole of source)
+	 */
+	public synchronized void invalidate(ILazyLoader loader, int[] start, int[] stop) {
+		generation++;
+		Iterator<Entry<Key, Dataset>> it = chunks.entrySet().iterator();
+		while (it.hasNext()) {
+			Entry<Key, Dataset> e = it.next();
+			Key k = e.getKey();
+			if (k.loader == loader && (start == null || k.overlaps(start, stop))) {
+				bytes -= e.getValue().getNbytes();
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Get default chunk shape. This keeps the trailing dimensions whole and splits the leading
+	 * dimensions so that a chunk does not exceed the target number of bytes, where possible
+	 * @param shape
+	 * @param dtype can be -1 for unknown
+	 * @param isize number of elements per item (can be -1 for unknown)
+	 * @return chunk shape
+	 */
+	public int[] getChunkShape(int[] shape, int dtype, int isize) {
+		final int rank = shape.length;
+		final int[] chunk = shape.clone();
+		long itemBytes = dtype < 0 ? 8 : DTypeUtils.getItemsize(dtype, Math.max(1, isize));
+		long inner = itemBytes;
+		for (int i = 0; i < rank; i++) {
+			inner *= Math.max(1, shape[i]);
+		}
+		for (int i = 0; i < rank; i++) {
+			final int l = Math.max(1, shape[i]);
+			inner /= l;
+			if (inner * l <= chunkBytes) {
+				break;
+			}
+			chunk[i] = (int) Math.max(1, chunkBytes / inner);
+		}
+		for (int i = 0; i < rank; i++) {
+			if (chunk[i] < 1) {
+				chunk[i] = 1;
+			}
+		}
+		return chunk;
+	}
+
+	/**
+	 * Get a slice from loader using cached chunks
+	 * @param loader
+	 * @param mon
+	 * @param slice slice of loader's shape
+	 * @param chunk chunk shape (can be null to use default)
+	 * @param dtype can be -1 for unknown
+	 * @param isize number of elements per item (can be -1 for unknown)
+	 * @return slice of a dataset
+	 * @throws DatasetException
+	 */
+	public Dataset getSlice(ILazyLoader loader, IMonitor mon, SliceND slice, int[] chunk, int dtype, int isize) throws DatasetException {
+		return getSlice(loader, mon, slice, chunk, dtype, isize, null, null);
+	}
+
+	/**
+	 * Get a slice from loader using cached chunks. The selected elements of each chunk are copied
+	 * straight into the output
+	 * @param loader
+	 * @param mon
+	 * @param slice slice of loader's shape
+	 * @param chunk chunk shape (can be null to use default)
+	 * @param dtype can be -1 for unknown
+	 * @param isize number of elements per item (can be -1 for unknown)
+	 * @param out output dataset (can be null to create one of slice's shape)
+	 * @param outStart position in output of first element of slice (can be null for origin)
+	 * @return output dataset
+	 * @throws DatasetException
+	 */
+	public Dataset getSlice(ILazyLoader loader, IMonitor mon, SliceND slice, int[] chunk, int dtype, int isize,
+			Dataset out, int[] outStart) throws DatasetException {
+		final int[] source = slice.getSourceShape();
+		final int rank = source.length;
+		if (chunk == null || chunk.length != rank) {
+			chunk = getChunkShape(source, dtype, isize);
+		} else {
+			for (int i = 0; i < rank; i++) {
+				if (chunk[i] < 1) {
+					throw new IllegalArgumentException("Chunk shape must be positive");
+				}
+			}
+		}
+
+		final int[] lshape = slice.getShape();
+		final int[] lstart = slice.getStart();
+		final int[] lstep = slice.getStep();
+		boolean direct = slice.isExpanded() || DatasetUtils.calculateSize(lshape) == 0;
+		for (int i = 0; i < rank && !direct; i++) {
+			direct = lstep[i] < 0; // only support forward slices
+		}
+		if (outStart == null) {
+			outStart = new int[lshape.length];
+		}
+		if (direct) {
+			Dataset d = DatasetUtils.convertToDataset(loader.getDataset(mon, slice));
+			if (out == null || d == null) {
+				return d;
+			}
+			final int[] ostop = new int[lshape.length];
+			for (int i = 0; i < ostop.length; i++) {
+				ostop[i] = outStart[i] + lshape[i];
+			}
+			out.setSlice(d, outStart, ostop, null);
+			return out;
+		}
+
+		// bounding box of slice and chunks that contain selected positions
+		final int[] lo = new int[rank];
+		final int[] hi = new int[rank];
+		final int[][] cpos = new int[rank][];
+		for (int i = 0; i < rank; i++) {
+			lo[i] = lstart[i];
+			hi[i] = lstart[i] + (lshape[i] - 1) * lstep[i] + 1;
+			cpos[i] = getChunkPositions(lo[i], hi[i], lstep[i], chunk[i]);
+		}
+
+		final int[] pos = new int[rank];
+		final int[] cstart = new int[rank];
+		final int[] cstop = new int[rank];
+		final int[] vstart = new int[rank];
+		final int[] vstop = new int[rank];
+		final int[] ostart = new int[rank];
+		final int[] ostop = new int[rank];
+		while (true) {
+			for (int i = 0; i < rank; i++) {
+				cstart[i] = cpos[i][pos[i]] * chunk[i];
+				cstop[i] = Math.min(cstart[i] + chunk[i], source[i]);
+				final int b = Math.max(cstart[i], lo[i]);
+				final int e = Math.min(cstop[i], hi[i]);
+				final int f = (b - lo[i] + lstep[i] - 1) / lstep[i]; // first selected in chunk
+				final int n = (e - lo[i] + lstep[i] - 1) / lstep[i] - f;
+				vstart[i] = lo[i] + f * lstep[i] - cstart[i];
+				vstop[i] = vstart[i] + (n - 1) * lstep[i] + 1;
+				ostart[i] = outStart[i] + f;
+				ostop[i] = ostart[i] + n;
+			}
+			Dataset c = getChunk(loader, mon, source, cstart.clone(), cstop.clone());
+			if (c == null) {
+				return null;
+			}
+			if (out == null) {
+				out = DatasetFactory.zeros(c.getElementsPerItem(), lshape, c.getDType());
+			}
+			out.setSlice(c.getSliceView(vstart, vstop, lstep), ostart, ostop, null);
+
+			int j = rank - 1;
+			for (; j >= 0; j--) {
+				if (++pos[j] < cpos[j].length) {
+					break;
+				}
+				pos[j] = 0;
+			}
+			if (j < 0) {
+				break;
+			}
+		}
+
+		return out;
+	}
+
+	/**
+	 * @param lo first position
+	 * @param hi end of positions
+	 * @param step
+	 * @param chunk length
+	 * @return positions of chunks that contain positions selected by step
+	 */
+	private static int[] getChunkPositions(int lo, int hi, int step, int chunk) {
+		final int cbeg = lo / chunk;
+		final int cend = (hi - 1) / chunk + 1;
+		final int[] cpos = new int[cend - cbeg];
+		int n = 0;
+		for (int k = cbeg; k < cend; k++) {
+			final int b = Math.max(lo, k * chunk);
+			final int p = lo + ((b - lo + step - 1) / step) * step; // first selected position in chunk
+			if (p < Math.min(hi, (k + 1) * chunk)) {
+				cpos[n++] = k;
+			}
+		}
+		return Arrays.copyOf(cpos, n);
+	}
+
+	private Dataset getChunk(ILazyLoader loader, IMonitor mon, int[] source, int[] start, int[] stop) throws DatasetException {
+		final Key key = new Key(loader, start, stop);
+		final long g;
+		synchronized (this) {
+			Dataset c = chunks.get(key);
+			if (c != null) {
+				hits++;
+				return c;
+			}
+			misses++;
+			g = generation;
+		}
+
+		IDataset d = loader.getDataset(mon, new SliceND(source, start, stop, null));
+		if (d == null) {
+			return null;
+		}
+		Dataset c = DatasetUtils.convertToDataset(d);
+		final int rank = start.length;
+		final int[] cshape = new int[rank];
+		for (int i = 0; i < rank; i++) {
+			cshape[i] = stop[i] - start[i];
+		}
+		if (!Arrays.equals(c.getShapeRef(), cshape)) { // loaders can change rank
+			c = c.getView();
+			c.setShape(cshape);
+		}
+		final int n = c.getNbytes();
+		if (n > maxBytes) {
+			return c;
+		}
+
+		synchronized (this) {
+			if (generation != g) { // may have been read before source was modified
+				return c;
+			}
+			Dataset old = chunks.put(key, c);
+			if (old != null) {
+				bytes -= old.getNbytes();
+			}
+			bytes += n;
+			Iterator<Dataset> it = chunks.values().iterator();
+			while (bytes > maxBytes && it.hasNext()) {
+				Dataset e = it.next();
+				if (e == c) {
+					continue;
+				}
+				bytes -= e.getNbytes();
+				it.remove();
+				evictions++;
+			}
+		}
+		return c;
+	}
+}
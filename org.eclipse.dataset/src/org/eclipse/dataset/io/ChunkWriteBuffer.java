@@ -0,0 +1,577 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+import org.eclipse.dataset.DatasetException;
+import org.eclipse.dataset.IDataset;
+import org.eclipse.dataset.ILazyWriteableDataset;
+import org.eclipse.dataset.IMonitor;
+import org.eclipse.dataset.SliceND;
+import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.DatasetFactory;
+import org.eclipse.dataset.dense.DatasetUtils;
+
+/**
+ * Write-behind buffer for a lazy saver. Slices with unit steps are copied into in-memory blocks
+ * on a regular grid of chunks and each block is written by the saver once it is full. Writes are
+ * run one at a time on an executor (by default, that of {@link AsyncSliceReader}) so writers do
+ * not wait for the saver unless the number of full blocks waiting to be written reaches a limit.
+ * <p>
+ * Partially filled blocks are only written by {@link #flush()} or, for blocks that overlap a slice,
+ * by {@link #flush(SliceND)}. Other slices are written directly once all pending blocks have been
+ * written. Flushes, and writers that reach the limit, write any queued blocks in the calling thread
+ * rather than wait for the executor, so they can be called from a thread of that executor. Errors
+ * from writes in the background are thrown by the next call to
+ * {@link #write(IMonitor, IDataset, SliceND)} or a flush.
+ * <p>
+ * When a cache is set, chunks it holds from the saver are invalidated after each write completes.
+ */
+public class ChunkWriteBuffer {
+	/**
+	 * Default number of full chunks that can wait to be written
+	 */
+	public static final int DEFAULT_MAX_PENDING = 4;
+
+	private final ILazySaver saver;
+	private final int[] chunks;
+	private final int[] maxShape;
+	private final int[] limit;
+	private final int dtype;
+	private final int isize;
+	private final Executor executor;
+	private final Semaphore permits;
+
+	private final Map<Position, Block> blocks = new HashMap<Position, Block>();
+	private final LinkedList<Task> queue = new LinkedList<Task>();
+	private boolean draining = false;
+	private Task current = null; // task being written
+	private volatile ChunkCache cache = null;
+	private volatile int[] savedShape;
+	private DatasetException error = null;
+
+	/**
+	 * Position of chunk in grid
+	 */
+	private static class Position {
+		private final int[] index;
+
+		Position(int[] index) {
+			this.index = index;
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(index);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Position && Arrays.equals(index, ((Position) obj).index);
+		}
+	}
+
+	/**
+	 * In-memory block of a chunk
+	 */
+	private class Block {
+		final int[] start;
+		final int[] stop;
+		final int[] shape;
+		final Dataset data;
+		final boolean[] filled;
+		final List<int[][]> regions = new ArrayList<int[][]>();
+		int count = 0;
+
+		Block(int[] start, int[] stop) {
+			this.start = start;
+			this.stop = stop;
+			int rank = start.length;
+			shape = new int[rank];
+			for (int i = 0; i < rank; i++) {
+				shape[i] = stop[i] - start[i];
+			}
+			data = DatasetFactory.zeros(isize, shape, dtype);
+			filled = new boolean[data.getSize()];
+		}
+
+		/**
+		 * Copy region of data into block
+		 * @param d data in shape of slice
+		 * @param dstart start of slice
+		 * @param rstart start of region
+		 * @param rstop stop of region
+		 */
+		void copy(Dataset d, int[] dstart, int[] rstart, int[] rstop) {
+			int rank = start.length;
+			int[] sstart = new int[rank];
+			int[] sstop = new int[rank];
+			int[] bstart = new int[rank];
+			int[] bstop = new int[rank];
+			for (int i = 0; i < rank; i++) {
+				sstart[i] = rstart[i] - dstart[i];
+				sstop[i] = rstop[i] - dstart[i];
+				bstart[i] = rstart[i] - start[i];
+				bstop[i] = rstop[i] - start[i];
+			}
+			data.setSlice(d.getSliceView(sstart, sstop, null), bstart, bstop, null);
+			regions.add(new int[][] {rstart, rstop});
+
+			// mark items as filled
+			int[] pos = bstart.clone();
+			while (true) {
+				int index = 0;
+				for (int i = 0; i < rank; i++) {
+					index = index * shape[i] + pos[i];
+				}
+				if (!filled[index]) {
+					filled[index] = true;
+					count++;
+				}
+				int j = rank - 1;
+				for (; j >= 0; j--) {
+					if (++pos[j] < bstop[j]) {
+						break;
+					}
+					pos[j] = bstart[j];
+				}
+				if (j < 0) {
+					break;
+				}
+			}
+		}
+
+		boolean isFull() {
+			return count == filled.length;
+		}
+
+		/**
+		 * @return tasks to write filled items
+		 */
+		List<Task> getTasks() {
+			List<Task> tasks = new ArrayList<Task>();
+			if (isFull()) {
+				tasks.add(new Task(data, start, stop, false));
+				return tasks;
+			}
+
+			// write bounding box of regions if it is filled, otherwise each region
+			int rank = start.length;
+			int[] lo = stop.clone();
+			int[] hi = start.clone();
+			for (int[][] r : regions) {
+				for (int i = 0; i < rank; i++) {
+					lo[i] = Math.min(lo[i], r[0][i]);
+					hi[i] = Math.max(hi[i], r[1][i]);
+				}
+			}
+			long size = 1;
+			for (int i = 0; i < rank; i++) {
+				size *= hi[i] - lo[i];
+			}
+			if (size == count) {
+				regions.clear();
+				regions.add(new int[][] {lo, hi});
+			}
+			for (int[][] r : regions) {
+				int[] bstart = new int[rank];
+				int[] bstop = new int[rank];
+				for (int i = 0; i < rank; i++) {
+					bstart[i] = r[0][i] - start[i];
+					bstop[i] = r[1][i] - start[i];
+				}
+				tasks.add(new Task(data.getSlice(bstart, bstop, null), r[0], r[1], false));
+			}
+			return tasks;
+		}
+	}
+
+	/**
+	 * Write of data to a region
+	 */
+	private static class Task {
+		final Dataset data;
+		final int[] start;
+		final int[] stop;
+		final boolean permit;
+
+		Task(Dataset data, int[] start, int[] stop, boolean permit) {
+			this.data = data;
+			this.start = start;
+			this.stop = stop;
+			this.permit = permit;
+		}
+	}
+
+	private static boolean overlaps(int[] start, int[] stop, int[] lo, int[] hi) {
+		for (int i = 0; i < start.length; i++) {
+			if (hi[i] <= start[i] || lo[i] >= stop[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private final Runnable drainer = new Runnable() {
+		@Override
+		public void run() {
+			try {
+				writeQueued(true);
+			} catch (InterruptedException e) {
+				synchronized (ChunkWriteBuffer.this) {
+					draining = false;
+					ChunkWriteBuffer.this.notifyAll();
+				}
+				Thread.currentThread().interrupt();
+			}
+		}
+	};
+
+	/**
+	 * Write queued tasks in calling thread until queue is empty. Tasks are written one at a time,
+	 * in order, by whichever thread takes them
+	 * @param drainer true if called by drainer
+	 * @throws InterruptedException
+	 */
+	private void writeQueued(final boolean drainer) throws InterruptedException {
+		while (true) {
+			final Task t;
+			synchronized (this) {
+				while (current != null) { // another thread is writing
+					wait();
+				}
+				t = queue.poll();
+				if (t == null) {
+					if (drainer) {
+						draining = false;
+						notifyAll();
+					}
+					return;
+				}
+				current = t;
+			}
+			try {
+				if (getError() == null) {
+					SliceND s = new SliceND(savedShape, maxShape, t.start, t.stop, null);
+					saver.setSlice(null, t.data, s);
+					savedShape = s.getSourceShape();
+					invalidate(t.start, t.stop);
+				}
+			} catch (DatasetException e) {
+				setError(e);
+			} catch (RuntimeException e) {
+				setError(new DatasetException("Could not write chunk", e));
+			} finally {
+				if (t.permit) {
+					permits.release();
+				}
+				synchronized (this) {
+					current = null;
+					notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Create a buffer
+	 * @param saver
+	 * @param shape current shape of data held by saver
+	 * @param maxShape maximum shape (can be null)
+	 * @param chunks shape of chunks
+	 * @param dtype dataset type
+	 * @param isize number of elements per item
+	 */
+	public ChunkWriteBuffer(ILazySaver saver, int[] shape, int[] maxShape, int[] chunks, int dtype, int isize) {
+		this(saver, shape, maxShape, chunks, dtype, isize, DEFAULT_MAX_PENDING, null);
+	}
+
+	/**
+	 * Create a buffer
+	 * @param saver
+	 * @param shape current shape of data held by saver
+	 * @param maxShape maximum shape (can be null)
+	 * @param chunks shape of chunks
+	 * @param dtype dataset type
+	 * @param isize number of elements per item
+	 * @param maxPending maximum number of full chunks waiting to be written
+	 * @param executor used to write chunks (can be null to use shared pool)
+	 */
+	public ChunkWriteBuffer(ILazySaver saver, int[] shape, int[] maxShape, int[] chunks, int dtype, int isize, int maxPending, Executor executor) {
+		if (saver == null) {
+			throw new IllegalArgumentException("Saver must not be null");
+		}
+		if (chunks == null || chunks.length != shape.length) {
+			throw new IllegalArgumentException("Chunks must be given and match rank of shape");
+		}
+		for (int c : chunks) {
+			if (c <= 0) {
+				throw new IllegalArgumentException("Chunks must be positive");
+			}
+		}
+		if (maxPending < 1) {
+			throw new IllegalArgumentException("Maximum number of pending chunks must be positive");
+		}
+		this.saver = saver;
+		this.savedShape = shape.clone();
+		this.maxShape = maxShape == null ? null : maxShape.clone();
+		limit = new int[shape.length];
+		for (int i = 0; i < shape.length; i++) {
+			limit[i] = maxShape == null ? shape[i] : maxShape[i];
+		}
+		this.chunks = chunks.clone();
+		this.dtype = dtype;
+		this.isize = isize;
+		this.permits = new Semaphore(maxPending);
+		this.executor = executor == null ? AsyncSliceReader.getExecutor() : executor;
+	}
+
+	/**
+	 * @return shape of chunks
+	 */
+	public int[] getChunking() {
+		return chunks.clone();
+	}
+
+	/**
+	 * Set cache whose chunks read from saver are invalidated after writes
+	 * @param cache can be null
+	 */
+	public void setCache(ChunkCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * @return cache whose chunks read from saver are invalidated after writes (can be null)
+	 */
+	public ChunkCache getCache() {
+		return cache;
+	}
+
+	private void invalidate(int[] start, int[] stop) {
+		ChunkCache c = cache;
+		if (c != null) {
+			c.invalidate(saver, start, stop);
+		}
+	}
+
+	/**
+	 * @return number of partially filled chunks held in memory
+	 */
+	public synchronized int getNumberOfBufferedChunks() {
+		return blocks.size();
+	}
+
+	private synchronized DatasetException getError() {
+		return error;
+	}
+
+	private synchronized void setError(DatasetException e) {
+		if (error == null) {
+			error = e;
+		}
+	}
+
+	private synchronized void checkError() throws DatasetException {
+		if (error != null) {
+			DatasetException e = error;
+			error = null;
+			throw e;
+		}
+	}
+
+	/**
+	 * Write slice of data
+	 * @param mon
+	 * @param data
+	 * @param slice
+	 * @throws DatasetException
+	 */
+	public void write(IMonitor mon, IDataset data, SliceND slice) throws DatasetException {
+		checkError();
+
+		final int[] shape = slice.getShape();
+		final int rank = shape.length;
+		boolean buffer = rank > 0 && rank == chunks.length && data.getSize() == DatasetUtils.calculateSize(shape);
+		for (int i = 0; buffer && i < rank; i++) {
+			buffer = slice.getStep()[i] == 1;
+		}
+		if (!buffer) {
+			flush();
+			synchronized (this) {
+				saver.setSlice(mon, data, slice);
+				savedShape = slice.getSourceShape().clone();
+			}
+			invalidate(null, null);
+			return;
+		}
+		if (DatasetUtils.calculateSize(shape) == 0) {
+			return;
+		}
+
+		final Dataset d = DatasetUtils.convertToDataset(data).getView();
+		d.setShape(shape);
+		final int[] start = slice.getStart().clone();
+		final int[] stop = slice.getStop().clone();
+		final List<Block> full = new ArrayList<Block>();
+		synchronized (this) {
+			int[] lo = new int[rank];
+			int[] hi = new int[rank];
+			for (int i = 0; i < rank; i++) {
+				lo[i] = start[i] / chunks[i];
+				hi[i] = (stop[i] - 1) / chunks[i];
+			}
+
+			// visit each overlapping chunk
+			int[] c = lo.clone();
+			while (true) {
+				Position p = new Position(c.clone());
+				Block b = blocks.get(p);
+				if (b == null) {
+					int[] bstart = new int[rank];
+					int[] bstop = new int[rank];
+					for (int i = 0; i < rank; i++) {
+						bstart[i] = c[i] * chunks[i];
+						bstop[i] = bstart[i] + chunks[i];
+						if (limit[i] != ILazyWriteableDataset.UNLIMITED) {
+							bstop[i] = Math.min(bstop[i], limit[i]);
+						}
+					}
+					b = new Block(bstart, bstop);
+					blocks.put(p, b);
+				}
+				int[] rstart = new int[rank];
+				int[] rstop = new int[rank];
+				for (int i = 0; i < rank; i++) {
+					rstart[i] = Math.max(start[i], b.start[i]);
+					rstop[i] = Math.min(stop[i], b.stop[i]);
+				}
+				b.copy(d, start, rstart, rstop);
+				if (b.isFull()) {
+					blocks.remove(p);
+					full.add(b);
+				}
+
+				int j = rank - 1;
+				for (; j >= 0; j--) {
+					if (++c[j] <= hi[j]) {
+						break;
+					}
+					c[j] = lo[j];
+				}
+				if (j < 0) {
+					break;
+				}
+			}
+		}
+
+		for (Block b : full) {
+			while (!permits.tryAcquire()) { // write pending chunks as the queue is full
+				try {
+					writeQueued(false);
+				} catch (InterruptedException e) {
+					throw new DatasetException("Interrupted while waiting to write chunk", e);
+				}
+			}
+			synchronized (this) {
+				queue.add(new Task(b.data, b.start, b.stop, true));
+				drain();
+			}
+		}
+	}
+
+	/**
+	 * Start writing queued tasks if not already doing so
+	 */
+	private synchronized void drain() {
+		if (!draining && !queue.isEmpty()) {
+			draining = true;
+			executor.execute(drainer);
+		}
+	}
+
+	/**
+	 * Write buffered data that overlaps a slice, and all pending writes, and wait until they have
+	 * been written
+	 * @param slice
+	 * @throws DatasetException
+	 */
+	public void flush(SliceND slice) throws DatasetException {
+		final int rank = chunks.length;
+		final int[] shape = slice.getShape();
+		if (shape.length != rank) {
+			flush();
+			return;
+		}
+		if (DatasetUtils.calculateSize(shape) == 0) {
+			return;
+		}
+
+		// bounding box of slice
+		final int[] start = slice.getStart();
+		final int[] step = slice.getStep();
+		final int[] lo = new int[rank];
+		final int[] hi = new int[rank];
+		for (int i = 0; i < rank; i++) {
+			final int end = start[i] + (shape[i] - 1) * step[i];
+			lo[i] = Math.min(start[i], end);
+			hi[i] = Math.max(start[i], end) + 1;
+		}
+
+		synchronized (this) {
+			Iterator<Block> it = blocks.values().iterator();
+			while (it.hasNext()) {
+				Block b = it.next();
+				if (overlaps(b.start, b.stop, lo, hi)) {
+					queue.addAll(b.getTasks());
+					it.remove();
+				}
+			}
+		}
+		writePending();
+	}
+
+	/**
+	 * Write all buffered data and wait until it has been written
+	 * @throws DatasetException
+	 */
+	public void flush() throws DatasetException {
+		synchronized (this) {
+			for (Block b : blocks.values()) {
+				queue.addAll(b.getTasks());
+			}
+			blocks.clear();
+		}
+		writePending();
+	}
+
+	/**
+	 * Write queued tasks in calling thread, wait for any being written by another thread and
+	 * throw any error
+	 * @throws DatasetException
+	 */
+	private void writePending() throws DatasetException {
+		try {
+			writeQueued(false);
+		} catch (InterruptedException e) {
+			throw new DatasetException("Interrupted while waiting for chunks to be written", e);
+		}
+		checkError();
+	}
+}
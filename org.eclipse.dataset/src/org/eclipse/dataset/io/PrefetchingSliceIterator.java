@@ -0,0 +1,148 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.io;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.eclipse.dataset.DatasetException;
+import org.eclipse.dataset.IDataset;
+import org.eclipse.dataset.ILazyDataset;
+import org.eclipse.dataset.IMonitor;
+import org.eclipse.dataset.SliceND;
+import org.eclipse.dataset.SliceNDIterator;
+
+/**
+ * Slice iterator that reads ahead. While the current slice is processed, a number of upcoming
+ * slices are read in background with {@link AsyncSliceReader}. Slices are as given by a
+ * {@link SliceNDIterator} where the omitted axes are kept whole.
+ * <p>
+ * Use it in a while loop:
+ * <pre>
+ *  PrefetchingSliceIterator it = new PrefetchingSliceIterator(lazy, 2, 1, 2);
+ *  try {
+ *      while (it.hasNext()) {
+ *          IDataset frame = it.getCurrent();
+ *          ...
+ *      }
+ *  } finally {
+ *      it.close();
+ *  }
+ * </pre>
+ */
+public class PrefetchingSliceIterator {
+	private final ExecutorService executor;
+	private final ILazyDataset data;
+	private final IMonitor monitor;
+	private final int depth;
+	private final SliceNDIterator iterator;
+	private final ArrayDeque<Entry> queue;
+	private boolean more;
+	private Entry current;
+
+	private static class Entry {
+		private final SliceND slice;
+		private final SliceND output;
+		private final Future<IDataset> future;
+
+		public Entry(SliceND slice, SliceND output, Future<IDataset> future) {
+			this.slice = slice;
+			this.output = output;
+			this.future = future;
+		}
+	}
+
+	/**
+	 * Create an iterator over all of lazy dataset that uses the shared pool
+	 * @param data
+	 * @param depth number of slices to read ahead
+	 * @param axes axes to omit from iteration (these are kept whole in each slice)
+	 */
+	public PrefetchingSliceIterator(ILazyDataset data, int depth, int... axes) {
+		this(AsyncSliceReader.getExecutor(), data, null, new SliceND(data.getShape()), depth, axes);
+	}
+
+	/**
+	 * Create an iterator
+	 * @param executor
+	 * @param data
+	 * @param monitor can be null
+	 * @param slice of lazy dataset to iterate over
+	 * @param depth number of slices to read ahead
+	 * @param axes axes to omit from iteration (these are kept whole in each slice)
+	 */
+	public PrefetchingSliceIterator(ExecutorService executor, ILazyDataset data, IMonitor monitor, SliceND slice, int depth, int... axes) {
+		if (depth < 0) {
+			throw new IllegalArgumentException("Read ahead depth must not be negative");
+		}
+		this.executor = executor;
+		this.data = data;
+		this.monitor = monitor;
+		this.depth = depth;
+		iterator = new SliceNDIterator(slice, axes);
+		queue = new ArrayDeque<Entry>(depth + 1);
+		more = true;
+	}
+
+	/**
+	 * Move on to next slice
+	 * @return true if there is another slice
+	 */
+	public boolean hasNext() {
+		while (more && queue.size() <= depth) {
+			more = iterator.hasNext();
+			if (more) {
+				SliceND s = iterator.getCurrentSlice();
+				queue.add(new Entry(s.clone(), iterator.getOutputSlice().clone(), AsyncSliceReader.getSlice(executor, data, monitor, s)));
+			}
+		}
+		current = queue.poll();
+		return current != null;
+	}
+
+	/**
+	 * Get current slice, waiting for it to be read if necessary
+	 * @return slice of lazy dataset
+	 * @throws DatasetException
+	 */
+	public IDataset getCurrent() throws DatasetException {
+		if (current == null) {
+			throw new IllegalStateException("No current slice");
+		}
+		return AsyncSliceReader.get(current.future);
+	}
+
+	/**
+	 * @return current slice of lazy dataset
+	 */
+	public SliceND getCurrentSlice() {
+		return current == null ? null : current.slice;
+	}
+
+	/**
+	 * @return output or destination slice of current slice
+	 */
+	public SliceND getOutputSlice() {
+		return current == null ? null : current.output;
+	}
+
+	/**
+	 * Stop reading ahead and cancel any reads in progress
+	 */
+	public void close() {
+		more = false;
+		current = null;
+		for (Entry e : queue) {
+			e.future.cancel(true);
+		}
+		queue.clear();
+	}
+}
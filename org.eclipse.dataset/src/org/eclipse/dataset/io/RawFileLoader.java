@@ -0,0 +1,310 @@
+/*-
+ * Copyright 2015 Diamond Light Source Ltd.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.eclipse.dataset.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.eclipse.dataset.DatasetException;
+import org.eclipse.dataset.IDataset;
+import org.eclipse.dataset.IMonitor;
+import org.eclipse.dataset.SliceND;
+import org.eclipse.dataset.dense.DTypeUtils;
+import org.eclipse.dataset.dense.Dataset;
+import org.eclipse.dataset.dense.DatasetFactory;
+import org.eclipse.dataset.dense.DatasetUtils;
+import org.eclipse.dataset.internal.dense.LazyDataset;
+
+/**
+ * Loader for raw binary files of items stored in row-major order. Each slice is copied into a new
+ * dataset, which holds its values in a heap array like any other dataset, so the loader does not
+ * provide off-heap storage. The file is read through a read-only memory mapping so only the
+ * region covered by a slice is paged in and the file can hold more items than fit in a dataset.
+ * <p>
+ * Files up to 2GB are mapped once; larger files are mapped per slice.
+ */
+public class RawFileLoader implements ILazyLoader {
+	private static final long serialVersionUID = 8914367452367016475L;
+
+	private final String path;
+	private final int dtype;
+	private final int isize;
+	private final int[] shape;
+	private final long offset;
+	private final boolean bigEndian;
+	private transient volatile ByteBuffer mapped = null; // set once by first thread to load
+
+	/**
+	 * Create a loader
+	 * @param path of file
+	 * @param dtype dataset type
+	 * @param isize number of elements per item
+	 * @param shape of data in file
+	 * @param offset number of bytes to skip at start of file
+	 * @param order byte order of data in file
+	 */
+	public RawFileLoader(String path, int dtype, int isize, int[] shape, long offset, ByteOrder order) {
+		if (dtype == Dataset.STRING || dtype == Dataset.OBJECT) {
+			throw new IllegalArgumentException("Dataset type must be numerical or boolean");
+		}
+		if (offset < 0) {
+			throw new IllegalArgumentException("Offset must not be negative");
+		}
+		this.path = path;
+		this.dtype = dtype;
+		this.isize = isize;
+		this.shape = shape.clone();
+		this.offset = offset;
+		this.bigEndian = order == ByteOrder.BIG_ENDIAN;
+	}
+
+	/**
+	 * Create a lazy dataset of a raw binary file
+	 * @param name
+	 * @param path of file
+	 * @param dtype dataset type
+	 * @param shape of data in file
+	 * @param offset number of bytes to skip at start of file
+	 * @param order byte order of data in file
+	 * @return lazy dataset
+	 */
+	public static LazyDataset createLazyDataset(String name, String path, int dtype, int[] shape, long offset, ByteOrder order) {
+		int isize = DTypeUtils.getElementsPerItem(dtype);
+		return new LazyDataset(name, dtype, isize, shape, new RawFileLoader(path, dtype, isize, shape, offset, order));
+	}
+
+	@Override
+	public boolean isFileReadable() {
+		File f = new File(path);
+		return f.isFile() && f.canRead();
+	}
+
+	@Override
+	public IDataset getDataset(IMonitor mon, SliceND slice) throws DatasetException {
+		final int rank = shape.length;
+		final int[] lshape = slice.getShape();
+		final int[] lstart = slice.getStart();
+		final int[] lstep = slice.getStep();
+
+		final Dataset d = DatasetFactory.zeros(isize, lshape, dtype);
+		if (d.getSize() == 0) {
+			return d;
+		}
+		final Object buf = d.getBuffer();
+		final int ebytes = DTypeUtils.getItemsize(dtype, isize) / isize;
+
+		// item strides in file
+		final long[] strides = new long[rank];
+		long s = 1;
+		for (int i = rank - 1; i >= 0; i--) {
+			strides[i] = s;
+			s *= shape[i];
+		}
+
+		// range of items in file covered by slice
+		long lo = 0;
+		long hi = 0;
+		for (int i = 0; i < rank; i++) {
+			long a = lstart[i] * strides[i];
+			long b = (lstart[i] + (lshape[i] - 1L) * lstep[i]) * strides[i];
+			lo += Math.min(a, b);
+			hi += Math.max(a, b);
+		}
+
+		final int n = rank == 0 ? 1 : lshape[rank - 1];
+		final long step = rank == 0 ? 1 : lstep[rank - 1];
+		final long rlen = ((n - 1) * Math.abs(step) + 1) * isize * ebytes; // bytes in a row
+		ByteBuffer region = getRegion(lo, hi + 1);
+		long base = lo;
+
+		final int[] pos = new int[Math.max(0, rank - 1)];
+		int off = 0;
+		while (true) {
+			long first = rank == 0 ? 0 : lstart[rank - 1] * strides[rank - 1];
+			for (int i = 0; i < rank - 1; i++) {
+				first += (lstart[i] + (long) pos[i] * lstep[i]) * strides[i];
+			}
+			ByteBuffer row;
+			long r = step < 0 ? first + (n - 1) * step : first; // lowest item in row
+			if (region != null) {
+				row = region.duplicate().order(region.order());
+				row.position((int) ((r - base) * isize * ebytes));
+			} else {
+				row = map(offset + r * isize * ebytes, rlen);
+			}
+			copy(row, (int) ((first - r) * isize), (int) step * isize, n, buf, off);
+			off += n * isize;
+
+			if (mon != null) {
+				if (mon.isCancelled()) {
+					throw new DatasetException("Slice cancelled");
+				}
+				mon.worked(1);
+			}
+
+			int j = rank - 2;
+			for (; j >= 0; j--) {
+				if (++pos[j] < lshape[j]) {
+					break;
+				}
+				pos[j] = 0;
+			}
+			if (j < 0) {
+				break;
+			}
+		}
+		return d;
+	}
+
+	/**
+	 * @param lo first item
+	 * @param hi end item
+	 * @return buffer positioned at first item or null if region is too large to be mapped
+	 * @throws DatasetException
+	 */
+	private ByteBuffer getRegion(long lo, long hi) throws DatasetException {
+		final long ibytes = (long) DTypeUtils.getItemsize(dtype, isize);
+		final long total = DatasetUtils.calculateLongSize(shape) * ibytes;
+		if (total <= Integer.MAX_VALUE) {
+			ByteBuffer m = mapped;
+			if (m == null) {
+				synchronized (this) {
+					m = mapped;
+					if (m == null) {
+						m = map(offset, total);
+						mapped = m;
+					}
+				}
+			}
+			ByteBuffer b = m.duplicate().order(m.order());
+			b.position((int) (lo * ibytes));
+			return b.slice().order(m.order());
+		}
+		final long length = (hi - lo) * ibytes;
+		if (length > Integer.MAX_VALUE) {
+			return null;
+		}
+		return map(offset + lo * ibytes, length);
+	}
+
+	private ByteBuffer map(long position, long length) throws DatasetException {
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(path, "r");
+			FileChannel channel = file.getChannel();
+			ByteBuffer b = channel.map(MapMode.READ_ONLY, position, length);
+			b.order(bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+			return b;
+		} catch (IOException e) {
+			throw new DatasetException("Could not map file: " + path, e);
+		} finally {
+			if (file != null) {
+				try {
+					file.close(); // mapping remains valid after closing
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copy items from buffer
+	 * @param b buffer positioned at lowest item
+	 * @param first element to start from (relative to position)
+	 * @param step number of elements between items
+	 * @param n number of items
+	 * @param buf destination
+	 * @param off offset in destination
+	 */
+	private void copy(ByteBuffer b, int first, int step, int n, Object buf, int off) {
+		b = b.slice().order(b.order());
+		final boolean contiguous = step == isize;
+		final int len = n * isize;
+		if (buf instanceof double[]) {
+			final double[] data = (double[]) buf;
+			if (contiguous) {
+				b.asDoubleBuffer().get(data, off, len);
+			} else {
+				for (int i = 0, j = first; i < n; i++, j += step) {
+					for (int k = 0; k < isize; k++) {
+						data[off++] = b.getDouble((j + k) * 8);
+					}
+				}
+			}
+		} else if (buf instanceof float[]) {
+			final float[] data = (float[]) buf;
+			if (contiguous) {
+				b.asFloatBuffer().get(data, off, len);
+			} else {
+				for (int i = 0, j = first; i < n; i++, j += step) {
+					for (int k = 0; k < isize; k++) {
+						data[off++] = b.getFloat((j + k) * 4);
+					}
+				}
+			}
+		} else if (buf instanceof long[]) {
+			final long[] data = (long[]) buf;
+			if (contiguous) {
+				b.asLongBuffer().get(data, off, len);
+			} else {
+				for (int i = 0, j = first; i < n; i++, j += step) {
+					for (int k = 0; k < isize; k++) {
+						data[off++] = b.getLong((j + k) * 8);
+					}
+				}
+			}
+		} else if (buf instanceof int[]) {
+			final int[] data = (int[]) buf;
+			if (contiguous) {
+				b.asIntBuffer().get(data, off, len);
+			} else {
+				for (int i = 0, j = first; i < n; i++, j += step) {
+					for (int k = 0; k < isize; k++) {
+						data[off++] = b.getInt((j + k) * 4);
+					}
+				}
+			}
+		} else if (buf instanceof short[]) {
+			final short[] data = (short[]) buf;
+			if (contiguous) {
+				b.asShortBuffer().get(data, off, len);
+			} else {
+				for (int i = 0, j = first; i < n; i++, j += step) {
+					for (int k = 0; k < isize; k++) {
+						data[off++] = b.getShort((j + k) * 2);
+					}
+				}
+			}
+		} else if (buf instanceof byte[]) {
+			final byte[] data = (byte[]) buf;
+			if (contiguous) {
+				b.get(data, off, len);
+			} else {
+				for (int i = 0, j = first; i < n; i++, j += step) {
+					for (int k = 0; k < isize; k++) {
+						data[off++] = b.get(j + k);
+					}
+				}
+			}
+		} else if (buf instanceof boolean[]) {
+			final boolean[] data = (boolean[]) buf;
+			for (int i = 0, j = first; i < n; i++, j += step) {
+				data[off++] = b.get(j) != 0;
+			}
+		} else {
+			throw new UnsupportedOperationException("Dataset type not supported");
+		}
+	}
+}